@@ -136,10 +136,12 @@ import org.sonar.server.setting.DatabaseSettingsEnabler;
 import org.sonar.server.setting.ThreadLocalSettings;
 import org.sonar.server.startup.LogServerId;
 import org.sonar.server.test.index.TestIndexer;
+import org.sonar.server.user.AuthorizationCache;
 import org.sonar.server.user.DefaultUserFinder;
 import org.sonar.server.user.DeprecatedUserFinder;
 import org.sonar.server.user.index.UserIndex;
 import org.sonar.server.user.index.UserIndexer;
+import org.sonar.server.util.cache.ReferenceDataCache;
 import org.sonar.server.view.index.ViewIndex;
 import org.sonar.server.view.index.ViewIndexer;
 import org.sonarqube.ws.Rules;
@@ -330,6 +332,8 @@ public class ComputeEngineContainerImpl implements ComputeEngineContainer {
 
       // permissions
       PermissionRepository.class,
+      AuthorizationCache.class, // used in ComponentService and ComponentCleanerService
+      ReferenceDataCache.class, // used in ComponentService and ComponentCleanerService
 
       // components
       ComponentFinder.class, // used in ComponentService
@@ -88,10 +88,10 @@ public class ComputeEngineContainerImplTest {
     assertThat(picoContainer.getComponentAdapters())
       .hasSize(
         CONTAINER_ITSELF
-          + 80 // level 4
+          + 82 // level 4
           + 4 // content of CeConfigurationModule
-          + 3 // content of CeHttpModule
-          + 5 // content of CeQueueModule
+          + 4 // content of CeHttpModule
+          + 7 // content of CeQueueModule
           + 4 // content of ProjectAnalysisTaskModule
           + 4 // content of CeTaskProcessorModule
     );
@@ -20,8 +20,10 @@
 package org.sonar.ce;
 
 import org.sonar.ce.http.CeHttpClient;
+import org.sonar.ce.http.CeHttpQueueListener;
 import org.sonar.ce.log.CeLogging;
 import org.sonar.ce.queue.CeQueueImpl;
+import org.sonar.ce.queue.report.ReportStorageProvider;
 import org.sonar.ce.taskprocessor.ReportTaskProcessorDeclaration;
 import org.sonar.core.platform.Module;
 import org.sonar.server.computation.queue.ReportSubmitter;
@@ -34,6 +36,8 @@ public class CeModule extends Module {
 
       // Queue
       CeQueueImpl.class,
+      CeHttpQueueListener.class,
+      new ReportStorageProvider(),
       ReportSubmitter.class,
 
       // Core tasks processors
@@ -23,6 +23,7 @@ import java.io.File;
 import java.io.IOException;
 import java.net.URI;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 import okhttp3.OkHttpClient;
 import okhttp3.RequestBody;
 import org.apache.commons.io.IOUtils;
@@ -42,8 +43,16 @@ public class CeHttpClient {
 
   private static final String PATH_CHANGE_LOG_LEVEL = "changeLogLevel";
   private static final String PATH_SYSTEM_INFO = "systemInfo";
+  private static final String PATH_TASK_SUBMITTED = "taskSubmitted";
+  static final long NOTIFICATION_TIMEOUT_MS = 500L;
 
   private final File ipcSharedDir;
+  // shared by notifications, which must not wait for a Compute Engine which is slow or down
+  private final TaskSubmittedActionClient taskSubmittedActionClient = new TaskSubmittedActionClient(new OkHttpClient.Builder()
+    .connectTimeout(NOTIFICATION_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+    .readTimeout(NOTIFICATION_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+    .writeTimeout(NOTIFICATION_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+    .build());
 
   public CeHttpClient(Settings props) {
     this.ipcSharedDir = new File(props.getString(PROPERTY_SHARED_PATH));
@@ -119,6 +128,46 @@ public class CeHttpClient {
     }
   }
 
+  /**
+   * Wakes up the idle workers of the Compute Engine. Does nothing if the Compute Engine is not up. Fails if the
+   * Compute Engine does not answer within {@link #NOTIFICATION_TIMEOUT_MS} milliseconds.
+   */
+  public void notifyTaskSubmitted() {
+    call(taskSubmittedActionClient);
+  }
+
+  private static final class TaskSubmittedActionClient implements ActionClient<Void> {
+    private final OkHttpClient okHttpClient;
+
+    private TaskSubmittedActionClient(OkHttpClient okHttpClient) {
+      this.okHttpClient = okHttpClient;
+    }
+
+    @Override
+    public String getPath() {
+      return PATH_TASK_SUBMITTED;
+    }
+
+    @Override
+    public Void getDefault() {
+      return null;
+    }
+
+    @Override
+    public Void call(String url) throws Exception {
+      okhttp3.Request request = new okhttp3.Request.Builder()
+        .post(RequestBody.create(null, new byte[0]))
+        .url(url)
+        .build();
+      okhttp3.Response response = okHttpClient.newCall(request).execute();
+      response.body().close();
+      if (response.code() != 200) {
+        throw new IOException(String.format("Failed to notify Compute Engine of submitted tasks. Code was '%s' for url '%s'", response.code(), url));
+      }
+      return null;
+    }
+  }
+
   private <T> T call(ActionClient<T> actionClient) {
     try (DefaultProcessCommands commands = DefaultProcessCommands.secondary(ipcSharedDir, COMPUTE_ENGINE.getIpcIndex())) {
       if (commands.isUp()) {
@@ -0,0 +1,86 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.http;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.Collection;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.picocontainer.Startable;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.ce.queue.CeQueueListener;
+import org.sonar.ce.queue.CeTask;
+
+/**
+ * Notifies the Compute Engine of the tasks submitted by the web server, so that they are picked up by idle workers
+ * without waiting for the next polling of the queue.
+ * <p>
+ * Notifications are sent by a dedicated thread, so that the submission of tasks is not blocked when the Compute Engine
+ * is slow or down. Submissions received while a notification is pending are coalesced into this notification.
+ * </p>
+ */
+public class CeHttpQueueListener implements CeQueueListener, Startable {
+
+  private final CeHttpClient ceHttpClient;
+  private final ExecutorService executor = Executors.newSingleThreadExecutor(
+    new ThreadFactoryBuilder().setNameFormat("CeHttpQueueListener-%d").setDaemon(true).build());
+  private final AtomicBoolean pendingNotification = new AtomicBoolean(false);
+
+  public CeHttpQueueListener(CeHttpClient ceHttpClient) {
+    this.ceHttpClient = ceHttpClient;
+  }
+
+  @Override
+  public void start() {
+    // notification thread is started on first submission
+  }
+
+  @Override
+  public void onSubmit(Collection<CeTask> tasks) {
+    if (!pendingNotification.compareAndSet(false, true)) {
+      // the pending notification has not been sent yet, it wakes up workers for these tasks too
+      return;
+    }
+    try {
+      executor.execute(this::notifyTaskSubmitted);
+    } catch (RejectedExecutionException e) {
+      // stopped
+      pendingNotification.set(false);
+    }
+  }
+
+  private void notifyTaskSubmitted() {
+    // reset before the call, so that tasks submitted during the call trigger another notification
+    pendingNotification.set(false);
+    try {
+      ceHttpClient.notifyTaskSubmitted();
+    } catch (Exception e) {
+      // tasks are going to be processed at next polling of the queue
+      Loggers.get(CeHttpQueueListener.class).debug("Fail to notify Compute Engine of submitted tasks", e);
+    }
+  }
+
+  @Override
+  public void stop() {
+    executor.shutdownNow();
+  }
+}
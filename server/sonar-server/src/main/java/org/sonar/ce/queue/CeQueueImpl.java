@@ -31,6 +31,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import org.sonar.api.ce.ComputeEngineSide;
+import org.sonar.ce.queue.report.ReportStorage;
 import org.sonar.core.util.UuidFactory;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
@@ -42,6 +43,7 @@ import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Predicates.notNull;
 import static com.google.common.collect.FluentIterable.from;
 import static java.util.Collections.singleton;
+import static java.util.Collections.singletonList;
 import static org.sonar.db.component.ComponentDtoFunctions.toUuid;
 
 @ComputeEngineSide
@@ -49,13 +51,24 @@ public class CeQueueImpl implements CeQueue {
 
   private final DbClient dbClient;
   private final UuidFactory uuidFactory;
+  private final ReportStorage reportStorage;
+  private final CeQueueListener[] listeners;
 
   // state
   private AtomicBoolean submitPaused = new AtomicBoolean(false);
 
-  public CeQueueImpl(DbClient dbClient, UuidFactory uuidFactory) {
+  public CeQueueImpl(DbClient dbClient, UuidFactory uuidFactory, ReportStorage reportStorage, CeQueueListener[] listeners) {
     this.dbClient = dbClient;
     this.uuidFactory = uuidFactory;
+    this.reportStorage = reportStorage;
+    this.listeners = listeners;
+  }
+
+  /**
+   * Used by Pico if no {@link CeQueueListener} is found
+   */
+  public CeQueueImpl(DbClient dbClient, UuidFactory uuidFactory, ReportStorage reportStorage) {
+    this(dbClient, uuidFactory, reportStorage, new CeQueueListener[0]);
   }
 
   @Override
@@ -72,6 +85,7 @@ public class CeQueueImpl implements CeQueue {
       CeQueueDto dto = new CeTaskSubmitToInsertedCeQueueDto(dbSession, dbClient).apply(submission);
       CeTask task = loadTask(dbSession, dto);
       dbSession.commit();
+      notifyListeners(singletonList(task));
       return task;
 
     } finally {
@@ -93,6 +107,7 @@ public class CeQueueImpl implements CeQueue {
         .toList();
       List<CeTask> tasks = loadTasks(dbSession, ceQueueDtos);
       dbSession.commit();
+      notifyListeners(tasks);
       return tasks;
 
     } finally {
@@ -100,6 +115,12 @@ public class CeQueueImpl implements CeQueue {
     }
   }
 
+  private void notifyListeners(List<CeTask> tasks) {
+    for (CeQueueListener listener : listeners) {
+      listener.onSubmit(tasks);
+    }
+  }
+
   protected CeTask loadTask(DbSession dbSession, CeQueueDto dto) {
     if (dto.getComponentUuid() == null) {
       return new CeQueueDtoToCeTask().apply(dto);
@@ -171,7 +192,7 @@ public class CeQueueImpl implements CeQueue {
   protected void remove(DbSession dbSession, CeQueueDto queueDto, CeActivityDto activityDto) {
     dbClient.ceActivityDao().insert(dbSession, activityDto);
     dbClient.ceQueueDao().deleteByUuid(dbSession, queueDto.getUuid());
-    dbClient.ceTaskInputDao().deleteByUuids(dbSession, singleton(queueDto.getUuid()));
+    reportStorage.delete(dbSession, singleton(queueDto.getUuid()));
     dbSession.commit();
   }
 
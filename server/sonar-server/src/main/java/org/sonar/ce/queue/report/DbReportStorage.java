@@ -0,0 +1,100 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.queue.report;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.ce.CeTaskInputDao;
+
+/**
+ * Stores the reports in the table CE_TASK_INPUT. This is the default implementation of {@link ReportStorage}.
+ */
+public class DbReportStorage implements ReportStorage {
+
+  private final DbClient dbClient;
+
+  public DbReportStorage(DbClient dbClient) {
+    this.dbClient = dbClient;
+  }
+
+  @Override
+  public void store(String taskUuid, InputStream report) {
+    try (DbSession dbSession = dbClient.openSession(false)) {
+      dbClient.ceTaskInputDao().insert(dbSession, taskUuid, report);
+      dbSession.commit();
+    }
+  }
+
+  @Override
+  public Optional<InputStream> open(String taskUuid) {
+    DbSession dbSession = dbClient.openSession(false);
+    try {
+      Optional<CeTaskInputDao.DataStream> data = dbClient.ceTaskInputDao().selectData(dbSession, taskUuid);
+      if (data.isPresent()) {
+        return Optional.of(new DataInputStream(dbSession, data.get()));
+      }
+      dbSession.close();
+      return Optional.empty();
+    } catch (RuntimeException e) {
+      dbSession.close();
+      throw e;
+    }
+  }
+
+  @Override
+  public void delete(DbSession dbSession, Collection<String> taskUuids) {
+    dbClient.ceTaskInputDao().deleteByUuids(dbSession, taskUuids);
+  }
+
+  @Override
+  public void deleteOrphans(DbSession dbSession) {
+    List<String> uuids = dbClient.ceTaskInputDao().selectUuidsNotInQueue(dbSession);
+    dbClient.ceTaskInputDao().deleteByUuids(dbSession, uuids);
+  }
+
+  /**
+   * Keeps the session open as long as the BLOB is read
+   */
+  private static class DataInputStream extends FilterInputStream {
+    private final DbSession dbSession;
+    private final CeTaskInputDao.DataStream data;
+
+    private DataInputStream(DbSession dbSession, CeTaskInputDao.DataStream data) {
+      super(data.getInputStream());
+      this.dbSession = dbSession;
+      this.data = data;
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        data.close();
+      } finally {
+        dbSession.close();
+      }
+    }
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.queue.report;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.Set;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.sonar.api.utils.System2;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.core.util.stream.Collectors;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.ce.CeQueueDto;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * Stores the reports as files of a directory which must be shared by the web server and the Compute Engine.
+ * <p>
+ * A report is written to a temporary file which is synced to disk and then atomically renamed, so that
+ * the Compute Engine never reads a partially written report.
+ * </p>
+ */
+public class FileSystemReportStorage implements ReportStorage {
+
+  private static final Logger LOG = Loggers.get(FileSystemReportStorage.class);
+  private static final String REPORT_SUFFIX = ".zip";
+  private static final String TEMP_SUFFIX = ".tmp";
+  // temporary files older than one day can't relate to a submission in progress
+  private static final long TEMP_FILE_MAX_AGE = 24 * 60 * 60 * 1000L;
+
+  private final File dir;
+  private final DbClient dbClient;
+  private final System2 system2;
+
+  public FileSystemReportStorage(File dir, DbClient dbClient, System2 system2) {
+    this.dir = dir;
+    this.dbClient = dbClient;
+    this.system2 = system2;
+    try {
+      FileUtils.forceMkdir(dir);
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to create directory of analysis reports " + dir, e);
+    }
+  }
+
+  @Override
+  public void store(String taskUuid, InputStream report) {
+    File tempFile = new File(dir, taskUuid + TEMP_SUFFIX);
+    try {
+      try (FileOutputStream output = new FileOutputStream(tempFile)) {
+        IOUtils.copyLarge(report, output);
+        output.getFD().sync();
+      }
+      Files.move(tempFile.toPath(), reportFile(taskUuid).toPath(), ATOMIC_MOVE, REPLACE_EXISTING);
+    } catch (IOException e) {
+      FileUtils.deleteQuietly(tempFile);
+      throw new IllegalStateException("Fail to store report of CE task " + taskUuid + " in " + dir, e);
+    }
+  }
+
+  @Override
+  public Optional<InputStream> open(String taskUuid) {
+    File file = reportFile(taskUuid);
+    if (!file.isFile()) {
+      return Optional.empty();
+    }
+    try {
+      return Optional.of(FileUtils.openInputStream(file));
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to open report of CE task " + taskUuid, e);
+    }
+  }
+
+  @Override
+  public void delete(DbSession dbSession, Collection<String> taskUuids) {
+    for (String taskUuid : taskUuids) {
+      FileUtils.deleteQuietly(reportFile(taskUuid));
+    }
+  }
+
+  @Override
+  public void deleteOrphans(DbSession dbSession) {
+    File[] files = dir.listFiles();
+    if (files == null) {
+      return;
+    }
+    Set<String> queuedUuids = dbClient.ceQueueDao().selectAllInAscOrder(dbSession)
+      .stream()
+      .map(CeQueueDto::getUuid)
+      .collect(Collectors.toSet());
+    long now = system2.now();
+    for (File file : files) {
+      String name = file.getName();
+      if (name.endsWith(REPORT_SUFFIX) && !queuedUuids.contains(name.substring(0, name.length() - REPORT_SUFFIX.length()))) {
+        LOG.debug("Delete orphan report {}", file);
+        FileUtils.deleteQuietly(file);
+      } else if (name.endsWith(TEMP_SUFFIX) && now - file.lastModified() > TEMP_FILE_MAX_AGE) {
+        LOG.debug("Delete temporary report {}", file);
+        FileUtils.deleteQuietly(file);
+      }
+    }
+  }
+
+  private File reportFile(String taskUuid) {
+    return new File(dir, taskUuid + REPORT_SUFFIX);
+  }
+}
@@ -0,0 +1,52 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.queue.report;
+
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.Optional;
+import org.sonar.db.DbSession;
+
+/**
+ * Stores the zipped analysis reports submitted by the web server until they are processed by the Compute Engine.
+ * The implementation is provided by {@link ReportStorageProvider}.
+ */
+public interface ReportStorage {
+
+  /**
+   * Stores the report of the specified task. The report is durable when this method returns.
+   */
+  void store(String taskUuid, InputStream report);
+
+  /**
+   * Opens the report of the specified task, if any. The returned stream must be closed by the caller.
+   */
+  Optional<InputStream> open(String taskUuid);
+
+  /**
+   * Deletes the reports of the specified tasks. Reports which do not exist are ignored.
+   */
+  void delete(DbSession dbSession, Collection<String> taskUuids);
+
+  /**
+   * Deletes the reports which are not referenced by a task of the queue.
+   */
+  void deleteOrphans(DbSession dbSession);
+}
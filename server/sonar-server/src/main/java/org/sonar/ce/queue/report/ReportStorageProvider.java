@@ -0,0 +1,56 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.queue.report;
+
+import java.io.File;
+import org.apache.commons.lang.StringUtils;
+import org.picocontainer.injectors.ProviderAdapter;
+import org.sonar.api.config.Settings;
+import org.sonar.api.utils.System2;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.db.DbClient;
+import org.sonar.process.ProcessProperties;
+
+/**
+ * Provides {@link FileSystemReportStorage} if the property {@link #REPORT_STORAGE_PATH_PROPERTY} is set, otherwise
+ * {@link DbReportStorage}. The property must have the same value for the web server and the Compute Engine.
+ */
+public class ReportStorageProvider extends ProviderAdapter {
+  public static final String REPORT_STORAGE_PATH_PROPERTY = "sonar.ce.reportStorage.path";
+
+  private ReportStorage storage;
+
+  public ReportStorage provide(Settings settings, DbClient dbClient, System2 system2) {
+    if (storage == null) {
+      String path = settings.getString(REPORT_STORAGE_PATH_PROPERTY);
+      if (StringUtils.isBlank(path)) {
+        storage = new DbReportStorage(dbClient);
+      } else {
+        File dir = new File(path);
+        if (!dir.isAbsolute()) {
+          dir = new File(settings.getString(ProcessProperties.PATH_HOME), path);
+        }
+        Loggers.get(ReportStorageProvider.class).info("Analysis reports are stored in {}", dir.getAbsolutePath());
+        storage = new FileSystemReportStorage(dir, dbClient, system2);
+      }
+    }
+    return storage;
+  }
+}
@@ -28,6 +28,7 @@ import org.sonar.api.server.authentication.UserIdentity;
 import org.sonar.api.utils.MessageException;
 import org.sonar.db.DbClient;
 import org.sonar.db.user.UserDto;
+import org.sonar.server.user.AuthorizationCache;
 import org.sonar.server.user.ServerUserSession;
 import org.sonar.server.user.ThreadLocalUserSession;
 
@@ -38,15 +39,17 @@ import static org.sonar.server.authentication.OAuth2CallbackFilter.CALLBACK_PATH
 public class OAuth2ContextFactory {
 
   private final DbClient dbClient;
+  private final AuthorizationCache authorizationCache;
   private final ThreadLocalUserSession threadLocalUserSession;
   private final UserIdentityAuthenticator userIdentityAuthenticator;
   private final Server server;
   private final OAuthCsrfVerifier csrfVerifier;
   private final JwtHttpHandler jwtHttpHandler;
 
-  public OAuth2ContextFactory(DbClient dbClient, ThreadLocalUserSession threadLocalUserSession, UserIdentityAuthenticator userIdentityAuthenticator, Server server,
+  public OAuth2ContextFactory(DbClient dbClient, AuthorizationCache authorizationCache, ThreadLocalUserSession threadLocalUserSession, UserIdentityAuthenticator userIdentityAuthenticator, Server server,
     OAuthCsrfVerifier csrfVerifier, JwtHttpHandler jwtHttpHandler) {
     this.dbClient = dbClient;
+    this.authorizationCache = authorizationCache;
     this.threadLocalUserSession = threadLocalUserSession;
     this.userIdentityAuthenticator = userIdentityAuthenticator;
     this.server = server;
@@ -125,7 +128,7 @@ public class OAuth2ContextFactory {
     public void authenticate(UserIdentity userIdentity) {
       UserDto userDto = userIdentityAuthenticator.authenticate(userIdentity, identityProvider);
       jwtHttpHandler.generateToken(userDto, request, response);
-      threadLocalUserSession.set(ServerUserSession.createForUser(dbClient, userDto));
+      threadLocalUserSession.set(ServerUserSession.createForUser(dbClient, authorizationCache, userDto));
     }
   }
 }
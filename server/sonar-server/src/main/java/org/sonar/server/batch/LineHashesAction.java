@@ -0,0 +1,141 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.batch;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.sonar.api.resources.Scopes;
+import org.sonar.api.server.ws.Request;
+import org.sonar.api.server.ws.Response;
+import org.sonar.api.server.ws.WebService;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.component.ComponentDto;
+import org.sonar.db.component.FilePathWithHashDto;
+import org.sonar.db.source.FileSourceDto;
+import org.sonar.scanner.protocol.input.ScannerInput;
+import org.sonar.server.component.ComponentFinder;
+import org.sonar.server.user.UserSession;
+import org.sonarqube.ws.MediaTypes;
+
+import static org.sonar.api.web.UserRole.USER;
+import static org.sonar.server.ws.KeyExamples.KEY_PROJECT_EXAMPLE_001;
+import static org.sonar.server.ws.WsUtils.checkRequest;
+
+/**
+ * Bulk version of api/sources/hash, used by scanner in issues mode to load the line hashes of the changed files
+ * of a module in a single request.
+ */
+public class LineHashesAction implements BatchWsAction {
+
+  private static final String PARAM_KEY = "key";
+
+  private final DbClient dbClient;
+  private final UserSession userSession;
+  private final ComponentFinder componentFinder;
+
+  public LineHashesAction(DbClient dbClient, UserSession userSession, ComponentFinder componentFinder) {
+    this.dbClient = dbClient;
+    this.userSession = userSession;
+    this.componentFinder = componentFinder;
+  }
+
+  @Override
+  public void define(WebService.NewController controller) {
+    WebService.NewAction action = controller.createAction("line_hashes")
+      .setDescription("Return the line hashes of the files of a module, excluding the files of its sub-modules. " +
+        "Require See Source Code permission on the project")
+      .setSince("6.1")
+      .setInternal(true)
+      .setHandler(this);
+
+    action
+      .createParam(PARAM_KEY)
+      .setRequired(true)
+      .setDescription("Project or module key")
+      .setExampleValue(KEY_PROJECT_EXAMPLE_001);
+  }
+
+  @Override
+  public void handle(Request request, Response response) throws Exception {
+    String moduleKey = request.mandatoryParam(PARAM_KEY);
+    userSession.checkComponentPermission(USER, moduleKey);
+
+    response.stream().setMediaType(MediaTypes.PROTOBUF);
+    try (DbSession session = dbClient.openSession(false)) {
+      ComponentDto module = componentFinder.getByKey(session, moduleKey);
+      checkRequest(Scopes.PROJECT.equals(module.scope()), "Component '%s' is not a project or a module", moduleKey);
+
+      Map<String, String> pathsByUuid = pathsByUuid(session, module);
+      LineHashesWriter writer = new LineHashesWriter(pathsByUuid, response.stream().output());
+      dbClient.fileSourceDao().scrollLineHashesForModule(session, module.projectUuid(), module.uuid(),
+        resultContext -> writer.write((FileSourceDto) resultContext.getResultObject()));
+    }
+  }
+
+  private Map<String, String> pathsByUuid(DbSession session, ComponentDto module) {
+    List<FilePathWithHashDto> files = module.isRootProject() ? dbClient.componentDao().selectEnabledFilesFromProject(session, module.uuid())
+      : dbClient.componentDao().selectEnabledDescendantFiles(session, module.uuid());
+    Map<String, String> pathsByUuid = new HashMap<>();
+    for (FilePathWithHashDto file : files) {
+      if (module.uuid().equals(file.getModuleUuid())) {
+        pathsByUuid.put(file.getUuid(), file.getPath());
+      }
+    }
+    return pathsByUuid;
+  }
+
+  private static class LineHashesWriter {
+    private final Map<String, String> pathsByUuid;
+    private final OutputStream output;
+    private final ScannerInput.LineHashes.Builder builder = ScannerInput.LineHashes.newBuilder();
+
+    LineHashesWriter(Map<String, String> pathsByUuid, OutputStream output) {
+      this.pathsByUuid = pathsByUuid;
+      this.output = output;
+    }
+
+    void write(FileSourceDto dto) {
+      String path = pathsByUuid.get(dto.getFileUuid());
+      String lineHashes = dto.getLineHashes();
+      if (path == null || lineHashes == null) {
+        return;
+      }
+      builder.clear();
+      builder.setPath(path);
+      int start = 0;
+      int end = lineHashes.indexOf('\n');
+      while (end >= 0) {
+        builder.addLineHash(lineHashes.substring(start, end));
+        start = end + 1;
+        end = lineHashes.indexOf('\n', start);
+      }
+      builder.addLineHash(lineHashes.substring(start));
+      try {
+        builder.build().writeDelimitedTo(output);
+      } catch (IOException e) {
+        throw new IllegalStateException("Unable to serialize line hashes of file " + path, e);
+      }
+    }
+  }
+}
@@ -32,6 +32,8 @@ import org.sonar.db.component.ComponentDto;
 import org.sonar.server.issue.index.IssueAuthorizationIndexer;
 import org.sonar.server.issue.index.IssueIndexer;
 import org.sonar.server.test.index.TestIndexer;
+import org.sonar.server.user.AuthorizationCache;
+import org.sonar.server.util.cache.ReferenceDataCache;
 
 @ServerSide
 @ComputeEngineSide
@@ -43,15 +45,20 @@ public class ComponentCleanerService {
   private final TestIndexer testIndexer;
   private final ResourceTypes resourceTypes;
   private final ComponentFinder componentFinder;
+  private final AuthorizationCache authorizationCache;
+  private final ReferenceDataCache referenceDataCache;
 
   public ComponentCleanerService(DbClient dbClient, IssueAuthorizationIndexer issueAuthorizationIndexer, IssueIndexer issueIndexer,
-    TestIndexer testIndexer, ResourceTypes resourceTypes, ComponentFinder componentFinder) {
+    TestIndexer testIndexer, ResourceTypes resourceTypes, ComponentFinder componentFinder, AuthorizationCache authorizationCache,
+    ReferenceDataCache referenceDataCache) {
     this.dbClient = dbClient;
     this.issueAuthorizationIndexer = issueAuthorizationIndexer;
     this.issueIndexer = issueIndexer;
     this.testIndexer = testIndexer;
     this.resourceTypes = resourceTypes;
     this.componentFinder = componentFinder;
+    this.authorizationCache = authorizationCache;
+    this.referenceDataCache = referenceDataCache;
   }
 
   public void delete(DbSession dbSession, List<ComponentDto> projects) {
@@ -76,6 +83,8 @@ public class ComponentCleanerService {
     }
     dbClient.purgeDao().deleteProject(dbSession, project.uuid());
     dbSession.commit();
+    authorizationCache.invalidate();
+    referenceDataCache.invalidateComponents();
 
     deleteFromIndices(project.uuid());
   }
@@ -45,7 +45,9 @@ import org.sonar.db.DbSession;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.server.exceptions.BadRequestException;
 import org.sonar.server.exceptions.NotFoundException;
+import org.sonar.server.user.AuthorizationCache;
 import org.sonar.server.user.UserSession;
+import org.sonar.server.util.cache.ReferenceDataCache;
 
 import static com.google.common.collect.Lists.newArrayList;
 import static org.sonar.core.component.ComponentKeys.isValidModuleKey;
@@ -61,13 +63,18 @@ public class ComponentService {
   private final UserSession userSession;
   private final System2 system2;
   private final ComponentFinder componentFinder;
+  private final AuthorizationCache authorizationCache;
+  private final ReferenceDataCache referenceDataCache;
 
-  public ComponentService(DbClient dbClient, I18n i18n, UserSession userSession, System2 system2, ComponentFinder componentFinder) {
+  public ComponentService(DbClient dbClient, I18n i18n, UserSession userSession, System2 system2, ComponentFinder componentFinder,
+    AuthorizationCache authorizationCache, ReferenceDataCache referenceDataCache) {
     this.dbClient = dbClient;
     this.i18n = i18n;
     this.userSession = userSession;
     this.system2 = system2;
     this.componentFinder = componentFinder;
+    this.authorizationCache = authorizationCache;
+    this.referenceDataCache = referenceDataCache;
   }
 
   public ComponentDto getByKey(String key) {
@@ -124,6 +131,8 @@ public class ComponentService {
     checkProjectOrModuleKeyFormat(newKey);
 
     dbClient.componentKeyUpdaterDao().updateKey(component.uuid(), newKey);
+    authorizationCache.invalidate();
+    referenceDataCache.invalidateComponents();
   }
 
   public Map<String, String> checkModuleKeysBeforeRenaming(String projectKey, String stringToReplace, String replacementString) {
@@ -142,6 +151,8 @@ public class ComponentService {
     userSession.checkComponentUuidPermission(UserRole.ADMIN, project.projectUuid());
     checkIsProjectOrModule(project);
     dbClient.componentKeyUpdaterDao().bulkUpdateKey(dbSession, project.uuid(), stringToReplace, replacementString);
+    authorizationCache.invalidate();
+    referenceDataCache.invalidateComponents();
   }
 
   public void bulkUpdateKey(String projectKey, String stringToReplace, String replacementString) {
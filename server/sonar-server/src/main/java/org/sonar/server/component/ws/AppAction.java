@@ -46,6 +46,7 @@ import org.sonar.db.property.PropertyDto;
 import org.sonar.db.property.PropertyQuery;
 import org.sonar.server.component.ComponentFinder;
 import org.sonar.server.user.UserSession;
+import org.sonar.server.util.cache.ReferenceDataCache;
 
 import static com.google.common.collect.Lists.newArrayList;
 import static org.sonar.core.util.Uuids.UUID_EXAMPLE_01;
@@ -63,11 +64,13 @@ public class AppAction implements RequestHandler {
 
   private final UserSession userSession;
   private final ComponentFinder componentFinder;
+  private final ReferenceDataCache referenceDataCache;
 
-  public AppAction(DbClient dbClient, UserSession userSession, ComponentFinder componentFinder) {
+  public AppAction(DbClient dbClient, UserSession userSession, ComponentFinder componentFinder, ReferenceDataCache referenceDataCache) {
     this.dbClient = dbClient;
     this.userSession = userSession;
     this.componentFinder = componentFinder;
+    this.referenceDataCache = referenceDataCache;
   }
 
   void define(WebService.NewController controller) {
@@ -164,7 +167,7 @@ public class AppAction implements RequestHandler {
     MeasureQuery query = MeasureQuery.builder().setComponentUuid(component.uuid()).setMetricKeys(METRIC_KEYS).build();
     List<MeasureDto> measures = dbClient.measureDao().selectByQuery(session, query);
     Set<Integer> metricIds = measures.stream().map(MeasureDto::getMetricId).collect(Collectors.toSet());
-    List<MetricDto> metrics = dbClient.metricDao().selectByIds(session, metricIds);
+    List<MetricDto> metrics = referenceDataCache.selectMetricsByIds(session, metricIds);
     Map<Integer, MetricDto> metricsById = Maps.uniqueIndex(metrics, MetricDto::getId);
     return Maps.uniqueIndex(measures, m -> metricsById.get(m.getMetricId()).getKey());
   }
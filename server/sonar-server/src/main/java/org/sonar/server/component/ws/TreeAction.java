@@ -62,6 +62,7 @@ import org.sonar.db.component.ComponentDto;
 import org.sonar.db.component.ComponentTreeQuery;
 import org.sonar.server.component.ComponentFinder;
 import org.sonar.server.user.UserSession;
+import org.sonar.server.util.cache.ReferenceDataCache;
 import org.sonarqube.ws.WsComponents.TreeWsResponse;
 import org.sonarqube.ws.client.component.TreeWsRequest;
 
@@ -82,13 +83,16 @@ public class TreeAction implements ComponentsWsAction {
   private final ResourceTypes resourceTypes;
   private final UserSession userSession;
   private final I18n i18n;
+  private final ReferenceDataCache referenceDataCache;
 
-  public TreeAction(DbClient dbClient, ComponentFinder componentFinder, ResourceTypes resourceTypes, UserSession userSession, I18n i18n) {
+  public TreeAction(DbClient dbClient, ComponentFinder componentFinder, ResourceTypes resourceTypes, UserSession userSession, I18n i18n,
+    ReferenceDataCache referenceDataCache) {
     this.dbClient = dbClient;
     this.componentFinder = componentFinder;
     this.resourceTypes = resourceTypes;
     this.userSession = userSession;
     this.i18n = i18n;
+    this.referenceDataCache = referenceDataCache;
   }
 
   @Override
@@ -187,7 +191,7 @@ public class TreeAction implements ComponentsWsAction {
       return emptyMap();
     }
 
-    return from(dbClient.componentDao().selectByUuids(dbSession, referenceComponentIds))
+    return from(referenceDataCache.selectComponentsByUuids(dbSession, referenceComponentIds))
       .uniqueIndex(ComponentDto::uuid);
   }
 
@@ -19,11 +19,11 @@
  */
 package org.sonar.server.computation.queue;
 
-import java.util.List;
 import org.sonar.api.ce.ComputeEngineSide;
 import org.sonar.api.platform.ServerUpgradeStatus;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
+import org.sonar.ce.queue.report.ReportStorage;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 
@@ -39,11 +39,13 @@ public class CeQueueCleaner {
   private final DbClient dbClient;
   private final ServerUpgradeStatus serverUpgradeStatus;
   private final InternalCeQueue queue;
+  private final ReportStorage reportStorage;
 
-  public CeQueueCleaner(DbClient dbClient, ServerUpgradeStatus serverUpgradeStatus, InternalCeQueue queue) {
+  public CeQueueCleaner(DbClient dbClient, ServerUpgradeStatus serverUpgradeStatus, InternalCeQueue queue, ReportStorage reportStorage) {
     this.dbClient = dbClient;
     this.serverUpgradeStatus = serverUpgradeStatus;
     this.queue = queue;
+    this.reportStorage = reportStorage;
   }
 
   public void clean(DbSession dbSession) {
@@ -66,11 +68,10 @@ public class CeQueueCleaner {
     dbClient.ceQueueDao().resetAllToPendingStatus(dbSession);
     dbSession.commit();
 
-    // Reports that have been processed are not kept in database yet.
+    // Reports that have been processed are not kept in storage yet.
     // They are supposed to be systematically dropped.
     // Let's clean-up orphans if any.
-    List<String> uuids = dbClient.ceTaskInputDao().selectUuidsNotInQueue(dbSession);
-    dbClient.ceTaskInputDao().deleteByUuids(dbSession, uuids);
+    reportStorage.deleteOrphans(dbSession);
     dbSession.commit();
   }
 }
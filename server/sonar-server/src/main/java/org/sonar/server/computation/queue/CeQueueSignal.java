@@ -0,0 +1,79 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.queue;
+
+import java.util.Collection;
+import org.sonar.api.ce.ComputeEngineSide;
+import org.sonar.ce.queue.CeQueueListener;
+import org.sonar.ce.queue.CeTask;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Wakes up the idle workers of the Compute Engine when tasks are submitted, either in this process or by the web
+ * server through the HTTP server of the Compute Engine.
+ * <p>
+ * Each signal increments a version. A worker reads the version before peeking the queue and, if no task was found,
+ * waits only as long as the version did not change, so that a task submitted during the peek is not missed.
+ * </p>
+ */
+@ComputeEngineSide
+public class CeQueueSignal implements CeQueueListener {
+
+  private final Object lock = new Object();
+  // guarded by lock
+  private long version = 0L;
+
+  @Override
+  public void onSubmit(Collection<CeTask> tasks) {
+    signal();
+  }
+
+  public void signal() {
+    synchronized (lock) {
+      version++;
+      lock.notifyAll();
+    }
+  }
+
+  public long getVersion() {
+    synchronized (lock) {
+      return version;
+    }
+  }
+
+  /**
+   * Blocks until the version is different from {@code seenVersion} or the timeout elapsed.
+   *
+   * @return {@code true} if the version changed, {@code false} if the timeout elapsed
+   */
+  public boolean await(long seenVersion, long timeoutInMs) throws InterruptedException {
+    long deadline = System.nanoTime() + MILLISECONDS.toNanos(timeoutInMs);
+    synchronized (lock) {
+      long remaining = deadline - System.nanoTime();
+      while (version == seenVersion && remaining > 0) {
+        NANOSECONDS.timedWait(lock, remaining);
+        remaining = deadline - System.nanoTime();
+      }
+      return version != seenVersion;
+    }
+  }
+}
@@ -32,8 +32,10 @@ import org.sonar.api.ce.ComputeEngineSide;
 import org.sonar.api.utils.System2;
 import org.sonar.ce.monitoring.CEQueueStatus;
 import org.sonar.ce.queue.CeQueueImpl;
+import org.sonar.ce.queue.CeQueueListener;
 import org.sonar.ce.queue.CeTask;
 import org.sonar.ce.queue.CeTaskResult;
+import org.sonar.ce.queue.report.ReportStorage;
 import org.sonar.core.util.UuidFactory;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
@@ -53,13 +55,22 @@ public class InternalCeQueueImpl extends CeQueueImpl implements InternalCeQueue
   // state
   private AtomicBoolean peekPaused = new AtomicBoolean(false);
 
-  public InternalCeQueueImpl(System2 system2, DbClient dbClient, UuidFactory uuidFactory, CEQueueStatus queueStatus) {
-    super(dbClient, uuidFactory);
+  public InternalCeQueueImpl(System2 system2, DbClient dbClient, UuidFactory uuidFactory, CEQueueStatus queueStatus,
+    ReportStorage reportStorage, CeQueueListener[] listeners) {
+    super(dbClient, uuidFactory, reportStorage, listeners);
     this.system2 = system2;
     this.dbClient = dbClient;
     this.queueStatus = queueStatus;
   }
 
+  /**
+   * Used by Pico if no {@link CeQueueListener} is found
+   */
+  public InternalCeQueueImpl(System2 system2, DbClient dbClient, UuidFactory uuidFactory, CEQueueStatus queueStatus,
+    ReportStorage reportStorage) {
+    this(system2, dbClient, uuidFactory, queueStatus, reportStorage, new CeQueueListener[0]);
+  }
+
   @Override
   public Optional<CeTask> peek() {
     if (peekPaused.get()) {
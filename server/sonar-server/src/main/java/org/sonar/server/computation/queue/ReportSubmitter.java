@@ -28,6 +28,7 @@ import org.sonar.api.server.ServerSide;
 import org.sonar.ce.queue.CeQueue;
 import org.sonar.ce.queue.CeTask;
 import org.sonar.ce.queue.CeTaskSubmit;
+import org.sonar.ce.queue.report.ReportStorage;
 import org.sonar.core.component.ComponentKeys;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
@@ -49,14 +50,16 @@ public class ReportSubmitter {
   private final ComponentService componentService;
   private final PermissionService permissionService;
   private final DbClient dbClient;
+  private final ReportStorage reportStorage;
 
   public ReportSubmitter(CeQueue queue, UserSession userSession,
-    ComponentService componentService, PermissionService permissionService, DbClient dbClient) {
+    ComponentService componentService, PermissionService permissionService, DbClient dbClient, ReportStorage reportStorage) {
     this.queue = queue;
     this.userSession = userSession;
     this.componentService = componentService;
     this.permissionService = permissionService;
     this.dbClient = dbClient;
+    this.reportStorage = reportStorage;
   }
 
   public CeTask submit(String projectKey, @Nullable String projectBranch, @Nullable String projectName, InputStream reportInput) {
@@ -96,10 +99,7 @@ public class ReportSubmitter {
   private CeTask submitReport(InputStream reportInput, ComponentDto project) {
     // the report file must be saved before submitting the task
     CeTaskSubmit.Builder submit = queue.prepareSubmit();
-    try (DbSession dbSession = dbClient.openSession(false)) {
-      dbClient.ceTaskInputDao().insert(dbSession, submit.getUuid(), reportInput);
-      dbSession.commit();
-    }
+    reportStorage.store(submit.getUuid(), reportInput);
 
     submit.setType(CeTaskTypes.REPORT);
     submit.setComponentUuid(project.uuid());
@@ -20,27 +20,31 @@
 package org.sonar.server.computation.task.projectanalysis.batch;
 
 import com.google.common.base.Optional;
-import com.google.common.base.Throwables;
-import com.google.protobuf.InvalidProtocolBufferException;
-import com.google.protobuf.Parser;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.util.NoSuchElementException;
+import java.util.zip.ZipFile;
 import javax.annotation.CheckForNull;
-import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.LineIterator;
+import org.picocontainer.Startable;
 import org.sonar.core.util.CloseableIterator;
 import org.sonar.core.util.LineReaderIterator;
 import org.sonar.scanner.protocol.output.ScannerReport;
 
-public class BatchReportReaderImpl implements BatchReportReader {
+/**
+ * Reads the report either from the directory where it has been extracted or, if {@link BatchReportDirectoryHolder}
+ * holds a file, directly from the zip file. In the latter case, entries are decompressed only when they are read.
+ */
+public class BatchReportReaderImpl implements BatchReportReader, Startable {
 
   private final BatchReportDirectoryHolder batchReportDirectoryHolder;
   private org.sonar.scanner.protocol.output.ScannerReportReader delegate;
+  @CheckForNull
+  private ZipFile zipFile;
   // caching of metadata which are read often
   private ScannerReport.Metadata metadata;
 
@@ -50,10 +54,31 @@ public class BatchReportReaderImpl implements BatchReportReader {
 
   private void ensureInitialized() {
     if (this.delegate == null) {
-      this.delegate = new org.sonar.scanner.protocol.output.ScannerReportReader(batchReportDirectoryHolder.getDirectory());
+      File report = batchReportDirectoryHolder.getDirectory();
+      if (report.isFile()) {
+        try {
+          this.zipFile = new ZipFile(report);
+        } catch (IOException e) {
+          throw new IllegalStateException("Fail to open zip file " + report, e);
+        }
+        this.delegate = new org.sonar.scanner.protocol.output.ScannerReportReader(zipFile);
+      } else {
+        this.delegate = new org.sonar.scanner.protocol.output.ScannerReportReader(report);
+      }
     }
   }
 
+  @Override
+  public void start() {
+    // nothing to do, report is opened on first read
+  }
+
+  @Override
+  public void stop() {
+    IOUtils.closeQuietly(delegate);
+    IOUtils.closeQuietly(zipFile);
+  }
+
   @Override
   public ScannerReport.Metadata readMetadata() {
     ensureInitialized();
@@ -66,16 +91,11 @@ public class BatchReportReaderImpl implements BatchReportReader {
   @Override
   public CloseableIterator<String> readScannerLogs() {
     ensureInitialized();
-    File file = delegate.getFileStructure().analysisLog();
-    if (!file.exists()) {
+    InputStream log = delegate.openAnalysisLog();
+    if (log == null) {
       return CloseableIterator.emptyCloseableIterator();
     }
-    try {
-      InputStreamReader reader = new InputStreamReader(FileUtils.openInputStream(file), StandardCharsets.UTF_8);
-      return new LineReaderIterator(reader);
-    } catch (IOException e) {
-      throw new IllegalStateException("Fail to open file " + file, e);
-    }
+    return new LineReaderIterator(new InputStreamReader(log, StandardCharsets.UTF_8));
   }
 
   @Override
@@ -142,16 +162,11 @@ public class BatchReportReaderImpl implements BatchReportReader {
   @Override
   public Optional<CloseableIterator<String>> readFileSource(int fileRef) {
     ensureInitialized();
-    File file = delegate.readFileSource(fileRef);
-    if (file == null) {
+    InputStream source = delegate.openFileSource(fileRef);
+    if (source == null) {
       return Optional.absent();
     }
-
-    try {
-      return Optional.of(new CloseableLineIterator(IOUtils.lineIterator(FileUtils.openInputStream(file), StandardCharsets.UTF_8)));
-    } catch (IOException e) {
-      throw new IllegalStateException("Fail to traverse file: " + file, e);
-    }
+    return Optional.of(new CloseableLineIterator(IOUtils.lineIterator(source, StandardCharsets.UTF_8)));
   }
 
   private static class CloseableLineIterator extends CloseableIterator<String> {
@@ -186,35 +201,13 @@ public class BatchReportReaderImpl implements BatchReportReader {
   @Override
   public CloseableIterator<ScannerReport.Test> readTests(int testFileRef) {
     ensureInitialized();
-    File file = delegate.readTests(testFileRef);
-    if (file == null) {
-      return CloseableIterator.emptyCloseableIterator();
-    }
-
-    try {
-      return new ParserCloseableIterator<>(ScannerReport.Test.parser(), FileUtils.openInputStream(file));
-    } catch (IOException e) {
-      Throwables.propagate(e);
-      // actually never reached
-      return CloseableIterator.emptyCloseableIterator();
-    }
+    return delegate.readComponentTests(testFileRef);
   }
 
   @Override
   public CloseableIterator<ScannerReport.CoverageDetail> readCoverageDetails(int testFileRef) {
     ensureInitialized();
-    File file = delegate.readCoverageDetails(testFileRef);
-    if (file == null) {
-      return CloseableIterator.emptyCloseableIterator();
-    }
-
-    try {
-      return new ParserCloseableIterator<>(ScannerReport.CoverageDetail.parser(), FileUtils.openInputStream(file));
-    } catch (IOException e) {
-      Throwables.propagate(e);
-      // actually never reached
-      return CloseableIterator.emptyCloseableIterator();
-    }
+    return delegate.readComponentCoverageDetails(testFileRef);
   }
 
   @Override
@@ -222,30 +215,4 @@ public class BatchReportReaderImpl implements BatchReportReader {
     ensureInitialized();
     return delegate.readContextProperties();
   }
-
-  private static class ParserCloseableIterator<T> extends CloseableIterator<T> {
-    private final Parser<T> parser;
-    private final FileInputStream fileInputStream;
-
-    public ParserCloseableIterator(Parser<T> parser, FileInputStream fileInputStream) {
-      this.parser = parser;
-      this.fileInputStream = fileInputStream;
-    }
-
-    @Override
-    protected T doNext() {
-      try {
-        return parser.parseDelimitedFrom(fileInputStream);
-      } catch (InvalidProtocolBufferException e) {
-        Throwables.propagate(e);
-        // actually never reached
-        return null;
-      }
-    }
-
-    @Override
-    protected void doClose() throws Exception {
-      fileInputStream.close();
-    }
-  }
 }
@@ -35,6 +35,7 @@ import org.sonar.server.computation.task.projectanalysis.component.DisabledCompo
 import org.sonar.server.computation.task.projectanalysis.component.SettingsRepositoryImpl;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolderImpl;
 import org.sonar.server.computation.task.container.TaskContainer;
+import org.sonar.server.computation.task.projectanalysis.dbwriter.AsyncDbWriterImpl;
 import org.sonar.server.computation.task.projectanalysis.duplication.CrossProjectDuplicationStatusHolderImpl;
 import org.sonar.server.computation.task.projectanalysis.duplication.DuplicationRepositoryImpl;
 import org.sonar.server.computation.task.projectanalysis.duplication.IntegrateCrossProjectDuplications;
@@ -43,6 +44,7 @@ import org.sonar.server.computation.task.projectanalysis.filemove.FileSimilarity
 import org.sonar.server.computation.task.projectanalysis.filemove.MutableMovedFilesRepositoryImpl;
 import org.sonar.server.computation.task.projectanalysis.filemove.SourceSimilarityImpl;
 import org.sonar.server.computation.task.projectanalysis.filesystem.ComputationTempFolderProvider;
+import org.sonar.server.computation.task.projectanalysis.issue.BaseDataRepository;
 import org.sonar.server.computation.task.projectanalysis.issue.BaseIssuesLoader;
 import org.sonar.server.computation.task.projectanalysis.issue.CloseIssuesOnRemovedComponentsVisitor;
 import org.sonar.server.computation.task.projectanalysis.issue.ComponentIssuesRepositoryImpl;
@@ -60,6 +62,7 @@ import org.sonar.server.computation.task.projectanalysis.issue.LoadComponentUuid
 import org.sonar.server.computation.task.projectanalysis.issue.MovedIssueVisitor;
 import org.sonar.server.computation.task.projectanalysis.issue.NewEffortAggregator;
 import org.sonar.server.computation.task.projectanalysis.issue.NewEffortCalculator;
+import org.sonar.server.computation.task.projectanalysis.issue.PersistedIssuesDate;
 import org.sonar.server.computation.task.projectanalysis.issue.RuleRepositoryImpl;
 import org.sonar.server.computation.task.projectanalysis.issue.RuleTagsCopier;
 import org.sonar.server.computation.task.projectanalysis.issue.RuleTypeCopier;
@@ -179,6 +182,7 @@ public final class ProjectAnalysisTaskContainerPopulator implements ContainerPop
       IssueVisitors.class,
       IssueLifecycle.class,
       ComponentsWithUnprocessedIssues.class,
+      PersistedIssuesDate.class,
       ComponentIssuesRepositoryImpl.class,
       IssueFilter.class,
 
@@ -218,6 +222,7 @@ public final class ProjectAnalysisTaskContainerPopulator implements ContainerPop
       Tracker.class,
       TrackerExecution.class,
       BaseIssuesLoader.class,
+      BaseDataRepository.class,
 
       // filemove
       SourceSimilarityImpl.class,
@@ -230,7 +235,9 @@ public final class ProjectAnalysisTaskContainerPopulator implements ContainerPop
       // views
       ViewIndex.class,
 
-      MeasureToMeasureDto.class);
+      MeasureToMeasureDto.class,
+
+      AsyncDbWriterImpl.class);
   }
 
 }
@@ -0,0 +1,51 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.dbwriter;
+
+import java.util.function.Consumer;
+import org.sonar.db.DbSession;
+
+/**
+ * Executes DB writes on a dedicated thread and DB connection, so that the persistence steps go on reading the report
+ * and building DTOs while their previous rows are written.
+ * <p>
+ * Writes are executed in submission order and belong to a single transaction, which is committed by {@link #commit()}
+ * before the analysis is enabled.
+ * </p>
+ */
+public interface AsyncDbWriter {
+
+  /**
+   * Queues a write. Blocks as long as the maximum number of pending writes is reached.
+   *
+   * @param label label under which the time spent in the write is logged, for example the description of the step
+   * @param write the statements to execute on the session of the writer. The session must not be committed.
+   * @throws IllegalStateException if a previous write failed
+   */
+  void submit(String label, Consumer<DbSession> write);
+
+  /**
+   * Waits for all the queued writes to be executed, then commits the transaction.
+   *
+   * @throws IllegalStateException if a write failed. Nothing is committed in this case.
+   */
+  void commit();
+
+}
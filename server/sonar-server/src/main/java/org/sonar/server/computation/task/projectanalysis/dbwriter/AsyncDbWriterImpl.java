@@ -0,0 +1,174 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.dbwriter;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.Uninterruptibles;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import javax.annotation.CheckForNull;
+import org.apache.ibatis.session.ExecutorType;
+import org.picocontainer.Startable;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.MyBatis;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+public class AsyncDbWriterImpl implements AsyncDbWriter, Startable {
+
+  private static final Logger LOG = Loggers.get(AsyncDbWriterImpl.class);
+  static final int MAX_PENDING_WRITES = 64;
+  static final int WRITES_PER_FLUSH = 32;
+
+  private final DbClient dbClient;
+  private final Semaphore pendingWrites;
+  private final ExecutorService executor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat("AsyncDbWriter-%d").setDaemon(true).build());
+
+  // fields below are accessed by the writer thread only
+  private final Map<String, Long> durationsByLabel = new LinkedHashMap<>();
+  @CheckForNull
+  private DbSession session;
+  private int writesSinceFlush = 0;
+
+  @CheckForNull
+  private volatile RuntimeException failure;
+
+  public AsyncDbWriterImpl(DbClient dbClient) {
+    this(dbClient, MAX_PENDING_WRITES);
+  }
+
+  AsyncDbWriterImpl(DbClient dbClient, int maxPendingWrites) {
+    checkArgument(maxPendingWrites > 0, "Maximum number of pending writes must be greater than 0");
+    this.dbClient = dbClient;
+    this.pendingWrites = new Semaphore(maxPendingWrites);
+  }
+
+  @Override
+  public void start() {
+    // writer thread is started on first submission
+  }
+
+  @Override
+  public void submit(String label, Consumer<DbSession> write) {
+    checkNoFailure();
+    pendingWrites.acquireUninterruptibly();
+    try {
+      executor.execute(() -> execute(label, write));
+    } catch (RejectedExecutionException e) {
+      pendingWrites.release();
+      throw new IllegalStateException("DB writer is stopped", e);
+    }
+  }
+
+  private void execute(String label, Consumer<DbSession> write) {
+    try {
+      // writes queued after a failure are ignored, the transaction is going to be rolled back
+      if (failure == null) {
+        long start = System.nanoTime();
+        DbSession dbSession = session();
+        write.accept(dbSession);
+        flushPeriodically(dbSession);
+        durationsByLabel.merge(label, System.nanoTime() - start, Long::sum);
+      }
+    } catch (RuntimeException e) {
+      failure = e;
+    } finally {
+      pendingWrites.release();
+    }
+  }
+
+  /**
+   * Sends the batched statements every {@link #WRITES_PER_FLUSH} writes, so that they are not retained in memory
+   * until commit.
+   */
+  private void flushPeriodically(DbSession dbSession) {
+    writesSinceFlush++;
+    if (writesSinceFlush >= WRITES_PER_FLUSH) {
+      dbSession.flushStatements();
+      writesSinceFlush = 0;
+    }
+  }
+
+  @Override
+  public void commit() {
+    Future<?> barrier = executor.submit(() -> {
+      if (failure == null && session != null) {
+        long start = System.nanoTime();
+        session.commit();
+        durationsByLabel.merge("Commit", System.nanoTime() - start, Long::sum);
+      }
+      logDurations();
+    });
+    try {
+      Uninterruptibles.getUninterruptibly(barrier);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Fail to commit asynchronous DB writes", e.getCause());
+    }
+    checkNoFailure();
+  }
+
+  private void logDurations() {
+    for (Map.Entry<String, Long> duration : durationsByLabel.entrySet()) {
+      LOG.debug("{} (asynchronous writes) | time={}ms", duration.getKey(), TimeUnit.NANOSECONDS.toMillis(duration.getValue()));
+    }
+    durationsByLabel.clear();
+  }
+
+  private void checkNoFailure() {
+    RuntimeException e = failure;
+    if (e != null) {
+      throw new IllegalStateException("Fail to execute asynchronous DB writes", e);
+    }
+  }
+
+  /**
+   * Batch session which is committed only by {@link #commit()}. A {@link org.sonar.db.BatchSession} can not be used,
+   * as it commits every {@link org.sonar.db.BatchSession#MAX_BATCH_SIZE} statements.
+   */
+  private DbSession session() {
+    if (session == null) {
+      session = new DbSession(dbClient.getMyBatis().getSessionFactory().openSession(ExecutorType.BATCH));
+    }
+    return session;
+  }
+
+  @Override
+  public void stop() {
+    executor.shutdownNow();
+    try {
+      executor.awaitTermination(1, TimeUnit.MINUTES);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    // uncommitted writes are rolled back
+    MyBatis.closeQuietly(session);
+  }
+}
@@ -202,6 +202,10 @@ public class FileMoveDetectionStep implements ComputationStep {
     int[][] scoreMatrix = new int[dbFileKeys.size()][reportFileSourcesByKey.size()];
     int maxScore = 0;
 
+    // only pairs of files sharing enough lines are scored, score of other pairs is left to 0
+    List<File> reportFiles = new ArrayList<>(reportFileSourcesByKey.values());
+    LineHashesLshIndex reportFilesIndex = indexLineHashes(reportFiles);
+
     try (DbSession dbSession = dbClient.openSession(false)) {
       int dbFileIndex = 0;
       for (String removedFileKey : dbFileKeys) {
@@ -210,15 +214,13 @@ public class FileMoveDetectionStep implements ComputationStep {
           continue;
         }
 
-        int reportFileIndex = 0;
-        for (Map.Entry<String, File> reportFileSourceAndKey : reportFileSourcesByKey.entrySet()) {
-          File unmatchedFile = reportFileSourceAndKey.getValue();
-          int score = fileSimilarity.score(fileInDb, unmatchedFile);
+        for (int reportFileIndex : reportFilesIndex.getCandidates(fileInDb.getLineHashes())) {
+          File unmatchedFile = reportFiles.get(reportFileIndex);
+          int score = fileSimilarity.score(fileInDb, unmatchedFile, MIN_REQUIRED_SCORE);
           scoreMatrix[dbFileIndex][reportFileIndex] = score;
           if (score > maxScore) {
             maxScore = score;
           }
-          reportFileIndex++;
         }
         dbFileIndex++;
       }
@@ -227,6 +229,17 @@ public class FileMoveDetectionStep implements ComputationStep {
     return new ScoreMatrix(dbFileKeys, reportFileSourcesByKey, scoreMatrix, maxScore);
   }
 
+  private static LineHashesLshIndex indexLineHashes(List<File> files) {
+    LineHashesLshIndex res = new LineHashesLshIndex();
+    for (int i = 0; i < files.size(); i++) {
+      List<String> lineHashes = files.get(i).getLineHashes();
+      if (lineHashes != null) {
+        res.add(i, lineHashes);
+      }
+    }
+    return res;
+  }
+
   @CheckForNull
   private File getFile(DbSession dbSession, DbComponent dbComponent) {
     if (dbComponent.getPath() == null) {
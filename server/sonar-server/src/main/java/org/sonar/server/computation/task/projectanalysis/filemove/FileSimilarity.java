@@ -54,4 +54,10 @@ public interface FileSimilarity {
   }
 
   int score(File file1, File file2);
+
+  /**
+   * Same as {@link #score(File, File)} but may stop as soon as the score is known to be lower than {@code minScore}, in
+   * which case any value lower than {@code minScore} is returned.
+   */
+  int score(File file1, File file2, int minScore);
 }
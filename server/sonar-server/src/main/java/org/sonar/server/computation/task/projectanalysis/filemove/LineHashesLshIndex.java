@@ -0,0 +1,148 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.filemove;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import javax.annotation.CheckForNull;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Index of files by the MinHash signature of their line hashes, bucketed with Locality-Sensitive Hashing (LSH).
+ * <p>
+ * The signature of a file is made of the minimum value of {@code bands * rows} hash functions over the distinct hashes
+ * of its lines. The probability that two files get the same value for a given function is the Jaccard similarity of their
+ * sets of lines. Signatures are split into {@code bands} bands of {@code rows} values and two files are candidates as soon
+ * as one of their bands is equal, which happens with probability {@code 1 - (1 - s^rows)^bands} for a similarity
+ * {@code s}. With the default 20 bands of 2 rows, files sharing half of their lines are candidates with a probability
+ * higher than 99.6%, while files sharing 10% of their lines are candidates with a probability lower than 20%.
+ * </p>
+ * <p>
+ * This class is not thread-safe.
+ * </p>
+ */
+final class LineHashesLshIndex {
+  private static final int DEFAULT_BANDS = 20;
+  private static final int DEFAULT_ROWS = 2;
+  private static final long SEED = 0x2545F4914F6CDD1DL;
+
+  private final int bands;
+  private final int rows;
+  private final long[] salts;
+  private final List<ListMultimap<Long, Integer>> bucketsByBand;
+
+  LineHashesLshIndex() {
+    this(DEFAULT_BANDS, DEFAULT_ROWS);
+  }
+
+  LineHashesLshIndex(int bands, int rows) {
+    checkArgument(bands > 0, "bands must be greater than 0");
+    checkArgument(rows > 0, "rows must be greater than 0");
+    this.bands = bands;
+    this.rows = rows;
+    // salts are constant so that candidates do not change from one analysis to the next
+    this.salts = new long[bands * rows];
+    long seed = SEED;
+    for (int i = 0; i < salts.length; i++) {
+      seed += 0x9E3779B97F4A7C15L;
+      salts[i] = mix(seed);
+    }
+    this.bucketsByBand = new ArrayList<>(bands);
+    for (int i = 0; i < bands; i++) {
+      bucketsByBand.add(ArrayListMultimap.create());
+    }
+  }
+
+  /**
+   * Adds the file with the specified index. A file without any line is never a candidate.
+   */
+  void add(int fileIndex, Collection<String> lineHashes) {
+    long[] signature = signature(lineHashes);
+    if (signature == null) {
+      return;
+    }
+    for (int band = 0; band < bands; band++) {
+      bucketsByBand.get(band).put(bandKey(signature, band), fileIndex);
+    }
+  }
+
+  /**
+   * Indexes of the added files which share at least one band of their signature with a file made of the specified
+   * line hashes.
+   */
+  Set<Integer> getCandidates(Collection<String> lineHashes) {
+    long[] signature = signature(lineHashes);
+    if (signature == null) {
+      return new HashSet<>();
+    }
+    Set<Integer> res = new HashSet<>();
+    for (int band = 0; band < bands; band++) {
+      res.addAll(bucketsByBand.get(band).get(bandKey(signature, band)));
+    }
+    return res;
+  }
+
+  @CheckForNull
+  private long[] signature(Collection<String> lineHashes) {
+    if (lineHashes.isEmpty()) {
+      return null;
+    }
+    long[] res = new long[salts.length];
+    Arrays.fill(res, Long.MAX_VALUE);
+    for (String lineHash : lineHashes) {
+      long hash = lineHash.hashCode();
+      for (int i = 0; i < salts.length; i++) {
+        long value = mix(hash ^ salts[i]);
+        if (value < res[i]) {
+          res[i] = value;
+        }
+      }
+    }
+    return res;
+  }
+
+  private long bandKey(long[] signature, int band) {
+    long res = band;
+    for (int row = 0; row < rows; row++) {
+      res = 31 * res + signature[band * rows + row];
+    }
+    return mix(res);
+  }
+
+  /**
+   * Finalizer of MurmurHash3, which spreads the bits of the input over the whole output.
+   */
+  private static long mix(long value) {
+    long res = value;
+    res ^= res >>> 33;
+    res *= 0xFF51AFD7ED558CCDL;
+    res ^= res >>> 33;
+    res *= 0xC4CEB9FE1A85EC53L;
+    res ^= res >>> 33;
+    return res;
+  }
+}
@@ -28,4 +28,10 @@ public interface SourceSimilarity {
    * Range: between 0 and 100
    */
   <T extends Object> int score(List<T> left, List<T> right);
+
+  /**
+   * Same as {@link #score(List, List)} but may stop as soon as the score is known to be lower than {@code minScore}, in
+   * which case any value lower than {@code minScore} is returned.
+   */
+  <T extends Object> int score(List<T> left, List<T> right, int minScore);
 }
@@ -19,8 +19,11 @@
  */
 package org.sonar.server.computation.task.projectanalysis.filemove;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+import static java.lang.Math.abs;
 import static java.lang.Math.max;
 import static java.lang.Math.min;
 
@@ -28,34 +31,95 @@ public class SourceSimilarityImpl implements SourceSimilarity {
 
   @Override
   public <T extends Object> int score(List<T> left, List<T> right) {
-    int distance = levenshteinDistance(left, right);
-    return (int) (100 * (1.0 - ((double) distance) / (max(left.size(), right.size()))));
+    return score(left, right, 0);
   }
 
-  <T extends Object> int levenshteinDistance(List<T> left, List<T> right) {
-    int len0 = left.size() + 1;
-    int len1 = right.size() + 1;
+  @Override
+  public <T extends Object> int score(List<T> left, List<T> right, int minScore) {
+    int maxSize = max(left.size(), right.size());
+    int maxDistance = maxDistance(maxSize, minScore);
+
+    // elements are replaced by int codes so that the distance computation only compares primitives
+    Map<T, Integer> codes = new HashMap<>();
+    int distance = levenshteinDistance(toCodes(left, codes), toCodes(right, codes), maxDistance);
+    return score(distance, maxSize);
+  }
+
+  private static int score(int distance, int maxSize) {
+    return (int) (100 * (1.0 - ((double) distance) / maxSize));
+  }
+
+  /**
+   * Greatest distance which still gives a score greater than or equal to {@code minScore}.
+   */
+  private static int maxDistance(int maxSize, int minScore) {
+    if (minScore <= 0) {
+      return maxSize;
+    }
+    int res = maxSize * (100 - min(minScore, 100)) / 100;
+    while (res < maxSize && score(res + 1, maxSize) >= minScore) {
+      res++;
+    }
+    while (res > 0 && score(res, maxSize) < minScore) {
+      res--;
+    }
+    return res;
+  }
+
+  private static <T> int[] toCodes(List<T> elements, Map<T, Integer> codes) {
+    int[] res = new int[elements.size()];
+    int i = 0;
+    for (T element : elements) {
+      Integer code = codes.get(element);
+      if (code == null) {
+        code = codes.size();
+        codes.put(element, code);
+      }
+      res[i] = code;
+      i++;
+    }
+    return res;
+  }
+
+  /**
+   * Levenshtein distance between the two arrays, computed only for the cells of the matrix which are at most
+   * {@code maxDistance} away from its diagonal.
+   *
+   * @return the distance, or {@code maxDistance + 1} as soon as it is known to be greater than {@code maxDistance}
+   */
+  static int levenshteinDistance(int[] left, int[] right, int maxDistance) {
+    int len0 = left.length + 1;
+    int len1 = right.length + 1;
+    int tooFar = maxDistance + 1;
+
+    // distance is at least the difference of length
+    if (abs(len0 - len1) > maxDistance) {
+      return tooFar;
+    }
 
     // the array of distances
     int[] cost = new int[len0];
     int[] newcost = new int[len0];
 
-    // initial cost of skipping prefix in String s0
+    // initial cost of skipping prefix in left
     for (int i = 0; i < len0; i++) {
-      cost[i] = i;
+      cost[i] = min(i, tooFar);
     }
 
-    // dynamically computing the array of distances
-
-    // transformation cost for each letter in s1
+    // transformation cost for each element of right
     for (int j = 1; j < len1; j++) {
-      // initial cost of skipping prefix in String s1
-      newcost[0] = j;
+      // cells of the row outside [from, to] can only lead to a distance greater than maxDistance
+      int from = max(1, j - maxDistance);
+      int to = min(len0 - 1, j + maxDistance);
+
+      // initial cost of skipping prefix in right
+      newcost[from - 1] = from == 1 ? min(j, tooFar) : tooFar;
+      int rowMin = newcost[from - 1];
 
-      // transformation cost for each letter in s0
-      for (int i = 1; i < len0; i++) {
-        // matching current letters in both strings
-        int match = left.get(i - 1).equals(right.get(j - 1)) ? 0 : 1;
+      // transformation cost for each element of left
+      int rightCode = right[j - 1];
+      for (int i = from; i <= to; i++) {
+        int match = left[i - 1] == rightCode ? 0 : 1;
 
         // computing cost for each transformation
         int costReplace = cost[i - 1] + match;
@@ -63,7 +127,17 @@ public class SourceSimilarityImpl implements SourceSimilarity {
         int costDelete = newcost[i - 1] + 1;
 
         // keep minimum cost
-        newcost[i] = min(min(costInsert, costDelete), costReplace);
+        int c = min(min(min(costInsert, costDelete), costReplace), tooFar);
+        newcost[i] = c;
+        rowMin = min(rowMin, c);
+      }
+      if (to + 1 < len0) {
+        newcost[to + 1] = tooFar;
+      }
+
+      // distance can't decrease from one row to the next
+      if (rowMin > maxDistance) {
+        return tooFar;
       }
 
       // swap cost/newcost arrays
@@ -72,7 +146,7 @@ public class SourceSimilarityImpl implements SourceSimilarity {
       newcost = swap;
     }
 
-    // the distance is the cost for transforming all letters in both strings
+    // the distance is the cost for transforming all elements of both arrays
     return cost[len0 - 1];
   }
 }
@@ -0,0 +1,152 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.issue;
+
+import com.google.common.base.Splitter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.picocontainer.Startable;
+import org.sonar.api.utils.TempFolder;
+import org.sonar.core.issue.DefaultIssue;
+import org.sonar.server.protobuf.ProtobufIssueCache;
+import org.sonar.server.util.cache.SpillingByteStore;
+
+import static com.google.common.base.Preconditions.checkState;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Data of the previous analysis which are read by issue tracking: open issues of components and
+ * line hashes of files. They are loaded by {@link org.sonar.server.computation.task.projectanalysis.step.LoadBaseDataStep}
+ * for the whole project with a few cursor-based queries, instead of some queries per component.
+ * <p>
+ * Data are indexed by the uuid of component in database. They are kept in memory up to a limit, then written
+ * to temporary files.
+ */
+public class BaseDataRepository implements Startable {
+
+  private static final long MAX_MEMORY_BYTES_PER_STORE = 32L * 1024 * 1024;
+  private static final Splitter END_OF_LINE_SPLITTER = Splitter.on('\n');
+
+  private final SpillingByteStore issues;
+  private final SpillingByteStore lineHashes;
+  private boolean loaded = false;
+
+  public BaseDataRepository(TempFolder tempFolder) {
+    this(tempFolder, MAX_MEMORY_BYTES_PER_STORE);
+  }
+
+  BaseDataRepository(TempFolder tempFolder, long maxMemoryBytesPerStore) {
+    this.issues = new SpillingByteStore(tempFolder.newFile("base-issues", ".dat"), maxMemoryBytesPerStore);
+    this.lineHashes = new SpillingByteStore(tempFolder.newFile("base-line-hashes", ".dat"), maxMemoryBytesPerStore);
+  }
+
+  @Override
+  public void start() {
+    // nothing to do
+  }
+
+  @Override
+  public void stop() {
+    issues.close();
+    lineHashes.close();
+  }
+
+  /**
+   * Whether the data have been loaded. If {@code false}, then the getters of this repository can't
+   * be called and data must be read from database.
+   */
+  public boolean isLoaded() {
+    return loaded;
+  }
+
+  public void setLoaded() {
+    checkState(!loaded, "Base data are already loaded");
+    this.loaded = true;
+  }
+
+  public void addIssues(String componentUuid, List<DefaultIssue> componentIssues) {
+    checkState(!loaded, "Base data are already loaded");
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try {
+      for (DefaultIssue issue : componentIssues) {
+        ProtobufIssueConverter.toProtobuf(issue).writeDelimitedTo(bytes);
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to serialize issues of component " + componentUuid, e);
+    }
+    issues.put(componentUuid, bytes.toByteArray());
+  }
+
+  /**
+   * Adds the line hashes of a file, as stored in the column FILE_SOURCES.LINE_HASHES.
+   */
+  public void addLineHashes(String fileUuid, @Nullable String fileLineHashes) {
+    checkState(!loaded, "Base data are already loaded");
+    if (fileLineHashes != null) {
+      lineHashes.put(fileUuid, fileLineHashes.getBytes(UTF_8));
+    }
+  }
+
+  /**
+   * Open issues of the component, as returned by {@link BaseIssuesLoader}.
+   */
+  public List<DefaultIssue> getIssues(String componentUuid) {
+    checkLoaded();
+    byte[] bytes = issues.get(componentUuid);
+    if (bytes == null) {
+      return Collections.emptyList();
+    }
+    List<DefaultIssue> result = new ArrayList<>();
+    try (InputStream input = new ByteArrayInputStream(bytes)) {
+      ProtobufIssueCache.Issue message = ProtobufIssueCache.Issue.parseDelimitedFrom(input);
+      while (message != null) {
+        result.add(ProtobufIssueConverter.toDefaultIssue(message));
+        message = ProtobufIssueCache.Issue.parseDelimitedFrom(input);
+      }
+      return result;
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to deserialize issues of component " + componentUuid, e);
+    }
+  }
+
+  /**
+   * @return {@code null} if the file has no line hashes in database
+   */
+  @CheckForNull
+  public List<String> getLineHashes(String fileUuid) {
+    checkLoaded();
+    byte[] bytes = lineHashes.get(fileUuid);
+    if (bytes == null) {
+      return null;
+    }
+    return END_OF_LINE_SPLITTER.splitToList(new String(bytes, UTF_8));
+  }
+
+  private void checkLoaded() {
+    checkState(loaded, "Base data are not loaded");
+  }
+}
@@ -22,6 +22,7 @@ package org.sonar.server.computation.task.projectanalysis.issue;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
+import java.util.function.BiConsumer;
 import org.apache.ibatis.session.ResultContext;
 import org.apache.ibatis.session.ResultHandler;
 import org.sonar.api.rule.RuleKey;
@@ -45,33 +46,31 @@ public class BaseIssuesLoader {
   private final DbClient dbClient;
   private final RuleRepository ruleRepository;
   private final ActiveRulesHolder activeRulesHolder;
+  private final BaseDataRepository baseDataRepository;
 
   public BaseIssuesLoader(TreeRootHolder treeRootHolder,
-    DbClient dbClient, RuleRepository ruleRepository, ActiveRulesHolder activeRulesHolder) {
+    DbClient dbClient, RuleRepository ruleRepository, ActiveRulesHolder activeRulesHolder, BaseDataRepository baseDataRepository) {
     this.activeRulesHolder = activeRulesHolder;
+    this.baseDataRepository = baseDataRepository;
     this.treeRootHolder = treeRootHolder;
     this.dbClient = dbClient;
     this.ruleRepository = ruleRepository;
   }
 
+  /**
+   * Open issues of the component. They are read from {@link BaseDataRepository} if it's loaded, else from database.
+   */
   public List<DefaultIssue> loadForComponentUuid(String componentUuid) {
+    if (baseDataRepository.isLoaded()) {
+      return baseDataRepository.getIssues(componentUuid);
+    }
     DbSession session = dbClient.openSession(false);
     final List<DefaultIssue> result = new ArrayList<>();
     try {
       session.getMapper(IssueMapper.class).selectNonClosedByComponentUuid(componentUuid, new ResultHandler() {
         @Override
         public void handleResult(ResultContext resultContext) {
-          DefaultIssue issue = ((IssueDto) resultContext.getResultObject()).toDefaultIssue();
-
-          // TODO this field should be set outside this class
-          if (!isActive(issue.ruleKey()) || ruleRepository.getByKey(issue.ruleKey()).getStatus() == RuleStatus.REMOVED) {
-            issue.setOnDisabledRule(true);
-            // TODO to be improved, why setOnDisabledRule(true) is not enough ?
-            issue.setBeingClosed(true);
-          }
-          // FIXME
-          issue.setSelectedAt(System.currentTimeMillis());
-          result.add(issue);
+          result.add(toDefaultIssue((IssueDto) resultContext.getResultObject()));
         }
       });
       return result;
@@ -80,10 +79,69 @@ public class BaseIssuesLoader {
     }
   }
 
+  /**
+   * Streams the open issues of all the components of the project with a single query. The consumer is called
+   * once per component having open issues.
+   */
+  public void loadForProject(BiConsumer<String, List<DefaultIssue>> consumer) {
+    DbSession session = dbClient.openSession(false);
+    try {
+      ComponentIssuesHandler handler = new ComponentIssuesHandler(consumer);
+      dbClient.issueDao().scrollNonClosedByProjectUuid(session, treeRootHolder.getRoot().getUuid(), handler);
+      handler.flush();
+    } finally {
+      MyBatis.closeQuietly(session);
+    }
+  }
+
+  private DefaultIssue toDefaultIssue(IssueDto dto) {
+    DefaultIssue issue = dto.toDefaultIssue();
+
+    // TODO this field should be set outside this class
+    if (!isActive(issue.ruleKey()) || ruleRepository.getByKey(issue.ruleKey()).getStatus() == RuleStatus.REMOVED) {
+      issue.setOnDisabledRule(true);
+      // TODO to be improved, why setOnDisabledRule(true) is not enough ?
+      issue.setBeingClosed(true);
+    }
+    // FIXME
+    issue.setSelectedAt(System.currentTimeMillis());
+    return issue;
+  }
+
   private boolean isActive(RuleKey ruleKey) {
     return activeRulesHolder.get(ruleKey).isPresent();
   }
 
+  /**
+   * Groups issues by component. Rows are expected to be ordered by component.
+   */
+  private class ComponentIssuesHandler implements ResultHandler {
+    private final BiConsumer<String, List<DefaultIssue>> consumer;
+    private String componentUuid = null;
+    private List<DefaultIssue> componentIssues = new ArrayList<>();
+
+    private ComponentIssuesHandler(BiConsumer<String, List<DefaultIssue>> consumer) {
+      this.consumer = consumer;
+    }
+
+    @Override
+    public void handleResult(ResultContext resultContext) {
+      IssueDto dto = (IssueDto) resultContext.getResultObject();
+      if (!dto.getComponentUuid().equals(componentUuid)) {
+        flush();
+        componentUuid = dto.getComponentUuid();
+      }
+      componentIssues.add(toDefaultIssue(dto));
+    }
+
+    private void flush() {
+      if (componentUuid != null) {
+        consumer.accept(componentUuid, componentIssues);
+        componentIssues = new ArrayList<>();
+      }
+    }
+  }
+
   /**
    * Uuids of all the components that have open issues on this project.
    */
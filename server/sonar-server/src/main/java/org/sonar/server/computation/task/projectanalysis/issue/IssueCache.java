@@ -19,25 +19,41 @@
  */
 package org.sonar.server.computation.task.projectanalysis.issue;
 
+import com.google.protobuf.Parser;
 import java.io.File;
 import java.io.IOException;
-import org.sonar.api.utils.System2;
 import org.sonar.api.utils.TempFolder;
 import org.sonar.core.issue.DefaultIssue;
-import org.sonar.server.util.cache.DiskCache;
+import org.sonar.server.protobuf.ProtobufIssueCache;
+import org.sonar.server.util.cache.ProtobufDiskCache;
 
 /**
  * Cache of all the issues involved in the analysis. Their state is as it will be
  * persisted in database (after issue tracking, auto-assignment, ...)
  */
-public class IssueCache extends DiskCache<DefaultIssue> {
+public class IssueCache extends ProtobufDiskCache<DefaultIssue, ProtobufIssueCache.Issue> {
 
   // this constructor is used by picocontainer
-  public IssueCache(TempFolder tempFolder, System2 system2) throws IOException {
-    super(tempFolder.newFile("issues", ".dat"), system2);
+  public IssueCache(TempFolder tempFolder) throws IOException {
+    super(tempFolder.newFile("issues", ".dat"));
   }
 
-  public IssueCache(File file, System2 system2) {
-    super(file, system2);
+  public IssueCache(File file) {
+    super(file);
+  }
+
+  @Override
+  protected Parser<ProtobufIssueCache.Issue> parser() {
+    return ProtobufIssueCache.Issue.parser();
+  }
+
+  @Override
+  protected ProtobufIssueCache.Issue toProtobuf(DefaultIssue issue) {
+    return ProtobufIssueConverter.toProtobuf(issue);
+  }
+
+  @Override
+  protected DefaultIssue fromProtobuf(ProtobufIssueCache.Issue message) {
+    return ProtobufIssueConverter.toDefaultIssue(message);
   }
 }
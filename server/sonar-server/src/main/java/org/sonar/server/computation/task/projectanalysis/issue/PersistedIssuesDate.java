@@ -0,0 +1,42 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.issue;
+
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Date of the issues inserted or updated by {@link org.sonar.server.computation.task.projectanalysis.step.PersistIssuesStep},
+ * as stored in column ISSUES.UPDATED_AT. It's the technical date of the documents indexed from {@link IssueCache}.
+ */
+public class PersistedIssuesDate {
+
+  private long date = -1L;
+
+  public void set(long date) {
+    checkState(this.date < 0L, "Date has already been initialized");
+    this.date = date;
+  }
+
+  public long get() {
+    checkState(date >= 0L, "Date has not been initialized yet");
+    return date;
+  }
+
+}
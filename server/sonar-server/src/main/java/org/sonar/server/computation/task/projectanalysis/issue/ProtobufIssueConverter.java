@@ -0,0 +1,325 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.issue;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.apache.commons.lang.SerializationUtils;
+import org.sonar.api.issue.IssueComment;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.api.rules.RuleType;
+import org.sonar.api.utils.Duration;
+import org.sonar.core.issue.DefaultIssue;
+import org.sonar.core.issue.DefaultIssueComment;
+import org.sonar.core.issue.FieldDiffs;
+import org.sonar.db.protobuf.DbIssues;
+import org.sonar.server.protobuf.ProtobufIssueCache;
+
+/**
+ * Conversion of {@link DefaultIssue} from and to the protobuf message {@link ProtobufIssueCache.Issue}, which is used
+ * to store issues on disk during the analysis.
+ */
+final class ProtobufIssueConverter {
+
+  private ProtobufIssueConverter() {
+    // only static stuff
+  }
+
+  static ProtobufIssueCache.Issue toProtobuf(DefaultIssue issue) {
+    ProtobufIssueCache.Issue.Builder builder = ProtobufIssueCache.Issue.newBuilder();
+    if (issue.key() != null) {
+      builder.setKey(issue.key());
+    }
+    if (issue.type() != null) {
+      builder.setRuleType(issue.type().getDbConstant());
+    }
+    if (issue.componentUuid() != null) {
+      builder.setComponentUuid(issue.componentUuid());
+    }
+    if (issue.componentKey() != null) {
+      builder.setComponentKey(issue.componentKey());
+    }
+    if (issue.moduleUuid() != null) {
+      builder.setModuleUuid(issue.moduleUuid());
+    }
+    if (issue.moduleUuidPath() != null) {
+      builder.setModuleUuidPath(issue.moduleUuidPath());
+    }
+    if (issue.projectUuid() != null) {
+      builder.setProjectUuid(issue.projectUuid());
+    }
+    if (issue.projectKey() != null) {
+      builder.setProjectKey(issue.projectKey());
+    }
+    if (issue.ruleKey() != null) {
+      builder.setRuleKey(issue.ruleKey().toString());
+    }
+    if (issue.language() != null) {
+      builder.setLanguage(issue.language());
+    }
+    if (issue.severity() != null) {
+      builder.setSeverity(issue.severity());
+    }
+    builder.setManualSeverity(issue.manualSeverity());
+    if (issue.message() != null) {
+      builder.setMessage(issue.message());
+    }
+    if (issue.line() != null) {
+      builder.setLine(issue.line());
+    }
+    if (issue.gap() != null) {
+      builder.setGap(issue.gap());
+    }
+    if (issue.effort() != null) {
+      builder.setEffort(issue.effort().toMinutes());
+    }
+    if (issue.status() != null) {
+      builder.setStatus(issue.status());
+    }
+    if (issue.resolution() != null) {
+      builder.setResolution(issue.resolution());
+    }
+    if (issue.assignee() != null) {
+      builder.setAssignee(issue.assignee());
+    }
+    if (issue.checksum() != null) {
+      builder.setChecksum(issue.checksum());
+    }
+    for (Map.Entry<String, String> attribute : issue.attributes().entrySet()) {
+      builder.addAttributesBuilder().setKey(attribute.getKey()).setValue(attribute.getValue());
+    }
+    if (issue.authorLogin() != null) {
+      builder.setAuthorLogin(issue.authorLogin());
+    }
+    for (IssueComment comment : issue.comments()) {
+      builder.addComments(toProtobuf((DefaultIssueComment) comment));
+    }
+    builder.addAllTags(issue.tags());
+    Object locations = issue.getLocations();
+    if (locations != null) {
+      builder.setLocations(((DbIssues.Locations) locations).toByteString());
+    }
+    if (issue.creationDate() != null) {
+      builder.setCreationDate(issue.creationDate().getTime());
+    }
+    if (issue.updateDate() != null) {
+      builder.setUpdateDate(issue.updateDate().getTime());
+    }
+    if (issue.closeDate() != null) {
+      builder.setCloseDate(issue.closeDate().getTime());
+    }
+    FieldDiffs currentChange = issue.currentChange();
+    if (currentChange != null) {
+      builder.setCurrentChange(toProtobuf(currentChange));
+    }
+    for (FieldDiffs change : issue.changes()) {
+      if (change == currentChange) {
+        builder.addChangesBuilder().setIsCurrentChange(true);
+      } else {
+        builder.addChanges(toProtobuf(change));
+      }
+    }
+    builder.setIsNew(issue.isNew());
+    builder.setBeingClosed(issue.isBeingClosed());
+    builder.setOnDisabledRule(issue.isOnDisabledRule());
+    builder.setIsChanged(issue.isChanged());
+    builder.setSendNotifications(issue.mustSendNotifications());
+    if (issue.selectedAt() != null) {
+      builder.setSelectedAt(issue.selectedAt());
+    }
+    return builder.build();
+  }
+
+  static DefaultIssue toDefaultIssue(ProtobufIssueCache.Issue message) {
+    DefaultIssue issue = new DefaultIssue();
+    issue.setKey(message.hasKey() ? message.getKey() : null);
+    issue.setType(message.hasRuleType() ? RuleType.valueOf(message.getRuleType()) : null);
+    issue.setComponentUuid(message.hasComponentUuid() ? message.getComponentUuid() : null);
+    issue.setComponentKey(message.hasComponentKey() ? message.getComponentKey() : null);
+    issue.setModuleUuid(message.hasModuleUuid() ? message.getModuleUuid() : null);
+    issue.setModuleUuidPath(message.hasModuleUuidPath() ? message.getModuleUuidPath() : null);
+    issue.setProjectUuid(message.hasProjectUuid() ? message.getProjectUuid() : null);
+    issue.setProjectKey(message.hasProjectKey() ? message.getProjectKey() : null);
+    issue.setRuleKey(message.hasRuleKey() ? RuleKey.parse(message.getRuleKey()) : null);
+    issue.setLanguage(message.hasLanguage() ? message.getLanguage() : null);
+    issue.setSeverity(message.hasSeverity() ? message.getSeverity() : null);
+    issue.setManualSeverity(message.getManualSeverity());
+    issue.setMessage(message.hasMessage() ? message.getMessage() : null);
+    issue.setLine(message.hasLine() ? message.getLine() : null);
+    issue.setGap(message.hasGap() ? message.getGap() : null);
+    issue.setEffort(message.hasEffort() ? Duration.create(message.getEffort()) : null);
+    if (message.hasStatus()) {
+      issue.setStatus(message.getStatus());
+    }
+    issue.setResolution(message.hasResolution() ? message.getResolution() : null);
+    issue.setAssignee(message.hasAssignee() ? message.getAssignee() : null);
+    issue.setChecksum(message.hasChecksum() ? message.getChecksum() : null);
+    for (ProtobufIssueCache.Attribute attribute : message.getAttributesList()) {
+      issue.setAttribute(attribute.getKey(), attribute.getValue());
+    }
+    issue.setAuthorLogin(message.hasAuthorLogin() ? message.getAuthorLogin() : null);
+    for (ProtobufIssueCache.Comment comment : message.getCommentsList()) {
+      issue.addComment(toComment(comment));
+    }
+    if (message.getTagsCount() > 0) {
+      issue.setTags(message.getTagsList());
+    }
+    if (message.hasLocations()) {
+      issue.setLocations(parseLocations(message.getLocations()));
+    }
+    issue.setCreationDate(message.hasCreationDate() ? new Date(message.getCreationDate()) : null);
+    issue.setUpdateDate(message.hasUpdateDate() ? new Date(message.getUpdateDate()) : null);
+    issue.setCloseDate(message.hasCloseDate() ? new Date(message.getCloseDate()) : null);
+    FieldDiffs currentChange = null;
+    if (message.hasCurrentChange()) {
+      currentChange = toFieldDiffs(message.getCurrentChange());
+      issue.setCurrentChange(currentChange);
+    }
+    if (message.getChangesCount() > 0) {
+      List<FieldDiffs> changes = new ArrayList<>(message.getChangesCount());
+      for (ProtobufIssueCache.FieldDiffs change : message.getChangesList()) {
+        changes.add(change.getIsCurrentChange() ? currentChange : toFieldDiffs(change));
+      }
+      issue.setChanges(changes);
+    }
+    issue.setNew(message.getIsNew());
+    issue.setBeingClosed(message.getBeingClosed());
+    issue.setOnDisabledRule(message.getOnDisabledRule());
+    issue.setChanged(message.getIsChanged());
+    issue.setSendNotifications(message.getSendNotifications());
+    issue.setSelectedAt(message.hasSelectedAt() ? message.getSelectedAt() : null);
+    return issue;
+  }
+
+  private static DbIssues.Locations parseLocations(ByteString bytes) {
+    try {
+      return DbIssues.Locations.parseFrom(bytes);
+    } catch (InvalidProtocolBufferException e) {
+      throw new IllegalStateException("Fail to read locations of issue", e);
+    }
+  }
+
+  private static ProtobufIssueCache.Comment toProtobuf(DefaultIssueComment comment) {
+    ProtobufIssueCache.Comment.Builder builder = ProtobufIssueCache.Comment.newBuilder();
+    if (comment.issueKey() != null) {
+      builder.setIssueKey(comment.issueKey());
+    }
+    if (comment.userLogin() != null) {
+      builder.setUserLogin(comment.userLogin());
+    }
+    if (comment.createdAt() != null) {
+      builder.setCreatedAt(comment.createdAt().getTime());
+    }
+    if (comment.updatedAt() != null) {
+      builder.setUpdatedAt(comment.updatedAt().getTime());
+    }
+    if (comment.key() != null) {
+      builder.setKey(comment.key());
+    }
+    if (comment.markdownText() != null) {
+      builder.setMarkdownText(comment.markdownText());
+    }
+    builder.setIsNew(comment.isNew());
+    return builder.build();
+  }
+
+  private static DefaultIssueComment toComment(ProtobufIssueCache.Comment comment) {
+    return new DefaultIssueComment()
+      .setIssueKey(comment.hasIssueKey() ? comment.getIssueKey() : null)
+      .setUserLogin(comment.hasUserLogin() ? comment.getUserLogin() : null)
+      .setCreatedAt(comment.hasCreatedAt() ? new Date(comment.getCreatedAt()) : null)
+      .setUpdatedAt(comment.hasUpdatedAt() ? new Date(comment.getUpdatedAt()) : null)
+      .setKey(comment.hasKey() ? comment.getKey() : null)
+      .setMarkdownText(comment.hasMarkdownText() ? comment.getMarkdownText() : null)
+      .setNew(comment.getIsNew());
+  }
+
+  private static ProtobufIssueCache.FieldDiffs toProtobuf(FieldDiffs diffs) {
+    ProtobufIssueCache.FieldDiffs.Builder builder = ProtobufIssueCache.FieldDiffs.newBuilder();
+    if (diffs.issueKey() != null) {
+      builder.setIssueKey(diffs.issueKey());
+    }
+    if (diffs.userLogin() != null) {
+      builder.setUserLogin(diffs.userLogin());
+    }
+    if (diffs.creationDate() != null) {
+      builder.setCreationDate(diffs.creationDate().getTime());
+    }
+    for (Map.Entry<String, FieldDiffs.Diff> diff : diffs.diffs().entrySet()) {
+      ProtobufIssueCache.Diff.Builder diffBuilder = builder.addDiffsBuilder().setField(diff.getKey());
+      if (diff.getValue().oldValue() != null) {
+        diffBuilder.setOldValue(toProtobuf(diff.getValue().oldValue()));
+      }
+      if (diff.getValue().newValue() != null) {
+        diffBuilder.setNewValue(toProtobuf(diff.getValue().newValue()));
+      }
+    }
+    return builder.build();
+  }
+
+  private static ProtobufIssueCache.DiffValue toProtobuf(Serializable value) {
+    ProtobufIssueCache.DiffValue.Builder builder = ProtobufIssueCache.DiffValue.newBuilder();
+    if (value instanceof String) {
+      builder.setStringValue((String) value);
+    } else if (value instanceof Long) {
+      builder.setLongValue((Long) value);
+    } else if (value instanceof RuleType) {
+      builder.setRuleType(((RuleType) value).getDbConstant());
+    } else {
+      builder.setSerializedValue(ByteString.copyFrom(SerializationUtils.serialize(value)));
+    }
+    return builder.build();
+  }
+
+  private static FieldDiffs toFieldDiffs(ProtobufIssueCache.FieldDiffs message) {
+    FieldDiffs diffs = new FieldDiffs();
+    diffs.setIssueKey(message.hasIssueKey() ? message.getIssueKey() : null);
+    diffs.setUserLogin(message.hasUserLogin() ? message.getUserLogin() : null);
+    diffs.setCreationDate(message.hasCreationDate() ? new Date(message.getCreationDate()) : null);
+    for (ProtobufIssueCache.Diff diff : message.getDiffsList()) {
+      diffs.setDiff(diff.getField(), toValue(diff.hasOldValue() ? diff.getOldValue() : null), toValue(diff.hasNewValue() ? diff.getNewValue() : null));
+    }
+    return diffs;
+  }
+
+  @CheckForNull
+  private static Serializable toValue(@Nullable ProtobufIssueCache.DiffValue value) {
+    if (value == null) {
+      return null;
+    }
+    if (value.hasStringValue()) {
+      return value.getStringValue();
+    }
+    if (value.hasLongValue()) {
+      return value.getLongValue();
+    }
+    if (value.hasRuleType()) {
+      return RuleType.valueOf(value.getRuleType());
+    }
+    return (Serializable) SerializationUtils.deserialize(value.getSerializedValue().toByteArray());
+  }
+}
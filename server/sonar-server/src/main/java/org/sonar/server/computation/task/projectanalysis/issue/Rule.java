@@ -45,4 +45,7 @@ public interface Rule {
 
   @CheckForNull
   DebtRemediationFunction getRemediationFunction();
+
+  @CheckForNull
+  String getLanguage();
 }
@@ -35,7 +35,8 @@ import org.sonar.server.computation.task.projectanalysis.filemove.MovedFilesRepo
 import org.sonar.server.computation.task.projectanalysis.filemove.MovedFilesRepository.OriginalFile;
 
 /**
- * Factory of {@link Input} of base data for issue tracking. Data are lazy-loaded.
+ * Factory of {@link Input} of base data for issue tracking. Data are lazy-loaded, from {@link BaseDataRepository}
+ * if it's loaded, else from database.
  */
 public class TrackerBaseInputFactory {
   private static final LineHashSequence EMPTY_LINE_HASH_SEQUENCE = new LineHashSequence(Collections.<String>emptyList());
@@ -43,11 +44,14 @@ public class TrackerBaseInputFactory {
   private final BaseIssuesLoader baseIssuesLoader;
   private final DbClient dbClient;
   private final MovedFilesRepository movedFilesRepository;
+  private final BaseDataRepository baseDataRepository;
 
-  public TrackerBaseInputFactory(BaseIssuesLoader baseIssuesLoader, DbClient dbClient, MovedFilesRepository movedFilesRepository) {
+  public TrackerBaseInputFactory(BaseIssuesLoader baseIssuesLoader, DbClient dbClient, MovedFilesRepository movedFilesRepository,
+    BaseDataRepository baseDataRepository) {
     this.baseIssuesLoader = baseIssuesLoader;
     this.dbClient = dbClient;
     this.movedFilesRepository = movedFilesRepository;
+    this.baseDataRepository = baseDataRepository;
   }
 
   public Input<DefaultIssue> create(Component component) {
@@ -69,14 +73,19 @@ public class TrackerBaseInputFactory {
       if (component.getType() != Component.Type.FILE) {
         return EMPTY_LINE_HASH_SEQUENCE;
       }
-      
+
+      List<String> hashes = baseDataRepository.isLoaded() ? baseDataRepository.getLineHashes(effectiveUuid) : selectLineHashes();
+      if (hashes == null || hashes.isEmpty()) {
+        return EMPTY_LINE_HASH_SEQUENCE;
+      }
+      return new LineHashSequence(hashes);
+    }
+
+    @CheckForNull
+    private List<String> selectLineHashes() {
       DbSession session = dbClient.openSession(false);
       try {
-        List<String> hashes = dbClient.fileSourceDao().selectLineHashes(session, effectiveUuid);
-        if (hashes == null || hashes.isEmpty()) {
-          return EMPTY_LINE_HASH_SEQUENCE;
-        }
-        return new LineHashSequence(hashes);
+        return dbClient.fileSourceDao().selectLineHashes(session, effectiveUuid);
       } finally {
         MyBatis.closeQuietly(session);
       }
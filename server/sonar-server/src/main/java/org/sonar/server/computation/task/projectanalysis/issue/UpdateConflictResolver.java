@@ -34,6 +34,8 @@ public class UpdateConflictResolver {
 
   private static final Logger LOG = Loggers.get(UpdateConflictResolver.class);
 
+  private boolean conflictResolved = false;
+
   public void resolve(DefaultIssue issue, IssueMapper mapper) {
     LOG.debug("Resolve conflict on issue {}", issue.key());
 
@@ -41,9 +43,18 @@ public class UpdateConflictResolver {
     if (dbIssue != null) {
       mergeFields(dbIssue, issue);
       mapper.update(IssueDto.toDtoForUpdate(issue, System.currentTimeMillis()));
+      conflictResolved = true;
     }
   }
 
+  /**
+   * Whether at least one issue has been merged with its version in database. In this case, the merged issue is
+   * different from the one in {@link IssueCache}.
+   */
+  public boolean hasResolvedConflicts() {
+    return conflictResolved;
+  }
+
   @VisibleForTesting
   void mergeFields(IssueDto dbIssue, DefaultIssue issue) {
     resolveAssignee(dbIssue, issue);
@@ -0,0 +1,286 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.measure;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.SetMultimap;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonar.server.computation.task.projectanalysis.component.Component;
+import org.sonar.server.computation.task.projectanalysis.component.Developer;
+import org.sonar.server.computation.task.projectanalysis.metric.Metric;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Implementation of {@link RawMeasureRepository} which stores measures in primitive arrays rather than in maps of
+ * {@link MeasureKey} to {@link Measure}.
+ * <p>
+ * Components are identified by their report ref and metrics by their id. Both are packed into a {@code long} key of an
+ * open-addressing table. For the most frequent measures (numeric, boolean or without value, with no data, description,
+ * quality gate status nor variations) only the value type and the value are stored, in a {@code byte} and a
+ * {@code double}, and the {@link Measure} object is recreated when read. All the other measures are stored as objects
+ * in side tables, which also hold the measures of developers.
+ * </p>
+ */
+public final class CompactRawMeasureRepository implements RawMeasureRepository {
+  private static final long FREE = -1L;
+  private static final byte OBJECT = -1;
+  private static final int INITIAL_CAPACITY = 1024;
+  private static final Measure.ValueType[] VALUE_TYPES = Measure.ValueType.values();
+
+  private long[] keys = newKeys(INITIAL_CAPACITY);
+  private byte[] types = new byte[INITIAL_CAPACITY];
+  private double[] values = new double[INITIAL_CAPACITY];
+  private int size = 0;
+
+  private final Map<Long, Measure> objectMeasures = new HashMap<>();
+  private final Map<Long, Map<Developer, Measure>> developerMeasures = new HashMap<>();
+  private final Map<Integer, Metric> metricsById = new LinkedHashMap<>();
+
+  @Override
+  public Optional<Measure> getRawMeasure(Component component, Metric metric) {
+    // fail fast
+    requireNonNull(component);
+    requireNonNull(metric);
+
+    return Optional.fromNullable(find(key(component, metric)));
+  }
+
+  @Override
+  public void add(Component component, Metric metric, Measure measure) {
+    requireNonNull(component);
+    checkValueTypeConsistency(metric, measure);
+
+    if (find(key(component, metric), measure.getDeveloper()) != null) {
+      throw new UnsupportedOperationException(
+        format(
+          "a measure can be set only once for a specific Component (key=%s), Metric (key=%s). Use update method",
+          component.getKey(),
+          metric.getKey()));
+    }
+    add(component, metric, measure, OverridePolicy.OVERRIDE);
+  }
+
+  @Override
+  public void update(Component component, Metric metric, Measure measure) {
+    requireNonNull(component);
+    checkValueTypeConsistency(metric, measure);
+
+    if (find(key(component, metric), measure.getDeveloper()) == null) {
+      throw new UnsupportedOperationException(
+        format(
+          "a measure can be updated only if one already exists for a specific Component (key=%s), Metric (key=%s). Use add method",
+          component.getKey(),
+          metric.getKey()));
+    }
+    add(component, metric, measure, OverridePolicy.OVERRIDE);
+  }
+
+  private static void checkValueTypeConsistency(Metric metric, Measure measure) {
+    checkArgument(
+      measure.getValueType() == Measure.ValueType.NO_VALUE || measure.getValueType() == metric.getType().getValueType(),
+      format(
+        "Measure's ValueType (%s) is not consistent with the Metric's ValueType (%s)",
+        measure.getValueType(), metric.getType().getValueType()));
+  }
+
+  @Override
+  public Set<Measure> getRawMeasures(Component component, Metric metric) {
+    requireNonNull(metric);
+    requireNonNull(component);
+    long key = key(component, metric);
+    ImmutableSet.Builder<Measure> builder = ImmutableSet.builder();
+    Measure measure = find(key);
+    if (measure != null) {
+      builder.add(measure);
+    }
+    Map<Developer, Measure> measuresOfDevelopers = developerMeasures.get(key);
+    if (measuresOfDevelopers != null) {
+      builder.addAll(measuresOfDevelopers.values());
+    }
+    return builder.build();
+  }
+
+  @Override
+  public SetMultimap<String, Measure> getRawMeasures(Component component) {
+    int ref = component.getReportAttributes().getRef();
+    ImmutableSetMultimap.Builder<String, Measure> builder = ImmutableSetMultimap.builder();
+    for (Map.Entry<Integer, Metric> entry : metricsById.entrySet()) {
+      long key = key(ref, entry.getKey());
+      Measure measure = find(key);
+      if (measure != null) {
+        builder.put(entry.getValue().getKey(), measure);
+      }
+      if (!developerMeasures.isEmpty()) {
+        Map<Developer, Measure> measuresOfDevelopers = developerMeasures.get(key);
+        if (measuresOfDevelopers != null) {
+          builder.putAll(entry.getValue().getKey(), measuresOfDevelopers.values());
+        }
+      }
+    }
+    return builder.build();
+  }
+
+  @Override
+  public void add(Component component, Metric metric, Measure measure, OverridePolicy overridePolicy) {
+    requireNonNull(component);
+    requireNonNull(measure);
+    requireNonNull(overridePolicy);
+
+    long key = key(component, metric);
+    if (overridePolicy == OverridePolicy.DO_NOT_OVERRIDE && find(key, measure.getDeveloper()) != null) {
+      return;
+    }
+    metricsById.putIfAbsent(metric.getId(), metric);
+    Developer developer = measure.getDeveloper();
+    if (developer != null) {
+      developerMeasures.computeIfAbsent(key, k -> new HashMap<>()).put(developer, measure);
+    } else {
+      put(key, measure);
+    }
+  }
+
+  @CheckForNull
+  private Measure find(long key, @Nullable Developer developer) {
+    if (developer == null) {
+      return find(key);
+    }
+    Map<Developer, Measure> measuresOfDevelopers = developerMeasures.get(key);
+    return measuresOfDevelopers == null ? null : measuresOfDevelopers.get(developer);
+  }
+
+  @CheckForNull
+  private Measure find(long key) {
+    int slot = slot(keys, key);
+    if (keys[slot] == FREE) {
+      return null;
+    }
+    if (types[slot] == OBJECT) {
+      return objectMeasures.get(key);
+    }
+    return Measure.createFromRawValue(VALUE_TYPES[types[slot]], values[slot]);
+  }
+
+  private void put(long key, Measure measure) {
+    int slot = slot(keys, key);
+    if (keys[slot] == FREE) {
+      keys[slot] = key;
+      size++;
+    }
+    if (isStorableAsRawValue(measure)) {
+      if (types[slot] == OBJECT) {
+        objectMeasures.remove(key);
+      }
+      types[slot] = (byte) measure.getValueType().ordinal();
+      values[slot] = rawValue(measure);
+    } else {
+      types[slot] = OBJECT;
+      objectMeasures.put(key, measure);
+    }
+    if (size * 2 > keys.length) {
+      rehash();
+    }
+  }
+
+  private static boolean isStorableAsRawValue(Measure measure) {
+    if (measure.getData() != null || measure.getDescription() != null || measure.hasQualityGateStatus() || measure.hasVariations()) {
+      return false;
+    }
+    switch (measure.getValueType()) {
+      case NO_VALUE:
+      case BOOLEAN:
+      case INT:
+      case LONG:
+      case DOUBLE:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  private static double rawValue(Measure measure) {
+    switch (measure.getValueType()) {
+      case BOOLEAN:
+        return measure.getBooleanValue() ? 1.0d : 0.0d;
+      case INT:
+        return measure.getIntValue();
+      case LONG:
+        return measure.getLongValue();
+      case DOUBLE:
+        return measure.getDoubleValue();
+      default:
+        return 0.0d;
+    }
+  }
+
+  private void rehash() {
+    long[] oldKeys = keys;
+    byte[] oldTypes = types;
+    double[] oldValues = values;
+    keys = newKeys(oldKeys.length * 2);
+    types = new byte[oldKeys.length * 2];
+    values = new double[oldKeys.length * 2];
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != FREE) {
+        int slot = slot(keys, oldKeys[i]);
+        keys[slot] = oldKeys[i];
+        types[slot] = oldTypes[i];
+        values[slot] = oldValues[i];
+      }
+    }
+  }
+
+  /**
+   * Slot holding the specified key or, when absent, the free slot where it should be inserted.
+   */
+  private static int slot(long[] keys, long key) {
+    int mask = keys.length - 1;
+    long h = key * 0x9E3779B97F4A7C15L;
+    int slot = (int) (h ^ (h >>> 32)) & mask;
+    while (keys[slot] != FREE && keys[slot] != key) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  private static long key(Component component, Metric metric) {
+    return key(component.getReportAttributes().getRef(), metric.getId());
+  }
+
+  private static long key(int ref, int metricId) {
+    return ((long) ref << 32) | (metricId & 0xFFFFFFFFL);
+  }
+
+  private static long[] newKeys(int capacity) {
+    long[] res = new long[capacity];
+    Arrays.fill(res, FREE);
+    return res;
+  }
+}
@@ -0,0 +1,145 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.measure;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Compact in-memory store of numeric values by component and metric.
+ * <p>
+ * Component UUIDs are mapped to a dense int index so that each value is stored under a single primitive {@code long}
+ * key (component index in the high 32 bits, metric id in the low 32 bits) in an open-addressing table. This avoids
+ * allocating a key object and a boxed {@link Double} per value.
+ * </p>
+ * <p>
+ * This class is not thread-safe.
+ * </p>
+ */
+public final class ComponentMetricValues {
+
+  private static final long FREE = -1L;
+  private static final int DEFAULT_CAPACITY = 64;
+
+  private final Map<String, Integer> componentIndexes = new HashMap<>();
+  private long[] keys;
+  private double[] values;
+  private int size = 0;
+
+  public ComponentMetricValues() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  public ComponentMetricValues(int expectedSize) {
+    checkArgument(expectedSize >= 0, "expected size can't be negative");
+    int capacity = Integer.highestOneBit(Math.max(DEFAULT_CAPACITY, expectedSize * 2) - 1) << 1;
+    this.keys = newKeys(capacity);
+    this.values = new double[capacity];
+  }
+
+  public void put(String componentUuid, int metricId, double value) {
+    checkArgument(metricId >= 0, "metric id can't be negative");
+    Integer componentIndex = componentIndexes.get(requireNonNull(componentUuid, "component uuid can't be null"));
+    if (componentIndex == null) {
+      componentIndex = componentIndexes.size();
+      componentIndexes.put(componentUuid, componentIndex);
+    }
+    long key = key(componentIndex, metricId);
+    int slot = slot(keys, key);
+    if (keys[slot] == FREE) {
+      keys[slot] = key;
+      size++;
+    }
+    values[slot] = value;
+    if (size * 2 > keys.length) {
+      rehash();
+    }
+  }
+
+  public boolean contains(String componentUuid, int metricId) {
+    return indexOf(componentUuid, metricId) >= 0;
+  }
+
+  /**
+   * @return the value stored for the specified component and metric, or {@code defaultValue} if there is none
+   */
+  public double get(String componentUuid, int metricId, double defaultValue) {
+    int slot = indexOf(componentUuid, metricId);
+    return slot < 0 ? defaultValue : values[slot];
+  }
+
+  public int size() {
+    return size;
+  }
+
+  private int indexOf(String componentUuid, int metricId) {
+    Integer componentIndex = componentIndexes.get(componentUuid);
+    if (componentIndex == null || metricId < 0) {
+      return -1;
+    }
+    int slot = slot(keys, key(componentIndex, metricId));
+    return keys[slot] == FREE ? -1 : slot;
+  }
+
+  private void rehash() {
+    long[] oldKeys = keys;
+    double[] oldValues = values;
+    keys = newKeys(oldKeys.length * 2);
+    values = new double[oldKeys.length * 2];
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != FREE) {
+        int slot = slot(keys, oldKeys[i]);
+        keys[slot] = oldKeys[i];
+        values[slot] = oldValues[i];
+      }
+    }
+  }
+
+  /**
+   * Slot holding the specified key or, when absent, the free slot where it should be inserted.
+   */
+  private static int slot(long[] keys, long key) {
+    int mask = keys.length - 1;
+    int slot = mix(key) & mask;
+    while (keys[slot] != FREE && keys[slot] != key) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  private static long key(int componentIndex, int metricId) {
+    return ((long) componentIndex << 32) | (metricId & 0xFFFFFFFFL);
+  }
+
+  private static int mix(long key) {
+    long h = key * 0x9E3779B97F4A7C15L;
+    return (int) (h ^ (h >>> 32));
+  }
+
+  private static long[] newKeys(int capacity) {
+    long[] res = new long[capacity];
+    Arrays.fill(res, FREE);
+    return res;
+  }
+}
@@ -103,6 +103,16 @@ public final class Measure {
     return new UpdateMeasureBuilder(measure);
   }
 
+  /**
+   * Recreates a measure of type {@link ValueType#NO_VALUE}, {@link ValueType#BOOLEAN}, {@link ValueType#INT},
+   * {@link ValueType#LONG} or {@link ValueType#DOUBLE} from its raw value, without rounding it again.
+   * Used by repositories which store values in primitive form.
+   */
+  static Measure createFromRawValue(ValueType valueType, double value) {
+    checkArgument(valueType != ValueType.STRING && valueType != ValueType.LEVEL, "Unsupported ValueType %s", valueType);
+    return new Measure(valueType, null, valueType == ValueType.NO_VALUE ? null : value, null, null, null, null, null);
+  }
+
   public static final class NewMeasureBuilder {
     private Developer developer;
     private String description;
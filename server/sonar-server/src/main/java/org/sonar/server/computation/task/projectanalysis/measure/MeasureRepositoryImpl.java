@@ -19,10 +19,14 @@
  */
 package org.sonar.server.computation.task.projectanalysis.measure;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Optional;
 import com.google.common.collect.SetMultimap;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
+import org.sonar.api.config.Settings;
 import org.sonar.core.util.CloseableIterator;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
@@ -31,7 +35,7 @@ import org.sonar.db.measure.MeasureQuery;
 import org.sonar.scanner.protocol.output.ScannerReport;
 import org.sonar.server.computation.task.projectanalysis.batch.BatchReportReader;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
-import org.sonar.server.computation.task.projectanalysis.measure.MapBasedRawMeasureRepository.OverridePolicy;
+import org.sonar.server.computation.task.projectanalysis.measure.RawMeasureRepository.OverridePolicy;
 import org.sonar.server.computation.task.projectanalysis.metric.Metric;
 import org.sonar.server.computation.task.projectanalysis.metric.MetricRepository;
 import org.sonar.server.computation.task.projectanalysis.metric.ReportMetricValidator;
@@ -40,7 +44,14 @@ import static java.util.Objects.requireNonNull;
 import static org.sonar.server.computation.task.projectanalysis.component.ComponentFunctions.toReportRef;
 
 public class MeasureRepositoryImpl implements MeasureRepository {
-  private final MapBasedRawMeasureRepository<Integer> delegate = new MapBasedRawMeasureRepository<>(toReportRef());
+
+  /**
+   * When enabled, raw measures are stored by {@link CompactRawMeasureRepository} instead of
+   * {@link MapBasedRawMeasureRepository}. Disabled by default.
+   */
+  public static final String COMPACT_RAW_MEASURES_PROPERTY = "sonar.ce.compactRawMeasures";
+
+  private final RawMeasureRepository delegate;
   private final DbClient dbClient;
   private final BatchReportReader reportReader;
   private final BatchMeasureToMeasure batchMeasureToMeasure;
@@ -49,8 +60,21 @@ public class MeasureRepositoryImpl implements MeasureRepository {
 
   private MeasureDtoToMeasure underTest = new MeasureDtoToMeasure();
   private final Set<Integer> loadedComponents = new HashSet<>();
+  private final Map<String, Map<Integer, MeasureDto>> baseMeasuresByComponentUuid = new HashMap<>();
 
   public MeasureRepositoryImpl(DbClient dbClient, BatchReportReader reportReader, MetricRepository metricRepository, ReportMetricValidator reportMetricValidator) {
+    this(dbClient, reportReader, metricRepository, reportMetricValidator, new MapBasedRawMeasureRepository<>(toReportRef()));
+  }
+
+  public MeasureRepositoryImpl(DbClient dbClient, BatchReportReader reportReader, MetricRepository metricRepository, ReportMetricValidator reportMetricValidator,
+    Settings settings) {
+    this(dbClient, reportReader, metricRepository, reportMetricValidator, newRawMeasureRepository(settings));
+  }
+
+  @VisibleForTesting
+  MeasureRepositoryImpl(DbClient dbClient, BatchReportReader reportReader, MetricRepository metricRepository, ReportMetricValidator reportMetricValidator,
+    RawMeasureRepository delegate) {
+    this.delegate = delegate;
     this.dbClient = dbClient;
     this.reportReader = reportReader;
     this.reportMetricValidator = reportMetricValidator;
@@ -58,20 +82,42 @@ public class MeasureRepositoryImpl implements MeasureRepository {
     this.metricRepository = metricRepository;
   }
 
+  private static RawMeasureRepository newRawMeasureRepository(Settings settings) {
+    if (settings.getBoolean(COMPACT_RAW_MEASURES_PROPERTY)) {
+      return new CompactRawMeasureRepository();
+    }
+    return new MapBasedRawMeasureRepository<>(toReportRef());
+  }
+
   @Override
   public Optional<Measure> getBaseMeasure(Component component, Metric metric) {
     // fail fast
     requireNonNull(component);
     requireNonNull(metric);
 
-    try (DbSession dbSession = dbClient.openSession(false)) {
-      MeasureQuery query = MeasureQuery.builder().setComponentUuid(component.getUuid()).setMetricKey(metric.getKey()).build();
-      java.util.Optional<MeasureDto> measureDto = dbClient.measureDao().selectSingle(dbSession, query);
-      if (measureDto.isPresent()) {
-        return underTest.toMeasure(measureDto.get(), metric);
+    MeasureDto measureDto = getBaseMeasuresOfComponent(component).get(metric.getId());
+    if (measureDto != null) {
+      return underTest.toMeasure(measureDto, metric);
+    }
+    return Optional.absent();
+  }
+
+  /**
+   * Base measures of a component are loaded all at once, with a single query, the first time one of them is requested.
+   */
+  private Map<Integer, MeasureDto> getBaseMeasuresOfComponent(Component component) {
+    Map<Integer, MeasureDto> baseMeasures = baseMeasuresByComponentUuid.get(component.getUuid());
+    if (baseMeasures == null) {
+      baseMeasures = new HashMap<>();
+      try (DbSession dbSession = dbClient.openSession(false)) {
+        MeasureQuery query = MeasureQuery.builder().setComponentUuid(component.getUuid()).build();
+        for (MeasureDto measureDto : dbClient.measureDao().selectByQuery(dbSession, query)) {
+          baseMeasures.put(measureDto.getMetricId(), measureDto);
+        }
       }
-      return Optional.absent();
+      baseMeasuresByComponentUuid.put(component.getUuid(), baseMeasures);
     }
+    return baseMeasures;
   }
 
   @Override
@@ -0,0 +1,54 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.measure;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.SetMultimap;
+import java.util.Set;
+import org.sonar.server.computation.task.projectanalysis.component.Component;
+import org.sonar.server.computation.task.projectanalysis.metric.Metric;
+
+/**
+ * In-memory storage of raw measures, used as a delegate of {@link MeasureRepository} implementations.
+ * <p>
+ * This interface deliberately does not extend {@link MeasureRepository} so that an implementation can be added to the
+ * container without conflicting with the {@link MeasureRepository} component.
+ * </p>
+ *
+ * @see MeasureRepository for the contract of each method
+ */
+public interface RawMeasureRepository {
+
+  Optional<Measure> getRawMeasure(Component component, Metric metric);
+
+  Set<Measure> getRawMeasures(Component component, Metric metric);
+
+  SetMultimap<String, Measure> getRawMeasures(Component component);
+
+  void add(Component component, Metric metric, Measure measure);
+
+  void update(Component component, Metric metric, Measure measure);
+
+  void add(Component component, Metric metric, Measure measure, OverridePolicy overridePolicy);
+
+  enum OverridePolicy {
+    OVERRIDE, DO_NOT_OVERRIDE
+  }
+}
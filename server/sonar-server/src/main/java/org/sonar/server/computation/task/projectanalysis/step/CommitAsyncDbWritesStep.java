@@ -0,0 +1,47 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.step;
+
+import org.sonar.server.computation.task.projectanalysis.dbwriter.AsyncDbWriter;
+import org.sonar.server.computation.task.step.ComputationStep;
+
+/**
+ * Waits for the rows queued by the persistence steps in {@link AsyncDbWriter} to be written, then commits them.
+ * Must be executed before {@link EnableAnalysisStep}.
+ */
+public class CommitAsyncDbWritesStep implements ComputationStep {
+
+  private final AsyncDbWriter asyncDbWriter;
+
+  public CommitAsyncDbWritesStep(AsyncDbWriter asyncDbWriter) {
+    this.asyncDbWriter = asyncDbWriter;
+  }
+
+  @Override
+  public void execute() {
+    asyncDbWriter.commit();
+  }
+
+  @Override
+  public String getDescription() {
+    return "Commit asynchronous DB writes";
+  }
+
+}
@@ -40,6 +40,7 @@ import org.sonar.server.computation.task.projectanalysis.component.CrawlerDepthL
 import org.sonar.server.computation.task.projectanalysis.component.DepthTraversalTypeAwareCrawler;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
 import org.sonar.server.computation.task.projectanalysis.component.TypeAwareVisitorAdapter;
+import org.sonar.server.computation.task.projectanalysis.measure.ComponentMetricValues;
 import org.sonar.server.computation.task.projectanalysis.measure.Measure;
 import org.sonar.server.computation.task.projectanalysis.measure.MeasureKey;
 import org.sonar.server.computation.task.projectanalysis.measure.MeasureRepository;
@@ -52,8 +53,6 @@ import org.sonar.server.computation.task.step.ComputationStep;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static java.lang.String.format;
-import static java.util.function.Function.identity;
-import static org.sonar.core.util.stream.Collectors.uniqueIndex;
 import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.DIRECTORY;
 import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.SUBVIEW;
 import static org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor.Order.PRE_ORDER;
@@ -86,25 +85,44 @@ public class ComputeMeasureVariationsStep implements ComputationStep {
     DbSession dbSession = dbClient.openSession(false);
     try {
       List<Metric> metrics = StreamSupport.stream(metricRepository.getAll().spliterator(), false).filter(NumericMetric.INSTANCE::apply).collect(Collectors.toList());
-      new DepthTraversalTypeAwareCrawler(new VariationMeasuresVisitor(dbSession, metrics))
+      Map<Integer, ComponentMetricValues> pastValuesByPeriod = loadPastValues(dbSession, metrics);
+      new DepthTraversalTypeAwareCrawler(new VariationMeasuresVisitor(metrics, pastValuesByPeriod))
         .visit(treeRootHolder.getRoot());
     } finally {
       dbClient.closeSession(dbSession);
     }
   }
 
+  /**
+   * Loads the past measures of each period with a single streamed query per period, rather than one query per
+   * component and per period.
+   */
+  private Map<Integer, ComponentMetricValues> loadPastValues(DbSession dbSession, List<Metric> metrics) {
+    Set<Integer> metricIds = metrics.stream().map(MetricDtoToMetricId.INSTANCE::apply).collect(Collectors.toSet());
+    Map<Integer, ComponentMetricValues> pastValuesByPeriod = new HashMap<>();
+    for (Period period : periodsHolder.getPeriods()) {
+      ComponentMetricValues pastValues = new ComponentMetricValues();
+      dbClient.measureDao().selectPastMeasuresOfAnalysis(dbSession, period.getAnalysisUuid(), metricIds, context -> {
+        PastMeasureDto pastMeasure = (PastMeasureDto) context.getResultObject();
+        if (pastMeasure.hasValue()) {
+          pastValues.put(pastMeasure.getComponentUuid(), pastMeasure.getMetricId(), pastMeasure.getValue());
+        }
+      });
+      pastValuesByPeriod.put(period.getIndex(), pastValues);
+    }
+    return pastValuesByPeriod;
+  }
+
   private class VariationMeasuresVisitor extends TypeAwareVisitorAdapter {
 
-    private final DbSession session;
-    private final Set<Integer> metricIds;
     private final List<Metric> metrics;
+    private final Map<Integer, ComponentMetricValues> pastValuesByPeriod;
 
-    VariationMeasuresVisitor(DbSession session, List<Metric> metrics) {
+    VariationMeasuresVisitor(List<Metric> metrics, Map<Integer, ComponentMetricValues> pastValuesByPeriod) {
       // measures on files are currently purged, so past measures are not available on files
       super(CrawlerDepthLimit.reportMaxDepth(DIRECTORY).withViewsMaxDepth(SUBVIEW), PRE_ORDER);
-      this.session = session;
-      this.metricIds = metrics.stream().map(MetricDtoToMetricId.INSTANCE::apply).collect(Collectors.toSet());
       this.metrics = metrics;
+      this.pastValuesByPeriod = pastValuesByPeriod;
     }
 
     @Override
@@ -116,22 +134,16 @@ public class ComputeMeasureVariationsStep implements ComputationStep {
     private MeasuresWithVariationRepository computeMeasuresWithVariations(Component component) {
       MeasuresWithVariationRepository measuresWithVariationRepository = new MeasuresWithVariationRepository();
       for (Period period : periodsHolder.getPeriods()) {
-        List<PastMeasureDto> pastMeasures = dbClient.measureDao()
-          .selectPastMeasures(session, component.getUuid(), period.getAnalysisUuid(), metricIds);
-        setVariationMeasures(component, pastMeasures, period.getIndex(), measuresWithVariationRepository);
+        setVariationMeasures(component, pastValuesByPeriod.get(period.getIndex()), period.getIndex(), measuresWithVariationRepository);
       }
       return measuresWithVariationRepository;
     }
 
-    private void setVariationMeasures(Component component, List<PastMeasureDto> pastMeasures, int period, MeasuresWithVariationRepository measuresWithVariationRepository) {
-      Map<MeasureKey, PastMeasureDto> pastMeasuresByMeasureKey = pastMeasures
-        .stream()
-        .collect(uniqueIndex(m -> new MeasureKey(metricRepository.getById((long) m.getMetricId()).getKey(), null), identity()));
+    private void setVariationMeasures(Component component, ComponentMetricValues pastValues, int period, MeasuresWithVariationRepository measuresWithVariationRepository) {
       for (Metric metric : metrics) {
         Optional<Measure> measure = measureRepository.getRawMeasure(component, metric);
         if (measure.isPresent() && !measure.get().hasVariations()) {
-          PastMeasureDto pastMeasure = pastMeasuresByMeasureKey.get(new MeasureKey(metric.getKey(), null));
-          double pastValue = (pastMeasure != null && pastMeasure.hasValue()) ? pastMeasure.getValue() : 0d;
+          double pastValue = pastValues.get(component.getUuid(), metric.getId(), 0d);
           measuresWithVariationRepository.add(metric, measure.get(), period, computeVariation(measure.get(), pastValue));
         }
       }
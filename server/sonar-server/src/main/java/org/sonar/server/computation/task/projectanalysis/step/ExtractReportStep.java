@@ -24,30 +24,41 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Optional;
+import java.util.zip.ZipFile;
+import org.apache.commons.io.FileUtils;
+import org.sonar.api.config.Settings;
 import org.sonar.api.utils.MessageException;
 import org.sonar.api.utils.TempFolder;
 import org.sonar.api.utils.ZipUtils;
 import org.sonar.ce.queue.CeTask;
-import org.sonar.db.DbClient;
-import org.sonar.db.DbSession;
-import org.sonar.db.ce.CeTaskInputDao;
+import org.sonar.ce.queue.report.ReportStorage;
+import org.sonar.scanner.protocol.output.ScannerReportReader;
+import org.sonar.server.computation.task.projectanalysis.batch.BatchReportReaderImpl;
 import org.sonar.server.computation.task.projectanalysis.batch.MutableBatchReportDirectoryHolder;
 import org.sonar.server.computation.task.step.ComputationStep;
 
 /**
  * Extracts the content zip file of the {@link CeTask} to a temp directory and adds a {@link File}
  * representing that temp directory to the {@link MutableBatchReportDirectoryHolder}.
+ * <p>
+ * When property {@link #READ_REPORT_FROM_ZIP_PROPERTY} is {@code true}, the zip file is only copied to a temp file,
+ * which is added to the {@link MutableBatchReportDirectoryHolder}. Entries are then decompressed by
+ * {@link BatchReportReaderImpl} when the steps read them. Reports with segmented layout are always extracted.
+ * </p>
  */
 public class ExtractReportStep implements ComputationStep {
+  public static final String READ_REPORT_FROM_ZIP_PROPERTY = "sonar.ce.readReportFromZip";
 
-  private final DbClient dbClient;
+  private final Settings settings;
+  private final ReportStorage reportStorage;
   private final CeTask task;
   private final TempFolder tempFolder;
   private final MutableBatchReportDirectoryHolder reportDirectoryHolder;
 
-  public ExtractReportStep(DbClient dbClient, CeTask task, TempFolder tempFolder,
+  public ExtractReportStep(Settings settings, ReportStorage reportStorage, CeTask task, TempFolder tempFolder,
     MutableBatchReportDirectoryHolder reportDirectoryHolder) {
-    this.dbClient = dbClient;
+    this.settings = settings;
+    this.reportStorage = reportStorage;
     this.task = task;
     this.tempFolder = tempFolder;
     this.reportDirectoryHolder = reportDirectoryHolder;
@@ -55,21 +66,38 @@ public class ExtractReportStep implements ComputationStep {
 
   @Override
   public void execute() {
-    try (DbSession dbSession = dbClient.openSession(false)) {
-      Optional<CeTaskInputDao.DataStream> opt = dbClient.ceTaskInputDao().selectData(dbSession, task.getUuid());
-      if (opt.isPresent()) {
+    Optional<InputStream> opt = reportStorage.open(task.getUuid());
+    if (!opt.isPresent()) {
+      throw MessageException.of("Analysis report " + task.getUuid() + " is missing in storage");
+    }
+    try (InputStream zipStream = new BufferedInputStream(opt.get())) {
+      if (settings.getBoolean(READ_REPORT_FROM_ZIP_PROPERTY)) {
+        reportDirectoryHolder.setDirectory(copyZip(zipStream));
+      } else {
         File unzippedDir = tempFolder.newDir();
-        try (CeTaskInputDao.DataStream reportStream = opt.get();
-             InputStream zipStream = new BufferedInputStream(reportStream.getInputStream())) {
-          ZipUtils.unzip(zipStream, unzippedDir);
-        } catch (IOException e) {
-          throw new IllegalStateException("Fail to extract report " + task.getUuid() + " from database", e);
-        }
+        ZipUtils.unzip(zipStream, unzippedDir);
         reportDirectoryHolder.setDirectory(unzippedDir);
-      } else {
-        throw MessageException.of("Analysis report " + task.getUuid() + " is missing in database");
       }
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to extract report " + task.getUuid() + " from storage", e);
+    }
+  }
+
+  private File copyZip(InputStream zipStream) throws IOException {
+    File zip = tempFolder.newFile("report", ".zip");
+    FileUtils.copyInputStreamToFile(zipStream, zip);
+    boolean segmented;
+    try (ZipFile zipFile = new ZipFile(zip)) {
+      segmented = ScannerReportReader.isSegmented(zipFile);
+    }
+    if (!segmented) {
+      return zip;
     }
+    // segments can't be read from the compressed entry, they must be extracted
+    File unzippedDir = tempFolder.newDir();
+    ZipUtils.unzip(zip, unzippedDir);
+    FileUtils.deleteQuietly(zip);
+    return unzippedDir;
   }
 
   @Override
@@ -19,23 +19,105 @@
  */
 package org.sonar.server.computation.task.projectanalysis.step;
 
+import com.google.common.collect.Iterators;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.core.issue.DefaultIssue;
+import org.sonar.core.util.CloseableIterator;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.component.ComponentDto;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
+import org.sonar.server.computation.task.projectanalysis.issue.IssueCache;
+import org.sonar.server.computation.task.projectanalysis.issue.PersistedIssuesDate;
+import org.sonar.server.computation.task.projectanalysis.issue.RuleRepository;
+import org.sonar.server.computation.task.projectanalysis.issue.UpdateConflictResolver;
 import org.sonar.server.computation.task.step.ComputationStep;
+import org.sonar.server.issue.index.IssueDoc;
+import org.sonar.server.issue.index.IssueDocFactory;
 import org.sonar.server.issue.index.IssueIndexer;
 
+import static com.google.common.collect.FluentIterable.from;
+import static java.util.stream.Collectors.toSet;
+
+/**
+ * Indexes the issues persisted by {@link PersistIssuesStep}. Documents are built from {@link IssueCache} rather than
+ * read again from database, only components of issues are loaded from database.
+ */
 public class IndexIssuesStep implements ComputationStep {
 
+  private static final Logger LOG = Loggers.get(IndexIssuesStep.class);
+
+  // number of issues which components are loaded by the same request
+  private static final int PARTITION_SIZE = 1_000;
+
   private final IssueIndexer indexer;
   private final TreeRootHolder treeRootHolder;
+  private final IssueCache issueCache;
+  private final RuleRepository ruleRepository;
+  private final DbClient dbClient;
+  private final PersistedIssuesDate persistedIssuesDate;
+  private final UpdateConflictResolver conflictResolver;
 
-  public IndexIssuesStep(IssueIndexer indexer, TreeRootHolder treeRootHolder) {
+  public IndexIssuesStep(IssueIndexer indexer, TreeRootHolder treeRootHolder, IssueCache issueCache, RuleRepository ruleRepository,
+    DbClient dbClient, PersistedIssuesDate persistedIssuesDate, UpdateConflictResolver conflictResolver) {
     this.indexer = indexer;
     this.treeRootHolder = treeRootHolder;
+    this.issueCache = issueCache;
+    this.ruleRepository = ruleRepository;
+    this.dbClient = dbClient;
+    this.persistedIssuesDate = persistedIssuesDate;
+    this.conflictResolver = conflictResolver;
   }
 
   @Override
   public void execute() {
-    indexer.index(treeRootHolder.getRoot().getUuid());
+    if (conflictResolver.hasResolvedConflicts()) {
+      // some issues have been merged with changes made by users in the meantime, only the database is up-to-date
+      indexer.index(treeRootHolder.getRoot().getUuid());
+      return;
+    }
+
+    // same as column ISSUES.UPDATED_AT, so that the next incremental indexing does not read these issues again
+    Date technicalUpdateDate = new Date(persistedIssuesDate.get());
+    try (CloseableIterator<DefaultIssue> issues = issueCache.traverse()) {
+      Iterator<List<DefaultIssue>> partitions = Iterators.partition(Iterators.filter(issues, IndexIssuesStep::isPersisted), PARTITION_SIZE);
+      indexer.indexLoadedDocuments(Iterators.concat(Iterators.transform(partitions, partition -> toDocs(partition, technicalUpdateDate))));
+    }
+  }
+
+  private Iterator<IssueDoc> toDocs(List<DefaultIssue> issues, Date technicalUpdateDate) {
+    Map<String, ComponentDto> componentsByUuid = loadComponents(issues);
+    List<IssueDoc> docs = new ArrayList<>(issues.size());
+    for (DefaultIssue issue : issues) {
+      ComponentDto component = componentsByUuid.get(issue.componentUuid());
+      if (component == null) {
+        LOG.warn("Issue {} is not indexed because its component {} does not exist", issue.key(), issue.componentUuid());
+      } else {
+        docs.add(IssueDocFactory.newDoc(issue, component, ruleRepository.getByKey(issue.ruleKey()).getLanguage(), technicalUpdateDate));
+      }
+    }
+    return docs.iterator();
+  }
+
+  private Map<String, ComponentDto> loadComponents(List<DefaultIssue> issues) {
+    Set<String> componentUuids = issues.stream().map(DefaultIssue::componentUuid).collect(toSet());
+    try (DbSession dbSession = dbClient.openSession(false)) {
+      return from(dbClient.componentDao().selectByUuids(dbSession, componentUuids)).uniqueIndex(ComponentDto::uuid);
+    }
+  }
+
+  /**
+   * Same condition as in {@link PersistIssuesStep}
+   */
+  private static boolean isPersisted(DefaultIssue issue) {
+    return issue.isNew() || issue.isChanged();
   }
 
   @Override
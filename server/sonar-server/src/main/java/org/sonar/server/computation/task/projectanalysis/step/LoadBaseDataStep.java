@@ -0,0 +1,79 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.step;
+
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.source.FileSourceDto;
+import org.sonar.server.computation.task.projectanalysis.analysis.AnalysisMetadataHolder;
+import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
+import org.sonar.server.computation.task.projectanalysis.issue.BaseDataRepository;
+import org.sonar.server.computation.task.projectanalysis.issue.BaseIssuesLoader;
+import org.sonar.server.computation.task.step.ComputationStep;
+
+/**
+ * Populates {@link BaseDataRepository} with the open issues and the line hashes of files of the project which
+ * are stored in database. Each kind of data is streamed by a single query, so that issue tracking does not
+ * request database for each component. The column FILE_SOURCES.BINARY_DATA is not loaded.
+ */
+public class LoadBaseDataStep implements ComputationStep {
+
+  private final DbClient dbClient;
+  private final TreeRootHolder treeRootHolder;
+  private final AnalysisMetadataHolder analysisMetadataHolder;
+  private final BaseIssuesLoader baseIssuesLoader;
+  private final BaseDataRepository baseDataRepository;
+
+  public LoadBaseDataStep(DbClient dbClient, TreeRootHolder treeRootHolder, AnalysisMetadataHolder analysisMetadataHolder,
+    BaseIssuesLoader baseIssuesLoader, BaseDataRepository baseDataRepository) {
+    this.dbClient = dbClient;
+    this.treeRootHolder = treeRootHolder;
+    this.analysisMetadataHolder = analysisMetadataHolder;
+    this.baseIssuesLoader = baseIssuesLoader;
+    this.baseDataRepository = baseDataRepository;
+  }
+
+  @Override
+  public void execute() {
+    // nothing is stored in database before the first analysis
+    if (!analysisMetadataHolder.isFirstAnalysis()) {
+      baseIssuesLoader.loadForProject(baseDataRepository::addIssues);
+      loadLineHashes();
+    }
+    baseDataRepository.setLoaded();
+  }
+
+  private void loadLineHashes() {
+    DbSession dbSession = dbClient.openSession(false);
+    try {
+      dbClient.fileSourceDao().scrollLineHashesForProject(dbSession, treeRootHolder.getRoot().getUuid(), resultContext -> {
+        FileSourceDto dto = (FileSourceDto) resultContext.getResultObject();
+        baseDataRepository.addLineHashes(dto.getFileUuid(), dto.getLineHashes());
+      });
+    } finally {
+      dbClient.closeSession(dbSession);
+    }
+  }
+
+  @Override
+  public String getDescription() {
+    return "Load base data of issue tracking";
+  }
+}
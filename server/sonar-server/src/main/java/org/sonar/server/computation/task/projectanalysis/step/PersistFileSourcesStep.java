@@ -20,23 +20,31 @@
 package org.sonar.server.computation.task.projectanalysis.step;
 
 import com.google.common.base.Optional;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang.ObjectUtils;
 import org.apache.ibatis.session.ResultContext;
 import org.apache.ibatis.session.ResultHandler;
+import org.sonar.api.config.Settings;
 import org.sonar.api.utils.System2;
 import org.sonar.core.util.CloseableIterator;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.MyBatis;
-import org.sonar.db.protobuf.DbFileSources;
 import org.sonar.db.source.FileSourceDto;
 import org.sonar.db.source.FileSourceDto.Type;
 import org.sonar.scanner.protocol.output.ScannerReport;
@@ -63,8 +71,21 @@ import org.sonar.server.computation.task.step.ComputationStep;
 
 import static org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor.Order.PRE_ORDER;
 
+/**
+ * Persists the sources of files in table FILE_SOURCES.
+ * <p>
+ * Rows are written in JDBC batches which are flushed when the accumulated size of their data reaches
+ * {@link #BATCH_SIZE_PROPERTY} bytes, so that big files can not produce an OOM. The data of the next files is computed
+ * and encoded on a worker thread while the previous ones are written.
+ * </p>
+ */
 public class PersistFileSourcesStep implements ComputationStep {
 
+  public static final String BATCH_SIZE_PROPERTY = "sonar.ce.fileSources.batchSizeInBytes";
+  static final long DEFAULT_BATCH_SIZE = 8 * 1024 * 1024L;
+  // number of files whose data can be computed ahead of the writes
+  private static final int MAX_PENDING_FILES = 4;
+
   private final DbClient dbClient;
   private final System2 system2;
   private final TreeRootHolder treeRootHolder;
@@ -72,9 +93,10 @@ public class PersistFileSourcesStep implements ComputationStep {
   private final SourceLinesRepository sourceLinesRepository;
   private final ScmInfoRepository scmInfoRepository;
   private final DuplicationRepository duplicationRepository;
+  private final long batchSize;
 
   public PersistFileSourcesStep(DbClient dbClient, System2 system2, TreeRootHolder treeRootHolder, BatchReportReader reportReader, SourceLinesRepository sourceLinesRepository,
-    ScmInfoRepository scmInfoRepository, DuplicationRepository duplicationRepository) {
+    ScmInfoRepository scmInfoRepository, DuplicationRepository duplicationRepository, Settings settings) {
     this.dbClient = dbClient;
     this.system2 = system2;
     this.treeRootHolder = treeRootHolder;
@@ -82,16 +104,20 @@ public class PersistFileSourcesStep implements ComputationStep {
     this.sourceLinesRepository = sourceLinesRepository;
     this.scmInfoRepository = scmInfoRepository;
     this.duplicationRepository = duplicationRepository;
+    long configuredBatchSize = settings.getLong(BATCH_SIZE_PROPERTY);
+    this.batchSize = configuredBatchSize > 0 ? configuredBatchSize : DEFAULT_BATCH_SIZE;
   }
 
   @Override
   public void execute() {
-    // Don't use batch insert for file_sources since keeping all data in memory can produce OOM for big files
-    DbSession session = dbClient.openSession(false);
+    DbSession session = dbClient.openSession(true);
+    ExecutorService executor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat("FileSourcesEncoder-%d").setDaemon(true).build());
     try {
-      new DepthTraversalTypeAwareCrawler(new FileSourceVisitor(session))
-        .visit(treeRootHolder.getRoot());
+      FileSourceVisitor visitor = new FileSourceVisitor(session, executor);
+      new DepthTraversalTypeAwareCrawler(visitor).visit(treeRootHolder.getRoot());
+      visitor.finish();
     } finally {
+      executor.shutdownNow();
       MyBatis.closeQuietly(session);
     }
   }
@@ -99,13 +125,17 @@ public class PersistFileSourcesStep implements ComputationStep {
   private class FileSourceVisitor extends TypeAwareVisitorAdapter {
 
     private final DbSession session;
+    private final ExecutorService executor;
+    private final Deque<Future<FileSourceData>> pendingFiles = new ArrayDeque<>();
 
     private Map<String, FileSourceDto> previousFileSourcesByUuid = new HashMap<>();
     private String projectUuid;
+    private long batchedBytes = 0L;
 
-    private FileSourceVisitor(DbSession session) {
+    private FileSourceVisitor(DbSession session, ExecutorService executor) {
       super(CrawlerDepthLimit.FILE, PRE_ORDER);
       this.session = session;
+      this.executor = executor;
     }
 
     @Override
@@ -123,14 +153,30 @@ public class PersistFileSourcesStep implements ComputationStep {
 
     @Override
     public void visitFile(Component file) {
+      pendingFiles.add(executor.submit(() -> computeFileSourceData(file)));
+      while (pendingFiles.size() > MAX_PENDING_FILES) {
+        persistSource(pendingFiles.poll());
+      }
+    }
+
+    void finish() {
+      while (!pendingFiles.isEmpty()) {
+        persistSource(pendingFiles.poll());
+      }
+      session.commit();
+    }
+
+    /**
+     * Executed by the worker thread
+     */
+    private FileSourceData computeFileSourceData(Component file) {
       int fileRef = file.getReportAttributes().getRef();
       ScannerReport.Component component = reportReader.readComponent(fileRef);
       CloseableIterator<String> linesIterator = sourceLinesRepository.readLines(file);
       LineReaders lineReaders = new LineReaders(reportReader, scmInfoRepository, duplicationRepository, file);
       try {
         ComputeFileSourceData computeFileSourceData = new ComputeFileSourceData(linesIterator, lineReaders.readers(), component.getLines());
-        ComputeFileSourceData.Data fileSourceData = computeFileSourceData.compute();
-        persistSource(fileSourceData, file.getUuid(), lineReaders.getLatestChange());
+        return new FileSourceData(file.getUuid(), computeFileSourceData.compute(), computeRevision(lineReaders.getLatestChange()));
       } catch (Exception e) {
         throw new IllegalStateException(String.format("Cannot persist sources of %s", file.getKey()), e);
       } finally {
@@ -139,13 +185,36 @@ public class PersistFileSourcesStep implements ComputationStep {
       }
     }
 
-    private void persistSource(ComputeFileSourceData.Data fileSourceData, String componentUuid, @Nullable Changeset latestChange) {
-      DbFileSources.Data fileData = fileSourceData.getFileSourceData();
+    private void persistSource(Future<FileSourceData> future) {
+      FileSourceData fileSourceData;
+      try {
+        fileSourceData = future.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while computing sources of files", e);
+      } catch (ExecutionException e) {
+        Throwables.propagateIfPossible(e.getCause());
+        throw new IllegalStateException(e.getCause());
+      }
+      if (persistSource(fileSourceData)) {
+        batchedBytes += fileSourceData.data.length + fileSourceData.lineHashes.length();
+        if (batchedBytes >= batchSize) {
+          session.commit();
+          batchedBytes = 0L;
+        }
+      }
+    }
 
-      byte[] data = FileSourceDto.encodeSourceData(fileData);
-      String dataHash = DigestUtils.md5Hex(data);
-      String srcHash = fileSourceData.getSrcHash();
-      String lineHashes = fileSourceData.getLineHashes();
+    /**
+     * @return {@code true} if a row has been inserted or updated
+     */
+    private boolean persistSource(FileSourceData fileSourceData) {
+      String componentUuid = fileSourceData.fileUuid;
+      byte[] data = fileSourceData.data;
+      String dataHash = fileSourceData.dataHash;
+      String srcHash = fileSourceData.srcHash;
+      String lineHashes = fileSourceData.lineHashes;
+      String revision = fileSourceData.revision;
       FileSourceDto previousDto = previousFileSourcesByUuid.get(componentUuid);
 
       if (previousDto == null) {
@@ -159,27 +228,26 @@ public class PersistFileSourcesStep implements ComputationStep {
           .setLineHashes(lineHashes)
           .setCreatedAt(system2.now())
           .setUpdatedAt(system2.now())
-          .setRevision(computeRevision(latestChange));
+          .setRevision(revision);
         dbClient.fileSourceDao().insert(session, dto);
-        session.commit();
-      } else {
-        // Update only if data_hash has changed or if src_hash is missing or revision is missing (progressive migration)
-        boolean binaryDataUpdated = !dataHash.equals(previousDto.getDataHash());
-        boolean srcHashUpdated = !srcHash.equals(previousDto.getSrcHash());
-        String revision = computeRevision(latestChange);
-        boolean revisionUpdated = !ObjectUtils.equals(revision, previousDto.getRevision());
-        if (binaryDataUpdated || srcHashUpdated || revisionUpdated) {
-          previousDto
-            .setBinaryData(data)
-            .setDataHash(dataHash)
-            .setSrcHash(srcHash)
-            .setLineHashes(lineHashes)
-            .setRevision(revision)
-            .setUpdatedAt(system2.now());
-          dbClient.fileSourceDao().update(session, previousDto);
-          session.commit();
-        }
+        return true;
       }
+      // Update only if data_hash has changed or if src_hash is missing or revision is missing (progressive migration)
+      boolean binaryDataUpdated = !dataHash.equals(previousDto.getDataHash());
+      boolean srcHashUpdated = !srcHash.equals(previousDto.getSrcHash());
+      boolean revisionUpdated = !ObjectUtils.equals(revision, previousDto.getRevision());
+      if (binaryDataUpdated || srcHashUpdated || revisionUpdated) {
+        previousDto
+          .setBinaryData(data)
+          .setDataHash(dataHash)
+          .setSrcHash(srcHash)
+          .setLineHashes(lineHashes)
+          .setRevision(revision)
+          .setUpdatedAt(system2.now());
+        dbClient.fileSourceDao().update(session, previousDto);
+        return true;
+      }
+      return false;
     }
 
     @CheckForNull
@@ -191,6 +259,28 @@ public class PersistFileSourcesStep implements ComputationStep {
     }
   }
 
+  /**
+   * Encoded data of a file, ready to be persisted
+   */
+  private static final class FileSourceData {
+    private final String fileUuid;
+    private final byte[] data;
+    private final String dataHash;
+    private final String srcHash;
+    private final String lineHashes;
+    @CheckForNull
+    private final String revision;
+
+    FileSourceData(String fileUuid, ComputeFileSourceData.Data fileSourceData, @Nullable String revision) {
+      this.fileUuid = fileUuid;
+      this.data = FileSourceDto.encodeSourceData(fileSourceData.getFileSourceData());
+      this.dataHash = DigestUtils.md5Hex(data);
+      this.srcHash = fileSourceData.getSrcHash();
+      this.lineHashes = fileSourceData.getLineHashes();
+      this.revision = revision;
+    }
+  }
+
   private static class LineReaders {
     private final List<LineReader> readers = new ArrayList<>();
     private final List<CloseableIterator<?>> closeables = new ArrayList<>();
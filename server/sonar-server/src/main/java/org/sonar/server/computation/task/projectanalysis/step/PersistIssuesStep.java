@@ -32,6 +32,7 @@ import org.sonar.server.computation.task.projectanalysis.issue.UpdateConflictRes
 import org.sonar.db.DbSession;
 import org.sonar.db.MyBatis;
 import org.sonar.server.computation.task.projectanalysis.issue.IssueCache;
+import org.sonar.server.computation.task.projectanalysis.issue.PersistedIssuesDate;
 import org.sonar.server.computation.task.projectanalysis.issue.RuleRepository;
 import org.sonar.db.DbClient;
 import org.sonar.core.util.CloseableIterator;
@@ -44,14 +45,16 @@ public class PersistIssuesStep implements ComputationStep {
   private final UpdateConflictResolver conflictResolver;
   private final RuleRepository ruleRepository;
   private final IssueCache issueCache;
+  private final PersistedIssuesDate persistedIssuesDate;
 
   public PersistIssuesStep(DbClient dbClient, System2 system2, UpdateConflictResolver conflictResolver,
-    RuleRepository ruleRepository, IssueCache issueCache) {
+    RuleRepository ruleRepository, IssueCache issueCache, PersistedIssuesDate persistedIssuesDate) {
     this.dbClient = dbClient;
     this.system2 = system2;
     this.conflictResolver = conflictResolver;
     this.ruleRepository = ruleRepository;
     this.issueCache = issueCache;
+    this.persistedIssuesDate = persistedIssuesDate;
   }
 
   @Override
@@ -59,6 +62,9 @@ public class PersistIssuesStep implements ComputationStep {
     DbSession session = dbClient.openSession(true);
     IssueMapper mapper = session.getMapper(IssueMapper.class);
     IssueChangeMapper changeMapper = session.getMapper(IssueChangeMapper.class);
+    // same date for all issues, so that they can be indexed without being read again from database
+    long now = system2.now();
+    persistedIssuesDate.set(now);
 
     CloseableIterator<DefaultIssue> issues = issueCache.traverse();
     try {
@@ -67,11 +73,11 @@ public class PersistIssuesStep implements ComputationStep {
         boolean saved = false;
         if (issue.isNew()) {
           Integer ruleId = ruleRepository.getByKey(issue.ruleKey()).getId();
-          IssueDto dto = IssueDto.toDtoForComputationInsert(issue, ruleId, system2.now());
+          IssueDto dto = IssueDto.toDtoForComputationInsert(issue, ruleId, now);
           mapper.insert(dto);
           saved = true;
         } else if (issue.isChanged()) {
-          IssueDto dto = IssueDto.toDtoForUpdate(issue, system2.now());
+          IssueDto dto = IssueDto.toDtoForUpdate(issue, now);
           int updateCount = mapper.updateIfBeforeSelectedDate(dto);
           if (updateCount == 0) {
             // End-user and scan changed the issue at the same time.
@@ -23,12 +23,14 @@ import com.google.common.base.Predicate;
 import com.google.common.base.Predicates;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Multimap;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import javax.annotation.Nonnull;
+import org.sonar.api.config.Settings;
 import org.sonar.db.DbClient;
-import org.sonar.db.DbSession;
+import org.sonar.db.measure.FileMeasuresDto;
 import org.sonar.db.measure.MeasureDao;
 import org.sonar.db.measure.MeasureDto;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
@@ -36,6 +38,7 @@ import org.sonar.server.computation.task.projectanalysis.component.CrawlerDepthL
 import org.sonar.server.computation.task.projectanalysis.component.DepthTraversalTypeAwareCrawler;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
 import org.sonar.server.computation.task.projectanalysis.component.TypeAwareVisitorAdapter;
+import org.sonar.server.computation.task.projectanalysis.dbwriter.AsyncDbWriter;
 import org.sonar.server.computation.task.projectanalysis.measure.BestValueOptimization;
 import org.sonar.server.computation.task.projectanalysis.measure.Measure;
 import org.sonar.server.computation.task.projectanalysis.measure.MeasureRepository;
@@ -52,6 +55,12 @@ import static org.sonar.server.computation.task.projectanalysis.component.Compon
 
 public class PersistMeasuresStep implements ComputationStep {
 
+  /**
+   * When enabled, the measures of each file (unit tests excluded) are stored in a single compressed row
+   * of table FILE_MEASURES instead of one row of PROJECT_MEASURES per measure. Disabled by default.
+   */
+  public static final String COMPACT_FILE_MEASURES_PROPERTY = "sonar.ce.compactFileMeasures";
+
   /**
    * List of metrics that should not be persisted on file measure (Waiting for SONAR-6688 to be implemented)
    */
@@ -65,14 +74,18 @@ public class PersistMeasuresStep implements ComputationStep {
   private final MeasureToMeasureDto measureToMeasureDto;
   private final TreeRootHolder treeRootHolder;
   private final MeasureRepository measureRepository;
+  private final AsyncDbWriter asyncDbWriter;
+  private final boolean compactFileMeasures;
 
   public PersistMeasuresStep(DbClient dbClient, MetricRepository metricRepository, MeasureToMeasureDto measureToMeasureDto,
-    TreeRootHolder treeRootHolder, MeasureRepository measureRepository) {
+    TreeRootHolder treeRootHolder, MeasureRepository measureRepository, AsyncDbWriter asyncDbWriter, Settings settings) {
     this.dbClient = dbClient;
     this.metricRepository = metricRepository;
     this.measureToMeasureDto = measureToMeasureDto;
     this.treeRootHolder = treeRootHolder;
     this.measureRepository = measureRepository;
+    this.asyncDbWriter = asyncDbWriter;
+    this.compactFileMeasures = settings.getBoolean(COMPACT_FILE_MEASURES_PROPERTY);
   }
 
   @Override
@@ -80,23 +93,19 @@ public class PersistMeasuresStep implements ComputationStep {
     return "Persist measures";
   }
 
+  /**
+   * DTOs are built on the current thread, then the rows of each component are inserted by {@link AsyncDbWriter}.
+   * They are committed by {@link CommitAsyncDbWritesStep}.
+   */
   @Override
   public void execute() {
-    DbSession dbSession = dbClient.openSession(true);
-    try {
-      new DepthTraversalTypeAwareCrawler(new MeasureVisitor(dbSession)).visit(treeRootHolder.getRoot());
-      dbSession.commit();
-    } finally {
-      dbSession.close();
-    }
+    new DepthTraversalTypeAwareCrawler(new MeasureVisitor()).visit(treeRootHolder.getRoot());
   }
 
   private class MeasureVisitor extends TypeAwareVisitorAdapter {
-    private final DbSession session;
 
-    private MeasureVisitor(DbSession session) {
+    private MeasureVisitor() {
       super(CrawlerDepthLimit.LEAVES, PRE_ORDER);
-      this.session = session;
     }
 
     @Override
@@ -106,6 +115,8 @@ public class PersistMeasuresStep implements ComputationStep {
     }
 
     private void persistMeasures(Component component, Multimap<String, Measure> batchReportMeasures) {
+      List<MeasureDto> measureDtos = new ArrayList<>();
+      List<MeasureDto> fileMeasures = new ArrayList<>();
       for (Map.Entry<String, Collection<Measure>> measures : batchReportMeasures.asMap().entrySet()) {
         String metricKey = measures.getKey();
         if (NOT_TO_PERSIST_ON_FILE_METRIC_KEYS.contains(metricKey) && component.getType() == Component.Type.FILE) {
@@ -114,12 +125,36 @@ public class PersistMeasuresStep implements ComputationStep {
 
         Metric metric = metricRepository.getByKey(metricKey);
         Predicate<Measure> notBestValueOptimized = Predicates.not(BestValueOptimization.from(metric, component));
-        MeasureDao measureDao = dbClient.measureDao();
         for (Measure measure : from(measures.getValue()).filter(NonEmptyMeasure.INSTANCE).filter(notBestValueOptimized)) {
           MeasureDto measureDto = measureToMeasureDto.toMeasureDto(measure, metric, component);
-          measureDao.insert(session, measureDto);
+          if (isCompacted(component, measureDto)) {
+            fileMeasures.add(measureDto);
+          } else {
+            measureDtos.add(measureDto);
+          }
         }
       }
+      FileMeasuresDto fileMeasuresDto = fileMeasures.isEmpty() ? null : new FileMeasuresDto()
+        .setComponentUuid(component.getUuid())
+        .setAnalysisUuid(fileMeasures.get(0).getAnalysisUuid())
+        .setMeasures(fileMeasures);
+      if (measureDtos.isEmpty() && fileMeasuresDto == null) {
+        return;
+      }
+      asyncDbWriter.submit(getDescription(), session -> {
+        MeasureDao measureDao = dbClient.measureDao();
+        measureDtos.forEach(measureDto -> measureDao.insert(session, measureDto));
+        if (fileMeasuresDto != null) {
+          measureDao.insert(session, fileMeasuresDto);
+        }
+      });
+    }
+
+    private boolean isCompacted(Component component, MeasureDto measureDto) {
+      return compactFileMeasures
+        && component.getType() == Component.Type.FILE
+        && !component.getFileAttributes().isUnitTest()
+        && measureDto.getDeveloperId() == null;
     }
 
   }
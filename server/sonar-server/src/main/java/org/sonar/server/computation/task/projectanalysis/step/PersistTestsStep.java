@@ -52,6 +52,7 @@ import org.sonar.server.computation.task.projectanalysis.component.CrawlerDepthL
 import org.sonar.server.computation.task.projectanalysis.component.DepthTraversalTypeAwareCrawler;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
 import org.sonar.server.computation.task.projectanalysis.component.TypeAwareVisitorAdapter;
+import org.sonar.server.computation.task.projectanalysis.dbwriter.AsyncDbWriter;
 import org.sonar.server.computation.task.step.ComputationStep;
 
 public class PersistTestsStep implements ComputationStep {
@@ -62,21 +63,26 @@ public class PersistTestsStep implements ComputationStep {
   private final System2 system;
   private final BatchReportReader reportReader;
   private final TreeRootHolder treeRootHolder;
+  private final AsyncDbWriter asyncDbWriter;
 
-  public PersistTestsStep(DbClient dbClient, System2 system, BatchReportReader reportReader, TreeRootHolder treeRootHolder) {
+  public PersistTestsStep(DbClient dbClient, System2 system, BatchReportReader reportReader, TreeRootHolder treeRootHolder, AsyncDbWriter asyncDbWriter) {
     this.dbClient = dbClient;
     this.system = system;
     this.reportReader = reportReader;
     this.treeRootHolder = treeRootHolder;
+    this.asyncDbWriter = asyncDbWriter;
   }
 
+  /**
+   * Test data are computed and encoded on the current thread, then the rows are written by {@link AsyncDbWriter}.
+   * They are committed by {@link CommitAsyncDbWritesStep}.
+   */
   @Override
   public void execute() {
-    DbSession session = dbClient.openSession(true);
+    DbSession session = dbClient.openSession(false);
     try {
       TestDepthTraversalTypeAwareVisitor visitor = new TestDepthTraversalTypeAwareVisitor(session);
       new DepthTraversalTypeAwareCrawler(visitor).visit(treeRootHolder.getRoot());
-      session.commit();
       if (visitor.hasUnprocessedCoverageDetails) {
         LOG.warn("Some coverage tests are not taken into account during analysis of project '{}'", visitor.getProjectKey());
       }
@@ -138,7 +144,7 @@ public class PersistTestsStep implements ComputationStep {
         existingDto
           .setTestData(tests)
           .setUpdatedAt(now);
-        dbClient.fileSourceDao().update(session, existingDto);
+        asyncDbWriter.submit(getDescription(), writerSession -> dbClient.fileSourceDao().update(writerSession, existingDto));
       } else {
         // insert
         FileSourceDto newDto = new FileSourceDto()
@@ -148,7 +154,7 @@ public class PersistTestsStep implements ComputationStep {
           .setDataType(Type.TEST)
           .setCreatedAt(now)
           .setUpdatedAt(now);
-        dbClient.fileSourceDao().insert(session, newDto);
+        asyncDbWriter.submit(getDescription(), writerSession -> dbClient.fileSourceDao().insert(writerSession, newDto));
       }
     }
 
@@ -52,6 +52,7 @@ public class ReportComputationSteps extends AbstractComputationSteps {
     LoadQualityGateStep.class,
     LoadPeriodsStep.class,
     FileMoveDetectionStep.class,
+    LoadBaseDataStep.class,
 
     // load duplications related stuff
     LoadDuplicationsFromReportStep.class,
@@ -97,6 +98,8 @@ public class ReportComputationSteps extends AbstractComputationSteps {
     PersistFileSourcesStep.class,
     PersistTestsStep.class,
     PersistCrossProjectDuplicationIndexStep.class,
+    // Must be executed after all the steps writing with AsyncDbWriter
+    CommitAsyncDbWritesStep.class,
     EnableAnalysisStep.class,
 
     UpdateQualityProfilesLastUsedDateStep.class,
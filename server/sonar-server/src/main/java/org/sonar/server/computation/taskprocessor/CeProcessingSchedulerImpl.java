@@ -23,6 +23,7 @@ import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListenableScheduledFuture;
+import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import javax.annotation.CheckForNull;
@@ -31,24 +32,32 @@ import org.picocontainer.Startable;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.server.computation.configuration.CeConfiguration;
+import org.sonar.server.computation.queue.CeQueueSignal;
 
 import static com.google.common.util.concurrent.Futures.addCallback;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
+/**
+ * Chains the executions of the workers. When a worker finds no task in the queue, it waits until a task is submitted
+ * (see {@link CeQueueSignal}) before peeking again the queue. The polling delay is kept as a maximum waiting time, as
+ * tasks may be submitted without signal (for example when the web server can't reach the Compute Engine).
+ */
 public class CeProcessingSchedulerImpl implements CeProcessingScheduler, Startable {
   private static final Logger LOG = Loggers.get(CeProcessingSchedulerImpl.class);
 
   private final CeProcessingSchedulerExecutorService executorService;
   private final CeWorkerCallable workerRunnable;
+  private final CeQueueSignal queueSignal;
 
   private final long delayBetweenTasks;
   private final TimeUnit timeUnit;
   private final ChainingCallback[] chainingCallbacks;
 
   public CeProcessingSchedulerImpl(CeConfiguration ceConfiguration,
-    CeProcessingSchedulerExecutorService processingExecutorService, CeWorkerCallable workerRunnable) {
+    CeProcessingSchedulerExecutorService processingExecutorService, CeWorkerCallable workerRunnable, CeQueueSignal queueSignal) {
     this.executorService = processingExecutorService;
     this.workerRunnable = workerRunnable;
+    this.queueSignal = queueSignal;
 
     this.delayBetweenTasks = ceConfiguration.getQueuePollingDelay();
     this.timeUnit = MILLISECONDS;
@@ -78,10 +87,15 @@ public class CeProcessingSchedulerImpl implements CeProcessingScheduler, Startab
     for (ChainingCallback chainingCallback : chainingCallbacks) {
       chainingCallback.stop();
     }
+    // wake up waiting workers so that they exit
+    queueSignal.signal();
   }
 
   private class ChainingCallback implements FutureCallback<Boolean> {
     private final AtomicBoolean keepRunning = new AtomicBoolean(true);
+    // version of the queue signal read before the latest peek of the queue
+    private volatile long queueVersion = queueSignal.getVersion();
+    private final Callable<Boolean> waitingWorker = new WaitingWorkerCallable();
     @CheckForNull
     private ListenableFuture<Boolean> workerFuture;
 
@@ -105,6 +119,7 @@ public class CeProcessingSchedulerImpl implements CeProcessingScheduler, Startab
 
     private void chainWithoutDelay() {
       if (keepRunning()) {
+        queueVersion = queueSignal.getVersion();
         workerFuture = executorService.submit(workerRunnable);
       }
       addCallback();
@@ -112,7 +127,7 @@ public class CeProcessingSchedulerImpl implements CeProcessingScheduler, Startab
 
     private void chainWithDelay() {
       if (keepRunning()) {
-        workerFuture = executorService.schedule(workerRunnable, delayBetweenTasks, timeUnit);
+        workerFuture = executorService.submit(waitingWorker);
       }
       addCallback();
     }
@@ -133,5 +148,20 @@ public class CeProcessingSchedulerImpl implements CeProcessingScheduler, Startab
         workerFuture.cancel(false);
       }
     }
+
+    /**
+     * Waits for a task to be submitted, at most the polling delay, then executes the worker.
+     */
+    private class WaitingWorkerCallable implements Callable<Boolean> {
+      @Override
+      public Boolean call() throws Exception {
+        queueSignal.await(queueVersion, timeUnit.toMillis(delayBetweenTasks));
+        if (!keepRunning()) {
+          return false;
+        }
+        queueVersion = queueSignal.getVersion();
+        return workerRunnable.call();
+      }
+    }
   }
 }
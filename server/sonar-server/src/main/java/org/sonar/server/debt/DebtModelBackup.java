@@ -44,6 +44,7 @@ import org.sonar.server.rule.RuleDefinitionsLoader;
 import org.sonar.server.rule.RuleOperations;
 import org.sonar.server.rule.index.RuleIndexer;
 import org.sonar.server.user.UserSession;
+import org.sonar.server.util.cache.ReferenceDataCache;
 
 import static com.google.common.collect.Lists.newArrayList;
 
@@ -60,10 +61,12 @@ public class DebtModelBackup {
   private final System2 system2;
   private final UserSession userSession;
   private final RuleIndexer ruleIndexer;
+  private final ReferenceDataCache referenceDataCache;
 
   public DebtModelBackup(DbClient dbClient, RuleOperations ruleOperations,
     DebtRulesXMLImporter rulesXMLImporter,
-    DebtModelXMLExporter debtModelXMLExporter, RuleDefinitionsLoader defLoader, System2 system2, UserSession userSession, RuleIndexer ruleIndexer) {
+    DebtModelXMLExporter debtModelXMLExporter, RuleDefinitionsLoader defLoader, System2 system2, UserSession userSession, RuleIndexer ruleIndexer,
+    ReferenceDataCache referenceDataCache) {
     this.dbClient = dbClient;
     this.ruleOperations = ruleOperations;
     this.rulesXMLImporter = rulesXMLImporter;
@@ -72,6 +75,7 @@ public class DebtModelBackup {
     this.system2 = system2;
     this.userSession = userSession;
     this.ruleIndexer = ruleIndexer;
+    this.referenceDataCache = referenceDataCache;
   }
 
   public String backup() {
@@ -127,6 +131,7 @@ public class DebtModelBackup {
       }
 
       session.commit();
+      referenceDataCache.invalidateRules();
       ruleIndexer.index();
     } finally {
       MyBatis.closeQuietly(session);
@@ -188,6 +193,7 @@ public class DebtModelBackup {
       restoreRules(rules(languageKey, session), rulesXMLImporter.importXML(xml, validationMessages), validationMessages, updateDate, session);
 
       session.commit();
+      referenceDataCache.invalidateRules();
       ruleIndexer.index();
     } catch (IllegalArgumentException e) {
       LOG.debug("Error when restoring the model", e);
@@ -59,13 +59,26 @@ public abstract class BaseIndexer implements Startable {
   }
 
   public void index(final IndexerTask task) {
+    execute(task, false);
+  }
+
+  /**
+   * Same as {@link #index(IndexerTask)} for documents which are already loaded instead of being read from database.
+   * The task is always executed, then the date of last update is advanced to the most recent document, so that
+   * the next incremental indexing does not read the same rows again.
+   */
+  protected void indexLoadedDocuments(final IndexerTask task) {
+    execute(task, true);
+  }
+
+  private void execute(final IndexerTask task, boolean force) {
     if (enabled) {
       final long requestedAt = System.currentTimeMillis();
       Future submit = executor.submit(() -> {
         if (lastUpdatedAt == -1L) {
           lastUpdatedAt = esClient.getMaxFieldValue(indexName, typeName, dateFieldName);
         }
-        if (requestedAt > lastUpdatedAt) {
+        if (force || requestedAt > lastUpdatedAt) {
           long l = task.index(lastUpdatedAt);
           // l can be 0 if no documents were indexed
           lastUpdatedAt = Math.max(l, lastUpdatedAt);
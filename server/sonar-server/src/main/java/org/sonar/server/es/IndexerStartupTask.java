@@ -31,7 +31,14 @@ import org.sonar.server.view.index.ViewIndexer;
 
 public class IndexerStartupTask {
 
+  /**
+   * Maximum number of threads used to index the whole table ISSUES, for example after an upgrade
+   * or when Elasticsearch data have been lost. Default is the number of processors, with a maximum of 4.
+   */
+  public static final String INDEXING_THREADS_PROPERTY = "sonar.internal.es.indexingThreads";
+
   private static final Logger LOG = Loggers.get(IndexerStartupTask.class);
+  private static final int DEFAULT_MAX_INDEXING_THREADS = 4;
 
   private final TestIndexer testIndexer;
   private final IssueAuthorizationIndexer issueAuthorizationIndexer;
@@ -65,7 +72,7 @@ public class IndexerStartupTask {
 
       LOG.info("Index issues");
       issueAuthorizationIndexer.setEnabled(true).index();
-      issueIndexer.setEnabled(true).index();
+      issueIndexer.setParallelism(indexingThreads()).setEnabled(true).index();
 
       LOG.info("Index tests");
       testIndexer.setEnabled(true).index();
@@ -78,4 +85,12 @@ public class IndexerStartupTask {
     }
   }
 
+  private int indexingThreads() {
+    int threads = settings.getInt(INDEXING_THREADS_PROPERTY);
+    if (threads <= 0) {
+      return Math.min(DEFAULT_MAX_INDEXING_THREADS, Runtime.getRuntime().availableProcessors());
+    }
+    return threads;
+  }
+
 }
@@ -0,0 +1,102 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.es;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.Uninterruptibles;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToLongFunction;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.core.util.ProgressLogger;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.String.format;
+
+/**
+ * Distributes the indexing of independent partitions of a table (for example the issues of each project)
+ * on a pool of threads. A partition is processed by a single thread, so the task is expected to open its own
+ * DB session and to feed its own {@link BulkIndexer}.
+ */
+public class ParallelIndexing<P> {
+
+  private static final Logger LOG = Loggers.get(ParallelIndexing.class);
+
+  private final String label;
+  private final int parallelism;
+
+  /**
+   * @param label plural label of partitions, for example "partitions". It is used in logs, which count partitions,
+   * not the items they contain.
+   * @param parallelism maximum number of partitions processed concurrently
+   */
+  public ParallelIndexing(String label, int parallelism) {
+    checkArgument(parallelism > 0, "Parallelism must be greater than 0");
+    this.label = label;
+    this.parallelism = parallelism;
+  }
+
+  /**
+   * Blocks until all the partitions are indexed.
+   *
+   * @return the greatest value returned by {@code task}, for example the max technical date of indexed documents,
+   * or 0 if there are no partitions
+   */
+  public long execute(Collection<P> partitions, ToLongFunction<P> task) {
+    if (partitions.isEmpty()) {
+      return 0L;
+    }
+    int threads = Math.min(parallelism, partitions.size());
+    LOG.info("Index {} {} on {} threads", partitions.size(), label, threads);
+    ExecutorService executor = Executors.newFixedThreadPool(threads,
+      new ThreadFactoryBuilder().setNameFormat(format("ParallelIndexing[%s]-%%d", label)).setDaemon(true).build());
+    AtomicLong counter = new AtomicLong(0L);
+    ProgressLogger progress = new ProgressLogger(format("Progress[ParallelIndexing[%s]]", label), counter, LOG)
+      .setPluralLabel(label);
+    progress.start();
+    try {
+      List<Future<Long>> futures = new ArrayList<>(partitions.size());
+      for (P partition : partitions) {
+        futures.add(executor.submit(() -> {
+          long result = task.applyAsLong(partition);
+          counter.incrementAndGet();
+          return result;
+        }));
+      }
+      long max = 0L;
+      for (Future<Long> future : futures) {
+        max = Math.max(max, Uninterruptibles.getUninterruptibly(future));
+      }
+      return max;
+    } catch (ExecutionException e) {
+      throw new IllegalStateException(format("Fail to index %s", label), e.getCause());
+    } finally {
+      executor.shutdownNow();
+      progress.stop();
+    }
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.issue.index;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import java.util.Date;
+import javax.annotation.Nullable;
+import org.sonar.api.utils.KeyValueFormat;
+import org.sonar.core.issue.DefaultIssue;
+import org.sonar.db.component.ComponentDto;
+
+import static org.sonar.server.issue.index.IssueResultSetIterator.extractDirPath;
+import static org.sonar.server.issue.index.IssueResultSetIterator.extractFilePath;
+import static org.sonar.server.issue.index.IssueResultSetIterator.extractModule;
+
+/**
+ * Creates the documents of issues which are already loaded in memory, for example by Compute Engine, so that
+ * they don't have to be read again from table ISSUES. Documents are the same as the ones read by
+ * {@link IssueResultSetIterator}.
+ */
+public final class IssueDocFactory {
+
+  private IssueDocFactory() {
+    // only static methods
+  }
+
+  /**
+   * @param component the component of the issue, as persisted in table PROJECTS
+   * @param language the language of the rule of the issue
+   * @param technicalUpdateDate the date the issue has been persisted
+   */
+  public static IssueDoc newDoc(DefaultIssue issue, ComponentDto component, @Nullable String language, Date technicalUpdateDate) {
+    IssueDoc doc = new IssueDoc(Maps.newHashMapWithExpectedSize(30));
+
+    // all the fields must be present, even if value is null
+    doc.setKey(issue.key());
+    doc.setProjectUuid(component.projectUuid());
+    doc.setTechnicalUpdateDate(technicalUpdateDate);
+    doc.setAssignee(issue.assignee());
+    doc.setGap(issue.gap());
+    doc.setAttributes(KeyValueFormat.format(issue.attributes()));
+    doc.setLine(issue.line());
+    doc.setMessage(issue.message());
+    doc.setResolution(issue.resolution());
+    doc.setSeverity(issue.severity());
+    doc.setManualSeverity(issue.manualSeverity());
+    doc.setChecksum(issue.checksum());
+    doc.setStatus(issue.status());
+    doc.setEffort(issue.effortInMinutes());
+    doc.setAuthorLogin(issue.authorLogin());
+    doc.setFuncCloseDate(issue.closeDate());
+    doc.setFuncCreationDate(issue.creationDate());
+    doc.setFuncUpdateDate(issue.updateDate());
+    doc.setRuleKey(issue.ruleKey().toString());
+    doc.setLanguage(language);
+    doc.setComponentUuid(component.uuid());
+    String moduleUuidPath = component.moduleUuidPath();
+    doc.setModuleUuid(extractModule(moduleUuidPath));
+    doc.setModuleUuidPath(moduleUuidPath);
+    String scope = component.scope();
+    doc.setFilePath(extractFilePath(component.path(), scope));
+    doc.setDirectoryPath(extractDirPath(doc.filePath(), scope));
+    doc.setTags(ImmutableList.copyOf(issue.tags()));
+    doc.setType(issue.type());
+    return doc;
+  }
+}
@@ -19,19 +19,30 @@
  */
 package org.sonar.server.issue.index;
 
+import com.google.common.collect.Lists;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import javax.annotation.Nullable;
 import org.elasticsearch.action.bulk.BulkRequestBuilder;
 import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.action.search.SearchRequestBuilder;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.db.DatabaseUtils;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.server.es.BaseIndexer;
 import org.sonar.server.es.BulkIndexer;
 import org.sonar.server.es.EsClient;
 import org.sonar.server.es.EsUtils;
+import org.sonar.server.es.ParallelIndexing;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static org.elasticsearch.index.query.QueryBuilders.boolQuery;
 import static org.elasticsearch.index.query.QueryBuilders.termQuery;
 import static org.sonar.server.issue.index.IssueIndexDefinition.FIELD_ISSUE_PROJECT_UUID;
@@ -42,29 +53,59 @@ import static org.sonar.server.issue.index.IssueIndexDefinition.TYPE_ISSUE;
 
 public class IssueIndexer extends BaseIndexer {
 
+  private static final Logger LOG = Loggers.get(IssueIndexer.class);
   private static final String DELETE_ERROR_MESSAGE = "Fail to delete some issues of project [%s]";
   private static final int MAX_BATCH_SIZE = 1000;
+  private static final int PARTITIONS_PER_THREAD = 4;
+  private static final String SQL_PROJECT_UUIDS = "select distinct i.project_uuid from issues i";
 
   private final DbClient dbClient;
+  private int parallelism = 1;
 
   public IssueIndexer(DbClient dbClient, EsClient esClient) {
     super(esClient, 300, INDEX, TYPE_ISSUE, FIELD_ISSUE_TECHNICAL_UPDATED_AT);
     this.dbClient = dbClient;
   }
 
+  /**
+   * Maximum number of threads used when the whole table ISSUES is indexed. Default is 1, which means
+   * that issues are read through a single cursor.
+   */
+  public IssueIndexer setParallelism(int i) {
+    checkArgument(i > 0, "Parallelism must be greater than 0");
+    this.parallelism = i;
+    return this;
+  }
+
   @Override
   protected long doIndex(long lastUpdatedAt) {
+    if (lastUpdatedAt <= 0L && parallelism > 1) {
+      return doIndexByProjects(false);
+    }
     return doIndex(createBulkIndexer(false), lastUpdatedAt, null);
   }
 
   public void indexAll() {
-    doIndex(createBulkIndexer(true), 0L, null);
+    if (parallelism > 1) {
+      doIndexByProjects(true);
+    } else {
+      doIndex(createBulkIndexer(true), 0L, null);
+    }
   }
 
   public void index(String projectUuid) {
     super.index(lastUpdatedAt -> doIndex(createBulkIndexer(false), lastUpdatedAt, projectUuid));
   }
 
+  /**
+   * Indexes documents which are not read from database, for example by Compute Engine which already has the issues
+   * in memory (see {@link IssueDocFactory}). Technical update dates of documents must be the ones of the rows
+   * in table ISSUES, as they are used by the next incremental indexing.
+   */
+  public void indexLoadedDocuments(Iterator<IssueDoc> issues) {
+    super.indexLoadedDocuments(lastUpdatedAt -> doIndex(createBulkIndexer(false), issues));
+  }
+
   /**
    * For benchmarks
    */
@@ -81,8 +122,73 @@ public class IssueIndexer extends BaseIndexer {
     }
   }
 
+  /**
+   * Full indexing split in partitions, each one being a range of the sorted project UUIDs. Partitions are read on
+   * different DB connections and sent to Elasticsearch by different {@link BulkIndexer}. Projects are still
+   * requested one by one, so that ranges do not depend on the collation of the database.
+   */
+  private long doIndexByProjects(boolean large) {
+    List<String> projectUuids = selectProjectUuids();
+    int partitionSize = Math.max(1, projectUuids.size() / (parallelism * PARTITIONS_PER_THREAD));
+    LOG.info("Index issues of {} projects by partitions of {} projects", projectUuids.size(), partitionSize);
+
+    // does not index documents. Only changes settings of index if large, then refreshes it when all partitions are indexed.
+    BulkIndexer indexBulk = createBulkIndexer(large);
+    indexBulk.start();
+    try {
+      return new ParallelIndexing<List<String>>("partitions", parallelism)
+        .execute(Lists.partition(projectUuids, partitionSize), this::doIndexPartition);
+    } finally {
+      indexBulk.stop();
+    }
+  }
+
+  private long doIndexPartition(List<String> projectUuids) {
+    BulkIndexer bulk = createBulkIndexer(false).setDisableRefresh(true);
+    bulk.start();
+    long maxDate = 0L;
+    try (DbSession dbSession = dbClient.openSession(false)) {
+      for (String projectUuid : projectUuids) {
+        try (IssueResultSetIterator rowIt = IssueResultSetIterator.create(dbClient, dbSession, 0L, projectUuid)) {
+          maxDate = Math.max(maxDate, addToBulk(bulk, rowIt));
+        }
+      }
+    } finally {
+      bulk.stop();
+    }
+    return maxDate;
+  }
+
+  private List<String> selectProjectUuids() {
+    try (DbSession dbSession = dbClient.openSession(false)) {
+      PreparedStatement stmt = null;
+      ResultSet rs = null;
+      try {
+        stmt = dbClient.getMyBatis().newScrollingSelectStatement(dbSession, SQL_PROJECT_UUIDS);
+        rs = stmt.executeQuery();
+        List<String> uuids = new ArrayList<>();
+        while (rs.next()) {
+          uuids.add(rs.getString(1));
+        }
+        Collections.sort(uuids);
+        return uuids;
+      } catch (SQLException e) {
+        throw new IllegalStateException("Fail to select UUIDs of projects having issues", e);
+      } finally {
+        DatabaseUtils.closeQuietly(rs);
+        DatabaseUtils.closeQuietly(stmt);
+      }
+    }
+  }
+
   private long doIndex(BulkIndexer bulk, Iterator<IssueDoc> issues) {
     bulk.start();
+    long maxDate = addToBulk(bulk, issues);
+    bulk.stop();
+    return maxDate;
+  }
+
+  private static long addToBulk(BulkIndexer bulk, Iterator<IssueDoc> issues) {
     long maxDate = 0L;
     while (issues.hasNext()) {
       IssueDoc issue = issues.next();
@@ -91,7 +197,6 @@ public class IssueIndexer extends BaseIndexer {
       // it's more efficient to sort programmatically than in SQL on some databases (MySQL for instance)
       maxDate = Math.max(maxDate, issue.getTechnicalUpdateDate().getTime());
     }
-    bulk.stop();
     return maxDate;
   }
 
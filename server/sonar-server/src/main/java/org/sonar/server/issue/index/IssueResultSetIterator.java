@@ -120,7 +120,7 @@ class IssueResultSetIterator extends ResultSetIterator<IssueDoc> {
   }
 
   @CheckForNull
-  private static String extractDirPath(@Nullable String filePath, String scope) {
+  static String extractDirPath(@Nullable String filePath, String scope) {
     if (filePath != null) {
       if (Scopes.DIRECTORY.equals(scope)) {
         return filePath;
@@ -135,7 +135,7 @@ class IssueResultSetIterator extends ResultSetIterator<IssueDoc> {
   }
 
   @CheckForNull
-  private static String extractFilePath(@Nullable String filePath, String scope) {
+  static String extractFilePath(@Nullable String filePath, String scope) {
     // On modules, the path contains the relative path of the module starting from its parent, and in E/S we're only interested in the path
     // of files and directories.
     // That's why the file path should be null on modules and projects.
@@ -145,7 +145,7 @@ class IssueResultSetIterator extends ResultSetIterator<IssueDoc> {
     return null;
   }
 
-  private static String extractModule(String moduleUuidPath) {
+  static String extractModule(String moduleUuidPath) {
     return Iterators.getLast(MODULE_PATH_SPLITTER.split(moduleUuidPath).iterator());
   }
 
@@ -40,6 +40,7 @@ import org.sonar.server.es.Facets;
 import org.sonar.server.issue.ActionService;
 import org.sonar.server.issue.IssueCommentService;
 import org.sonar.server.issue.IssueService;
+import org.sonar.server.util.cache.ReferenceDataCache;
 import org.sonarqube.ws.client.issue.IssueFilterParameters;
 
 import static com.google.common.collect.Lists.newArrayList;
@@ -58,12 +59,15 @@ public class SearchResponseLoader {
   private final IssueService issueService;
   private final ActionService actionService;
   private final IssueCommentService commentService;
+  private final ReferenceDataCache referenceDataCache;
 
-  public SearchResponseLoader(DbClient dbClient, IssueService issueService, ActionService actionService, IssueCommentService commentService) {
+  public SearchResponseLoader(DbClient dbClient, IssueService issueService, ActionService actionService, IssueCommentService commentService,
+    ReferenceDataCache referenceDataCache) {
     this.dbClient = dbClient;
     this.issueService = issueService;
     this.actionService = actionService;
     this.commentService = commentService;
+    this.referenceDataCache = referenceDataCache;
   }
 
   /**
@@ -91,7 +95,7 @@ public class SearchResponseLoader {
 
   private void loadUsers(Collector collector, DbSession dbSession, SearchResponseData result) {
     if (collector.contains(USERS)) {
-      result.setUsers(dbClient.userDao().selectByLogins(dbSession, collector.<String>get(USERS)));
+      result.setUsers(referenceDataCache.selectUsersByLogins(dbSession, collector.<String>get(USERS)));
     }
   }
 
@@ -110,19 +114,19 @@ public class SearchResponseLoader {
 
   private void loadRules(Collector collector, DbSession dbSession, SearchResponseData result) {
     if (collector.contains(RULES)) {
-      result.setRules(dbClient.ruleDao().selectByKeys(dbSession, collector.<RuleKey>get(RULES)));
+      result.setRules(referenceDataCache.selectRulesByKeys(dbSession, collector.<RuleKey>get(RULES)));
     }
   }
 
   private void loadComponents(Collector collector, DbSession dbSession, SearchResponseData result) {
     // always load components and projects, because some issue fields still relate to component ids/keys.
     // They should be dropped but are kept for backward-compatibility (see SearchResponseFormat)
-    result.addComponents(dbClient.componentDao().selectByUuids(dbSession, collector.getComponentUuids()));
+    result.addComponents(referenceDataCache.selectComponentsByUuids(dbSession, collector.getComponentUuids()));
     result.addComponents(dbClient.componentDao().selectSubProjectsByComponentUuids(dbSession, collector.getComponentUuids()));
     for (ComponentDto component : result.getComponents()) {
       collector.addProjectUuid(component.projectUuid());
     }
-    List<ComponentDto> projects = dbClient.componentDao().selectByUuids(dbSession, collector.getProjectUuids());
+    List<ComponentDto> projects = referenceDataCache.selectComponentsByUuids(dbSession, collector.getProjectUuids());
     result.addComponents(projects);
   }
 
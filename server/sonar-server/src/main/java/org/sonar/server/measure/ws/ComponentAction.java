@@ -51,6 +51,7 @@ import org.sonar.server.component.ComponentFinder;
 import org.sonar.server.exceptions.NotFoundException;
 import org.sonar.server.measure.ws.MetricDtoWithBestValue.MetricDtoToMetricDtoWithBestValueFunction;
 import org.sonar.server.user.UserSession;
+import org.sonar.server.util.cache.ReferenceDataCache;
 import org.sonarqube.ws.WsMeasures;
 import org.sonarqube.ws.WsMeasures.ComponentWsResponse;
 import org.sonarqube.ws.client.measure.ComponentWsRequest;
@@ -90,11 +91,13 @@ public class ComponentAction implements MeasuresWsAction {
   private final DbClient dbClient;
   private final ComponentFinder componentFinder;
   private final UserSession userSession;
+  private final ReferenceDataCache referenceDataCache;
 
-  public ComponentAction(DbClient dbClient, ComponentFinder componentFinder, UserSession userSession) {
+  public ComponentAction(DbClient dbClient, ComponentFinder componentFinder, UserSession userSession, ReferenceDataCache referenceDataCache) {
     this.dbClient = dbClient;
     this.componentFinder = componentFinder;
     this.userSession = userSession;
+    this.referenceDataCache = referenceDataCache;
   }
 
   @Override
@@ -197,7 +200,7 @@ public class ComponentAction implements MeasuresWsAction {
   }
 
   private List<MetricDto> searchMetrics(DbSession dbSession, ComponentWsRequest request) {
-    List<MetricDto> metrics = dbClient.metricDao().selectByKeys(dbSession, request.getMetricKeys());
+    List<MetricDto> metrics = referenceDataCache.selectMetricsByKeys(dbSession, request.getMetricKeys());
     if (metrics.size() < request.getMetricKeys().size()) {
       List<String> foundMetricKeys = Lists.transform(metrics, MetricDtoFunctions.toKey());
       Set<String> missingMetricKeys = Sets.difference(
@@ -42,6 +42,7 @@ import java.util.stream.Collectors;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import org.sonar.api.measures.Metric.ValueType;
 import org.sonar.api.resources.Qualifiers;
 import org.sonar.api.resources.ResourceTypes;
 import org.sonar.api.web.UserRole;
@@ -57,6 +58,7 @@ import org.sonar.db.metric.MetricDtoFunctions;
 import org.sonar.server.component.ComponentFinder;
 import org.sonar.server.exceptions.NotFoundException;
 import org.sonar.server.user.UserSession;
+import org.sonar.server.util.cache.ReferenceDataCache;
 import org.sonarqube.ws.WsMeasures;
 import org.sonarqube.ws.client.measure.ComponentTreeWsRequest;
 
@@ -89,12 +91,15 @@ public class ComponentTreeDataLoader {
   private final ComponentFinder componentFinder;
   private final UserSession userSession;
   private final ResourceTypes resourceTypes;
+  private final ReferenceDataCache referenceDataCache;
 
-  public ComponentTreeDataLoader(DbClient dbClient, ComponentFinder componentFinder, UserSession userSession, ResourceTypes resourceTypes) {
+  public ComponentTreeDataLoader(DbClient dbClient, ComponentFinder componentFinder, UserSession userSession, ResourceTypes resourceTypes,
+    ReferenceDataCache referenceDataCache) {
     this.dbClient = dbClient;
     this.componentFinder = componentFinder;
     this.userSession = userSession;
     this.resourceTypes = resourceTypes;
+    this.referenceDataCache = referenceDataCache;
   }
 
   ComponentTreeData load(ComponentTreeWsRequest wsRequest) {
@@ -109,19 +114,27 @@ public class ComponentTreeDataLoader {
           .build();
       }
       Long developerId = searchDeveloperId(dbSession, wsRequest);
+      List<MetricDto> metrics = searchMetrics(dbSession, wsRequest);
+      List<WsMeasures.Period> periods = snapshotToWsPeriods(baseSnapshot.get());
 
-      ComponentTreeQuery dbQuery = toComponentTreeQuery(wsRequest, baseComponent);
+      MetricDto metricToSortInDb = metricToSortInDb(dbSession, wsRequest, metrics, baseSnapshot.get(), developerId);
+      boolean sortInMemory = isSortByMetric(wsRequest) && metricToSortInDb == null;
+      ComponentTreeQuery dbQuery = toComponentTreeQuery(wsRequest, baseComponent, sortInMemory, metricToSortInDb);
       ComponentDtosAndTotal componentDtosAndTotal = searchComponents(dbSession, dbQuery, wsRequest);
       List<ComponentDto> components = componentDtosAndTotal.componentDtos;
-      List<MetricDto> metrics = searchMetrics(dbSession, wsRequest);
-      List<WsMeasures.Period> periods = snapshotToWsPeriods(baseSnapshot.get());
+      int componentCount = componentDtosAndTotal.total;
+
+      if (sortInMemory) {
+        // the whole tree is loaded, but only with the measures of the metric to sort. Other measures are loaded for the requested page only.
+        Table<String, MetricDto, MeasureDto> measuresToSort = searchMeasuresByComponentUuidAndMetric(dbSession, baseComponent, components,
+          metricToSort(metrics, wsRequest), periods, developerId);
+        components = filterComponents(components, measuresToSort, metrics, wsRequest);
+        components = ComponentTreeSort.sortComponents(components, wsRequest, metrics, measuresToSort);
+        componentCount = computeComponentCount(componentCount, components, componentWithMeasuresOnly(wsRequest));
+        components = paginateComponents(components, wsRequest);
+      }
       Table<String, MetricDto, MeasureDto> measuresByComponentUuidAndMetric = searchMeasuresByComponentUuidAndMetric(dbSession, baseComponent, components, metrics,
         periods, developerId);
-
-      components = filterComponents(components, measuresByComponentUuidAndMetric, metrics, wsRequest);
-      components = sortComponents(components, wsRequest, metrics, measuresByComponentUuidAndMetric);
-      int componentCount = computeComponentCount(componentDtosAndTotal.total, components, componentWithMeasuresOnly(wsRequest));
-      components = paginateComponents(components, wsRequest);
       Map<String, ComponentDto> referenceComponentsById = searchReferenceComponentsById(dbSession, components);
 
       return ComponentTreeData.builder()
@@ -160,7 +173,7 @@ public class ComponentTreeDataLoader {
       return emptyMap();
     }
 
-    return FluentIterable.from(dbClient.componentDao().selectByUuids(dbSession, referenceComponentUUids))
+    return FluentIterable.from(referenceDataCache.selectComponentsByUuids(dbSession, referenceComponentUUids))
       .uniqueIndex(ComponentDto::uuid);
   }
 
@@ -186,7 +199,7 @@ public class ComponentTreeDataLoader {
 
   private List<MetricDto> searchMetrics(DbSession dbSession, ComponentTreeWsRequest request) {
     List<String> metricKeys = requireNonNull(request.getMetricKeys());
-    List<MetricDto> metrics = dbClient.metricDao().selectByKeys(dbSession, metricKeys);
+    List<MetricDto> metrics = referenceDataCache.selectMetricsByKeys(dbSession, metricKeys);
     if (metrics.size() < metricKeys.size()) {
       List<String> foundMetricKeys = Lists.transform(metrics, MetricDtoFunctions.toKey());
       Set<String> missingMetricKeys = Sets.difference(
@@ -199,9 +212,49 @@ public class ComponentTreeDataLoader {
     return metrics;
   }
 
+  private static List<MetricDto> metricToSort(List<MetricDto> metrics, ComponentTreeWsRequest wsRequest) {
+    String metricKeyToSort = wsRequest.getMetricSort();
+    if (metricKeyToSort == null) {
+      return Collections.emptyList();
+    }
+    return from(metrics).filter(new MatchMetricKey(metricKeyToSort)).toList();
+  }
+
+  /**
+   * The metric to sort in database, by joining its measures to the components of the tree, or {@code null} if the
+   * components must be sorted in memory. Sort is done in database when it does not depend on the measures that
+   * are computed or decoded by this web service:
+   * <ul>
+   * <li>the metric is the first sort field, and measure periods are not sorted</li>
+   * <li>the metric is numeric and is not optimized for best value, so that missing measures are not replaced</li>
+   * <li>measures are not requested for a developer</li>
+   * <li>measures of files of the analysis are not stored in table FILE_MEASURES</li>
+   * </ul>
+   */
+  @CheckForNull
+  private MetricDto metricToSortInDb(DbSession dbSession, ComponentTreeWsRequest wsRequest, List<MetricDto> metrics, SnapshotDto baseSnapshot,
+    @Nullable Long developerId) {
+    List<String> sorts = requireNonNull(wsRequest.getSort());
+    if (sorts.isEmpty() || !METRIC_SORT.equals(sorts.get(0)) || sorts.contains(METRIC_PERIOD_SORT) || developerId != null) {
+      return null;
+    }
+    List<MetricDto> metricToSort = metricToSort(metrics, wsRequest);
+    if (metricToSort.isEmpty()) {
+      return null;
+    }
+    MetricDto metric = metricToSort.get(0);
+    if (!ComponentTreeSort.NUMERIC_VALUE_TYPES.contains(ValueType.valueOf(metric.getValueType())) || metric.isOptimizedBestValue()) {
+      return null;
+    }
+    return dbClient.measureDao().hasFileMeasures(dbSession, baseSnapshot.getUuid()) ? null : metric;
+  }
+
   private Table<String, MetricDto, MeasureDto> searchMeasuresByComponentUuidAndMetric(DbSession dbSession, ComponentDto baseComponent,
     List<ComponentDto> components, List<MetricDto> metrics,
     List<WsMeasures.Period> periods, @Nullable Long developerId) {
+    if (metrics.isEmpty()) {
+      return HashBasedTable.create();
+    }
     List<String> componentUuids = new ArrayList<>();
     componentUuids.add(baseComponent.uuid());
     components.stream().forEach(c -> componentUuids.add(c.uuid()));
@@ -274,20 +327,7 @@ public class ComponentTreeDataLoader {
     return WITH_MEASURES_ONLY_METRIC_SORT_FILTER.equals(wsRequest.getMetricSortFilter());
   }
 
-  private static List<ComponentDto> sortComponents(List<ComponentDto> components, ComponentTreeWsRequest wsRequest, List<MetricDto> metrics,
-    Table<String, MetricDto, MeasureDto> measuresByComponentUuidAndMetric) {
-    if (!isSortByMetric(wsRequest)) {
-      return components;
-    }
-
-    return ComponentTreeSort.sortComponents(components, wsRequest, metrics, measuresByComponentUuidAndMetric);
-  }
-
   private static List<ComponentDto> paginateComponents(List<ComponentDto> components, ComponentTreeWsRequest wsRequest) {
-    if (!isSortByMetric(wsRequest)) {
-      return components;
-    }
-
     return from(components)
       .skip(offset(wsRequest.getPage(), wsRequest.getPageSize()))
       .limit(wsRequest.getPageSize())
@@ -320,7 +360,8 @@ public class ComponentTreeDataLoader {
     return new ArrayList<>(qualifiersIntersection);
   }
 
-  private ComponentTreeQuery toComponentTreeQuery(ComponentTreeWsRequest wsRequest, ComponentDto baseComponent) {
+  private ComponentTreeQuery toComponentTreeQuery(ComponentTreeWsRequest wsRequest, ComponentDto baseComponent, boolean sortInMemory,
+    @Nullable MetricDto metricToSortInDb) {
     List<String> childrenQualifiers = childrenQualifiers(wsRequest, baseComponent.qualifier());
 
     List<String> sortsWithoutMetricSort = newArrayList(Iterables.filter(wsRequest.getSort(), IsNotMetricSort.INSTANCE));
@@ -339,8 +380,12 @@ public class ComponentTreeDataLoader {
     if (childrenQualifiers != null) {
       dbQuery.setQualifiers(childrenQualifiers);
     }
-    // load all components if we must sort by metric value
-    if (isSortByMetric(wsRequest)) {
+    if (metricToSortInDb != null) {
+      dbQuery.setMetricSortId(metricToSortInDb.getId());
+      dbQuery.setWithMeasuresOnly(componentWithMeasuresOnly(wsRequest));
+    }
+    // load all components if we must sort by metric value in memory
+    if (sortInMemory) {
       dbQuery.setPage(1);
       dbQuery.setPageSize(Integer.MAX_VALUE);
     }
@@ -35,6 +35,7 @@ import org.sonar.db.metric.MetricDto;
 import org.sonar.server.exceptions.BadRequestException;
 import org.sonar.server.ruby.RubyBridge;
 import org.sonar.server.user.UserSession;
+import org.sonar.server.util.cache.ReferenceDataCache;
 
 import static org.sonar.server.util.MetricKeyValidator.checkMetricKeyFormat;
 
@@ -56,11 +57,13 @@ public class CreateAction implements MetricsWsAction {
   private final DbClient dbClient;
   private final UserSession userSession;
   private final RubyBridge rubyBridge;
+  private final ReferenceDataCache referenceDataCache;
 
-  public CreateAction(DbClient dbClient, UserSession userSession, RubyBridge rubyBridge) {
+  public CreateAction(DbClient dbClient, UserSession userSession, RubyBridge rubyBridge, ReferenceDataCache referenceDataCache) {
     this.dbClient = dbClient;
     this.userSession = userSession;
     this.rubyBridge = rubyBridge;
+    this.referenceDataCache = referenceDataCache;
   }
 
   @Override
@@ -151,6 +154,7 @@ public class CreateAction implements MetricsWsAction {
       .setEnabled(true);
     dbClient.metricDao().update(dbSession, metricInDb);
     dbSession.commit();
+    referenceDataCache.invalidateMetrics();
   }
 
   private MetricDto insertNewMetric(DbSession dbSession, MetricDto metricTemplate) {
@@ -170,6 +174,7 @@ public class CreateAction implements MetricsWsAction {
 
     dbClient.metricDao().insert(dbSession, metric);
     dbSession.commit();
+    referenceDataCache.invalidateMetrics();
     return metric;
   }
 
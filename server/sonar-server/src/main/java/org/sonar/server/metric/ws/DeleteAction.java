@@ -33,6 +33,7 @@ import org.sonar.db.MyBatis;
 import org.sonar.db.metric.MetricDto;
 import org.sonar.server.ruby.RubyBridge;
 import org.sonar.server.user.UserSession;
+import org.sonar.server.util.cache.ReferenceDataCache;
 
 import static com.google.common.base.Preconditions.checkArgument;
 
@@ -43,11 +44,13 @@ public class DeleteAction implements MetricsWsAction {
   private final DbClient dbClient;
   private final UserSession userSession;
   private final RubyBridge rubyBridge;
+  private final ReferenceDataCache referenceDataCache;
 
-  public DeleteAction(DbClient dbClient, UserSession userSession, RubyBridge rubyBridge) {
+  public DeleteAction(DbClient dbClient, UserSession userSession, RubyBridge rubyBridge, ReferenceDataCache referenceDataCache) {
     this.dbClient = dbClient;
     this.userSession = userSession;
     this.rubyBridge = rubyBridge;
+    this.referenceDataCache = referenceDataCache;
   }
 
   @Override
@@ -76,6 +79,7 @@ public class DeleteAction implements MetricsWsAction {
       dbClient.metricDao().disableCustomByIds(dbSession, ids);
       dbClient.customMeasureDao().deleteByMetricIds(dbSession, ids);
       dbSession.commit();
+      referenceDataCache.invalidateMetrics();
     } finally {
       MyBatis.closeQuietly(dbSession);
     }
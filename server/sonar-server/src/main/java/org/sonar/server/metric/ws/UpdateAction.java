@@ -36,6 +36,7 @@ import org.sonar.server.exceptions.BadRequestException;
 import org.sonar.server.ruby.RubyBridge;
 import org.sonar.server.user.UserSession;
 import org.sonar.server.util.MetricKeyValidator;
+import org.sonar.server.util.cache.ReferenceDataCache;
 
 public class UpdateAction implements MetricsWsAction {
   private static final String ACTION = "update";
@@ -57,11 +58,13 @@ public class UpdateAction implements MetricsWsAction {
   private final DbClient dbClient;
   private final UserSession userSession;
   private final RubyBridge rubyBridge;
+  private final ReferenceDataCache referenceDataCache;
 
-  public UpdateAction(DbClient dbClient, UserSession userSession, RubyBridge rubyBridge) {
+  public UpdateAction(DbClient dbClient, UserSession userSession, RubyBridge rubyBridge, ReferenceDataCache referenceDataCache) {
     this.dbClient = dbClient;
     this.userSession = userSession;
     this.rubyBridge = rubyBridge;
+    this.referenceDataCache = referenceDataCache;
   }
 
   @Override
@@ -172,6 +175,7 @@ public class UpdateAction implements MetricsWsAction {
     }
     dbClient.metricDao().update(dbSession, metricInDb);
     dbSession.commit();
+    referenceDataCache.invalidateMetrics();
   }
 
   private void checkMetricInDbAndTemplate(DbSession dbSession, @Nullable MetricDto metricInDb, MetricDto template) {
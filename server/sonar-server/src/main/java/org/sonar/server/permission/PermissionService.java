@@ -32,6 +32,7 @@ import org.sonar.db.component.ResourceDto;
 import org.sonar.db.permission.PermissionRepository;
 import org.sonar.server.component.ComponentFinder;
 import org.sonar.server.issue.index.IssueAuthorizationIndexer;
+import org.sonar.server.user.AuthorizationCache;
 import org.sonar.server.user.UserSession;
 
 import static org.sonar.server.permission.PermissionPrivilegeChecker.checkGlobalAdminUser;
@@ -43,14 +44,17 @@ public class PermissionService {
   private final DbClient dbClient;
   private final PermissionRepository permissionRepository;
   private final IssueAuthorizationIndexer issueAuthorizationIndexer;
+  private final AuthorizationCache authorizationCache;
   private final UserSession userSession;
   private final ComponentFinder componentFinder;
 
-  public PermissionService(DbClient dbClient, PermissionRepository permissionRepository, IssueAuthorizationIndexer issueAuthorizationIndexer, UserSession userSession,
+  public PermissionService(DbClient dbClient, PermissionRepository permissionRepository, IssueAuthorizationIndexer issueAuthorizationIndexer,
+    AuthorizationCache authorizationCache, UserSession userSession,
     ComponentFinder componentFinder) {
     this.dbClient = dbClient;
     this.permissionRepository = permissionRepository;
     this.issueAuthorizationIndexer = issueAuthorizationIndexer;
+    this.authorizationCache = authorizationCache;
     this.userSession = userSession;
     this.componentFinder = componentFinder;
   }
@@ -125,6 +129,7 @@ public class PermissionService {
   }
 
   private void indexProjectPermissions() {
+    authorizationCache.invalidate();
     issueAuthorizationIndexer.index();
   }
 }
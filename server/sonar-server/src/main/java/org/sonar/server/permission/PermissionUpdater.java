@@ -32,6 +32,7 @@ import org.sonar.db.user.UserDto;
 import org.sonar.server.component.ComponentFinder;
 import org.sonar.server.exceptions.BadRequestException;
 import org.sonar.server.issue.index.IssueAuthorizationIndexer;
+import org.sonar.server.user.AuthorizationCache;
 import org.sonar.server.user.UserSession;
 
 import static org.sonar.api.security.DefaultGroups.isAnyone;
@@ -51,14 +52,16 @@ public class PermissionUpdater {
   private final DbClient dbClient;
   private final PermissionRepository permissionRepository;
   private final IssueAuthorizationIndexer issueAuthorizationIndexer;
+  private final AuthorizationCache authorizationCache;
   private final UserSession userSession;
   private final ComponentFinder componentFinder;
 
   public PermissionUpdater(DbClient dbClient, PermissionRepository permissionRepository,
-    IssueAuthorizationIndexer issueAuthorizationIndexer, UserSession userSession, ComponentFinder componentFinder) {
+    IssueAuthorizationIndexer issueAuthorizationIndexer, AuthorizationCache authorizationCache, UserSession userSession, ComponentFinder componentFinder) {
     this.dbClient = dbClient;
     this.permissionRepository = permissionRepository;
     this.issueAuthorizationIndexer = issueAuthorizationIndexer;
+    this.authorizationCache = authorizationCache;
     this.userSession = userSession;
     this.componentFinder = componentFinder;
   }
@@ -200,6 +203,7 @@ public class PermissionUpdater {
   }
 
   private void indexProjectPermissions() {
+    authorizationCache.invalidate();
     issueAuthorizationIndexer.index();
   }
 }
@@ -32,6 +32,8 @@ import org.sonar.db.version.DatabaseVersion;
 import org.sonar.server.es.BulkIndexer;
 import org.sonar.server.es.EsClient;
 import org.sonar.server.issue.index.IssueIndexDefinition;
+import org.sonar.server.user.AuthorizationCache;
+import org.sonar.server.util.cache.ReferenceDataCache;
 import org.sonar.server.view.index.ViewIndexDefinition;
 
 import static org.elasticsearch.index.query.QueryBuilders.matchAllQuery;
@@ -42,17 +44,21 @@ public class BackendCleanup {
   private static final String[] INSPECTION_TABLES = {
     "authors", "duplications_index", "events", "issues", "issue_changes", "manual_measures",
     "notifications", "project_links", "project_measures", "projects", "resource_index",
-    "snapshots", "file_sources"
+    "snapshots", "file_sources", "file_measures"
   };
   private static final String[] RESOURCE_RELATED_TABLES = {
     "group_roles", "user_roles", "properties"
   };
   private final EsClient esClient;
   private final MyBatis myBatis;
+  private final AuthorizationCache authorizationCache;
+  private final ReferenceDataCache referenceDataCache;
 
-  public BackendCleanup(EsClient esClient, MyBatis myBatis) {
+  public BackendCleanup(EsClient esClient, MyBatis myBatis, AuthorizationCache authorizationCache, ReferenceDataCache referenceDataCache) {
     this.esClient = esClient;
     this.myBatis = myBatis;
+    this.authorizationCache = authorizationCache;
+    this.referenceDataCache = referenceDataCache;
   }
 
   public void clearAll() {
@@ -78,6 +84,7 @@ public class BackendCleanup {
       DbUtils.closeQuietly(connection);
       MyBatis.closeQuietly(dbSession);
     }
+    invalidateCaches();
   }
 
   public void clearIndexes() {
@@ -128,6 +135,12 @@ public class BackendCleanup {
       DbUtils.closeQuietly(connection);
       MyBatis.closeQuietly(dbSession);
     }
+    invalidateCaches();
+  }
+
+  private void invalidateCaches() {
+    authorizationCache.invalidate();
+    referenceDataCache.invalidateAll();
   }
 
   private static void deleteWhereResourceIdNotNull(String tableName, Connection connection) {
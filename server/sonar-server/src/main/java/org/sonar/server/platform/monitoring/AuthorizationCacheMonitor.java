@@ -0,0 +1,72 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.monitoring;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.sonar.server.user.AuthorizationCache;
+
+/**
+ * Usage of the cache of project permissions
+ */
+public class AuthorizationCacheMonitor extends BaseMonitorMBean implements AuthorizationCacheMonitorMBean {
+
+  private final AuthorizationCache authorizationCache;
+
+  public AuthorizationCacheMonitor(AuthorizationCache authorizationCache) {
+    this.authorizationCache = authorizationCache;
+  }
+
+  @Override
+  public String name() {
+    return "AuthorizationCache";
+  }
+
+  @Override
+  public long getPermissionCacheSize() {
+    return authorizationCache.getPermissionSize();
+  }
+
+  @Override
+  public double getPermissionCacheHitRate() {
+    return authorizationCache.getPermissionStats().hitRate();
+  }
+
+  @Override
+  public long getComponentCacheSize() {
+    return authorizationCache.getComponentSize();
+  }
+
+  @Override
+  public double getComponentCacheHitRate() {
+    return authorizationCache.getComponentStats().hitRate();
+  }
+
+  @Override
+  public Map<String, Object> attributes() {
+    Map<String, Object> attributes = new LinkedHashMap<>();
+    attributes.put("Permission Cache Size", getPermissionCacheSize());
+    attributes.put("Permission Cache Hit Rate", getPermissionCacheHitRate());
+    attributes.put("Permission Cache Evictions", authorizationCache.getPermissionStats().evictionCount());
+    attributes.put("Component Cache Size", getComponentCacheSize());
+    attributes.put("Component Cache Hit Rate", getComponentCacheHitRate());
+    return attributes;
+  }
+}
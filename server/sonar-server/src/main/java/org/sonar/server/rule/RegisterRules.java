@@ -20,9 +20,10 @@
 package org.sonar.server.rule;
 
 import com.google.common.base.Function;
-import com.google.common.base.Optional;
+import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Maps;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -93,17 +94,19 @@ public class RegisterRules implements Startable {
     DbSession session = dbClient.openSession(false);
     try {
       Map<RuleKey, RuleDto> allRules = loadRules(session);
+      Map<Integer, RuleDto> rulesById = Maps.uniqueIndex(allRules.values(), RuleDto::getId);
+      ListMultimap<Integer, RuleParamDto> paramsByRuleId = loadRuleParams(session);
 
       RulesDefinition.Context context = defLoader.load();
       for (RulesDefinition.ExtendedRepository repoDef : getRepositories(context)) {
         if (languages.get(repoDef.language()) != null) {
           for (RulesDefinition.Rule ruleDef : repoDef.rules()) {
-            registerRule(ruleDef, allRules, session);
+            registerRule(ruleDef, allRules, paramsByRuleId, session);
           }
           session.commit();
         }
       }
-      List<RuleDto> activeRules = processRemainingDbRules(allRules.values(), session);
+      List<RuleDto> activeRules = processRemainingDbRules(allRules.values(), rulesById, session);
       List<ActiveRuleChange> changes = removeActiveRulesOnStillExistingRepositories(session, activeRules, context);
       session.commit();
       ruleIndexer.setEnabled(true).index();
@@ -120,7 +123,8 @@ public class RegisterRules implements Startable {
     // nothing
   }
 
-  private void registerRule(RulesDefinition.Rule ruleDef, Map<RuleKey, RuleDto> allRules, DbSession session) {
+  private void registerRule(RulesDefinition.Rule ruleDef, Map<RuleKey, RuleDto> allRules, ListMultimap<Integer, RuleParamDto> paramsByRuleId,
+    DbSession session) {
     RuleKey ruleKey = RuleKey.of(ruleDef.repository().key(), ruleDef.key());
 
     RuleDto rule = allRules.containsKey(ruleKey) ? allRules.remove(ruleKey) : createRuleDto(ruleDef, session);
@@ -142,7 +146,7 @@ public class RegisterRules implements Startable {
       update(session, rule);
     }
 
-    mergeParams(ruleDef, rule, session);
+    mergeParams(ruleDef, rule, paramsByRuleId.get(rule.getId()), session);
   }
 
   private Map<RuleKey, RuleDto> loadRules(DbSession session) {
@@ -153,6 +157,14 @@ public class RegisterRules implements Startable {
     return rules;
   }
 
+  private ListMultimap<Integer, RuleParamDto> loadRuleParams(DbSession session) {
+    ListMultimap<Integer, RuleParamDto> paramsByRuleId = ArrayListMultimap.create();
+    for (RuleParamDto param : dbClient.ruleDao().selectAllRuleParams(session)) {
+      paramsByRuleId.put(param.getRuleId(), param);
+    }
+    return paramsByRuleId;
+  }
+
   private List<RulesDefinition.ExtendedRepository> getRepositories(RulesDefinition.Context context) {
     List<RulesDefinition.ExtendedRepository> repositories = new ArrayList<>();
     for (RulesDefinition.Repository repoDef : context.repositories()) {
@@ -283,9 +295,10 @@ public class RegisterRules implements Startable {
     return changed;
   }
 
-  private void mergeParams(RulesDefinition.Rule ruleDef, RuleDto rule, DbSession session) {
-    List<RuleParamDto> paramDtos = dbClient.ruleDao().selectRuleParamsByRuleKey(session, rule.getKey());
+  private void mergeParams(RulesDefinition.Rule ruleDef, RuleDto rule, List<RuleParamDto> paramDtos, DbSession session) {
     Map<String, RuleParamDto> existingParamsByName = Maps.newHashMap();
+    // loaded only if a parameter with a default value is added
+    List<ActiveRuleDto> activeRules = null;
 
     for (RuleParamDto paramDto : paramDtos) {
       RulesDefinition.Param paramDef = ruleDef.param(paramDto.getName());
@@ -316,7 +329,10 @@ public class RegisterRules implements Startable {
         continue;
       }
       // Propagate the default value to existing active rule parameters
-      for (ActiveRuleDto activeRule : dbClient.activeRuleDao().selectByRuleId(session, rule.getId())) {
+      if (activeRules == null) {
+        activeRules = dbClient.activeRuleDao().selectByRuleId(session, rule.getId());
+      }
+      for (ActiveRuleDto activeRule : activeRules) {
         ActiveRuleParamDto activeParam = ActiveRuleParamDto.createFor(paramDto).setValue(param.defaultValue());
         dbClient.activeRuleDao().insertParam(session, activeRule, activeParam);
       }
@@ -357,7 +373,7 @@ public class RegisterRules implements Startable {
     return changed;
   }
 
-  private List<RuleDto> processRemainingDbRules(Collection<RuleDto> existingRules, DbSession session) {
+  private List<RuleDto> processRemainingDbRules(Collection<RuleDto> existingRules, Map<Integer, RuleDto> rulesById, DbSession session) {
     // custom rules check status of template, so they must be processed at the end
     List<RuleDto> customRules = newArrayList();
     List<RuleDto> removedRules = newArrayList();
@@ -373,9 +389,9 @@ public class RegisterRules implements Startable {
     for (RuleDto customRule : customRules) {
       Integer templateId = customRule.getTemplateId();
       checkNotNull(templateId, "Template id of the custom rule '%s' is null", customRule);
-      Optional<RuleDto> template = dbClient.ruleDao().selectById(templateId, session);
-      if (template.isPresent() && template.get().getStatus() != RuleStatus.REMOVED) {
-        if (updateCustomRuleFromTemplateRule(customRule, template.get())) {
+      RuleDto template = rulesById.get(templateId);
+      if (template != null && template.getStatus() != RuleStatus.REMOVED) {
+        if (updateCustomRuleFromTemplateRule(customRule, template)) {
           update(session, customRule);
         }
       } else {
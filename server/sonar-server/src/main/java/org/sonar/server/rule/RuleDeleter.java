@@ -28,6 +28,7 @@ import org.sonar.db.DbSession;
 import org.sonar.db.rule.RuleDto;
 import org.sonar.server.qualityprofile.RuleActivator;
 import org.sonar.server.rule.index.RuleIndexer;
+import org.sonar.server.util.cache.ReferenceDataCache;
 
 @ServerSide
 public class RuleDeleter {
@@ -36,12 +37,14 @@ public class RuleDeleter {
   private final RuleIndexer ruleIndexer;
   private final DbClient dbClient;
   private final RuleActivator ruleActivator;
+  private final ReferenceDataCache referenceDataCache;
 
-  public RuleDeleter(System2 system2, RuleIndexer ruleIndexer, DbClient dbClient, RuleActivator ruleActivator) {
+  public RuleDeleter(System2 system2, RuleIndexer ruleIndexer, DbClient dbClient, RuleActivator ruleActivator, ReferenceDataCache referenceDataCache) {
     this.system2 = system2;
     this.ruleIndexer = ruleIndexer;
     this.dbClient = dbClient;
     this.ruleActivator = ruleActivator;
+    this.referenceDataCache = referenceDataCache;
   }
 
   public void delete(RuleKey ruleKey) {
@@ -62,6 +65,7 @@ public class RuleDeleter {
       dbClient.ruleDao().update(dbSession, rule);
 
       dbSession.commit();
+      referenceDataCache.invalidateRules();
       ruleIndexer.index();
 
     } finally {
@@ -34,6 +34,7 @@ import org.sonar.db.rule.RuleDto;
 import org.sonar.server.exceptions.BadRequestException;
 import org.sonar.server.rule.index.RuleIndexer;
 import org.sonar.server.user.UserSession;
+import org.sonar.server.util.cache.ReferenceDataCache;
 
 /**
  * @deprecated to be dropped in 4.4
@@ -44,10 +45,12 @@ public class RuleOperations {
 
   private final RuleIndexer ruleIndexer;
   private final DbClient dbClient;
+  private final ReferenceDataCache referenceDataCache;
 
-  public RuleOperations(RuleIndexer ruleIndexer, DbClient dbClient) {
+  public RuleOperations(RuleIndexer ruleIndexer, DbClient dbClient, ReferenceDataCache referenceDataCache) {
     this.ruleIndexer = ruleIndexer;
     this.dbClient = dbClient;
+    this.referenceDataCache = referenceDataCache;
   }
 
   public void updateRule(RuleChange ruleChange, UserSession userSession) {
@@ -61,6 +64,7 @@ public class RuleOperations {
       if (needUpdate) {
         ruleIndexer.index();
         session.commit();
+        referenceDataCache.invalidateRules();
       }
     } catch (IllegalArgumentException e) {
       throw new BadRequestException(e.getMessage());
@@ -48,6 +48,7 @@ import org.sonar.db.rule.RuleDto;
 import org.sonar.db.rule.RuleParamDto;
 import org.sonar.server.rule.index.RuleIndexer;
 import org.sonar.server.user.UserSession;
+import org.sonar.server.util.cache.ReferenceDataCache;
 
 import static com.google.common.collect.FluentIterable.from;
 import static com.google.common.collect.Lists.newArrayList;
@@ -59,11 +60,13 @@ public class RuleUpdater {
   private final DbClient dbClient;
   private final RuleIndexer ruleIndexer;
   private final System2 system;
+  private final ReferenceDataCache referenceDataCache;
 
-  public RuleUpdater(DbClient dbClient, RuleIndexer ruleIndexer, System2 system) {
+  public RuleUpdater(DbClient dbClient, RuleIndexer ruleIndexer, System2 system, ReferenceDataCache referenceDataCache) {
     this.dbClient = dbClient;
     this.ruleIndexer = ruleIndexer;
     this.system = system;
+    this.referenceDataCache = referenceDataCache;
   }
 
   /**
@@ -96,6 +99,7 @@ public class RuleUpdater {
     update(dbSession, context.rule);
     updateParameters(dbSession, update, context);
     dbSession.commit();
+    referenceDataCache.invalidateRules();
     ruleIndexer.setEnabled(true).index();
     return true;
   }
@@ -29,6 +29,9 @@ import org.sonarqube.ws.MediaTypes;
 import org.sonarqube.ws.Rules.ListResponse;
 
 import static com.google.common.base.Strings.nullToEmpty;
+import static java.net.HttpURLConnection.HTTP_NOT_MODIFIED;
+import static org.sonar.server.ws.WsUtils.PARAM_FINGERPRINT;
+import static org.sonar.server.ws.WsUtils.fingerprint;
 
 public class ListAction implements RulesWsAction {
 
@@ -46,7 +49,10 @@ public class ListAction implements RulesWsAction {
       .setSince("5.2")
       .setInternal(true)
       .setResponseExample(getClass().getResource("list-example.txt"))
-      .setHandler(this);
+      .setHandler(this)
+      .createParam(PARAM_FINGERPRINT)
+      .setDescription("MD5 of the response cached by the client. If the response is unchanged, only the HTTP status 304 is returned.")
+      .setSince("6.1");
   }
 
   @Override
@@ -70,8 +76,14 @@ public class ListAction implements RulesWsAction {
     }
 
     // JSON response is voluntarily not supported. This WS is for internal use.
+    ListResponse listResponse = listResponseBuilder.build();
+    String fingerprint = wsRequest.param(PARAM_FINGERPRINT);
+    if (fingerprint != null && fingerprint.equals(fingerprint(listResponse))) {
+      wsResponse.stream().setStatus(HTTP_NOT_MODIFIED);
+      return;
+    }
     wsResponse.stream().setMediaType(MediaTypes.PROTOBUF);
-    listResponseBuilder.build().writeTo(wsResponse.stream().output());
+    listResponse.writeTo(wsResponse.stream().output());
   }
 
 }
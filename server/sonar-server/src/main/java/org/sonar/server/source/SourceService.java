@@ -24,7 +24,12 @@ import com.google.common.base.Functions;
 import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Predicate;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.FluentIterable;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
@@ -33,9 +38,25 @@ import org.sonar.db.source.FileSourceDto;
 
 public class SourceService {
 
+  /**
+   * Maximum size of the cache of decoded sources, in bytes of serialized {@link DbFileSources.Data}
+   */
+  private static final long CACHE_MAX_WEIGHT = 32L * 1024 * 1024;
+
   private final DbClient dbClient;
   private final HtmlSourceDecorator htmlDecorator;
 
+  // files viewed recently. Their source is cached when they are viewed again.
+  private final Cache<String, Boolean> viewedFileUuids = CacheBuilder.newBuilder()
+    .maximumSize(10_000)
+    .expireAfterWrite(10, TimeUnit.MINUTES)
+    .build();
+  private final Cache<String, CachedSource> sourcesByFileUuid = CacheBuilder.newBuilder()
+    .maximumWeight(CACHE_MAX_WEIGHT)
+    .weigher((String fileUuid, CachedSource source) -> source.weight)
+    .expireAfterAccess(1, TimeUnit.HOURS)
+    .build();
+
   public SourceService(DbClient dbClient, HtmlSourceDecorator htmlDecorator) {
     this.dbClient = dbClient;
     this.htmlDecorator = htmlDecorator;
@@ -65,15 +86,49 @@ public class SourceService {
   private <E> Optional<Iterable<E>> getLines(DbSession dbSession, String fileUuid, int from, int toInclusive, Function<DbFileSources.Line, E> function) {
     verifyLine(from);
     Preconditions.checkArgument(toInclusive >= from, String.format("Line number must greater than or equal to %d, got %d", from, toInclusive));
+    List<DbFileSources.Line> cachedLines = getCachedLines(dbSession, fileUuid);
+    if (cachedLines != null) {
+      return Optional.of(filterLines(cachedLines, from, toInclusive, function));
+    }
     FileSourceDto dto = dbClient.fileSourceDao().selectSourceByFileUuid(dbSession, fileUuid);
     if (dto == null) {
       return Optional.absent();
     }
+    if (viewedFileUuids.getIfPresent(fileUuid) == null) {
+      // first view of the file. Only the requested lines are decoded.
+      viewedFileUuids.put(fileUuid, Boolean.TRUE);
+      return Optional.of(FluentIterable.from(dto.getSourceLines(from, toInclusive)).transform(function));
+    }
     DbFileSources.Data data = dto.getSourceData();
-    return Optional.of(FluentIterable.from(data.getLinesList())
+    if (dto.getDataHash() != null) {
+      sourcesByFileUuid.put(fileUuid, new CachedSource(dto.getDataHash(), data));
+    }
+    return Optional.of(filterLines(data.getLinesList(), from, toInclusive, function));
+  }
+
+  /**
+   * Decoded lines of the file if they are cached and are still up-to-date, else {@code null}
+   */
+  @CheckForNull
+  private List<DbFileSources.Line> getCachedLines(DbSession dbSession, String fileUuid) {
+    CachedSource cachedSource = sourcesByFileUuid.getIfPresent(fileUuid);
+    if (cachedSource == null) {
+      return null;
+    }
+    String dataHash = dbClient.fileSourceDao().selectSourceDataHashByFileUuid(dbSession, fileUuid);
+    if (cachedSource.dataHash.equals(dataHash)) {
+      return cachedSource.lines;
+    }
+    // file has been analyzed again or deleted since it has been cached
+    sourcesByFileUuid.invalidate(fileUuid);
+    return null;
+  }
+
+  private static <E> Iterable<E> filterLines(List<DbFileSources.Line> lines, int from, int toInclusive, Function<DbFileSources.Line, E> function) {
+    return FluentIterable.from(lines)
       .filter(new IsGreaterOrEqualThanLine(from))
       .limit(toInclusive - from + 1)
-      .transform(function));
+      .transform(function);
   }
 
   private static void verifyLine(int line) {
@@ -84,6 +139,18 @@ public class SourceService {
     return line -> htmlDecorator.getDecoratedSourceAsHtml(line.getSource(), line.getHighlighting(), line.getSymbols());
   }
 
+  private static class CachedSource {
+    private final String dataHash;
+    private final List<DbFileSources.Line> lines;
+    private final int weight;
+
+    private CachedSource(String dataHash, DbFileSources.Data data) {
+      this.dataHash = dataHash;
+      this.lines = data.getLinesList();
+      this.weight = data.getSerializedSize();
+    }
+  }
+
   private enum LineToRaw implements Function<DbFileSources.Line, String> {
     INSTANCE;
     @Override
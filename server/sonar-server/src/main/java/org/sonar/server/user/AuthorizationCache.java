@@ -0,0 +1,221 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.user;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonar.api.ce.ComputeEngineSide;
+import org.sonar.api.server.ServerSide;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.component.ResourceDto;
+
+/**
+ * Server-wide cache of the root projects on which users have permissions, and of the root project
+ * of components. It is shared by all the {@link ServerUserSession}s, so that the authorized projects
+ * of a user are not loaded on each HTTP request.
+ * <p/>
+ * It must be {@link #invalidate() invalidated} when permissions, group memberships or components change.
+ * As changes made by the Compute Engine are not notified to the web server, entries also expire
+ * a short time after being loaded.
+ */
+@ServerSide
+@ComputeEngineSide
+public class AuthorizationCache {
+
+  /**
+   * Maximum size of the cache of authorized projects, in bytes of project ids
+   */
+  private static final long CACHE_MAX_WEIGHT = 32L * 1024 * 1024;
+  private static final int COMPONENT_CACHE_MAX_SIZE = 100_000;
+  private static final long EXPIRATION_MINUTES = 1L;
+
+  private final DbClient dbClient;
+
+  // sorted ids of authorized root projects, by user and permission. Ids are sparse, so they are not
+  // stored in a bitset indexed by id.
+  private final Cache<PermissionKey, long[]> projectIdsByPermission = CacheBuilder.newBuilder()
+    .maximumWeight(CACHE_MAX_WEIGHT)
+    .weigher((PermissionKey key, long[] projectIds) -> 1 + Long.BYTES * projectIds.length)
+    .expireAfterWrite(EXPIRATION_MINUTES, TimeUnit.MINUTES)
+    .recordStats()
+    .build();
+  private final Cache<String, Long> rootProjectIdByComponentKey = newComponentCache();
+  private final Cache<String, Long> rootProjectIdByComponentUuid = newComponentCache();
+
+  // incremented on each invalidation, so that values loaded concurrently with an invalidation are not cached
+  private final Object lock = new Object();
+  private long generation = 0L;
+
+  public AuthorizationCache(DbClient dbClient) {
+    this.dbClient = dbClient;
+  }
+
+  private static Cache<String, Long> newComponentCache() {
+    return CacheBuilder.newBuilder()
+      .maximumSize(COMPONENT_CACHE_MAX_SIZE)
+      .expireAfterWrite(EXPIRATION_MINUTES, TimeUnit.MINUTES)
+      .recordStats()
+      .build();
+  }
+
+  /**
+   * Whether the user, or anonymous users if {@code userId} is {@code null}, have the permission on the
+   * root project, directly or through one of their groups.
+   */
+  public boolean hasProjectPermission(@Nullable Integer userId, String permission, long projectId) {
+    PermissionKey key = new PermissionKey(userId, permission);
+    long[] projectIds = projectIdsByPermission.getIfPresent(key);
+    if (projectIds == null) {
+      long loadGeneration = generation();
+      projectIds = loadAuthorizedProjectIds(userId, permission);
+      putIfNotInvalidated(projectIdsByPermission, key, projectIds, loadGeneration);
+    }
+    return Arrays.binarySearch(projectIds, projectId) >= 0;
+  }
+
+  /**
+   * Id of the root project of the component, or {@code null} if the component does not exist
+   */
+  @CheckForNull
+  public Long getRootProjectIdByComponentKey(String componentKey) {
+    Long projectId = rootProjectIdByComponentKey.getIfPresent(componentKey);
+    if (projectId == null) {
+      long loadGeneration = generation();
+      ResourceDto project = dbClient.resourceDao().getRootProjectByComponentKey(componentKey);
+      if (project == null) {
+        return null;
+      }
+      projectId = project.getId();
+      putIfNotInvalidated(rootProjectIdByComponentKey, componentKey, projectId, loadGeneration);
+    }
+    return projectId;
+  }
+
+  /**
+   * Id of the root project of the component, or {@code null} if the component or its project do not exist
+   */
+  @CheckForNull
+  public Long getRootProjectIdByComponentUuid(String componentUuid) {
+    Long projectId = rootProjectIdByComponentUuid.getIfPresent(componentUuid);
+    if (projectId == null) {
+      long loadGeneration = generation();
+      ResourceDto component = dbClient.resourceDao().selectResource(componentUuid);
+      if (component == null) {
+        return null;
+      }
+      ResourceDto project = component.getUuid().equals(component.getProjectUuid()) ? component : dbClient.resourceDao().selectResource(component.getProjectUuid());
+      if (project == null) {
+        return null;
+      }
+      projectId = project.getId();
+      putIfNotInvalidated(rootProjectIdByComponentUuid, componentUuid, projectId, loadGeneration);
+    }
+    return projectId;
+  }
+
+  /**
+   * Drops all the cached entries. Must be called when permissions, group memberships or component keys are changed,
+   * and when components are deleted.
+   */
+  public void invalidate() {
+    synchronized (lock) {
+      generation++;
+      projectIdsByPermission.invalidateAll();
+      rootProjectIdByComponentKey.invalidateAll();
+      rootProjectIdByComponentUuid.invalidateAll();
+    }
+  }
+
+  public CacheStats getPermissionStats() {
+    return projectIdsByPermission.stats();
+  }
+
+  public long getPermissionSize() {
+    return projectIdsByPermission.size();
+  }
+
+  public CacheStats getComponentStats() {
+    return rootProjectIdByComponentKey.stats().plus(rootProjectIdByComponentUuid.stats());
+  }
+
+  public long getComponentSize() {
+    return rootProjectIdByComponentKey.size() + rootProjectIdByComponentUuid.size();
+  }
+
+  private long[] loadAuthorizedProjectIds(@Nullable Integer userId, String permission) {
+    DbSession dbSession = dbClient.openSession(false);
+    try {
+      List<Long> projectIds = dbClient.authorizationDao().selectAuthorizedRootProjectsIds(dbSession, userId, permission);
+      return projectIds.stream().mapToLong(Long::longValue).sorted().toArray();
+    } finally {
+      dbClient.closeSession(dbSession);
+    }
+  }
+
+  private long generation() {
+    synchronized (lock) {
+      return generation;
+    }
+  }
+
+  private <K, V> void putIfNotInvalidated(Cache<K, V> cache, K key, V value, long loadGeneration) {
+    synchronized (lock) {
+      if (generation == loadGeneration) {
+        cache.put(key, value);
+      }
+    }
+  }
+
+  private static final class PermissionKey {
+    @Nullable
+    private final Integer userId;
+    private final String permission;
+
+    private PermissionKey(@Nullable Integer userId, String permission) {
+      this.userId = userId;
+      this.permission = permission;
+    }
+
+    @Override
+    public boolean equals(@Nullable Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      PermissionKey that = (PermissionKey) o;
+      return Objects.equals(userId, that.userId) && permission.equals(that.permission);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(userId, permission);
+    }
+  }
+}
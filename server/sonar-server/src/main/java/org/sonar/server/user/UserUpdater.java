@@ -46,6 +46,7 @@ import org.sonar.server.exceptions.NotFoundException;
 import org.sonar.server.exceptions.ServerException;
 import org.sonar.server.user.index.UserIndexer;
 import org.sonar.server.util.Validation;
+import org.sonar.server.util.cache.ReferenceDataCache;
 
 import static com.google.common.base.Strings.isNullOrEmpty;
 import static com.google.common.collect.Lists.newArrayList;
@@ -71,13 +72,18 @@ public class UserUpdater {
   private final DbClient dbClient;
   private final UserIndexer userIndexer;
   private final System2 system2;
+  private final AuthorizationCache authorizationCache;
+  private final ReferenceDataCache referenceDataCache;
 
-  public UserUpdater(NewUserNotifier newUserNotifier, Settings settings, DbClient dbClient, UserIndexer userIndexer, System2 system2) {
+  public UserUpdater(NewUserNotifier newUserNotifier, Settings settings, DbClient dbClient, UserIndexer userIndexer, System2 system2,
+    AuthorizationCache authorizationCache, ReferenceDataCache referenceDataCache) {
     this.newUserNotifier = newUserNotifier;
     this.settings = settings;
     this.dbClient = dbClient;
     this.userIndexer = userIndexer;
     this.system2 = system2;
+    this.authorizationCache = authorizationCache;
+    this.referenceDataCache = referenceDataCache;
   }
 
   /**
@@ -104,6 +110,8 @@ public class UserUpdater {
       isUserReactivated = reactivateUser(dbSession, existingUser, login, newUser);
     }
     dbSession.commit();
+    authorizationCache.invalidate();
+    referenceDataCache.invalidateUsers();
     notifyNewUser(userDto.getLogin(), userDto.getName(), newUser.email());
     userIndexer.index();
     return isUserReactivated;
@@ -148,6 +156,7 @@ public class UserUpdater {
     updateUserDto(dbSession, updateUser, user);
     updateUser(dbSession, user);
     dbSession.commit();
+    referenceDataCache.invalidateUsers();
     notifyNewUser(user.getLogin(), user.getName(), user.getEmail());
     userIndexer.index();
   }
@@ -160,6 +169,8 @@ public class UserUpdater {
     } finally {
       dbClient.closeSession(dbSession);
     }
+    authorizationCache.invalidate();
+    referenceDataCache.invalidateUsers();
     userIndexer.index();
   }
 
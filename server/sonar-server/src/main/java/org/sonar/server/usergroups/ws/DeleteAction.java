@@ -30,6 +30,7 @@ import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.MyBatis;
 import org.sonar.db.user.GroupDto;
+import org.sonar.server.user.AuthorizationCache;
 import org.sonar.server.user.UserSession;
 
 import static com.google.common.base.Preconditions.checkArgument;
@@ -43,12 +44,14 @@ public class DeleteAction implements UserGroupsWsAction {
   private final UserGroupFinder userGroupFinder;
   private final UserSession userSession;
   private final Settings settings;
+  private final AuthorizationCache authorizationCache;
 
-  public DeleteAction(DbClient dbClient, UserGroupFinder userGroupFinder, UserSession userSession, Settings settings) {
+  public DeleteAction(DbClient dbClient, UserGroupFinder userGroupFinder, UserSession userSession, Settings settings, AuthorizationCache authorizationCache) {
     this.dbClient = dbClient;
     this.userGroupFinder = userGroupFinder;
     this.userSession = userSession;
     this.settings = settings;
+    this.authorizationCache = authorizationCache;
   }
 
   @Override
@@ -83,6 +86,7 @@ public class DeleteAction implements UserGroupsWsAction {
       dbClient.groupDao().deleteById(dbSession, groupId);
 
       dbSession.commit();
+      authorizationCache.invalidate();
       response.noContent();
     } finally {
       MyBatis.closeQuietly(dbSession);
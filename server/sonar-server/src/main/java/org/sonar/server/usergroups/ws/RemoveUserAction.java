@@ -31,6 +31,7 @@ import org.sonar.db.DbSession;
 import org.sonar.db.user.GroupDto;
 import org.sonar.db.user.UserDto;
 import org.sonar.db.user.UserGroupDto;
+import org.sonar.server.user.AuthorizationCache;
 import org.sonar.server.user.UserSession;
 
 import static java.lang.String.format;
@@ -47,10 +48,12 @@ public class RemoveUserAction implements UserGroupsWsAction {
 
   private final DbClient dbClient;
   private final UserSession userSession;
+  private final AuthorizationCache authorizationCache;
 
-  public RemoveUserAction(DbClient dbClient, UserSession userSession) {
+  public RemoveUserAction(DbClient dbClient, UserSession userSession, AuthorizationCache authorizationCache) {
     this.dbClient = dbClient;
     this.userSession = userSession;
+    this.authorizationCache = authorizationCache;
   }
 
   @Override
@@ -82,6 +85,7 @@ public class RemoveUserAction implements UserGroupsWsAction {
       UserGroupDto userGroup = new UserGroupDto().setGroupId(group.getId()).setUserId(user.getId());
       dbClient.userGroupDao().delete(dbSession, userGroup);
       dbSession.commit();
+      authorizationCache.invalidate();
       response.noContent();
     } finally {
       dbClient.closeSession(dbSession);
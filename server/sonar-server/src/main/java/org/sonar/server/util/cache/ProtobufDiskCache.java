@@ -0,0 +1,164 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.util.cache;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.Message;
+import com.google.protobuf.Parser;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import javax.annotation.Nullable;
+import org.sonar.core.util.ByteBufferInputStream;
+import org.sonar.core.util.CloseableIterator;
+import org.sonar.core.util.FileUtils;
+
+/**
+ * Serialize and deserialize objects on disk as length-delimited protobuf messages. No search capabilities,
+ * only traversal (full scan).
+ * <p>
+ * Compared to {@link DiskCache}, there is no Java serialization involved: the encoding of objects is defined by
+ * {@link #toProtobuf(Object)} and {@link #fromProtobuf(Message)}. Writes go through a buffered file channel and, when
+ * the file is smaller than 2GB, traversal reads a memory-mapped buffer. The mapping is released when the iterator
+ * is closed.
+ */
+public abstract class ProtobufDiskCache<O, M extends Message> {
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final File file;
+
+  protected ProtobufDiskCache(File file) {
+    this.file = file;
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      // only creates or truncates the file
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to write into file: " + file, e);
+    }
+  }
+
+  protected abstract M toProtobuf(O object);
+
+  protected abstract O fromProtobuf(M message);
+
+  protected abstract Parser<M> parser();
+
+  public DiskAppender newAppender() {
+    return new DiskAppender();
+  }
+
+  public CloseableIterator<O> traverse() {
+    try {
+      FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+      long size = channel.size();
+      if (size <= Integer.MAX_VALUE) {
+        MappedByteBuffer buffer;
+        try {
+          buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0L, size);
+        } finally {
+          // the mapping stays valid after the channel is closed
+          channel.close();
+        }
+        return new MessageIterator(new ByteBufferInputStream(buffer), buffer);
+      }
+      return new MessageIterator(Channels.newInputStream(channel), null);
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to traverse file: " + file, e);
+    }
+  }
+
+  public class DiskAppender implements AutoCloseable {
+    private final FileChannel channel;
+    private final CodedOutputStream output;
+
+    private DiskAppender() {
+      try {
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        this.output = CodedOutputStream.newInstance(Channels.newOutputStream(channel), BUFFER_SIZE);
+      } catch (IOException e) {
+        throw new IllegalStateException("Fail to open file " + file, e);
+      }
+    }
+
+    public DiskAppender append(O object) {
+      M message = toProtobuf(object);
+      try {
+        output.writeUInt32NoTag(message.getSerializedSize());
+        message.writeTo(output);
+        return this;
+      } catch (IOException e) {
+        throw new IllegalStateException("Fail to write into file " + file, e);
+      }
+    }
+
+    @Override
+    public void close() {
+      try {
+        output.flush();
+        channel.close();
+      } catch (IOException e) {
+        throw new IllegalStateException("Fail to close file " + file, e);
+      }
+    }
+  }
+
+  private class MessageIterator extends CloseableIterator<O> {
+    private final InputStream stream;
+    // released on close, so that the file can be deleted on Windows
+    @Nullable
+    private final MappedByteBuffer mapped;
+    private final CodedInputStream input;
+
+    private MessageIterator(InputStream stream, @Nullable MappedByteBuffer mapped) {
+      this.stream = stream;
+      this.mapped = mapped;
+      this.input = CodedInputStream.newInstance(stream);
+      this.input.setSizeLimit(Integer.MAX_VALUE);
+    }
+
+    @Override
+    protected O doNext() {
+      try {
+        if (input.isAtEnd()) {
+          return null;
+        }
+        // size limit applies to the bytes read since last reset
+        input.resetSizeCounter();
+        int limit = input.pushLimit(input.readRawVarint32());
+        M message = parser().parseFrom(input);
+        input.popLimit(limit);
+        return fromProtobuf(message);
+      } catch (IOException e) {
+        throw new IllegalStateException("Fail to read file " + file, e);
+      }
+    }
+
+    @Override
+    protected void doClose() throws Exception {
+      stream.close();
+      FileUtils.unmapQuietly(mapped);
+    }
+  }
+}
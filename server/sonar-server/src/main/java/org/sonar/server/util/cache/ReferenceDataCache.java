@@ -0,0 +1,231 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.util.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import org.sonar.api.ce.ComputeEngineSide;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.api.server.ServerSide;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.component.ComponentDto;
+import org.sonar.db.metric.MetricDto;
+import org.sonar.db.rule.RuleDto;
+import org.sonar.db.user.UserDto;
+
+/**
+ * Server-wide cache of the reference data loaded by web services to format their responses: rules, metrics,
+ * users and components.
+ * <p/>
+ * Each kind of data has its own version, which is incremented by the services that change it through
+ * {@link #invalidateRules()}, {@link #invalidateMetrics()}, {@link #invalidateUsers()} and {@link #invalidateComponents()}.
+ * Components are also updated by the Compute Engine, which does not notify the web server, so they
+ * expire shortly after being loaded.
+ * <p/>
+ * Returned DTOs are shared between requests and must not be modified.
+ */
+@ServerSide
+@ComputeEngineSide
+public class ReferenceDataCache {
+
+  private static final int MAX_RULES = 50_000;
+  private static final int MAX_USERS = 50_000;
+  private static final int MAX_COMPONENTS = 100_000;
+  private static final long RULES_EXPIRATION_MINUTES = 60L;
+  private static final long USERS_EXPIRATION_MINUTES = 10L;
+  private static final long COMPONENTS_EXPIRATION_MINUTES = 1L;
+
+  private final DbClient dbClient;
+  private final Section<RuleKey, RuleDto> rules = new Section<>(MAX_RULES, RULES_EXPIRATION_MINUTES);
+  private final Section<String, UserDto> users = new Section<>(MAX_USERS, USERS_EXPIRATION_MINUTES);
+  private final Section<String, ComponentDto> components = new Section<>(MAX_COMPONENTS, COMPONENTS_EXPIRATION_MINUTES);
+
+  // all the metrics are loaded at once as they are few
+  private final Object metricsLock = new Object();
+  private long metricsVersion = 0L;
+  private Metrics metrics = null;
+
+  public ReferenceDataCache(DbClient dbClient) {
+    this.dbClient = dbClient;
+  }
+
+  /**
+   * Same as {@link org.sonar.db.rule.RuleDao#selectByKeys(DbSession, List)}
+   */
+  public List<RuleDto> selectRulesByKeys(DbSession dbSession, Collection<RuleKey> keys) {
+    return rules.getAll(keys, missingKeys -> dbClient.ruleDao().selectByKeys(dbSession, missingKeys), RuleDto::getKey);
+  }
+
+  /**
+   * Same as {@link org.sonar.db.user.UserDao#selectByLogins(DbSession, Collection)}
+   */
+  public List<UserDto> selectUsersByLogins(DbSession dbSession, Collection<String> logins) {
+    return users.getAll(logins, missingLogins -> dbClient.userDao().selectByLogins(dbSession, missingLogins), UserDto::getLogin);
+  }
+
+  /**
+   * Same as {@link org.sonar.db.component.ComponentDao#selectByUuids(DbSession, Collection)}
+   */
+  public List<ComponentDto> selectComponentsByUuids(DbSession dbSession, Collection<String> uuids) {
+    return components.getAll(uuids, missingUuids -> dbClient.componentDao().selectByUuids(dbSession, missingUuids), ComponentDto::uuid);
+  }
+
+  /**
+   * Same as {@link org.sonar.db.metric.MetricDao#selectByKeys(DbSession, List)}
+   */
+  public List<MetricDto> selectMetricsByKeys(DbSession dbSession, Collection<String> keys) {
+    return getMetrics(dbSession).select(keys, m -> m.byKey);
+  }
+
+  /**
+   * Same as {@link org.sonar.db.metric.MetricDao#selectByIds(DbSession, Set)}
+   */
+  public List<MetricDto> selectMetricsByIds(DbSession dbSession, Collection<Integer> ids) {
+    return getMetrics(dbSession).select(ids, m -> m.byId);
+  }
+
+  public void invalidateRules() {
+    rules.invalidate();
+  }
+
+  public void invalidateUsers() {
+    users.invalidate();
+  }
+
+  public void invalidateComponents() {
+    components.invalidate();
+  }
+
+  public void invalidateMetrics() {
+    synchronized (metricsLock) {
+      metricsVersion++;
+      metrics = null;
+    }
+  }
+
+  public void invalidateAll() {
+    invalidateRules();
+    invalidateMetrics();
+    invalidateUsers();
+    invalidateComponents();
+  }
+
+  private Metrics getMetrics(DbSession dbSession) {
+    long loadVersion;
+    synchronized (metricsLock) {
+      if (metrics != null) {
+        return metrics;
+      }
+      loadVersion = metricsVersion;
+    }
+    Metrics loaded = new Metrics(dbClient.metricDao().selectAll(dbSession));
+    synchronized (metricsLock) {
+      if (metricsVersion == loadVersion) {
+        metrics = loaded;
+      }
+    }
+    return loaded;
+  }
+
+  private static final class Metrics {
+    private final Map<String, MetricDto> byKey = new HashMap<>();
+    private final Map<Integer, MetricDto> byId = new HashMap<>();
+
+    private Metrics(List<MetricDto> metrics) {
+      for (MetricDto metric : metrics) {
+        byKey.put(metric.getKey(), metric);
+        byId.put(metric.getId(), metric);
+      }
+    }
+
+    private <K> List<MetricDto> select(Collection<K> keys, Function<Metrics, Map<K, MetricDto>> index) {
+      Map<K, MetricDto> metricsByKey = index.apply(this);
+      List<MetricDto> result = new ArrayList<>();
+      for (K key : new LinkedHashSet<>(keys)) {
+        MetricDto metric = metricsByKey.get(key);
+        if (metric != null) {
+          result.add(metric);
+        }
+      }
+      return result;
+    }
+  }
+
+  /**
+   * Values of a kind of data, by key. Keys that do not exist in database are not cached.
+   */
+  private static final class Section<K, V> {
+    private final Cache<K, V> cache;
+    private long version = 0L;
+
+    private Section(int maxSize, long expirationMinutes) {
+      this.cache = CacheBuilder.newBuilder()
+        .maximumSize(maxSize)
+        .expireAfterWrite(expirationMinutes, TimeUnit.MINUTES)
+        .build();
+    }
+
+    private List<V> getAll(Collection<K> keys, Function<List<K>, List<V>> loader, Function<V, K> keyFunction) {
+      Set<K> distinctKeys = new LinkedHashSet<>(keys);
+      Map<K, V> present = cache.getAllPresent(distinctKeys);
+      List<V> result = new ArrayList<>(present.values());
+      List<K> missingKeys = new ArrayList<>();
+      for (K key : distinctKeys) {
+        if (!present.containsKey(key)) {
+          missingKeys.add(key);
+        }
+      }
+      if (!missingKeys.isEmpty()) {
+        long loadVersion = version();
+        List<V> loaded = loader.apply(missingKeys);
+        putAll(loaded, keyFunction, loadVersion);
+        result.addAll(loaded);
+      }
+      return result;
+    }
+
+    private synchronized long version() {
+      return version;
+    }
+
+    private synchronized void putAll(List<V> values, Function<V, K> keyFunction, long loadVersion) {
+      if (version == loadVersion) {
+        for (V value : values) {
+          cache.put(keyFunction.apply(value), value);
+        }
+      }
+    }
+
+    private synchronized void invalidate() {
+      version++;
+      cache.invalidateAll();
+    }
+  }
+}
@@ -0,0 +1,161 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.util.cache;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import javax.annotation.CheckForNull;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Binary values indexed by a string key. Values are kept in memory until a given amount of bytes is reached, then
+ * they are appended to a file. Only the index (key, offset and length of value) of spilled values stays in memory.
+ * <p>
+ * Values can be replaced but not removed. When a value is replaced, the bytes of the previous value
+ * are not reclaimed.
+ */
+public class SpillingByteStore implements Closeable {
+
+  private final File file;
+  private final long maxMemoryBytes;
+  private final Map<String, byte[]> inMemory = new HashMap<>();
+  private final Map<String, Location> onDisk = new HashMap<>();
+  private long memoryBytes = 0L;
+  private long fileSize = 0L;
+  private FileChannel channel;
+
+  public SpillingByteStore(File file, long maxMemoryBytes) {
+    checkArgument(maxMemoryBytes >= 0, "Max memory must be positive (got %s)", maxMemoryBytes);
+    this.file = file;
+    this.maxMemoryBytes = maxMemoryBytes;
+  }
+
+  public synchronized void put(String key, byte[] value) {
+    byte[] previous = inMemory.remove(key);
+    if (previous != null) {
+      memoryBytes -= previous.length;
+    }
+    onDisk.remove(key);
+    if (memoryBytes + value.length <= maxMemoryBytes) {
+      inMemory.put(key, value);
+      memoryBytes += value.length;
+    } else {
+      onDisk.put(key, write(value));
+    }
+  }
+
+  @CheckForNull
+  public synchronized byte[] get(String key) {
+    byte[] value = inMemory.get(key);
+    if (value != null) {
+      return value;
+    }
+    Location location = onDisk.get(key);
+    if (location == null) {
+      return null;
+    }
+    return read(location);
+  }
+
+  public synchronized boolean contains(String key) {
+    return inMemory.containsKey(key) || onDisk.containsKey(key);
+  }
+
+  public synchronized int size() {
+    return inMemory.size() + onDisk.size();
+  }
+
+  /**
+   * Number of values stored in the file
+   */
+  public synchronized int spilledSize() {
+    return onDisk.size();
+  }
+
+  private Location write(byte[] value) {
+    try {
+      if (channel == null) {
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE,
+          StandardOpenOption.TRUNCATE_EXISTING);
+      }
+      Location location = new Location(fileSize, value.length);
+      ByteBuffer buffer = ByteBuffer.wrap(value);
+      long position = fileSize;
+      while (buffer.hasRemaining()) {
+        position += channel.write(buffer, position);
+      }
+      fileSize = position;
+      return location;
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to write into file " + file, e);
+    }
+  }
+
+  private byte[] read(Location location) {
+    try {
+      ByteBuffer buffer = ByteBuffer.allocate(location.length);
+      long position = location.offset;
+      while (buffer.hasRemaining()) {
+        int read = channel.read(buffer, position);
+        if (read < 0) {
+          throw new IllegalStateException("Unexpected end of file " + file);
+        }
+        position += read;
+      }
+      return buffer.array();
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to read file " + file, e);
+    }
+  }
+
+  @Override
+  public synchronized void close() {
+    inMemory.clear();
+    onDisk.clear();
+    memoryBytes = 0L;
+    fileSize = 0L;
+    if (channel != null) {
+      try {
+        channel.close();
+      } catch (IOException e) {
+        throw new IllegalStateException("Fail to close file " + file, e);
+      } finally {
+        channel = null;
+      }
+    }
+  }
+
+  private static final class Location {
+    private final long offset;
+    private final int length;
+
+    private Location(long offset, int length) {
+      this.offset = offset;
+      this.length = length;
+    }
+  }
+}
@@ -26,6 +26,7 @@ import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.nio.charset.StandardCharsets;
 import javax.annotation.Nullable;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.io.IOUtils;
 import org.sonar.api.server.ws.Request;
 import org.sonar.api.server.ws.Response;
@@ -41,6 +42,14 @@ import org.sonarqube.ws.MessageFormatter;
 import static java.lang.String.format;
 
 public class WsUtils {
+
+  /**
+   * Optional parameter of the internal web services which responses are cached by scanners. Its value
+   * is the MD5 of the protobuf response already cached by the client.
+   * @see #fingerprint(Message)
+   */
+  public static final String PARAM_FINGERPRINT = "fingerprint";
+
   private static final Logger LOG = Loggers.get(WsUtils.class);
 
   private WsUtils() {
@@ -67,6 +76,13 @@ public class WsUtils {
     }
   }
 
+  /**
+   * MD5 of the message serialized in protobuf format
+   */
+  public static String fingerprint(Message msg) {
+    return DigestUtils.md5Hex(msg.toByteArray());
+  }
+
   /**
    * @throws BadRequestException
    */
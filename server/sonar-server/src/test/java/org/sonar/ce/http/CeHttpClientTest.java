@@ -24,6 +24,7 @@ import java.io.IOException;
 import java.util.Optional;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.SocketPolicy;
 import okio.Buffer;
 import org.junit.Before;
 import org.junit.Rule;
@@ -40,6 +41,7 @@ import org.sonar.process.systeminfo.protobuf.ProtobufSystemInfo;
 
 import static java.lang.String.format;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
 import static org.sonar.test.ExceptionCauseMatcher.hasType;
 
 public class CeHttpClientTest {
@@ -134,6 +136,35 @@ public class CeHttpClientTest {
     underTest.changeLogLevel(LoggerLevel.INFO);
   }
 
+  @Test
+  public void notifyTaskSubmitted_does_not_fail_if_process_is_down() {
+    underTest.notifyTaskSubmitted();
+  }
+
+  @Test
+  public void notifyTaskSubmitted_posts_to_compute_engine() throws Exception {
+    server.enqueue(new MockResponse().setResponseCode(200));
+    setUpWithHttpUrl(ProcessId.COMPUTE_ENGINE);
+
+    underTest.notifyTaskSubmitted();
+
+    assertThat(server.takeRequest().getPath()).isEqualTo("/taskSubmitted");
+  }
+
+  @Test
+  public void notifyTaskSubmitted_fails_fast_if_compute_engine_does_not_answer() {
+    server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.NO_RESPONSE));
+    setUpWithHttpUrl(ProcessId.COMPUTE_ENGINE);
+
+    long start = System.currentTimeMillis();
+    try {
+      underTest.notifyTaskSubmitted();
+      fail("An IllegalStateException should have been raised");
+    } catch (IllegalStateException e) {
+      assertThat(System.currentTimeMillis() - start).isLessThan(5_000L);
+    }
+  }
+
   private void setUpWithHttpUrl(ProcessId processId) {
     try (DefaultProcessCommands processCommands = DefaultProcessCommands.secondary(ipcSharedDir, processId.getIpcIndex())) {
       processCommands.setUp();
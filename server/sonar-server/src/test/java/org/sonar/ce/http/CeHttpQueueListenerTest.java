@@ -0,0 +1,95 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.http;
+
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class CeHttpQueueListenerTest {
+
+  private CeHttpClient ceHttpClient = mock(CeHttpClient.class);
+  private CeHttpQueueListener underTest = new CeHttpQueueListener(ceHttpClient);
+
+  @After
+  public void tearDown() {
+    underTest.stop();
+  }
+
+  @Test
+  public void notify_compute_engine_without_blocking_submission() throws Exception {
+    CountDownLatch blockingCall = new CountDownLatch(1);
+    doAnswer(invocation -> blockingCall.await(10, TimeUnit.SECONDS)).when(ceHttpClient).notifyTaskSubmitted();
+
+    // returns although the Compute Engine does not answer
+    underTest.onSubmit(Collections.emptyList());
+
+    verify(ceHttpClient, timeout(5_000)).notifyTaskSubmitted();
+    blockingCall.countDown();
+  }
+
+  @Test
+  public void submissions_are_coalesced_while_a_notification_is_pending() throws Exception {
+    CountDownLatch callStarted = new CountDownLatch(1);
+    CountDownLatch blockingCall = new CountDownLatch(1);
+    doAnswer(invocation -> {
+      callStarted.countDown();
+      return blockingCall.await(10, TimeUnit.SECONDS);
+    }).when(ceHttpClient).notifyTaskSubmitted();
+
+    underTest.onSubmit(Collections.emptyList());
+    callStarted.await(5, TimeUnit.SECONDS);
+    for (int i = 0; i < 10; i++) {
+      underTest.onSubmit(Collections.emptyList());
+    }
+    blockingCall.countDown();
+
+    verify(ceHttpClient, timeout(5_000).times(2)).notifyTaskSubmitted();
+    Thread.sleep(100L);
+    verify(ceHttpClient, times(2)).notifyTaskSubmitted();
+  }
+
+  @Test
+  public void failure_of_notification_is_ignored() {
+    doThrow(new IllegalStateException("Compute Engine is down")).when(ceHttpClient).notifyTaskSubmitted();
+
+    underTest.onSubmit(Collections.emptyList());
+    verify(ceHttpClient, timeout(5_000)).notifyTaskSubmitted();
+
+    underTest.onSubmit(Collections.emptyList());
+    verify(ceHttpClient, timeout(5_000).times(2)).notifyTaskSubmitted();
+  }
+
+  @Test
+  public void submissions_are_ignored_once_stopped() {
+    underTest.stop();
+
+    underTest.onSubmit(Collections.emptyList());
+  }
+}
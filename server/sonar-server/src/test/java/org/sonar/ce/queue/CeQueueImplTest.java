@@ -27,6 +27,7 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.sonar.api.utils.System2;
 import org.sonar.api.utils.internal.TestSystem2;
+import org.sonar.ce.queue.report.DbReportStorage;
 import org.sonar.core.util.UuidFactory;
 import org.sonar.core.util.UuidFactoryImpl;
 import org.sonar.db.DbSession;
@@ -38,8 +39,12 @@ import org.sonar.db.component.ComponentDto;
 import org.sonar.db.component.ComponentTesting;
 
 import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
 
 public class CeQueueImplTest {
 
@@ -53,7 +58,9 @@ public class CeQueueImplTest {
   DbSession session = dbTester.getSession();
 
   UuidFactory uuidFactory = UuidFactoryImpl.INSTANCE;
-  CeQueue underTest = new CeQueueImpl(dbTester.getDbClient(), uuidFactory);
+  CeQueueListener listener = mock(CeQueueListener.class);
+  CeQueue underTest = new CeQueueImpl(dbTester.getDbClient(), uuidFactory, new DbReportStorage(dbTester.getDbClient()),
+    new CeQueueListener[] {listener});
 
   @Test
   public void submit_returns_task_populated_from_CeTaskSubmit_and_creates_CeQueue_row() {
@@ -83,6 +90,13 @@ public class CeQueueImplTest {
     verifyCeTask(taskSubmit, task, null);
   }
 
+  @Test
+  public void submit_notifies_listeners() {
+    CeTask task = underTest.submit(createTaskSubmit(CeTaskTypes.REPORT, "PROJECT_1", "rob"));
+
+    verify(listener).onSubmit(singletonList(task));
+  }
+
   @Test
   public void submit_fails_with_ISE_if_paused() {
     underTest.pauseSubmit();
@@ -90,7 +104,11 @@ public class CeQueueImplTest {
     expectedException.expect(IllegalStateException.class);
     expectedException.expectMessage("Compute Engine does not currently accept new tasks");
 
-    submit(CeTaskTypes.REPORT, "PROJECT_1");
+    try {
+      submit(CeTaskTypes.REPORT, "PROJECT_1");
+    } finally {
+      verifyZeroInteractions(listener);
+    }
   }
 
   @Test
@@ -107,6 +125,13 @@ public class CeQueueImplTest {
     verifyCeQueueDtoForTaskSubmit(taskSubmit2);
   }
 
+  @Test
+  public void massSubmit_notifies_listeners_once() {
+    List<CeTask> tasks = underTest.massSubmit(asList(createTaskSubmit(CeTaskTypes.REPORT, "PROJECT_1", "rob"), createTaskSubmit("some type")));
+
+    verify(listener).onSubmit(tasks);
+  }
+
   @Test
   public void massSubmit_populates_component_name_and_key_of_CeTask_if_component_exists() {
     ComponentDto componentDto1 = insertComponent(ComponentTesting.newProjectDto("PROJECT_1"));
@@ -0,0 +1,120 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.queue.report;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Optional;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.utils.System2;
+import org.sonar.api.utils.internal.TestSystem2;
+import org.sonar.db.DbTester;
+import org.sonar.db.ce.CeQueueDto;
+import org.sonar.db.ce.CeTaskTypes;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FileSystemReportStorageTest {
+
+  private static final long NOW = 1_450_000_000_000L;
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  @Rule
+  public DbTester dbTester = DbTester.create(System2.INSTANCE);
+
+  private System2 system2 = new TestSystem2().setNow(NOW);
+  private File dir;
+  private FileSystemReportStorage underTest;
+
+  @Before
+  public void setUp() throws IOException {
+    dir = new File(temp.newFolder(), "reports");
+    underTest = new FileSystemReportStorage(dir, dbTester.getDbClient(), system2);
+  }
+
+  @Test
+  public void create_directory() {
+    assertThat(dir).isDirectory();
+  }
+
+  @Test
+  public void store_and_open_report() throws IOException {
+    underTest.store("TASK_1", IOUtils.toInputStream("{binary}"));
+
+    assertThat(dir.list()).containsOnly("TASK_1.zip");
+    Optional<InputStream> report = underTest.open("TASK_1");
+    assertThat(report).isPresent();
+    try (InputStream input = report.get()) {
+      assertThat(IOUtils.toString(input)).isEqualTo("{binary}");
+    }
+  }
+
+  @Test
+  public void open_returns_empty_if_report_does_not_exist() {
+    assertThat(underTest.open("TASK_1")).isNotPresent();
+  }
+
+  @Test
+  public void delete_reports() {
+    underTest.store("TASK_1", IOUtils.toInputStream("{binary}"));
+    underTest.store("TASK_2", IOUtils.toInputStream("{binary}"));
+
+    underTest.delete(dbTester.getSession(), asList("TASK_1", "TASK_3"));
+
+    assertThat(underTest.open("TASK_1")).isNotPresent();
+    assertThat(dir.list()).containsOnly("TASK_2.zip");
+  }
+
+  @Test
+  public void deleteOrphans_deletes_reports_of_tasks_not_in_queue_and_old_temporary_files() throws IOException {
+    insertInQueue("TASK_1");
+    underTest.store("TASK_1", IOUtils.toInputStream("{binary}"));
+    underTest.store("TASK_2", IOUtils.toInputStream("{binary}"));
+    File oldTempFile = new File(dir, "TASK_3.tmp");
+    FileUtils.write(oldTempFile, "{binary}");
+    oldTempFile.setLastModified(NOW - 2 * 24 * 60 * 60 * 1000L);
+    File recentTempFile = new File(dir, "TASK_4.tmp");
+    FileUtils.write(recentTempFile, "{binary}");
+    recentTempFile.setLastModified(NOW);
+
+    underTest.deleteOrphans(dbTester.getSession());
+
+    assertThat(dir.list()).containsOnly("TASK_1.zip", "TASK_4.tmp");
+  }
+
+  private void insertInQueue(String taskUuid) {
+    CeQueueDto dto = new CeQueueDto();
+    dto.setTaskType(CeTaskTypes.REPORT);
+    dto.setComponentUuid("PROJECT_1");
+    dto.setUuid(taskUuid);
+    dto.setStatus(CeQueueDto.Status.PENDING);
+    dbTester.getDbClient().ceQueueDao().insert(dbTester.getSession(), dto);
+    dbTester.getSession().commit();
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.queue.report;
+
+import java.io.File;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.config.MapSettings;
+import org.sonar.api.config.Settings;
+import org.sonar.api.utils.System2;
+import org.sonar.db.DbClient;
+import org.sonar.process.ProcessProperties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class ReportStorageProviderTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private Settings settings = new MapSettings();
+  private DbClient dbClient = mock(DbClient.class);
+  private ReportStorageProvider underTest = new ReportStorageProvider();
+
+  @Test
+  public void provide_DbReportStorage_by_default() {
+    ReportStorage storage = underTest.provide(settings, dbClient, System2.INSTANCE);
+
+    assertThat(storage).isInstanceOf(DbReportStorage.class);
+    assertThat(underTest.provide(settings, dbClient, System2.INSTANCE)).isSameAs(storage);
+  }
+
+  @Test
+  public void provide_FileSystemReportStorage_if_path_is_set() throws Exception {
+    File dir = new File(temp.newFolder(), "reports");
+    settings.setProperty(ReportStorageProvider.REPORT_STORAGE_PATH_PROPERTY, dir.getAbsolutePath());
+
+    ReportStorage storage = underTest.provide(settings, dbClient, System2.INSTANCE);
+
+    assertThat(storage).isInstanceOf(FileSystemReportStorage.class);
+    assertThat(dir).isDirectory();
+  }
+
+  @Test
+  public void relative_path_is_resolved_against_home_directory() throws Exception {
+    File home = temp.newFolder();
+    settings.setProperty(ProcessProperties.PATH_HOME, home.getAbsolutePath());
+    settings.setProperty(ReportStorageProvider.REPORT_STORAGE_PATH_PROPERTY, "data/reports");
+
+    underTest.provide(settings, dbClient, System2.INSTANCE);
+
+    assertThat(new File(home, "data/reports")).isDirectory();
+  }
+}
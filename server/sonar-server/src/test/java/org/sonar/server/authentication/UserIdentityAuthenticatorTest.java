@@ -42,9 +42,11 @@ import org.sonar.db.user.UserDao;
 import org.sonar.db.user.UserDto;
 import org.sonar.db.user.UserGroupDto;
 import org.sonar.db.user.UserTesting;
+import org.sonar.server.user.AuthorizationCache;
 import org.sonar.server.user.NewUserNotifier;
 import org.sonar.server.user.UserUpdater;
 import org.sonar.server.user.index.UserIndexer;
+import org.sonar.server.util.cache.ReferenceDataCache;
 
 import static com.google.common.collect.Sets.newHashSet;
 import static java.util.Collections.singletonList;
@@ -86,14 +88,18 @@ public class UserIdentityAuthenticatorTest {
   HttpServletRequest request = mock(HttpServletRequest.class);
   HttpServletResponse response = mock(HttpServletResponse.class);
 
+  AuthorizationCache authorizationCache = new AuthorizationCache(dbClient);
+
   UserUpdater userUpdater = new UserUpdater(
     mock(NewUserNotifier.class),
     settings,
     dbClient,
     mock(UserIndexer.class),
-    system2);
+    system2,
+    authorizationCache,
+    new ReferenceDataCache(dbClient));
 
-  UserIdentityAuthenticator underTest = new UserIdentityAuthenticator(dbClient, userUpdater);
+  UserIdentityAuthenticator underTest = new UserIdentityAuthenticator(dbClient, userUpdater, authorizationCache);
 
   @Before
   public void setUp() throws Exception {
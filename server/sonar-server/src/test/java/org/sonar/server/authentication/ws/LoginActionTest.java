@@ -37,6 +37,7 @@ import org.sonar.db.user.UserTesting;
 import org.sonar.server.authentication.CredentialsAuthenticator;
 import org.sonar.server.authentication.JwtHttpHandler;
 import org.sonar.server.exceptions.UnauthorizedException;
+import org.sonar.server.user.AuthorizationCache;
 import org.sonar.server.user.ThreadLocalUserSession;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -69,7 +70,7 @@ public class LoginActionTest {
 
   UserDto user = UserTesting.newUserDto().setLogin(LOGIN);
 
-  LoginAction underTest  = new LoginAction(dbClient, credentialsAuthenticator, jwtHttpHandler, threadLocalUserSession);
+  LoginAction underTest  = new LoginAction(dbClient, new AuthorizationCache(dbClient), credentialsAuthenticator, jwtHttpHandler, threadLocalUserSession);
 
   @Before
   public void setUp() throws Exception {
@@ -0,0 +1,146 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.batch;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.sonar.api.utils.System2;
+import org.sonar.api.web.UserRole;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.DbTester;
+import org.sonar.db.component.ComponentDto;
+import org.sonar.db.component.ComponentTesting;
+import org.sonar.db.source.FileSourceDto;
+import org.sonar.scanner.protocol.input.ScannerInput.LineHashes;
+import org.sonar.server.component.ComponentFinder;
+import org.sonar.server.exceptions.BadRequestException;
+import org.sonar.server.exceptions.ForbiddenException;
+import org.sonar.server.platform.ServerFileSystem;
+import org.sonar.server.tester.UserSessionRule;
+import org.sonar.server.ws.WsTester;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class LineHashesActionTest {
+
+  static final String PROJECT_KEY = "struts";
+  static final String MODULE_KEY = "struts-core";
+
+  @Rule
+  public ExpectedException thrown = ExpectedException.none();
+
+  @Rule
+  public DbTester db = DbTester.create(System2.INSTANCE);
+
+  @Rule
+  public UserSessionRule userSessionRule = UserSessionRule.standalone();
+
+  DbClient dbClient = db.getDbClient();
+  DbSession session = db.getSession();
+
+  ComponentDto project;
+  ComponentDto module;
+  ComponentDto projectFile;
+  ComponentDto moduleFile;
+
+  WsTester tester;
+
+  @Before
+  public void before() {
+    tester = new WsTester(new BatchWs(new BatchIndex(mock(ServerFileSystem.class)),
+      new LineHashesAction(dbClient, userSessionRule, new ComponentFinder(dbClient))));
+
+    project = ComponentTesting.newProjectDto().setKey(PROJECT_KEY);
+    module = ComponentTesting.newModuleDto(project).setKey(MODULE_KEY);
+    projectFile = ComponentTesting.newFileDto(project, null).setPath("src/Project.java");
+    moduleFile = ComponentTesting.newFileDto(module, null).setPath("src/Module.java");
+    dbClient.componentDao().insert(session, project, module, projectFile, moduleFile);
+    insertLineHashes(projectFile, "a\nb");
+    insertLineHashes(moduleFile, "c\n\nd");
+    session.commit();
+  }
+
+  @Test
+  public void return_line_hashes_of_module_files() throws Exception {
+    userSessionRule.addComponentPermission(UserRole.USER, PROJECT_KEY, MODULE_KEY);
+
+    List<LineHashes> result = call(MODULE_KEY);
+
+    assertThat(result).hasSize(1);
+    assertThat(result.get(0).getPath()).isEqualTo("src/Module.java");
+    assertThat(result.get(0).getLineHashList()).containsExactly("c", "", "d");
+  }
+
+  @Test
+  public void exclude_files_of_sub_modules() throws Exception {
+    userSessionRule.addComponentPermission(UserRole.USER, PROJECT_KEY, PROJECT_KEY);
+
+    List<LineHashes> result = call(PROJECT_KEY);
+
+    assertThat(result).hasSize(1);
+    assertThat(result.get(0).getPath()).isEqualTo("src/Project.java");
+    assertThat(result.get(0).getLineHashList()).containsExactly("a", "b");
+  }
+
+  @Test
+  public void fail_if_component_is_a_file() throws Exception {
+    userSessionRule.addComponentPermission(UserRole.USER, PROJECT_KEY, moduleFile.key());
+
+    thrown.expect(BadRequestException.class);
+    call(moduleFile.key());
+  }
+
+  @Test
+  public void fail_without_browse_permission() throws Exception {
+    userSessionRule.login("john");
+
+    thrown.expect(ForbiddenException.class);
+    call(MODULE_KEY);
+  }
+
+  private List<LineHashes> call(String key) throws Exception {
+    InputStream output = new ByteArrayInputStream(tester.newGetRequest("batch", "line_hashes").setParam("key", key).execute().output());
+    List<LineHashes> result = new ArrayList<>();
+    LineHashes lineHashes = LineHashes.parseDelimitedFrom(output);
+    while (lineHashes != null) {
+      result.add(lineHashes);
+      lineHashes = LineHashes.parseDelimitedFrom(output);
+    }
+    return result;
+  }
+
+  private void insertLineHashes(ComponentDto file, String lineHashes) {
+    dbClient.fileSourceDao().insert(session, new FileSourceDto()
+      .setProjectUuid(project.uuid())
+      .setFileUuid(file.uuid())
+      .setDataType(FileSourceDto.Type.SOURCE)
+      .setLineHashes(lineHashes)
+      .setCreatedAt(1_500_000_000_000L)
+      .setUpdatedAt(1_500_000_000_000L));
+  }
+}
@@ -40,6 +40,7 @@ import org.sonar.db.metric.MetricDto;
 import org.sonar.server.component.ComponentFinder;
 import org.sonar.server.startup.RegisterMetrics;
 import org.sonar.server.tester.UserSessionRule;
+import org.sonar.server.util.cache.ReferenceDataCache;
 import org.sonar.server.ws.WsTester;
 
 import static org.mockito.Mockito.mock;
@@ -68,7 +69,8 @@ public class AppActionTest {
   public void setUp() {
     insertMetrics();
     wsTester = new WsTester(new ComponentsWs(
-      new AppAction(dbTester.getDbClient(), userSessionRule, new ComponentFinder(dbTester.getDbClient())), mock(SearchViewComponentsAction.class)));
+      new AppAction(dbTester.getDbClient(), userSessionRule, new ComponentFinder(dbTester.getDbClient()),
+        new ReferenceDataCache(dbTester.getDbClient())), mock(SearchViewComponentsAction.class)));
   }
 
   @Test
@@ -32,6 +32,7 @@ import org.sonar.api.utils.Durations;
 import org.sonar.db.DbClient;
 import org.sonar.server.component.ComponentFinder;
 import org.sonar.server.tester.UserSessionRule;
+import org.sonar.server.util.cache.ReferenceDataCache;
 import org.sonar.server.ws.WsTester;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -51,7 +52,7 @@ public class ComponentsWsTest {
     when(languages.all()).thenReturn(new Language[0]);
 
     WsTester tester = new WsTester(new ComponentsWs(
-      new AppAction(mock(DbClient.class), userSessionRule, mock(ComponentFinder.class)),
+      new AppAction(mock(DbClient.class), userSessionRule, mock(ComponentFinder.class), mock(ReferenceDataCache.class)),
       new SearchViewComponentsAction(mock(DbClient.class), userSessionRule, mock(ComponentFinder.class)),
       new SearchAction(mock(org.sonar.db.DbClient.class), mock(ResourceTypes.class), mock(I18n.class), userSessionRule, languages)
       ));
@@ -26,6 +26,7 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.sonar.api.platform.ServerUpgradeStatus;
 import org.sonar.api.utils.System2;
+import org.sonar.ce.queue.report.DbReportStorage;
 import org.sonar.db.DbTester;
 import org.sonar.db.ce.CeQueueDto;
 import org.sonar.db.ce.CeTaskInputDao;
@@ -43,7 +44,8 @@ public class CeQueueCleanerTest {
 
   private ServerUpgradeStatus serverUpgradeStatus = mock(ServerUpgradeStatus.class);
   private InternalCeQueue queue = mock(InternalCeQueue.class);
-  private CeQueueCleaner underTest = new CeQueueCleaner(dbTester.getDbClient(), serverUpgradeStatus, queue);
+  private CeQueueCleaner underTest = new CeQueueCleaner(dbTester.getDbClient(), serverUpgradeStatus, queue,
+    new DbReportStorage(dbTester.getDbClient()));
 
   @Test
   public void reset_in_progress_tasks_to_pending() throws IOException {
@@ -0,0 +1,86 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.queue;
+
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CeQueueSignalTest {
+
+  @Rule
+  public Timeout timeout = Timeout.seconds(60);
+
+  private CeQueueSignal underTest = new CeQueueSignal();
+
+  @Test
+  public void signal_increments_version() {
+    long version = underTest.getVersion();
+
+    underTest.signal();
+
+    assertThat(underTest.getVersion()).isEqualTo(version + 1);
+  }
+
+  @Test
+  public void onSubmit_signals() {
+    long version = underTest.getVersion();
+
+    underTest.onSubmit(Collections.emptyList());
+
+    assertThat(underTest.getVersion()).isEqualTo(version + 1);
+  }
+
+  @Test
+  public void await_returns_immediately_if_version_already_changed() throws InterruptedException {
+    long version = underTest.getVersion();
+    underTest.signal();
+
+    assertThat(underTest.await(version, 60_000L)).isTrue();
+  }
+
+  @Test
+  public void await_returns_false_when_timeout_elapsed() throws InterruptedException {
+    assertThat(underTest.await(underTest.getVersion(), 10L)).isFalse();
+  }
+
+  @Test
+  public void await_is_woken_up_by_signal() throws InterruptedException {
+    long version = underTest.getVersion();
+    CountDownLatch waiting = new CountDownLatch(1);
+    Thread signaler = new Thread(() -> {
+      try {
+        waiting.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      underTest.signal();
+    });
+    signaler.start();
+
+    waiting.countDown();
+    assertThat(underTest.await(version, 60_000L)).isTrue();
+    signaler.join();
+  }
+}
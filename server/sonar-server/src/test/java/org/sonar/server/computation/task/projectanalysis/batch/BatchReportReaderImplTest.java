@@ -21,10 +21,14 @@ package org.sonar.server.computation.task.projectanalysis.batch;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
+import org.sonar.api.utils.ZipUtils;
 import org.sonar.api.utils.internal.JUnitTempFolder;
 import org.sonar.core.util.CloseableIterator;
 import org.sonar.scanner.protocol.output.ScannerReport;
@@ -315,4 +319,47 @@ public class BatchReportReaderImplTest {
     assertThat(res).containsExactly(COVERAGE_DETAIL_1, COVERAGE_DETAIL_2);
     res.close();
   }
+
+  @Test
+  public void verify_readFileSource_and_readTests_of_segmented_report() throws IOException {
+    File dir = tempFolder.newDir();
+    ScannerReportWriter segmentedWriter = new ScannerReportWriter(dir, true);
+    try (OutputStream output = segmentedWriter.openComponentSource(COMPONENT_REF)) {
+      IOUtils.write("1\n2\n3", output, StandardCharsets.UTF_8);
+    }
+    segmentedWriter.writeTests(COMPONENT_REF, of(TEST_1, TEST_2));
+    segmentedWriter.close();
+    underTest = new BatchReportReaderImpl(new ImmutableBatchReportDirectoryHolder(dir));
+
+    CloseableIterator<String> lines = underTest.readFileSource(COMPONENT_REF).get();
+    assertThat(lines).containsExactly("1", "2", "3");
+    lines.close();
+    CloseableIterator<ScannerReport.Test> tests = underTest.readTests(COMPONENT_REF);
+    assertThat(tests).containsExactly(TEST_1, TEST_2);
+    tests.close();
+  }
+
+  @Test
+  public void read_report_from_zip_file() throws IOException {
+    writer.writeMetadata(ScannerReport.Metadata.newBuilder().setProjectKey("PROJECT_A").build());
+    writer.writeComponent(COMPONENT);
+    writer.writeComponentIssues(COMPONENT_REF, of(ISSUE));
+    try (OutputStream output = writer.openComponentSource(COMPONENT_REF)) {
+      IOUtils.write("1\n2", output, StandardCharsets.UTF_8);
+    }
+    FileUtils.write(writer.getFileStructure().analysisLog(), "log1\nlog2");
+    File zip = tempFolder.newFile();
+    ZipUtils.zipDir(writer.getFileStructure().metadataFile().getParentFile(), zip);
+    underTest = new BatchReportReaderImpl(new ImmutableBatchReportDirectoryHolder(zip));
+
+    assertThat(underTest.readMetadata().getProjectKey()).isEqualTo("PROJECT_A");
+    assertThat(underTest.readComponent(COMPONENT_REF)).isEqualTo(COMPONENT);
+    assertThat(underTest.readComponentIssues(COMPONENT_REF)).containsExactly(ISSUE);
+    assertThat(underTest.readScannerLogs()).containsExactly("log1", "log2");
+    CloseableIterator<String> lines = underTest.readFileSource(COMPONENT_REF).get();
+    assertThat(lines).containsExactly("1", "2");
+    lines.close();
+
+    underTest.stop();
+  }
 }
@@ -0,0 +1,198 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.dbwriter;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+
+import static java.util.Collections.newSetFromMap;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class AsyncDbWriterImplTest {
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  DbClient dbClient = mock(DbClient.class, RETURNS_DEEP_STUBS);
+  SqlSession sqlSession = mock(SqlSession.class);
+  AsyncDbWriterImpl underTest = new AsyncDbWriterImpl(dbClient);
+
+  @Before
+  public void setUp() {
+    when(dbClient.getMyBatis().getSessionFactory().openSession(ExecutorType.BATCH)).thenReturn(sqlSession);
+  }
+
+  @After
+  public void tearDown() {
+    underTest.stop();
+  }
+
+  @Test
+  public void writes_are_executed_in_order_on_writer_thread_then_committed() {
+    List<String> threadNames = new CopyOnWriteArrayList<>();
+    List<String> writes = new CopyOnWriteArrayList<>();
+    Set<DbSession> sessions = newSetFromMap(new ConcurrentHashMap<>());
+
+    for (int i = 0; i < 100; i++) {
+      String write = "write" + i;
+      underTest.submit("label", session -> {
+        sessions.add(session);
+        threadNames.add(Thread.currentThread().getName());
+        writes.add(write);
+      });
+    }
+    underTest.commit();
+
+    assertThat(writes).hasSize(100);
+    assertThat(writes.get(0)).isEqualTo("write0");
+    assertThat(writes.get(99)).isEqualTo("write99");
+    assertThat(threadNames.get(0)).startsWith("AsyncDbWriter-");
+    assertThat(threadNames).containsOnly(threadNames.get(0));
+    assertThat(sessions).hasSize(1);
+    verify(sqlSession).commit();
+  }
+
+  @Test
+  public void statements_are_flushed_periodically_but_committed_once() {
+    for (int i = 0; i < 2 * AsyncDbWriterImpl.WRITES_PER_FLUSH + 1; i++) {
+      underTest.submit("label", session -> {
+      });
+    }
+    underTest.commit();
+
+    verify(sqlSession, times(2)).flushStatements();
+    verify(sqlSession).commit();
+    // BatchSession commits every 250 statements
+    verify(dbClient, never()).openSession(true);
+  }
+
+  @Test
+  public void session_is_not_opened_if_there_are_no_writes() {
+    underTest.commit();
+
+    verify(dbClient.getMyBatis().getSessionFactory(), never()).openSession(any(ExecutorType.class));
+  }
+
+  @Test
+  public void commit_fails_if_a_write_failed() {
+    IllegalArgumentException failure = new IllegalArgumentException("Unique constraint violation");
+    AtomicBoolean executedAfterFailure = new AtomicBoolean(false);
+    underTest.submit("label", session -> {
+      throw failure;
+    });
+    underTest.submit("label", session -> executedAfterFailure.set(true));
+
+    try {
+      underTest.commit();
+      fail("An IllegalStateException should have been raised");
+    } catch (IllegalStateException e) {
+      assertThat(e).hasMessage("Fail to execute asynchronous DB writes").hasCause(failure);
+    }
+
+    assertThat(executedAfterFailure.get()).isFalse();
+    verify(sqlSession, never()).commit();
+  }
+
+  @Test
+  public void submit_fails_once_a_write_failed() {
+    underTest.submit("label", session -> {
+      throw new IllegalArgumentException();
+    });
+    try {
+      underTest.commit();
+    } catch (IllegalStateException e) {
+      // expected
+    }
+
+    expectedException.expect(IllegalStateException.class);
+    expectedException.expectMessage("Fail to execute asynchronous DB writes");
+
+    underTest.submit("label", session -> {
+    });
+  }
+
+  @Test
+  public void submit_blocks_when_max_pending_writes_is_reached() throws Exception {
+    underTest = new AsyncDbWriterImpl(dbClient, 1);
+    CountDownLatch blockingWrite = new CountDownLatch(1);
+    underTest.submit("label", session -> {
+      try {
+        blockingWrite.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+
+    CountDownLatch submitted = new CountDownLatch(1);
+    Thread submitter = new Thread(() -> {
+      underTest.submit("label", session -> {
+      });
+      submitted.countDown();
+    });
+    submitter.start();
+
+    assertThat(submitted.await(100, TimeUnit.MILLISECONDS)).isFalse();
+    blockingWrite.countDown();
+    assertThat(submitted.await(10, TimeUnit.SECONDS)).isTrue();
+    underTest.commit();
+    verify(sqlSession).commit();
+  }
+
+  @Test
+  public void stop_closes_session() {
+    underTest.submit("label", session -> {
+    });
+    underTest.commit();
+
+    underTest.stop();
+
+    verify(sqlSession).close();
+  }
+
+  @Test
+  public void fail_if_max_pending_writes_is_not_positive() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Maximum number of pending writes must be greater than 0");
+
+    new AsyncDbWriterImpl(dbClient, 0);
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.filemove;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LineHashesLshIndexTest {
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  private LineHashesLshIndex underTest = new LineHashesLshIndex();
+
+  @Test
+  public void identical_files_are_candidates() {
+    underTest.add(0, lines("a", 0, 50));
+    underTest.add(1, lines("b", 0, 50));
+
+    assertThat(underTest.getCandidates(lines("a", 0, 50))).containsOnly(0);
+  }
+
+  @Test
+  public void files_sharing_most_of_their_lines_are_candidates() {
+    underTest.add(0, lines("a", 0, 100));
+    underTest.add(1, lines("a", 105, 205));
+    underTest.add(2, lines("b", 0, 100));
+
+    // 90 lines in common out of 110 distinct lines
+    assertThat(underTest.getCandidates(lines("a", 10, 110))).containsOnly(0);
+  }
+
+  @Test
+  public void duplicated_lines_do_not_change_candidates() {
+    List<String> lines = lines("a", 0, 20);
+    underTest.add(0, lines);
+    List<String> duplicatedLines = new ArrayList<>(lines);
+    duplicatedLines.addAll(lines);
+
+    assertThat(underTest.getCandidates(duplicatedLines)).containsOnly(0);
+  }
+
+  @Test
+  public void file_without_line_is_never_a_candidate() {
+    underTest.add(0, Collections.emptyList());
+    underTest.add(1, lines("a", 0, 10));
+
+    assertThat(underTest.getCandidates(Collections.emptyList())).isEmpty();
+    assertThat(underTest.getCandidates(lines("a", 0, 10))).containsOnly(1);
+  }
+
+  @Test
+  public void constructor_fails_if_bands_is_not_positive() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("bands must be greater than 0");
+
+    new LineHashesLshIndex(0, 2);
+  }
+
+  @Test
+  public void constructor_fails_if_rows_is_not_positive() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("rows must be greater than 0");
+
+    new LineHashesLshIndex(20, 0);
+  }
+
+  private static List<String> lines(String prefix, int from, int to) {
+    List<String> res = new ArrayList<>();
+    for (int i = from; i < to; i++) {
+      res.add(prefix + i);
+    }
+    return res;
+  }
+}
@@ -53,4 +53,37 @@ public class SourceSimilarityImplTest {
     assertThat(underTest.score(asList("a"), asList("a", "b", "c"))).isEqualTo(33);
     assertThat(underTest.score(asList("a", "b", "c"), asList("a"))).isEqualTo(33);
   }
+
+  @Test
+  public void score_with_min_score_is_exact_when_greater_than_or_equal_to_min_score() {
+    assertThat(underTest.score(asList("a", "b", "c", "d"), asList("a", "b", "e", "f"), 50)).isEqualTo(50);
+    assertThat(underTest.score(asList("a", "b", "c"), asList("a", "b", "c"), 100)).isEqualTo(100);
+    assertThat(underTest.score(asList("a", "b", "c", "d"), asList("a", "b", "c", "e"), 75)).isEqualTo(75);
+  }
+
+  @Test
+  public void score_with_min_score_is_lower_than_min_score_when_not_similar_enough() {
+    assertThat(underTest.score(asList("a", "b", "c", "d"), asList("a", "b", "e", "f"), 51)).isLessThan(51);
+    assertThat(underTest.score(asList("a"), asList("a", "b", "c"), 85)).isLessThan(85);
+    assertThat(underTest.score(asList("a", "b", "c"), asList("d", "e", "f"), 1)).isLessThan(1);
+  }
+
+  @Test
+  public void levenshteinDistance_stops_at_max_distance_plus_one() {
+    int[] left = {1, 2, 3, 4, 5, 6};
+    int[] right = {1, 7, 3, 8, 5, 9};
+
+    assertThat(SourceSimilarityImpl.levenshteinDistance(left, right, 6)).isEqualTo(3);
+    assertThat(SourceSimilarityImpl.levenshteinDistance(left, right, 3)).isEqualTo(3);
+    assertThat(SourceSimilarityImpl.levenshteinDistance(left, right, 2)).isEqualTo(3);
+    assertThat(SourceSimilarityImpl.levenshteinDistance(left, right, 0)).isEqualTo(1);
+  }
+
+  @Test
+  public void levenshteinDistance_of_arrays_of_different_lengths() {
+    assertThat(SourceSimilarityImpl.levenshteinDistance(new int[] {1, 2, 3}, new int[] {0, 1, 2, 3, 4}, 5)).isEqualTo(2);
+    assertThat(SourceSimilarityImpl.levenshteinDistance(new int[] {1, 2, 3}, new int[] {0, 1, 2, 3, 4}, 1)).isEqualTo(2);
+    assertThat(SourceSimilarityImpl.levenshteinDistance(new int[0], new int[] {1, 2}, 2)).isEqualTo(2);
+    assertThat(SourceSimilarityImpl.levenshteinDistance(new int[0], new int[0], 0)).isEqualTo(0);
+  }
 }
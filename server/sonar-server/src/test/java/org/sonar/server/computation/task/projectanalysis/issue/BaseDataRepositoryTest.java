@@ -0,0 +1,110 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.issue;
+
+import java.util.Arrays;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.api.utils.internal.JUnitTempFolder;
+import org.sonar.core.issue.DefaultIssue;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BaseDataRepositoryTest {
+
+  @Rule
+  public JUnitTempFolder tempFolder = new JUnitTempFolder();
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  @Test
+  public void get_issues() {
+    BaseDataRepository underTest = new BaseDataRepository(tempFolder);
+    underTest.addIssues("FILE_1", asList(newIssue("I1"), newIssue("I2")));
+    underTest.addIssues("FILE_2", asList(newIssue("I3")));
+    underTest.setLoaded();
+
+    assertThat(underTest.getIssues("FILE_1")).extracting("key").containsExactly("I1", "I2");
+    assertThat(underTest.getIssues("FILE_2")).extracting("key").containsExactly("I3");
+    assertThat(underTest.getIssues("FILE_3")).isEmpty();
+    underTest.stop();
+  }
+
+  @Test
+  public void get_issues_written_to_disk() {
+    BaseDataRepository underTest = new BaseDataRepository(tempFolder, 0L);
+    underTest.addIssues("FILE_1", asList(newIssue("I1"), newIssue("I2")));
+    underTest.setLoaded();
+
+    assertThat(underTest.getIssues("FILE_1")).extracting("key").containsExactly("I1", "I2");
+    assertThat(underTest.getIssues("FILE_1").get(0).ruleKey()).isEqualTo(RuleKey.of("xoo", "S001"));
+    underTest.stop();
+  }
+
+  @Test
+  public void get_line_hashes() {
+    BaseDataRepository underTest = new BaseDataRepository(tempFolder);
+    underTest.addLineHashes("FILE_1", "h1\nh2");
+    underTest.addLineHashes("FILE_2", null);
+    underTest.setLoaded();
+
+    assertThat(underTest.getLineHashes("FILE_1")).containsExactly("h1", "h2");
+    assertThat(underTest.getLineHashes("FILE_2")).isNull();
+    assertThat(underTest.getLineHashes("FILE_3")).isNull();
+    underTest.stop();
+  }
+
+  @Test
+  public void is_loaded() {
+    BaseDataRepository underTest = new BaseDataRepository(tempFolder);
+    assertThat(underTest.isLoaded()).isFalse();
+
+    underTest.setLoaded();
+    assertThat(underTest.isLoaded()).isTrue();
+  }
+
+  @Test
+  public void fail_to_get_data_if_not_loaded() {
+    BaseDataRepository underTest = new BaseDataRepository(tempFolder);
+
+    expectedException.expect(IllegalStateException.class);
+    expectedException.expectMessage("Base data are not loaded");
+
+    underTest.getIssues("FILE_1");
+  }
+
+  @Test
+  public void fail_to_add_data_if_already_loaded() {
+    BaseDataRepository underTest = new BaseDataRepository(tempFolder);
+    underTest.setLoaded();
+
+    expectedException.expect(IllegalStateException.class);
+    expectedException.expectMessage("Base data are already loaded");
+
+    underTest.addIssues("FILE_1", Arrays.<DefaultIssue>asList());
+  }
+
+  private static DefaultIssue newIssue(String key) {
+    return new DefaultIssue().setKey(key).setRuleKey(RuleKey.of("xoo", "S001")).setComponentUuid("FILE_1");
+  }
+}
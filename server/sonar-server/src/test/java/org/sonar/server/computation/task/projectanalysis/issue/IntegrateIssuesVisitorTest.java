@@ -103,9 +103,10 @@ public class IntegrateIssuesVisitorTest {
 
   IssueFilter issueFilter = mock(IssueFilter.class);
 
-  BaseIssuesLoader baseIssuesLoader = new BaseIssuesLoader(treeRootHolder, dbTester.getDbClient(), ruleRepositoryRule, activeRulesHolderRule);
+  BaseDataRepository baseDataRepository = mock(BaseDataRepository.class);
+  BaseIssuesLoader baseIssuesLoader = new BaseIssuesLoader(treeRootHolder, dbTester.getDbClient(), ruleRepositoryRule, activeRulesHolderRule, baseDataRepository);
   MovedFilesRepository movedFilesRepository = mock(MovedFilesRepository.class);
-  TrackerExecution tracker = new TrackerExecution(new TrackerBaseInputFactory(baseIssuesLoader, dbTester.getDbClient(), movedFilesRepository),
+  TrackerExecution tracker = new TrackerExecution(new TrackerBaseInputFactory(baseIssuesLoader, dbTester.getDbClient(), movedFilesRepository, baseDataRepository),
     new TrackerRawInputFactory(treeRootHolder, reportReader,
       fileSourceRepository, new CommonRuleEngineImpl(), issueFilter),
     new Tracker<>());
@@ -121,7 +122,7 @@ public class IntegrateIssuesVisitorTest {
   @Before
   public void setUp() throws Exception {
     treeRootHolder.setRoot(PROJECT);
-    issueCache = new IssueCache(temp.newFile(), System2.INSTANCE);
+    issueCache = new IssueCache(temp.newFile());
     when(issueFilter.accept(any(DefaultIssue.class), eq(FILE))).thenReturn(true);
     when(movedFilesRepository.getOriginalFile(any(Component.class))).thenReturn(Optional.<MovedFilesRepository.OriginalFile>absent());
     underTest = new IntegrateIssuesVisitor(tracker, issueCache, issueLifecycle, issueVisitors, componentsWithUnprocessedIssues, componentIssuesRepository, movedFilesRepository);
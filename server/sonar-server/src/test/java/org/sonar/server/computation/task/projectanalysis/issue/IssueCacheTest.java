@@ -0,0 +1,246 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.issue;
+
+import com.google.common.collect.ImmutableMap;
+import java.util.Date;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.issue.Issue;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.api.rule.Severity;
+import org.sonar.api.rules.RuleType;
+import org.sonar.api.utils.Duration;
+import org.sonar.core.issue.DefaultIssue;
+import org.sonar.core.issue.DefaultIssueComment;
+import org.sonar.core.issue.FieldDiffs;
+import org.sonar.core.util.CloseableIterator;
+import org.sonar.db.protobuf.DbCommons;
+import org.sonar.db.protobuf.DbIssues;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+public class IssueCacheTest {
+
+  private static final Date DATE_1 = new Date(1_450_000_000_000L);
+  private static final Date DATE_2 = new Date(1_460_000_000_000L);
+  private static final Date DATE_3 = new Date(1_470_000_000_000L);
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  @Test
+  public void write_and_read_all_fields() throws Exception {
+    IssueCache underTest = new IssueCache(temp.newFile());
+    DbIssues.Locations locations = DbIssues.Locations.newBuilder()
+      .setTextRange(DbCommons.TextRange.newBuilder().setStartLine(10).setEndLine(12))
+      .build();
+    DefaultIssue issue = new DefaultIssue()
+      .setKey("ISSUE_KEY")
+      .setType(RuleType.BUG)
+      .setComponentUuid("FILE_UUID")
+      .setComponentKey("FILE_KEY")
+      .setModuleUuid("MODULE_UUID")
+      .setModuleUuidPath(".MODULE_UUID.")
+      .setProjectUuid("PROJECT_UUID")
+      .setProjectKey("PROJECT_KEY")
+      .setRuleKey(RuleKey.of("xoo", "S001"))
+      .setLanguage("xoo")
+      .setSeverity(Severity.CRITICAL)
+      .setManualSeverity(true)
+      .setMessage("the message")
+      .setLine(42)
+      .setGap(1.5)
+      .setEffort(Duration.create(10L))
+      .setStatus(Issue.STATUS_RESOLVED)
+      .setResolution(Issue.RESOLUTION_FIXED)
+      .setAssignee("john")
+      .setChecksum("CHECKSUM")
+      .setAttributes(ImmutableMap.of("JIRA", "FOO-123"))
+      .setAuthorLogin("jane")
+      .setTags(asList("tag1", "tag2"))
+      .setLocations(locations)
+      .setCreationDate(DATE_1)
+      .setUpdateDate(DATE_2)
+      .setCloseDate(DATE_3)
+      .setNew(true)
+      .setBeingClosed(true)
+      .setOnDisabledRule(true)
+      .setChanged(true)
+      .setSendNotifications(true)
+      .setSelectedAt(1_000L);
+    issue.addComment(new DefaultIssueComment()
+      .setIssueKey("ISSUE_KEY")
+      .setKey("COMMENT_KEY")
+      .setUserLogin("john")
+      .setMarkdownText("a *comment*")
+      .setCreatedAt(DATE_1)
+      .setUpdatedAt(DATE_2)
+      .setNew(true));
+
+    underTest.newAppender().append(issue).close();
+
+    DefaultIssue read = readSingleIssue(underTest);
+    assertThat(read.key()).isEqualTo("ISSUE_KEY");
+    assertThat(read.type()).isEqualTo(RuleType.BUG);
+    assertThat(read.componentUuid()).isEqualTo("FILE_UUID");
+    assertThat(read.componentKey()).isEqualTo("FILE_KEY");
+    assertThat(read.moduleUuid()).isEqualTo("MODULE_UUID");
+    assertThat(read.moduleUuidPath()).isEqualTo(".MODULE_UUID.");
+    assertThat(read.projectUuid()).isEqualTo("PROJECT_UUID");
+    assertThat(read.projectKey()).isEqualTo("PROJECT_KEY");
+    assertThat(read.ruleKey()).isEqualTo(RuleKey.of("xoo", "S001"));
+    assertThat(read.language()).isEqualTo("xoo");
+    assertThat(read.severity()).isEqualTo(Severity.CRITICAL);
+    assertThat(read.manualSeverity()).isTrue();
+    assertThat(read.message()).isEqualTo("the message");
+    assertThat(read.line()).isEqualTo(42);
+    assertThat(read.gap()).isEqualTo(1.5);
+    assertThat(read.effortInMinutes()).isEqualTo(10L);
+    assertThat(read.status()).isEqualTo(Issue.STATUS_RESOLVED);
+    assertThat(read.resolution()).isEqualTo(Issue.RESOLUTION_FIXED);
+    assertThat(read.assignee()).isEqualTo("john");
+    assertThat(read.checksum()).isEqualTo("CHECKSUM");
+    assertThat(read.attributes()).containsOnly(entry("JIRA", "FOO-123"));
+    assertThat(read.authorLogin()).isEqualTo("jane");
+    assertThat(read.tags()).containsExactly("tag1", "tag2");
+    assertThat((DbIssues.Locations) read.getLocations()).isEqualTo(locations);
+    assertThat(read.creationDate()).isEqualTo(DATE_1);
+    assertThat(read.updateDate()).isEqualTo(DATE_2);
+    assertThat(read.closeDate()).isEqualTo(DATE_3);
+    assertThat(read.isNew()).isTrue();
+    assertThat(read.isBeingClosed()).isTrue();
+    assertThat(read.isOnDisabledRule()).isTrue();
+    assertThat(read.isChanged()).isTrue();
+    assertThat(read.mustSendNotifications()).isTrue();
+    assertThat(read.selectedAt()).isEqualTo(1_000L);
+
+    assertThat(read.comments()).hasSize(1);
+    DefaultIssueComment comment = (DefaultIssueComment) read.comments().get(0);
+    assertThat(comment.issueKey()).isEqualTo("ISSUE_KEY");
+    assertThat(comment.key()).isEqualTo("COMMENT_KEY");
+    assertThat(comment.userLogin()).isEqualTo("john");
+    assertThat(comment.markdownText()).isEqualTo("a *comment*");
+    assertThat(comment.createdAt()).isEqualTo(DATE_1);
+    assertThat(comment.updatedAt()).isEqualTo(DATE_2);
+    assertThat(comment.isNew()).isTrue();
+  }
+
+  @Test
+  public void write_and_read_issue_without_optional_fields() throws Exception {
+    IssueCache underTest = new IssueCache(temp.newFile());
+
+    underTest.newAppender().append(new DefaultIssue().setKey("ISSUE_KEY")).close();
+
+    DefaultIssue read = readSingleIssue(underTest);
+    assertThat(read.key()).isEqualTo("ISSUE_KEY");
+    assertThat(read.type()).isNull();
+    assertThat(read.ruleKey()).isNull();
+    assertThat(read.line()).isNull();
+    assertThat(read.gap()).isNull();
+    assertThat(read.effort()).isNull();
+    assertThat(read.status()).isNull();
+    assertThat(read.assignee()).isNull();
+    assertThat(read.attributes()).isEmpty();
+    assertThat(read.tags()).isEmpty();
+    assertThat((Object) read.getLocations()).isNull();
+    assertThat(read.creationDate()).isNull();
+    assertThat(read.selectedAt()).isNull();
+    assertThat(read.comments()).isEmpty();
+    assertThat(read.currentChange()).isNull();
+    assertThat(read.changes()).isEmpty();
+    assertThat(read.isNew()).isFalse();
+  }
+
+  @Test
+  public void current_change_is_an_element_of_changes() throws Exception {
+    IssueCache underTest = new IssueCache(temp.newFile());
+    FieldDiffs previousChange = new FieldDiffs()
+      .setIssueKey("ISSUE_KEY")
+      .setUserLogin("john")
+      .setCreationDate(DATE_1)
+      .setDiff("severity", Severity.MINOR, Severity.MAJOR);
+    FieldDiffs currentChange = new FieldDiffs()
+      .setIssueKey("ISSUE_KEY")
+      .setCreationDate(DATE_2)
+      .setDiff("effort", 10L, 20L)
+      .setDiff("type", RuleType.CODE_SMELL, RuleType.BUG)
+      .setDiff("assignee", null, "jane");
+    DefaultIssue issue = new DefaultIssue()
+      .setKey("ISSUE_KEY")
+      .setChanges(asList(previousChange))
+      .setCurrentChange(currentChange);
+
+    underTest.newAppender().append(issue).close();
+
+    DefaultIssue read = readSingleIssue(underTest);
+    assertThat(read.changes()).hasSize(2);
+    assertThat(read.changes().get(1)).isSameAs(read.currentChange());
+
+    FieldDiffs readPrevious = read.changes().get(0);
+    assertThat(readPrevious.issueKey()).isEqualTo("ISSUE_KEY");
+    assertThat(readPrevious.userLogin()).isEqualTo("john");
+    assertThat(readPrevious.creationDate()).isEqualTo(DATE_1);
+    assertThat(readPrevious.toString()).isEqualTo(previousChange.toString());
+
+    FieldDiffs readCurrent = read.currentChange();
+    assertThat(readCurrent.userLogin()).isNull();
+    assertThat(readCurrent.diffs().keySet()).containsExactly("effort", "type", "assignee");
+    assertThat(readCurrent.get("effort").oldValue()).isEqualTo(10L);
+    assertThat(readCurrent.get("effort").newValue()).isEqualTo(20L);
+    assertThat(readCurrent.get("type").oldValue()).isEqualTo(RuleType.CODE_SMELL);
+    assertThat(readCurrent.get("type").newValue()).isEqualTo(RuleType.BUG);
+    assertThat(readCurrent.get("assignee").oldValue()).isNull();
+    assertThat(readCurrent.get("assignee").newValue()).isEqualTo("jane");
+  }
+
+  @Test
+  public void write_and_read_many_issues() throws Exception {
+    IssueCache underTest = new IssueCache(temp.newFile());
+    IssueCache.DiskAppender appender = underTest.newAppender();
+    for (int i = 0; i < 1_000; i++) {
+      appender.append(new DefaultIssue().setKey("ISSUE_" + i).setLine(i + 1));
+    }
+    appender.close();
+
+    int count = 0;
+    try (CloseableIterator<DefaultIssue> issues = underTest.traverse()) {
+      while (issues.hasNext()) {
+        DefaultIssue issue = issues.next();
+        assertThat(issue.key()).isEqualTo("ISSUE_" + count);
+        assertThat(issue.line()).isEqualTo(count + 1);
+        count++;
+      }
+    }
+    assertThat(count).isEqualTo(1_000);
+  }
+
+  private static DefaultIssue readSingleIssue(IssueCache cache) {
+    try (CloseableIterator<DefaultIssue> issues = cache.traverse()) {
+      assertThat(issues.hasNext()).isTrue();
+      DefaultIssue issue = issues.next();
+      assertThat(issues.hasNext()).isFalse();
+      return issue;
+    }
+  }
+}
@@ -0,0 +1,58 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.issue;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PersistedIssuesDateTest {
+
+  @Rule
+  public ExpectedException thrown = ExpectedException.none();
+
+  PersistedIssuesDate underTest = new PersistedIssuesDate();
+
+  @Test
+  public void set_date() {
+    underTest.set(1_500_000_000_000L);
+
+    assertThat(underTest.get()).isEqualTo(1_500_000_000_000L);
+  }
+
+  @Test
+  public void fail_with_ISE_when_getting_date_before_initialization() {
+    thrown.expect(IllegalStateException.class);
+    thrown.expectMessage("Date has not been initialized yet");
+
+    underTest.get();
+  }
+
+  @Test
+  public void fail_with_ISE_when_setting_date_twice() {
+    thrown.expect(IllegalStateException.class);
+    thrown.expectMessage("Date has already been initialized");
+
+    underTest.set(1_500_000_000_000L);
+    underTest.set(1_600_000_000_000L);
+  }
+}
@@ -22,6 +22,7 @@ package org.sonar.server.computation.task.projectanalysis.issue;
 import com.google.common.base.Optional;
 import org.junit.Before;
 import org.junit.Test;
+import org.sonar.core.issue.tracking.LineHashSequence;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.source.FileSourceDao;
@@ -29,10 +30,13 @@ import org.sonar.server.computation.task.projectanalysis.component.Component;
 import org.sonar.server.computation.task.projectanalysis.component.ReportComponent;
 import org.sonar.server.computation.task.projectanalysis.filemove.MovedFilesRepository;
 
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 public class TrackerBaseInputFactoryTest {
@@ -45,8 +49,9 @@ public class TrackerBaseInputFactoryTest {
   private FileSourceDao fileSourceDao = mock(FileSourceDao.class);
 
   private MovedFilesRepository movedFilesRepository = mock(MovedFilesRepository.class);
+  private BaseDataRepository baseDataRepository = mock(BaseDataRepository.class);
 
-  private TrackerBaseInputFactory underTest = new TrackerBaseInputFactory(baseIssuesLoader, dbClient, movedFilesRepository);
+  private TrackerBaseInputFactory underTest = new TrackerBaseInputFactory(baseIssuesLoader, dbClient, movedFilesRepository, baseDataRepository);
 
   @Before
   public void setUp() throws Exception {
@@ -97,4 +102,24 @@ public class TrackerBaseInputFactoryTest {
     verify(baseIssuesLoader).loadForComponentUuid(originalUuid);
     verify(baseIssuesLoader, times(0)).loadForComponentUuid(FILE_UUID);
   }
+
+  @Test
+  public void create_returns_Input_which_retrieves_lines_hashes_from_BaseDataRepository_when_it_is_loaded() {
+    when(baseDataRepository.isLoaded()).thenReturn(true);
+    when(baseDataRepository.getLineHashes(FILE_UUID)).thenReturn(asList("h1", "h2"));
+
+    LineHashSequence lineHashSequence = underTest.create(FILE).getLineHashSequence();
+
+    assertThat(lineHashSequence.length()).isEqualTo(2);
+    assertThat(lineHashSequence.getHashForLine(2)).isEqualTo("h2");
+    verifyZeroInteractions(fileSourceDao);
+  }
+
+  @Test
+  public void create_returns_Input_with_empty_lines_hashes_when_file_is_not_in_loaded_BaseDataRepository() {
+    when(baseDataRepository.isLoaded()).thenReturn(true);
+
+    assertThat(underTest.create(FILE).getLineHashSequence().length()).isEqualTo(0);
+    verifyZeroInteractions(fileSourceDao);
+  }
 }
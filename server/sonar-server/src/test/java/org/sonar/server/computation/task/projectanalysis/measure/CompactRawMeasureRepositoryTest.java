@@ -0,0 +1,179 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.measure;
+
+import com.google.common.collect.SetMultimap;
+import java.util.Set;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.sonar.server.computation.task.projectanalysis.component.Component;
+import org.sonar.server.computation.task.projectanalysis.component.Developer;
+import org.sonar.server.computation.task.projectanalysis.component.DumbDeveloper;
+import org.sonar.server.computation.task.projectanalysis.component.ReportComponent;
+import org.sonar.server.computation.task.projectanalysis.measure.RawMeasureRepository.OverridePolicy;
+import org.sonar.server.computation.task.projectanalysis.metric.Metric;
+import org.sonar.server.computation.task.projectanalysis.metric.MetricImpl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.guava.api.Assertions.assertThat;
+import static org.sonar.server.computation.task.projectanalysis.measure.Measure.newMeasureBuilder;
+
+public class CompactRawMeasureRepositoryTest {
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  private static final ReportComponent FILE_COMPONENT = ReportComponent.builder(Component.Type.FILE, 1).setKey("file cpt key").build();
+  private static final ReportComponent OTHER_COMPONENT = ReportComponent.builder(Component.Type.FILE, 2).setKey("some other key").build();
+  private static final Metric INT_METRIC = new MetricImpl(1, "int", "int", Metric.MetricType.INT);
+  private static final Metric LONG_METRIC = new MetricImpl(2, "long", "long", Metric.MetricType.WORK_DUR);
+  private static final Metric DOUBLE_METRIC = new MetricImpl(3, "double", "double", Metric.MetricType.FLOAT);
+  private static final Metric BOOLEAN_METRIC = new MetricImpl(4, "boolean", "boolean", Metric.MetricType.BOOL);
+  private static final Metric STRING_METRIC = new MetricImpl(5, "string", "string", Metric.MetricType.STRING);
+  private static final Developer SOME_DEVELOPER = new DumbDeveloper("DEV1");
+
+  private CompactRawMeasureRepository underTest = new CompactRawMeasureRepository();
+
+  @Test
+  public void getRawMeasure_returns_absent_if_repository_is_empty() {
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, INT_METRIC)).isAbsent();
+  }
+
+  @Test
+  public void getRawMeasure_recreates_measures_stored_as_raw_values() {
+    underTest.add(FILE_COMPONENT, INT_METRIC, newMeasureBuilder().create(12));
+    underTest.add(FILE_COMPONENT, LONG_METRIC, newMeasureBuilder().create(1_000_000_000_000L));
+    underTest.add(FILE_COMPONENT, DOUBLE_METRIC, newMeasureBuilder().create(45.678d, 3));
+    underTest.add(FILE_COMPONENT, BOOLEAN_METRIC, newMeasureBuilder().create(true));
+    underTest.add(OTHER_COMPONENT, INT_METRIC, newMeasureBuilder().createNoValue());
+
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, INT_METRIC).get().getIntValue()).isEqualTo(12);
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, LONG_METRIC).get().getLongValue()).isEqualTo(1_000_000_000_000L);
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, DOUBLE_METRIC).get().getDoubleValue()).isEqualTo(45.678d);
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, BOOLEAN_METRIC).get().getBooleanValue()).isTrue();
+    assertThat(underTest.getRawMeasure(OTHER_COMPONENT, INT_METRIC).get().getValueType()).isEqualTo(Measure.ValueType.NO_VALUE);
+    assertThat(underTest.getRawMeasure(OTHER_COMPONENT, LONG_METRIC)).isAbsent();
+  }
+
+  @Test
+  public void getRawMeasure_returns_measures_with_data_or_variations_as_is() {
+    Measure stringMeasure = newMeasureBuilder().create("some value");
+    Measure intMeasureWithData = newMeasureBuilder().create(12, "some data");
+    underTest.add(FILE_COMPONENT, STRING_METRIC, stringMeasure);
+    underTest.add(FILE_COMPONENT, INT_METRIC, intMeasureWithData);
+
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, STRING_METRIC).get()).isSameAs(stringMeasure);
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, INT_METRIC).get()).isSameAs(intMeasureWithData);
+
+    Measure updated = Measure.updatedMeasureBuilder(intMeasureWithData).setVariations(new MeasureVariations(1d)).create();
+    underTest.update(FILE_COMPONENT, INT_METRIC, updated);
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, INT_METRIC).get()).isSameAs(updated);
+  }
+
+  @Test
+  public void update_replaces_object_measure_by_raw_value() {
+    underTest.add(FILE_COMPONENT, INT_METRIC, newMeasureBuilder().create(12, "some data"));
+    underTest.update(FILE_COMPONENT, INT_METRIC, newMeasureBuilder().create(13));
+
+    Measure measure = underTest.getRawMeasure(FILE_COMPONENT, INT_METRIC).get();
+    assertThat(measure.getIntValue()).isEqualTo(13);
+    assertThat(measure.getData()).isNull();
+  }
+
+  @Test
+  public void add_throws_UOE_if_measure_already_exists() {
+    underTest.add(FILE_COMPONENT, INT_METRIC, newMeasureBuilder().create(12));
+
+    expectedException.expect(UnsupportedOperationException.class);
+    underTest.add(FILE_COMPONENT, INT_METRIC, newMeasureBuilder().create(13));
+  }
+
+  @Test
+  public void update_throws_UOE_if_measure_does_not_exist() {
+    expectedException.expect(UnsupportedOperationException.class);
+    underTest.update(FILE_COMPONENT, INT_METRIC, newMeasureBuilder().create(13));
+  }
+
+  @Test
+  public void add_throws_IAE_if_valueType_of_Measure_is_not_the_same_as_the_Metric_valueType() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Measure's ValueType (STRING) is not consistent with the Metric's ValueType (INT)");
+
+    underTest.add(FILE_COMPONENT, INT_METRIC, newMeasureBuilder().create("some value"));
+  }
+
+  @Test
+  public void add_with_DO_NOT_OVERRIDE_keeps_existing_measure() {
+    underTest.add(FILE_COMPONENT, INT_METRIC, newMeasureBuilder().create(12), OverridePolicy.DO_NOT_OVERRIDE);
+    underTest.add(FILE_COMPONENT, INT_METRIC, newMeasureBuilder().create(13), OverridePolicy.DO_NOT_OVERRIDE);
+
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, INT_METRIC).get().getIntValue()).isEqualTo(12);
+
+    underTest.add(FILE_COMPONENT, INT_METRIC, newMeasureBuilder().create(14), OverridePolicy.OVERRIDE);
+
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, INT_METRIC).get().getIntValue()).isEqualTo(14);
+  }
+
+  @Test
+  public void developer_measures_are_stored_apart() {
+    Measure devMeasure = newMeasureBuilder().forDeveloper(SOME_DEVELOPER).create(5);
+    underTest.add(FILE_COMPONENT, INT_METRIC, devMeasure);
+
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, INT_METRIC)).isAbsent();
+
+    underTest.add(FILE_COMPONENT, INT_METRIC, newMeasureBuilder().create(12));
+
+    Set<Measure> measures = underTest.getRawMeasures(FILE_COMPONENT, INT_METRIC);
+    assertThat(measures).hasSize(2);
+    assertThat(measures).contains(devMeasure);
+  }
+
+  @Test
+  public void getRawMeasures_returns_all_measures_of_component_by_metric_key() {
+    Measure stringMeasure = newMeasureBuilder().create("some value");
+    Measure devMeasure = newMeasureBuilder().forDeveloper(SOME_DEVELOPER).create(5);
+    underTest.add(FILE_COMPONENT, INT_METRIC, newMeasureBuilder().create(12));
+    underTest.add(FILE_COMPONENT, INT_METRIC, devMeasure);
+    underTest.add(FILE_COMPONENT, STRING_METRIC, stringMeasure);
+    underTest.add(OTHER_COMPONENT, DOUBLE_METRIC, newMeasureBuilder().create(1d, 1));
+
+    SetMultimap<String, Measure> measures = underTest.getRawMeasures(FILE_COMPONENT);
+
+    assertThat(measures.keySet()).containsOnly(INT_METRIC.getKey(), STRING_METRIC.getKey());
+    assertThat(measures.get(INT_METRIC.getKey())).hasSize(2).contains(devMeasure);
+    assertThat(measures.get(STRING_METRIC.getKey())).containsOnly(stringMeasure);
+    assertThat(underTest.getRawMeasures(ReportComponent.builder(Component.Type.FILE, 3).build()).isEmpty()).isTrue();
+  }
+
+  @Test
+  public void stores_more_measures_than_initial_capacity() {
+    for (int ref = 1; ref <= 5_000; ref++) {
+      Component component = ReportComponent.builder(Component.Type.FILE, ref).build();
+      underTest.add(component, INT_METRIC, newMeasureBuilder().create(ref));
+      underTest.add(component, DOUBLE_METRIC, newMeasureBuilder().create(ref / 10d, 1));
+    }
+
+    for (int ref = 1; ref <= 5_000; ref++) {
+      Component component = ReportComponent.builder(Component.Type.FILE, ref).build();
+      assertThat(underTest.getRawMeasure(component, INT_METRIC).get().getIntValue()).isEqualTo(ref);
+      assertThat(underTest.getRawMeasure(component, DOUBLE_METRIC).get().getDoubleValue()).isEqualTo(ref / 10d);
+    }
+  }
+}
@@ -0,0 +1,99 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.measure;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ComponentMetricValuesTest {
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  private ComponentMetricValues underTest = new ComponentMetricValues();
+
+  @Test
+  public void get_returns_default_value_if_absent() {
+    underTest.put("C1", 1, 10d);
+
+    assertThat(underTest.get("C2", 1, -1d)).isEqualTo(-1d);
+    assertThat(underTest.get("C1", 2, -1d)).isEqualTo(-1d);
+    assertThat(underTest.contains("C1", 2)).isFalse();
+    assertThat(underTest.contains("C2", 1)).isFalse();
+  }
+
+  @Test
+  public void put_and_get_values_by_component_and_metric() {
+    underTest.put("C1", 1, 10d);
+    underTest.put("C1", 2, 20d);
+    underTest.put("C2", 1, 30d);
+
+    assertThat(underTest.size()).isEqualTo(3);
+    assertThat(underTest.contains("C1", 1)).isTrue();
+    assertThat(underTest.get("C1", 1, 0d)).isEqualTo(10d);
+    assertThat(underTest.get("C1", 2, 0d)).isEqualTo(20d);
+    assertThat(underTest.get("C2", 1, 0d)).isEqualTo(30d);
+  }
+
+  @Test
+  public void put_overrides_existing_value() {
+    underTest.put("C1", 1, 10d);
+    underTest.put("C1", 1, 15d);
+
+    assertThat(underTest.size()).isEqualTo(1);
+    assertThat(underTest.get("C1", 1, 0d)).isEqualTo(15d);
+  }
+
+  @Test
+  public void grows_beyond_initial_capacity() {
+    ComponentMetricValues values = new ComponentMetricValues(2);
+    for (int component = 0; component < 500; component++) {
+      for (int metric = 0; metric < 20; metric++) {
+        values.put("C" + component, metric, component * 100d + metric);
+      }
+    }
+
+    assertThat(values.size()).isEqualTo(10_000);
+    for (int component = 0; component < 500; component++) {
+      for (int metric = 0; metric < 20; metric++) {
+        assertThat(values.get("C" + component, metric, -1d)).isEqualTo(component * 100d + metric);
+      }
+    }
+  }
+
+  @Test
+  public void put_fails_with_NPE_if_component_uuid_is_null() {
+    expectedException.expect(NullPointerException.class);
+    expectedException.expectMessage("component uuid can't be null");
+
+    underTest.put(null, 1, 10d);
+  }
+
+  @Test
+  public void put_fails_with_IAE_if_metric_id_is_negative() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("metric id can't be negative");
+
+    underTest.put("C1", -1, 10d);
+  }
+}
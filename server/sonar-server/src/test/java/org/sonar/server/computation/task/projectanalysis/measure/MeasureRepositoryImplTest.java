@@ -34,6 +34,7 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.junit.runner.RunWith;
+import org.sonar.api.config.MapSettings;
 import org.sonar.api.utils.System2;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
@@ -99,8 +100,10 @@ public class MeasureRepositoryImplTest {
 
   @Before
   public void setUp() {
+    when(metric1.getId()).thenReturn(METRIC_ID_1);
     when(metric1.getKey()).thenReturn(METRIC_KEY_1);
     when(metric1.getType()).thenReturn(Metric.MetricType.STRING);
+    when(metric2.getId()).thenReturn(METRIC_ID_2);
     when(metric2.getKey()).thenReturn(METRIC_KEY_2);
     when(metric2.getType()).thenReturn(Metric.MetricType.STRING);
 
@@ -155,6 +158,20 @@ public class MeasureRepositoryImplTest {
     assertThat(res).isAbsent();
   }
 
+  @Test
+  public void getBaseMeasure_loads_all_measures_of_component_only_once() {
+    dbTester.prepareDbUnit(getClass(), "shared.xml");
+    dbClient.measureDao().insert(dbSession, createMeasureDto(METRIC_ID_1, FILE_COMPONENT.getUuid(), LAST_ANALYSIS_UUID));
+    dbSession.commit();
+
+    assertThat(underTest.getBaseMeasure(FILE_COMPONENT, metric1)).isPresent();
+
+    // measures of FILE_COMPONENT are not read again from DB
+    dbClient.measureDao().insert(dbSession, createMeasureDto(METRIC_ID_2, FILE_COMPONENT.getUuid(), LAST_ANALYSIS_UUID));
+    dbSession.commit();
+    assertThat(underTest.getBaseMeasure(FILE_COMPONENT, metric2)).isAbsent();
+  }
+
   @Test
   public void add_throws_NPE_if_Component_argument_is_null() {
     expectedException.expect(NullPointerException.class);
@@ -322,6 +339,22 @@ public class MeasureRepositoryImplTest {
     assertThat(underTest.getRawMeasure(FILE_COMPONENT, metric2)).isAbsent();
   }
 
+  @Test
+  public void getRawMeasure_returns_measure_added_through_add_method_when_raw_measures_are_compact() {
+    MapSettings settings = new MapSettings();
+    settings.setProperty(MeasureRepositoryImpl.COMPACT_RAW_MEASURES_PROPERTY, true);
+    MeasureRepositoryImpl underTest = new MeasureRepositoryImpl(dbClient, reportReader, metricRepository, reportMetricValidator, settings);
+    Measure measure = Measure.newMeasureBuilder().create(12.5d, 1);
+    underTest.add(FILE_COMPONENT, metric1, measure);
+
+    Optional<Measure> res = underTest.getRawMeasure(FILE_COMPONENT, metric1);
+
+    assertThat(res).isPresent();
+    assertThat(res.get().getDoubleValue()).isEqualTo(12.5d);
+    assertThat(underTest.getRawMeasure(OTHER_COMPONENT, metric1)).isAbsent();
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, metric2)).isAbsent();
+  }
+
   @Test
   public void getRawMeasure_returns_measure_from_batch_if_not_added_through_add_method() {
     String value = "trololo";
@@ -26,6 +26,8 @@ import org.apache.commons.io.FileUtils;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.sonar.api.config.MapSettings;
+import org.sonar.api.config.Settings;
 import org.sonar.api.utils.MessageException;
 import org.sonar.api.utils.System2;
 import org.sonar.api.utils.ZipUtils;
@@ -33,8 +35,10 @@ import org.sonar.api.utils.internal.JUnitTempFolder;
 import org.sonar.api.utils.log.LogTester;
 import org.sonar.api.utils.log.LoggerLevel;
 import org.sonar.ce.queue.CeTask;
+import org.sonar.ce.queue.report.DbReportStorage;
 import org.sonar.db.DbTester;
 import org.sonar.db.ce.CeTaskTypes;
+import org.sonar.scanner.protocol.output.ScannerReportWriter;
 import org.sonar.server.computation.task.projectanalysis.batch.BatchReportDirectoryHolderImpl;
 import org.sonar.server.computation.task.projectanalysis.batch.MutableBatchReportDirectoryHolder;
 
@@ -59,24 +63,20 @@ public class ExtractReportStepTest {
   private MutableBatchReportDirectoryHolder reportDirectoryHolder = new BatchReportDirectoryHolderImpl();
   private CeTask ceTask = new CeTask.Builder().setType(CeTaskTypes.REPORT).setUuid(TASK_UUID).build();
 
-  private ExtractReportStep underTest = new ExtractReportStep(dbTester.getDbClient(), ceTask, tempFolder, reportDirectoryHolder);
+  private Settings settings = new MapSettings();
+  private ExtractReportStep underTest = new ExtractReportStep(settings, new DbReportStorage(dbTester.getDbClient()), ceTask, tempFolder, reportDirectoryHolder);
 
   @Test
   public void fail_if_report_zip_does_not_exist() throws Exception {
     expectedException.expect(MessageException.class);
-    expectedException.expectMessage("Analysis report 1 is missing in database");
+    expectedException.expectMessage("Analysis report 1 is missing in storage");
 
     underTest.execute();
   }
 
   @Test
   public void unzip_report() throws Exception {
-    File reportFile = generateReport();
-    try (InputStream input = FileUtils.openInputStream(reportFile)) {
-      dbTester.getDbClient().ceTaskInputDao().insert(dbTester.getSession(), TASK_UUID, input);
-    }
-    dbTester.getSession().commit();
-    dbTester.getSession().close();
+    insertReport(generateReport());
 
     underTest.execute();
 
@@ -87,6 +87,43 @@ public class ExtractReportStepTest {
     assertThat(new File(unzippedDir, "metadata.pb")).hasContent("{metadata}");
   }
 
+  @Test
+  public void copy_zip_file_of_report_if_report_is_read_from_zip() throws Exception {
+    settings.setProperty(ExtractReportStep.READ_REPORT_FROM_ZIP_PROPERTY, true);
+    File reportFile = generateReport();
+    insertReport(reportFile);
+
+    underTest.execute();
+
+    File zip = reportDirectoryHolder.getDirectory();
+    assertThat(zip).isFile();
+    assertThat(FileUtils.contentEquals(zip, reportFile)).isTrue();
+  }
+
+  @Test
+  public void unzip_segmented_report_even_if_report_is_read_from_zip() throws Exception {
+    settings.setProperty(ExtractReportStep.READ_REPORT_FROM_ZIP_PROPERTY, true);
+    File zipDir = tempFolder.newDir();
+    new ScannerReportWriter(zipDir, true).close();
+    File zip = tempFolder.newFile();
+    ZipUtils.zipDir(zipDir, zip);
+    insertReport(zip);
+
+    underTest.execute();
+
+    File unzippedDir = reportDirectoryHolder.getDirectory();
+    assertThat(unzippedDir).isDirectory();
+    assertThat(unzippedDir.list()).contains("segments.idx");
+  }
+
+  private void insertReport(File reportFile) throws IOException {
+    try (InputStream input = FileUtils.openInputStream(reportFile)) {
+      dbTester.getDbClient().ceTaskInputDao().insert(dbTester.getSession(), TASK_UUID, input);
+    }
+    dbTester.getSession().commit();
+    dbTester.getSession().close();
+  }
+
   private File generateReport() throws IOException {
     File zipDir = tempFolder.newDir();
     File metadataFile = new File(zipDir, "metadata.pb");
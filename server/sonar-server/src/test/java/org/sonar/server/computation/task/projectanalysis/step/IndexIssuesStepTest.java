@@ -19,31 +19,184 @@
  */
 package org.sonar.server.computation.task.projectanalysis.step;
 
+import com.google.common.collect.Iterators;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.issue.Issue;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.api.rule.Severity;
+import org.sonar.api.rules.RuleType;
+import org.sonar.api.utils.System2;
+import org.sonar.api.utils.log.LogTester;
+import org.sonar.api.utils.log.LoggerLevel;
+import org.sonar.core.issue.DefaultIssue;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.DbTester;
+import org.sonar.db.component.ComponentDto;
+import org.sonar.db.component.ComponentTesting;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolderRule;
+import org.sonar.server.computation.task.projectanalysis.issue.IssueCache;
+import org.sonar.server.computation.task.projectanalysis.issue.PersistedIssuesDate;
+import org.sonar.server.computation.task.projectanalysis.issue.RuleRepositoryRule;
+import org.sonar.server.computation.task.projectanalysis.issue.UpdateConflictResolver;
+import org.sonar.server.issue.index.IssueDoc;
 import org.sonar.server.issue.index.IssueIndexer;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
-import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.*;
-import static org.sonar.server.computation.task.projectanalysis.component.ReportComponent.*;
+import static org.mockito.Mockito.when;
+import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.PROJECT;
+import static org.sonar.server.computation.task.projectanalysis.component.ReportComponent.builder;
 
 public class IndexIssuesStepTest {
 
-  static String PROJECT_UUID = "PROJECT_UUID";
+  static final long NOW = 1_400_000_000_000L;
+  static final RuleKey RULE_KEY = RuleKey.of("xoo", "S01");
 
   @Rule
-  public TreeRootHolderRule treeRootHolder = new TreeRootHolderRule()
-    .setRoot(builder(PROJECT, 1).setUuid(PROJECT_UUID).setKey("PROJECT_KEY").build());
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  @Rule
+  public DbTester dbTester = DbTester.create(System2.INSTANCE);
+
+  @Rule
+  public RuleRepositoryRule ruleRepository = new RuleRepositoryRule();
+
+  @Rule
+  public TreeRootHolderRule treeRootHolder = new TreeRootHolderRule();
+
+  @Rule
+  public LogTester logTester = new LogTester();
+
+  DbClient dbClient = dbTester.getDbClient();
+  DbSession session = dbTester.getSession();
+  PersistedIssuesDate persistedIssuesDate = new PersistedIssuesDate();
+  IssueIndexer issueIndexer = mock(IssueIndexer.class);
+  List<IssueDoc> indexedDocs = new ArrayList<>();
+
+  IssueCache issueCache;
+  ComponentDto project;
+  ComponentDto file;
+
+  @Before
+  public void setUp() throws Exception {
+    issueCache = new IssueCache(temp.newFile());
+    persistedIssuesDate.set(NOW);
+    ruleRepository.add(RULE_KEY).setLanguage("xoo");
+
+    project = ComponentTesting.newProjectDto();
+    dbClient.componentDao().insert(session, project);
+    file = ComponentTesting.newFileDto(project, null).setPath("src/Foo.xoo");
+    dbClient.componentDao().insert(session, file);
+    session.commit();
+    treeRootHolder.setRoot(builder(PROJECT, 1).setUuid(project.uuid()).setKey(project.key()).build());
+
+    // documents must be consumed while the issue cache is being traversed
+    doAnswer(invocation -> {
+      Iterators.addAll(indexedDocs, (Iterator<IssueDoc>) invocation.getArguments()[0]);
+      return null;
+    }).when(issueIndexer).indexLoadedDocuments(any(Iterator.class));
+  }
+
+  @Test
+  public void index_persisted_issues_from_cache() {
+    issueCache.newAppender()
+      .append(newIssue("NEW", file.uuid()).setNew(true))
+      .append(newIssue("CHANGED", file.uuid()).setChanged(true))
+      .append(newIssue("UNCHANGED", file.uuid()))
+      .close();
+
+    newStep(new UpdateConflictResolver()).execute();
+
+    assertThat(indexedDocs).extracting(IssueDoc::key).containsOnly("NEW", "CHANGED");
+    verify(issueIndexer, never()).index(anyString());
+  }
 
   @Test
-  public void call_indexers() {
-    IssueIndexer issueIndexer = mock(IssueIndexer.class);
-    IndexIssuesStep underTest = new IndexIssuesStep(issueIndexer, treeRootHolder);
+  public void build_documents_from_issue_component_and_rule() {
+    issueCache.newAppender().append(newIssue("NEW", file.uuid()).setNew(true)).close();
 
-    underTest.execute();
+    newStep(new UpdateConflictResolver()).execute();
+
+    assertThat(indexedDocs).hasSize(1);
+    IssueDoc doc = indexedDocs.get(0);
+    assertThat(doc.key()).isEqualTo("NEW");
+    assertThat(doc.ruleKey()).isEqualTo(RULE_KEY);
+    assertThat(doc.language()).isEqualTo("xoo");
+    assertThat(doc.componentUuid()).isEqualTo(file.uuid());
+    assertThat(doc.componentKey()).isEqualTo(file.key());
+    assertThat(doc.projectUuid()).isEqualTo(project.uuid());
+    assertThat(doc.filePath()).isEqualTo("src/Foo.xoo");
+    assertThat(doc.severity()).isEqualTo(Severity.MAJOR);
+    assertThat(doc.status()).isEqualTo(Issue.STATUS_OPEN);
+    assertThat(doc.type()).isEqualTo(RuleType.BUG);
+    assertThat(doc.line()).isEqualTo(42);
+    assertThat(doc.getTechnicalUpdateDate().getTime()).isEqualTo(NOW);
+  }
+
+  @Test
+  public void log_issues_on_unknown_components() {
+    issueCache.newAppender()
+      .append(newIssue("KNOWN", file.uuid()).setNew(true))
+      .append(newIssue("UNKNOWN", "UNKNOWN_UUID").setNew(true))
+      .close();
+
+    newStep(new UpdateConflictResolver()).execute();
+
+    assertThat(indexedDocs).extracting(IssueDoc::key).containsOnly("KNOWN");
+    assertThat(logTester.logs(LoggerLevel.WARN)).containsOnly("Issue UNKNOWN is not indexed because its component UNKNOWN_UUID does not exist");
+  }
+
+  @Test
+  public void load_components_by_partitions_of_issues() {
+    IssueCache.DiskAppender appender = issueCache.newAppender();
+    for (int i = 0; i < 2_500; i++) {
+      appender.append(newIssue("ISSUE_" + i, i % 2 == 0 ? file.uuid() : project.uuid()).setNew(true));
+    }
+    appender.close();
+
+    newStep(new UpdateConflictResolver()).execute();
+
+    assertThat(indexedDocs).hasSize(2_500);
+    assertThat(logTester.logs(LoggerLevel.WARN)).isEmpty();
+  }
+
+  @Test
+  public void reindex_project_from_db_instead_of_cache_when_conflicts_have_been_resolved() {
+    UpdateConflictResolver conflictResolver = mock(UpdateConflictResolver.class);
+    when(conflictResolver.hasResolvedConflicts()).thenReturn(true);
+    issueCache.newAppender().append(newIssue("NEW", file.uuid()).setNew(true)).close();
+
+    newStep(conflictResolver).execute();
+
+    verify(issueIndexer).index(project.uuid());
+    verify(issueIndexer, never()).indexLoadedDocuments(any(Iterator.class));
+  }
+
+  private IndexIssuesStep newStep(UpdateConflictResolver conflictResolver) {
+    return new IndexIssuesStep(issueIndexer, treeRootHolder, issueCache, ruleRepository, dbClient, persistedIssuesDate, conflictResolver);
+  }
 
-    verify(issueIndexer).index(PROJECT_UUID);
+  private static DefaultIssue newIssue(String key, String componentUuid) {
+    return new DefaultIssue()
+      .setKey(key)
+      .setType(RuleType.BUG)
+      .setRuleKey(RULE_KEY)
+      .setComponentUuid(componentUuid)
+      .setProjectUuid("PROJECT")
+      .setSeverity(Severity.MAJOR)
+      .setStatus(Issue.STATUS_OPEN)
+      .setLine(42);
   }
 }
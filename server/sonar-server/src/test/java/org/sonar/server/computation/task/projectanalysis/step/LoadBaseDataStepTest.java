@@ -0,0 +1,135 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.step;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.api.issue.Issue;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.api.utils.System2;
+import org.sonar.api.utils.internal.JUnitTempFolder;
+import org.sonar.db.DbTester;
+import org.sonar.db.component.ComponentDto;
+import org.sonar.db.component.ComponentTesting;
+import org.sonar.db.protobuf.DbFileSources;
+import org.sonar.db.rule.RuleDto;
+import org.sonar.db.rule.RuleTesting;
+import org.sonar.db.source.FileSourceDto;
+import org.sonar.server.computation.task.projectanalysis.analysis.Analysis;
+import org.sonar.server.computation.task.projectanalysis.analysis.AnalysisMetadataHolderRule;
+import org.sonar.server.computation.task.projectanalysis.component.Component;
+import org.sonar.server.computation.task.projectanalysis.component.ReportComponent;
+import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolderRule;
+import org.sonar.server.computation.task.projectanalysis.issue.BaseDataRepository;
+import org.sonar.server.computation.task.projectanalysis.issue.BaseIssuesLoader;
+import org.sonar.server.computation.task.projectanalysis.issue.RuleRepositoryRule;
+import org.sonar.server.computation.task.projectanalysis.qualityprofile.ActiveRulesHolderRule;
+import org.sonar.server.computation.task.step.ComputationStep;
+import org.sonar.server.issue.IssueTesting;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LoadBaseDataStepTest extends BaseStepTest {
+
+  private static final String PROJECT_UUID = "PROJECT_UUID";
+  private static final RuleKey RULE_KEY = RuleKey.of("xoo", "S001");
+
+  @Rule
+  public DbTester dbTester = DbTester.create(System2.INSTANCE);
+  @Rule
+  public JUnitTempFolder tempFolder = new JUnitTempFolder();
+  @Rule
+  public TreeRootHolderRule treeRootHolder = new TreeRootHolderRule()
+    .setRoot(ReportComponent.builder(Component.Type.PROJECT, 1).setUuid(PROJECT_UUID).build());
+  @Rule
+  public AnalysisMetadataHolderRule analysisMetadataHolder = new AnalysisMetadataHolderRule();
+  @Rule
+  public RuleRepositoryRule ruleRepository = new RuleRepositoryRule();
+  @Rule
+  public ActiveRulesHolderRule activeRulesHolder = new ActiveRulesHolderRule();
+
+  private BaseDataRepository baseDataRepository;
+  private LoadBaseDataStep underTest;
+
+  @Override
+  protected ComputationStep step() {
+    return underTest;
+  }
+
+  @Before
+  public void setUp() {
+    baseDataRepository = new BaseDataRepository(tempFolder);
+    BaseIssuesLoader baseIssuesLoader = new BaseIssuesLoader(treeRootHolder, dbTester.getDbClient(), ruleRepository, activeRulesHolder, baseDataRepository);
+    underTest = new LoadBaseDataStep(dbTester.getDbClient(), treeRootHolder, analysisMetadataHolder, baseIssuesLoader, baseDataRepository);
+  }
+
+  @Test
+  public void load_open_issues_and_line_hashes_of_project() {
+    analysisMetadataHolder.setBaseAnalysis(new Analysis.Builder().setId(1).setUuid("ANALYSIS_UUID").setCreatedAt(1_000L).build());
+    ComponentDto project = ComponentTesting.newProjectDto(PROJECT_UUID);
+    ComponentDto file1 = ComponentTesting.newFileDto(project, null, "FILE_1");
+    ComponentDto file2 = ComponentTesting.newFileDto(project, null, "FILE_2");
+    dbTester.getDbClient().componentDao().insert(dbTester.getSession(), project, file1, file2);
+    RuleDto rule = RuleTesting.newDto(RULE_KEY);
+    dbTester.getDbClient().ruleDao().insert(dbTester.getSession(), rule);
+    ruleRepository.add(RULE_KEY);
+    insertIssue(rule, file1, project, "I1", Issue.STATUS_OPEN);
+    insertIssue(rule, file2, project, "I2", Issue.STATUS_CONFIRMED);
+    insertIssue(rule, file1, project, "I3", Issue.STATUS_OPEN);
+    insertIssue(rule, file1, project, "I4", Issue.STATUS_CLOSED);
+    dbTester.getDbClient().fileSourceDao().insert(dbTester.getSession(), new FileSourceDto()
+      .setProjectUuid(PROJECT_UUID)
+      .setFileUuid("FILE_1")
+      .setLineHashes("h1\nh2")
+      .setSrcHash("SRC_HASH")
+      .setSourceData(DbFileSources.Data.getDefaultInstance()));
+    dbTester.getSession().commit();
+
+    underTest.execute();
+
+    assertThat(baseDataRepository.isLoaded()).isTrue();
+    assertThat(baseDataRepository.getIssues("FILE_1")).extracting("key").containsOnly("I1", "I3");
+    assertThat(baseDataRepository.getIssues("FILE_2")).extracting("key").containsOnly("I2");
+    assertThat(baseDataRepository.getLineHashes("FILE_1")).containsExactly("h1", "h2");
+    assertThat(baseDataRepository.getLineHashes("FILE_2")).isNull();
+  }
+
+  @Test
+  public void do_not_query_db_on_first_analysis() {
+    analysisMetadataHolder.setBaseAnalysis(null);
+    ComponentDto project = ComponentTesting.newProjectDto(PROJECT_UUID);
+    ComponentDto file = ComponentTesting.newFileDto(project, null, "FILE_1");
+    dbTester.getDbClient().componentDao().insert(dbTester.getSession(), project, file);
+    RuleDto rule = RuleTesting.newDto(RULE_KEY);
+    dbTester.getDbClient().ruleDao().insert(dbTester.getSession(), rule);
+    insertIssue(rule, file, project, "I1", Issue.STATUS_OPEN);
+    dbTester.getSession().commit();
+
+    underTest.execute();
+
+    assertThat(baseDataRepository.isLoaded()).isTrue();
+    assertThat(baseDataRepository.getIssues("FILE_1")).isEmpty();
+  }
+
+  private void insertIssue(RuleDto rule, ComponentDto file, ComponentDto project, String key, String status) {
+    dbTester.getDbClient().issueDao().insert(dbTester.getSession(), IssueTesting.newDto(rule, file, project).setKee(key).setStatus(status));
+  }
+}
@@ -24,6 +24,7 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.sonar.api.config.MapSettings;
 import org.sonar.api.utils.System2;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
@@ -82,12 +83,13 @@ public class PersistFileSourcesStepTest extends BaseStepTest {
   private DbClient dbClient = dbTester.getDbClient();
   private DbSession session = dbTester.getSession();
 
+  private MapSettings settings = new MapSettings();
   private PersistFileSourcesStep underTest;
 
   @Before
   public void setup() {
     when(system2.now()).thenReturn(NOW);
-    underTest = new PersistFileSourcesStep(dbClient, system2, treeRootHolder, reportReader, fileSourceRepository, scmInfoRepository, duplicationRepository);
+    underTest = new PersistFileSourcesStep(dbClient, system2, treeRootHolder, reportReader, fileSourceRepository, scmInfoRepository, duplicationRepository, settings);
   }
 
   @Override
@@ -119,6 +121,27 @@ public class PersistFileSourcesStepTest extends BaseStepTest {
     assertThat(data.getLines(1).getSource()).isEqualTo("line2");
   }
 
+  @Test
+  public void persist_sources_of_many_files_in_several_batches() {
+    settings.setProperty(PersistFileSourcesStep.BATCH_SIZE_PROPERTY, "100");
+    underTest = new PersistFileSourcesStep(dbClient, system2, treeRootHolder, reportReader, fileSourceRepository, scmInfoRepository, duplicationRepository, settings);
+    ReportComponent.Builder module = ReportComponent.builder(Component.Type.MODULE, 2).setUuid("MODULE").setKey("MODULE_KEY");
+    for (int ref = 10; ref < 30; ref++) {
+      module.addChildren(ReportComponent.builder(Component.Type.FILE, ref).setUuid("FILE_" + ref).setKey("MODULE_KEY:src/Foo" + ref + ".java").build());
+      reportReader.putComponent(ScannerReport.Component.newBuilder().setRef(ref).setType(ComponentType.FILE).build());
+      fileSourceRepository.addLine(ref, "line of file " + ref);
+    }
+    treeRootHolder.setRoot(ReportComponent.builder(Component.Type.PROJECT, 1).setUuid(PROJECT_UUID).setKey(PROJECT_KEY).addChildren(module.build()).build());
+
+    underTest.execute();
+
+    assertThat(dbTester.countRowsOfTable("file_sources")).isEqualTo(20);
+    for (int ref = 10; ref < 30; ref++) {
+      DbFileSources.Data data = dbClient.fileSourceDao().selectSourceByFileUuid(session, "FILE_" + ref).getSourceData();
+      assertThat(data.getLines(0).getSource()).isEqualTo("line of file " + ref);
+    }
+  }
+
   @Test
   public void persist_source_hashes() {
     initBasicReport(2);
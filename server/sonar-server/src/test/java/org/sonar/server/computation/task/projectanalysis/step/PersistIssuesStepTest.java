@@ -43,6 +43,7 @@ import org.sonar.db.rule.RuleTesting;
 import org.sonar.scanner.protocol.output.ScannerReport;
 import org.sonar.server.computation.task.projectanalysis.batch.BatchReportReaderRule;
 import org.sonar.server.computation.task.projectanalysis.issue.IssueCache;
+import org.sonar.server.computation.task.projectanalysis.issue.PersistedIssuesDate;
 import org.sonar.server.computation.task.projectanalysis.issue.RuleRepositoryImpl;
 import org.sonar.server.computation.task.projectanalysis.issue.UpdateConflictResolver;
 import org.sonar.server.computation.task.step.ComputationStep;
@@ -72,6 +73,8 @@ public class PersistIssuesStepTest extends BaseStepTest {
 
   IssueCache issueCache;
 
+  PersistedIssuesDate persistedIssuesDate = new PersistedIssuesDate();
+
   ComputationStep step;
 
   @Override
@@ -81,12 +84,12 @@ public class PersistIssuesStepTest extends BaseStepTest {
 
   @Before
   public void setup() throws Exception {
-    issueCache = new IssueCache(temp.newFile(), System2.INSTANCE);
+    issueCache = new IssueCache(temp.newFile());
     system2 = mock(System2.class);
     when(system2.now()).thenReturn(NOW);
     reportReader.setMetadata(ScannerReport.Metadata.getDefaultInstance());
 
-    step = new PersistIssuesStep(dbClient, system2, new UpdateConflictResolver(), new RuleRepositoryImpl(dbClient), issueCache);
+    step = new PersistIssuesStep(dbClient, system2, new UpdateConflictResolver(), new RuleRepositoryImpl(dbClient), issueCache, persistedIssuesDate);
   }
 
   @After
@@ -126,6 +129,8 @@ public class PersistIssuesStepTest extends BaseStepTest {
     assertThat(result.getSeverity()).isEqualTo(Severity.BLOCKER);
     assertThat(result.getStatus()).isEqualTo(Issue.STATUS_OPEN);
     assertThat(result.getType()).isEqualTo(RuleType.BUG.getDbConstant());
+    assertThat(result.getUpdatedAt()).isEqualTo(NOW);
+    assertThat(persistedIssuesDate.get()).isEqualTo(NOW);
   }
 
   @Test
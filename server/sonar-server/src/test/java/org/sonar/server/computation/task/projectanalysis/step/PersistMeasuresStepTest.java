@@ -21,17 +21,22 @@ package org.sonar.server.computation.task.projectanalysis.step;
 
 import java.util.List;
 import java.util.Map;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
+import org.sonar.api.config.MapSettings;
 import org.sonar.api.measures.Metric;
 import org.sonar.api.utils.System2;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbTester;
 import org.sonar.db.component.ComponentDto;
+import org.sonar.db.measure.MeasureDto;
+import org.sonar.db.measure.MeasureQuery;
 import org.sonar.db.rule.RuleDto;
 import org.sonar.server.computation.task.projectanalysis.analysis.MutableAnalysisMetadataHolderRule;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolderRule;
+import org.sonar.server.computation.task.projectanalysis.dbwriter.AsyncDbWriterImpl;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
 import org.sonar.server.computation.task.projectanalysis.component.Developer;
 import org.sonar.server.computation.task.projectanalysis.component.DumbDeveloper;
@@ -45,12 +50,14 @@ import org.sonar.server.computation.task.projectanalysis.period.Period;
 import org.sonar.server.computation.task.step.ComputationStep;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.sonar.api.measures.CoreMetrics.CLASS_COMPLEXITY_DISTRIBUTION;
 import static org.sonar.api.measures.CoreMetrics.CLASS_COMPLEXITY_DISTRIBUTION_KEY;
 import static org.sonar.api.measures.CoreMetrics.FILE_COMPLEXITY_DISTRIBUTION;
 import static org.sonar.api.measures.CoreMetrics.FILE_COMPLEXITY_DISTRIBUTION_KEY;
 import static org.sonar.api.measures.CoreMetrics.FUNCTION_COMPLEXITY_DISTRIBUTION;
 import static org.sonar.api.measures.CoreMetrics.FUNCTION_COMPLEXITY_DISTRIBUTION_KEY;
+import static org.sonar.db.component.SnapshotTesting.newAnalysis;
 import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.DIRECTORY;
 import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.FILE;
 import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.MODULE;
@@ -95,20 +102,27 @@ public class PersistMeasuresStepTest extends BaseStepTest {
   public MutableAnalysisMetadataHolderRule analysisMetadataHolder = new MutableAnalysisMetadataHolderRule();
 
   DbClient dbClient = dbTester.getDbClient();
+  MapSettings settings = new MapSettings();
   RuleDto rule;
   ComponentDto rootDto;
   ComponentDto intermediate1Dto;
   ComponentDto intermediate2Dto;
   ComponentDto leafDto;
 
+  AsyncDbWriterImpl asyncDbWriter = new AsyncDbWriterImpl(dbClient);
   PersistMeasuresStep underTest;
 
   @Before
   public void setUp() {
-    underTest = new PersistMeasuresStep(dbClient, metricRepository, new MeasureToMeasureDto(dbIdsRepository, analysisMetadataHolder), treeRootHolder, measureRepository);
+    underTest = new PersistMeasuresStep(dbClient, metricRepository, new MeasureToMeasureDto(dbIdsRepository, analysisMetadataHolder), treeRootHolder, measureRepository, asyncDbWriter, settings);
     analysisMetadataHolder.setUuid(ANALYSIS_UUID);
   }
 
+  @After
+  public void tearDown() {
+    asyncDbWriter.stop();
+  }
+
   private void setupReportComponents() {
     Component project = ReportComponent.builder(PROJECT, ROOT_REF).setUuid("root-uuid")
       .addChildren(
@@ -189,6 +203,7 @@ public class PersistMeasuresStepTest extends BaseStepTest {
     measureRepository.addRawMeasure(LEAF_REF, DOUBLE_METRIC_KEY, newMeasureBuilder().create(123.123d, 1));
 
     underTest.execute();
+    asyncDbWriter.commit();
 
     assertThat(dbTester.countRowsOfTable("project_measures")).isEqualTo(4);
 
@@ -270,6 +285,7 @@ public class PersistMeasuresStepTest extends BaseStepTest {
         .create(10d, 1));
 
     underTest.execute();
+    asyncDbWriter.commit();
 
     assertThat(dbTester.countRowsOfTable("project_measures")).isEqualTo(1);
     List<Map<String, Object>> dtos = selectSnapshots();
@@ -290,6 +306,7 @@ public class PersistMeasuresStepTest extends BaseStepTest {
     measureRepository.addRawMeasure(LEAF_REF, OPTIMIZED_METRIC_KEY, newMeasureBuilder().create(true));
 
     underTest.execute();
+    asyncDbWriter.commit();
 
     assertThat(selectSnapshots()).isEmpty();
   }
@@ -305,6 +322,7 @@ public class PersistMeasuresStepTest extends BaseStepTest {
     measureRepository.addRawMeasure(LEAF_REF, DOUBLE_METRIC_KEY, newMeasureBuilder().createNoValue());
 
     underTest.execute();
+    asyncDbWriter.commit();
 
     assertThat(selectSnapshots()).isEmpty();
   }
@@ -319,6 +337,7 @@ public class PersistMeasuresStepTest extends BaseStepTest {
     measureRepository.addRawMeasure(LEAF_REF, FILE_COMPLEXITY_DISTRIBUTION_KEY, newMeasureBuilder().create("0=1;2=10"));
 
     underTest.execute();
+    asyncDbWriter.commit();
 
     assertThat(dbTester.countRowsOfTable("project_measures")).isEqualTo(1);
 
@@ -340,6 +359,7 @@ public class PersistMeasuresStepTest extends BaseStepTest {
     measureRepository.addRawMeasure(LEAF_REF, FUNCTION_COMPLEXITY_DISTRIBUTION_KEY, newMeasureBuilder().create("0=1;2=10"));
 
     underTest.execute();
+    asyncDbWriter.commit();
 
     assertThat(dbTester.countRowsOfTable("project_measures")).isEqualTo(1);
 
@@ -361,6 +381,7 @@ public class PersistMeasuresStepTest extends BaseStepTest {
     measureRepository.addRawMeasure(LEAF_REF, CLASS_COMPLEXITY_DISTRIBUTION_KEY, newMeasureBuilder().create("0=1;2=10"));
 
     underTest.execute();
+    asyncDbWriter.commit();
 
     assertThat(dbTester.countRowsOfTable("project_measures")).isEqualTo(1);
 
@@ -383,6 +404,7 @@ public class PersistMeasuresStepTest extends BaseStepTest {
     measureRepository.addRawMeasure(ROOT_REF, INT_METRIC_KEY, newMeasureBuilder().forDeveloper(developer).create(1));
 
     underTest.execute();
+    asyncDbWriter.commit();
 
     assertThat(dbTester.countRowsOfTable("project_measures")).isEqualTo(1);
     List<Map<String, Object>> dtos = selectSnapshots();
@@ -392,6 +414,33 @@ public class PersistMeasuresStepTest extends BaseStepTest {
     assertThat(dto.get("developerId")).isEqualTo(10L);
   }
 
+  @Test
+  public void insert_measures_of_file_in_a_single_row_when_compaction_is_enabled() {
+    settings.setProperty(PersistMeasuresStep.COMPACT_FILE_MEASURES_PROPERTY, true);
+    underTest = new PersistMeasuresStep(dbClient, metricRepository, new MeasureToMeasureDto(dbIdsRepository, analysisMetadataHolder), treeRootHolder, measureRepository, asyncDbWriter, settings);
+    setupReportComponents();
+    dbClient.snapshotDao().insert(dbTester.getSession(), newAnalysis(rootDto).setUuid(ANALYSIS_UUID));
+    dbTester.commit();
+    metricRepository.add(1, STRING_METRIC);
+    metricRepository.add(2, DOUBLE_METRIC);
+
+    measureRepository.addRawMeasure(ROOT_REF, STRING_METRIC_KEY, newMeasureBuilder().create("measure-data"));
+    measureRepository.addRawMeasure(LEAF_REF, STRING_METRIC_KEY, newMeasureBuilder().create("leaf-data"));
+    measureRepository.addRawMeasure(LEAF_REF, DOUBLE_METRIC_KEY, newMeasureBuilder().create(123.123d, 1));
+
+    underTest.execute();
+    asyncDbWriter.commit();
+
+    assertThat(dbTester.countRowsOfTable("project_measures")).isEqualTo(1);
+    assertThat(dbTester.countRowsOfTable("file_measures")).isEqualTo(1);
+    List<MeasureDto> leafMeasures = dbClient.measureDao().selectByQuery(dbTester.getSession(),
+      MeasureQuery.builder().setComponentUuid(leafDto.uuid()).setAnalysisUuid(ANALYSIS_UUID).build());
+    assertThat(leafMeasures).extracting(MeasureDto::getMetricId, MeasureDto::getValue, MeasureDto::getData, MeasureDto::getAnalysisUuid)
+      .containsOnly(
+        tuple(1, null, "leaf-data", ANALYSIS_UUID),
+        tuple(2, 123.1d, null, ANALYSIS_UUID));
+  }
+
   private ComponentDto addComponent(String key, String uuid) {
     ComponentDto componentDto = new ComponentDto()
       .setKey(key)
@@ -21,6 +21,7 @@ package org.sonar.server.computation.task.projectanalysis.step;
 
 import java.util.Arrays;
 import java.util.List;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -36,6 +37,7 @@ import org.sonar.scanner.protocol.output.ScannerReport.CoverageDetail;
 import org.sonar.scanner.protocol.output.ScannerReport.Test.TestStatus;
 import org.sonar.server.computation.task.projectanalysis.batch.BatchReportReaderRule;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolderRule;
+import org.sonar.server.computation.task.projectanalysis.dbwriter.AsyncDbWriterImpl;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
 import org.sonar.server.computation.task.projectanalysis.component.FileAttributes;
 import org.sonar.server.computation.task.projectanalysis.component.ReportComponent;
@@ -74,6 +76,7 @@ public class PersistTestsStepTest extends BaseStepTest {
   DbClient dbClient = db.getDbClient();
   Component root;
 
+  AsyncDbWriterImpl asyncDbWriter = new AsyncDbWriterImpl(dbClient);
   PersistTestsStep underTest;
 
   long now = 123456789L;
@@ -83,7 +86,7 @@ public class PersistTestsStepTest extends BaseStepTest {
     System2 system2 = mock(System2.class);
     when(system2.now()).thenReturn(now);
 
-    underTest = new PersistTestsStep(dbClient, system2, reportReader, treeRootHolder);
+    underTest = new PersistTestsStep(dbClient, system2, reportReader, treeRootHolder, asyncDbWriter);
 
     root = ReportComponent.builder(Component.Type.PROJECT, 1).setUuid(PROJECT_UUID).setKey(PROJECT_KEY).addChildren(
       ReportComponent.builder(Component.Type.MODULE, 2).setUuid("MODULE_UUID").setKey("MODULE_KEY").addChildren(
@@ -95,6 +98,11 @@ public class PersistTestsStepTest extends BaseStepTest {
     treeRootHolder.setRoot(root);
   }
 
+  @After
+  public void tearDown() {
+    asyncDbWriter.stop();
+  }
+
   @Override
   protected ComputationStep step() {
     return underTest;
@@ -103,6 +111,7 @@ public class PersistTestsStepTest extends BaseStepTest {
   @Test
   public void no_test_in_database_and_batch_report() {
     underTest.execute();
+    asyncDbWriter.commit();
 
     assertThat(dbClient.fileSourceDao().selectTest(TEST_FILE_UUID_1)).isNull();
     assertThat(log.logs()).isEmpty();
@@ -118,6 +127,7 @@ public class PersistTestsStepTest extends BaseStepTest {
     reportReader.putCoverageDetails(TEST_FILE_REF_1, coverageDetails);
 
     underTest.execute();
+    asyncDbWriter.commit();
 
     assertThat(db.countRowsOfTable("file_sources")).isEqualTo(1);
 
@@ -141,6 +151,7 @@ public class PersistTestsStepTest extends BaseStepTest {
     reportReader.putCoverageDetails(TEST_FILE_REF_1, Arrays.asList(newCoverageDetail(1, MAIN_FILE_REF_1)));
 
     underTest.execute();
+    asyncDbWriter.commit();
 
     FileSourceDto dto = dbClient.fileSourceDao().selectTest(TEST_FILE_UUID_1);
     assertThat(dto.getCreatedAt()).isEqualTo(now);
@@ -167,6 +178,7 @@ public class PersistTestsStepTest extends BaseStepTest {
     reportReader.putTests(TEST_FILE_REF_1, batchTests);
 
     underTest.execute();
+    asyncDbWriter.commit();
 
     FileSourceDto dto = dbClient.fileSourceDao().selectTest(TEST_FILE_UUID_1);
     assertThat(dto.getFileUuid()).isEqualTo(TEST_FILE_UUID_1);
@@ -185,6 +197,7 @@ public class PersistTestsStepTest extends BaseStepTest {
     reportReader.putCoverageDetails(TEST_FILE_REF_2, coverageDetails);
 
     underTest.execute();
+    asyncDbWriter.commit();
 
     assertThat(log.logs(LoggerLevel.WARN)).hasSize(1);
     assertThat(log.logs(LoggerLevel.WARN).get(0)).isEqualTo("Some coverage tests are not taken into account during analysis of project 'PROJECT_KEY'");
@@ -202,6 +215,7 @@ public class PersistTestsStepTest extends BaseStepTest {
       newCoverageDetailWithLines(1, MAIN_FILE_REF_1, 2, 4)));
 
     underTest.execute();
+    asyncDbWriter.commit();
 
     FileSourceDto dto = dbClient.fileSourceDao().selectTest(TEST_FILE_UUID_1);
     List<Integer> coveredLines = dto.getTestData().get(0).getCoveredFile(0).getCoveredLineList();
@@ -235,6 +249,7 @@ public class PersistTestsStepTest extends BaseStepTest {
 
     // ACT
     underTest.execute();
+    asyncDbWriter.commit();
 
     // ASSERT
     FileSourceDto dto = dbClient.fileSourceDao().selectTest(TEST_FILE_UUID_1);
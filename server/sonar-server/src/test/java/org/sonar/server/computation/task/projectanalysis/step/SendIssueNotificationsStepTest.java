@@ -27,7 +27,6 @@ import org.junit.rules.TemporaryFolder;
 import org.sonar.api.notifications.Notification;
 import org.sonar.api.rule.Severity;
 import org.sonar.api.utils.Duration;
-import org.sonar.api.utils.System2;
 import org.sonar.core.issue.DefaultIssue;
 import org.sonar.server.computation.task.projectanalysis.analysis.AnalysisMetadataHolderRule;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolderRule;
@@ -87,7 +86,7 @@ public class SendIssueNotificationsStepTest extends BaseStepTest {
 
   @Before
   public void setUp() throws Exception {
-    issueCache = new IssueCache(temp.newFile(), System2.INSTANCE);
+    issueCache = new IssueCache(temp.newFile());
     underTest = new SendIssueNotificationsStep(issueCache, mock(RuleRepository.class), treeRootHolder, notificationService, analysisMetadataHolder,
       newIssuesNotificationFactory);
 
@@ -44,6 +44,7 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.Timeout;
 import org.sonar.server.computation.configuration.CeConfigurationRule;
+import org.sonar.server.computation.queue.CeQueueSignal;
 
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -67,8 +68,10 @@ public class CeProcessingSchedulerImplTest {
   private StubCeProcessingSchedulerExecutorService processingExecutorService = new StubCeProcessingSchedulerExecutorService();
   private SchedulerCall regularDelayedPoll = new SchedulerCall(ceWorkerRunnable, 2000L, TimeUnit.MILLISECONDS);
   private SchedulerCall notDelayedPoll = new SchedulerCall(ceWorkerRunnable);
+  private SchedulerCall pollWhenSignaled = SchedulerCall.WAIT_FOR_SIGNAL;
+  private CeQueueSignal queueSignal = mock(CeQueueSignal.class);
 
-  private CeProcessingSchedulerImpl underTest = new CeProcessingSchedulerImpl(ceConfiguration, processingExecutorService, ceWorkerRunnable);
+  private CeProcessingSchedulerImpl underTest = new CeProcessingSchedulerImpl(ceConfiguration, processingExecutorService, ceWorkerRunnable, queueSignal);
 
   @Test
   public void polls_without_delay_when_CeWorkerCallable_returns_true() throws Exception {
@@ -99,8 +102,10 @@ public class CeProcessingSchedulerImplTest {
   }
 
   @Test
-  public void polls_with_regular_delay_when_CeWorkerCallable_returns_false() throws Exception {
+  public void waits_for_signal_at_most_regular_delay_when_CeWorkerCallable_returns_false() throws Exception {
+    when(queueSignal.getVersion()).thenReturn(3L);
     when(ceWorkerRunnable.call())
+      .thenReturn(true)
       .thenReturn(false)
       .thenThrow(ERROR_TO_INTERRUPT_CHAINING);
 
@@ -108,8 +113,17 @@ public class CeProcessingSchedulerImplTest {
 
     assertThat(processingExecutorService.getSchedulerCalls()).containsExactly(
       regularDelayedPoll,
-      regularDelayedPoll
+      notDelayedPoll,
+      pollWhenSignaled
       );
+    verify(queueSignal).await(3L, 2000L);
+  }
+
+  @Test
+  public void stop_wakes_up_workers_waiting_for_signal() {
+    underTest.stop();
+
+    verify(queueSignal).signal();
   }
 
   @Test
@@ -132,13 +146,13 @@ public class CeProcessingSchedulerImplTest {
       regularDelayedPoll,
       notDelayedPoll,
       notDelayedPoll,
-      regularDelayedPoll,
+      pollWhenSignaled,
       notDelayedPoll,
-      regularDelayedPoll,
+      pollWhenSignaled,
       notDelayedPoll,
-      regularDelayedPoll,
-      regularDelayedPoll,
-      regularDelayedPoll
+      pollWhenSignaled,
+      pollWhenSignaled,
+      pollWhenSignaled
       );
   }
 
@@ -175,9 +189,9 @@ public class CeProcessingSchedulerImplTest {
     assertThat(cancelledTaskFutureCount).isEqualTo(1);
     assertThat(processingExecutorService.getSchedulerCalls()).containsExactly(
       regularDelayedPoll,
-      regularDelayedPoll,
+      pollWhenSignaled,
       notDelayedPoll,
-      regularDelayedPoll
+      pollWhenSignaled
       );
   }
 
@@ -189,7 +203,7 @@ public class CeProcessingSchedulerImplTest {
 
     ListenableScheduledFuture listenableScheduledFuture = mock(ListenableScheduledFuture.class);
     CeProcessingSchedulerExecutorService processingExecutorService = mock(CeProcessingSchedulerExecutorService.class);
-    CeProcessingSchedulerImpl underTest = new CeProcessingSchedulerImpl(ceConfiguration, processingExecutorService, ceWorkerRunnable);
+    CeProcessingSchedulerImpl underTest = new CeProcessingSchedulerImpl(ceConfiguration, processingExecutorService, ceWorkerRunnable, queueSignal);
     when(processingExecutorService.schedule(ceWorkerRunnable, ceConfiguration.getQueuePollingDelay(), MILLISECONDS))
         .thenReturn(listenableScheduledFuture);
 
@@ -496,20 +510,25 @@ public class CeProcessingSchedulerImplTest {
    */
   @Immutable
   private static final class SchedulerCall {
+    /**
+     * Call of any callable which is not a {@link CeWorkerCallable}, ie. a callable which waits for {@link CeQueueSignal}
+     * before executing the worker.
+     */
+    private static final SchedulerCall WAIT_FOR_SIGNAL = new SchedulerCall(null);
+
+    @Nullable
     private final Callable<?> callable;
     private final long delay;
     private final TimeUnit unit;
 
-    private SchedulerCall(Callable<?> callable, long delay, TimeUnit unit) {
-      this.callable = callable;
+    private SchedulerCall(@Nullable Callable<?> callable, long delay, TimeUnit unit) {
+      this.callable = callable instanceof CeWorkerCallable ? callable : null;
       this.delay = delay;
       this.unit = unit;
     }
 
-    private SchedulerCall(Callable<?> callable) {
-      this.callable = callable;
-      this.delay = -63366;
-      this.unit = TimeUnit.NANOSECONDS;
+    private SchedulerCall(@Nullable Callable<?> callable) {
+      this(callable, -63366, TimeUnit.NANOSECONDS);
     }
 
     @Override
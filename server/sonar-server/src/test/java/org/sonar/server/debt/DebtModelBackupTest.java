@@ -49,6 +49,7 @@ import org.sonar.server.rule.RuleDefinitionsLoader;
 import org.sonar.server.rule.RuleOperations;
 import org.sonar.server.rule.index.RuleIndexer;
 import org.sonar.server.tester.UserSessionRule;
+import org.sonar.server.util.cache.ReferenceDataCache;
 
 import static com.google.common.collect.Lists.newArrayList;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -109,7 +110,7 @@ public class DebtModelBackupTest {
     when(dbClient.ruleDao()).thenReturn(ruleDao);
 
     underTest = new DebtModelBackup(dbClient, ruleOperations, rulesXMLImporter,
-      debtModelXMLExporter, defLoader, system2, userSessionRule, ruleIndexer);
+      debtModelXMLExporter, defLoader, system2, userSessionRule, ruleIndexer, new ReferenceDataCache(dbClient));
   }
 
   @Test
@@ -0,0 +1,79 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.es;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ParallelIndexingTest {
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  @Test
+  public void execute_task_on_each_partition_and_return_max_result() {
+    Set<Integer> processed = ConcurrentHashMap.newKeySet();
+
+    long max = new ParallelIndexing<Integer>("numbers", 2).execute(Arrays.asList(3, 10, 7, 1), partition -> {
+      processed.add(partition);
+      return partition;
+    });
+
+    assertThat(processed).containsOnly(1, 3, 7, 10);
+    assertThat(max).isEqualTo(10L);
+  }
+
+  @Test
+  public void return_zero_if_no_partitions() {
+    long max = new ParallelIndexing<Integer>("numbers", 2).execute(Collections.emptyList(), partition -> {
+      throw new IllegalStateException("should not be called");
+    });
+
+    assertThat(max).isEqualTo(0L);
+  }
+
+  @Test
+  public void fail_if_a_partition_fails() {
+    expectedException.expect(IllegalStateException.class);
+    expectedException.expectMessage("Fail to index numbers");
+
+    new ParallelIndexing<Integer>("numbers", 2).execute(Arrays.asList(1, 2), partition -> {
+      if (partition == 2) {
+        throw new IllegalArgumentException("boom");
+      }
+      return partition;
+    });
+  }
+
+  @Test
+  public void fail_if_parallelism_is_not_positive() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Parallelism must be greater than 0");
+
+    new ParallelIndexing<Integer>("numbers", 0);
+  }
+}
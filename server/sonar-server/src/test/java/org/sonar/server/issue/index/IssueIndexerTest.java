@@ -24,11 +24,13 @@ import com.google.common.collect.FluentIterable;
 import com.google.common.collect.Iterators;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Date;
 import java.util.List;
 import javax.annotation.Nonnull;
 import org.elasticsearch.search.SearchHit;
 import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.ExpectedException;
 import org.sonar.api.config.MapSettings;
 import org.sonar.api.rule.RuleKey;
 import org.sonar.api.utils.System2;
@@ -50,6 +52,9 @@ public class IssueIndexerTest {
   @Rule
   public DbTester dbTester = DbTester.create(System2.INSTANCE);
 
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
   @Test
   public void index_nothing() {
     IssueIndexer indexer = createIndexer();
@@ -92,6 +97,48 @@ public class IssueIndexerTest {
     assertThat(doc.getTechnicalUpdateDate().getTime()).isEqualTo(1550000000000L);
   }
 
+  @Test
+  public void loaded_documents_are_not_read_again_from_db() {
+    dbTester.prepareDbUnit(getClass(), "index.xml");
+    IssueIndexer indexer = createIndexer();
+
+    indexer.indexLoadedDocuments(Iterators.singletonIterator(newDoc()
+      .setKey("ABCDE")
+      .setProjectUuid("THE_PROJECT")
+      .setSeverity("MINOR")
+      .setTechnicalUpdateDate(new Date(1550000000000L))));
+    indexer.index();
+
+    List<IssueDoc> docs = esTester.getDocuments("issues", "issue", IssueDoc.class);
+    assertThat(docs).extracting(IssueDoc::severity).containsOnly("MINOR");
+  }
+
+  @Test
+  public void index_all_projects_in_parallel() {
+    dbTester.prepareDbUnit(getClass(), "index_project.xml");
+
+    createIndexer().setParallelism(3).index();
+
+    verifyIssueKeys("ABCDE", "EDCBA");
+  }
+
+  @Test
+  public void indexAll_in_parallel() {
+    dbTester.prepareDbUnit(getClass(), "index_project.xml");
+
+    createIndexer().setParallelism(2).indexAll();
+
+    verifyIssueKeys("ABCDE", "EDCBA");
+  }
+
+  @Test
+  public void fail_if_parallelism_is_not_positive() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Parallelism must be greater than 0");
+
+    createIndexer().setParallelism(0);
+  }
+
   @Test
   public void deleteProject_deletes_issues() {
     dbTester.prepareDbUnit(getClass(), "index.xml");
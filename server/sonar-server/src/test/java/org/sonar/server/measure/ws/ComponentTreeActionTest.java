@@ -40,6 +40,8 @@ import org.sonar.db.component.ComponentDbTester;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.component.ResourceTypesRule;
 import org.sonar.db.component.SnapshotDto;
+import org.sonar.db.measure.FileMeasuresDto;
+import org.sonar.db.measure.MeasureDto;
 import org.sonar.db.metric.MetricDto;
 import org.sonar.server.component.ComponentFinder;
 import org.sonar.server.exceptions.BadRequestException;
@@ -47,6 +49,7 @@ import org.sonar.server.exceptions.ForbiddenException;
 import org.sonar.server.exceptions.NotFoundException;
 import org.sonar.server.i18n.I18nRule;
 import org.sonar.server.tester.UserSessionRule;
+import org.sonar.server.util.cache.ReferenceDataCache;
 import org.sonar.server.ws.TestRequest;
 import org.sonar.server.ws.TestResponse;
 import org.sonar.server.ws.WsActionTester;
@@ -55,7 +58,9 @@ import org.sonarqube.ws.MediaTypes;
 import org.sonarqube.ws.WsMeasures;
 import org.sonarqube.ws.WsMeasures.ComponentTreeWsResponse;
 
+import static java.util.Arrays.asList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.sonar.api.utils.DateUtils.parseDateTime;
 import static org.sonar.db.component.ComponentTesting.newDevProjectCopy;
 import static org.sonar.db.component.ComponentTesting.newDeveloper;
@@ -100,7 +105,7 @@ public class ComponentTreeActionTest {
 
   WsActionTester ws = new WsActionTester(
     new ComponentTreeAction(
-      new ComponentTreeDataLoader(dbClient, new ComponentFinder(dbClient), userSession, resourceTypes),
+      new ComponentTreeDataLoader(dbClient, new ComponentFinder(dbClient), userSession, resourceTypes, new ReferenceDataCache(dbClient)),
       i18n, resourceTypes));
 
   @Before
@@ -317,6 +322,66 @@ public class ComponentTreeActionTest {
     assertThat(response.getPaging().getTotal()).isEqualTo(3);
   }
 
+  @Test
+  public void load_all_measures_of_the_page_when_sorting_by_metric() {
+    ComponentDto project = newProjectDto("project-uuid");
+    SnapshotDto projectSnapshot = componentDb.insertProjectAndSnapshot(project);
+    ComponentDto file1 = componentDb.insertComponent(newFileDto(project, null, "file-uuid-1"));
+    ComponentDto file2 = componentDb.insertComponent(newFileDto(project, null, "file-uuid-2"));
+    ComponentDto file3 = componentDb.insertComponent(newFileDto(project, null, "file-uuid-3"));
+    MetricDto ncloc = insertNclocMetric();
+    MetricDto coverage = insertCoverageMetric();
+    dbClient.measureDao().insert(dbSession,
+      newMeasureDto(ncloc, project, projectSnapshot).setValue(60.0d),
+      newMeasureDto(coverage, project, projectSnapshot).setValue(50.0d),
+      newMeasureDto(ncloc, file1, projectSnapshot).setValue(30.0d),
+      newMeasureDto(coverage, file1, projectSnapshot).setValue(10.0d),
+      newMeasureDto(ncloc, file2, projectSnapshot).setValue(20.0d),
+      newMeasureDto(coverage, file2, projectSnapshot).setValue(20.0d),
+      newMeasureDto(ncloc, file3, projectSnapshot).setValue(10.0d),
+      newMeasureDto(coverage, file3, projectSnapshot).setValue(30.0d));
+    db.commit();
+
+    ComponentTreeWsResponse response = call(ws.newRequest()
+      .setParam(PARAM_BASE_COMPONENT_ID, project.uuid())
+      .setParam(Param.SORT, METRIC_SORT)
+      .setParam(PARAM_METRIC_SORT, "ncloc")
+      .setParam(PARAM_METRIC_KEYS, "ncloc,coverage")
+      .setParam(Param.PAGE, "1")
+      .setParam(Param.PAGE_SIZE, "2"));
+
+    assertThat(response.getPaging().getTotal()).isEqualTo(3);
+    assertThat(response.getComponentsList()).extracting("id").containsExactly(file3.uuid(), file2.uuid());
+    assertThat(response.getComponents(0).getMeasuresList()).extracting("metric", "value").containsOnly(tuple("ncloc", "10"), tuple("coverage", "30.0"));
+    assertThat(response.getComponents(1).getMeasuresList()).extracting("metric", "value").containsOnly(tuple("ncloc", "20"), tuple("coverage", "20.0"));
+    assertThat(response.getBaseComponent().getMeasuresList()).extracting("metric").containsOnly("ncloc", "coverage");
+  }
+
+  @Test
+  public void sort_by_metric_value_of_measures_stored_in_file_measures() {
+    ComponentDto project = newProjectDto("project-uuid");
+    SnapshotDto projectSnapshot = componentDb.insertProjectAndSnapshot(project);
+    ComponentDto file1 = componentDb.insertComponent(newFileDto(project, null, "file-uuid-1"));
+    ComponentDto file2 = componentDb.insertComponent(newFileDto(project, null, "file-uuid-2"));
+    ComponentDto file3 = componentDb.insertComponent(newFileDto(project, null, "file-uuid-3"));
+    MetricDto ncloc = insertNclocMetric();
+    insertFileMeasures(projectSnapshot, file1, newMeasureDto(ncloc, file1, projectSnapshot).setValue(30.0d));
+    insertFileMeasures(projectSnapshot, file2, newMeasureDto(ncloc, file2, projectSnapshot).setValue(10.0d));
+    insertFileMeasures(projectSnapshot, file3, newMeasureDto(ncloc, file3, projectSnapshot).setValue(20.0d));
+    db.commit();
+
+    ComponentTreeWsResponse response = call(ws.newRequest()
+      .setParam(PARAM_BASE_COMPONENT_ID, project.uuid())
+      .setParam(Param.SORT, METRIC_SORT)
+      .setParam(PARAM_METRIC_SORT, "ncloc")
+      .setParam(PARAM_METRIC_KEYS, "ncloc")
+      .setParam(Param.PAGE, "1")
+      .setParam(Param.PAGE_SIZE, "2"));
+
+    assertThat(response.getPaging().getTotal()).isEqualTo(3);
+    assertThat(response.getComponentsList()).extracting("id").containsExactly(file2.uuid(), file3.uuid());
+  }
+
   @Test
   public void sort_by_metric_period() {
     ComponentDto projectDto = newProjectDto("project-uuid");
@@ -726,6 +791,13 @@ public class ComponentTreeActionTest {
     return metric;
   }
 
+  private void insertFileMeasures(SnapshotDto analysis, ComponentDto file, MeasureDto... measures) {
+    dbClient.measureDao().insert(dbSession, new FileMeasuresDto()
+      .setAnalysisUuid(analysis.getUuid())
+      .setComponentUuid(file.uuid())
+      .setMeasures(asList(measures)));
+  }
+
   private MetricDto insertNclocMetric() {
     MetricDto metric = dbClient.metricDao().insert(dbSession, newMetricDtoWithoutOptimization()
       .setKey("ncloc")
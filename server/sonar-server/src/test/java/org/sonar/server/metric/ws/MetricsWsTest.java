@@ -25,6 +25,7 @@ import org.sonar.api.server.ws.WebService;
 import org.sonar.db.DbClient;
 import org.sonar.server.ruby.RubyBridge;
 import org.sonar.server.user.UserSession;
+import org.sonar.server.util.cache.ReferenceDataCache;
 import org.sonar.server.ws.WsTester;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -37,13 +38,14 @@ public class MetricsWsTest {
   @Before
   public void setUp() {
     DbClient dbClient = mock(DbClient.class);
+    ReferenceDataCache referenceDataCache = mock(ReferenceDataCache.class);
     UserSession userSession = mock(UserSession.class);
     RubyBridge rubyBridge = mock(RubyBridge.class);
     ws = new WsTester(new MetricsWs(
       new SearchAction(dbClient),
-      new CreateAction(dbClient, userSession, rubyBridge),
-      new UpdateAction(dbClient, userSession, rubyBridge),
-      new DeleteAction(dbClient, userSession, rubyBridge),
+      new CreateAction(dbClient, userSession, rubyBridge, referenceDataCache),
+      new UpdateAction(dbClient, userSession, rubyBridge, referenceDataCache),
+      new DeleteAction(dbClient, userSession, rubyBridge, referenceDataCache),
       new TypesAction(),
       new DomainsAction(dbClient)
       ));
@@ -30,6 +30,8 @@ import org.sonar.server.issue.IssueTesting;
 import org.sonar.server.issue.index.IssueIndexDefinition;
 import org.sonar.server.rule.index.RuleDoc;
 import org.sonar.server.rule.index.RuleIndexDefinition;
+import org.sonar.server.user.AuthorizationCache;
+import org.sonar.server.util.cache.ReferenceDataCache;
 import org.sonar.server.view.index.ViewDoc;
 import org.sonar.server.view.index.ViewIndexDefinition;
 
@@ -48,7 +50,8 @@ public class BackendCleanupMediumTest {
   @Rule
   public DbTester dbTester = DbTester.create(System2.INSTANCE);
 
-  BackendCleanup backendCleanup = new BackendCleanup(esTester.client(), dbTester.myBatis());
+  BackendCleanup backendCleanup = new BackendCleanup(esTester.client(), dbTester.myBatis(), new AuthorizationCache(dbTester.getDbClient()),
+    new ReferenceDataCache(dbTester.getDbClient()));
 
   @Test
   public void clear_db() {
@@ -0,0 +1,50 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.monitoring;
+
+import java.util.Map;
+import org.junit.Test;
+import org.sonar.db.DbClient;
+import org.sonar.server.user.AuthorizationCache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class AuthorizationCacheMonitorTest {
+
+  AuthorizationCacheMonitor underTest = new AuthorizationCacheMonitor(new AuthorizationCache(mock(DbClient.class)));
+
+  @Test
+  public void name_is_not_empty() {
+    assertThat(underTest.name()).isNotEmpty();
+  }
+
+  @Test
+  public void empty_cache() {
+    assertThat(underTest.getPermissionCacheSize()).isEqualTo(0L);
+    assertThat(underTest.getComponentCacheSize()).isEqualTo(0L);
+    // no requests yet
+    assertThat(underTest.getPermissionCacheHitRate()).isEqualTo(1.0);
+    assertThat(underTest.getComponentCacheHitRate()).isEqualTo(1.0);
+
+    Map<String, Object> attributes = underTest.attributes();
+    assertThat(attributes).containsKeys("Permission Cache Size", "Permission Cache Hit Rate", "Component Cache Size", "Component Cache Hit Rate");
+  }
+}
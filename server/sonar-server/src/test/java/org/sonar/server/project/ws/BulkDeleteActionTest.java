@@ -55,6 +55,8 @@ import org.sonar.server.test.index.TestDoc;
 import org.sonar.server.test.index.TestIndexDefinition;
 import org.sonar.server.test.index.TestIndexer;
 import org.sonar.server.tester.UserSessionRule;
+import org.sonar.server.user.AuthorizationCache;
+import org.sonar.server.util.cache.ReferenceDataCache;
 import org.sonar.server.ws.WsTester;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -100,7 +102,8 @@ public class BulkDeleteActionTest {
         new ComponentCleanerService(dbClient,
           new IssueAuthorizationIndexer(dbClient, es.client()),
           new IssueIndexer(dbClient, es.client()),
-          new TestIndexer(dbClient, es.client()), mockResourceTypes, new ComponentFinder(dbClient)),
+          new TestIndexer(dbClient, es.client()), mockResourceTypes, new ComponentFinder(dbClient),
+          new AuthorizationCache(dbClient), new ReferenceDataCache(dbClient)),
         dbClient,
         userSessionRule)));
     userSessionRule.setGlobalPermissions(GlobalPermissions.SYSTEM_ADMIN);
@@ -53,6 +53,8 @@ import org.sonar.server.test.index.TestDoc;
 import org.sonar.server.test.index.TestIndexDefinition;
 import org.sonar.server.test.index.TestIndexer;
 import org.sonar.server.tester.UserSessionRule;
+import org.sonar.server.user.AuthorizationCache;
+import org.sonar.server.util.cache.ReferenceDataCache;
 import org.sonar.server.ws.WsTester;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -103,7 +105,9 @@ public class DeleteActionTest {
           new IssueIndexer(dbClient, es.client()),
           new TestIndexer(dbClient, es.client()),
           mockResourceTypes,
-          new ComponentFinder(dbClient)),
+          new ComponentFinder(dbClient),
+          new AuthorizationCache(dbClient),
+          new ReferenceDataCache(dbClient)),
         new ComponentFinder(dbClient),
         dbClient,
         userSessionRule)));
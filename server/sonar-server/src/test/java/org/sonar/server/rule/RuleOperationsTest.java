@@ -37,6 +37,7 @@ import org.sonar.server.rule.RuleOperations.RuleChange;
 import org.sonar.server.rule.index.RuleIndexer;
 import org.sonar.server.tester.MockUserSession;
 import org.sonar.server.user.UserSession;
+import org.sonar.server.util.cache.ReferenceDataCache;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
@@ -70,7 +71,7 @@ public class RuleOperationsTest {
   public void setUp() {
     when(dbClient.openSession(false)).thenReturn(session);
     when(dbClient.ruleDao()).thenReturn(ruleDao);
-    operations = new RuleOperations(ruleIndexer, dbClient);
+    operations = new RuleOperations(ruleIndexer, dbClient, new ReferenceDataCache(dbClient));
   }
 
   @Test
@@ -119,4 +119,27 @@ public class SourceServiceTest {
     assertThat(lines.isPresent()).isFalse();
   }
 
+  @Test
+  public void getLines_of_file_viewed_several_times_are_read_from_cache_until_data_hash_changes() throws Exception {
+    FileSourceDto dto = new FileSourceDto()
+      .setFileUuid("HOT_FILE_UUID")
+      .setProjectUuid("PROJECT_UUID")
+      .setSourceData(FileSourceTesting.newFakeData(10).build())
+      .setDataHash("HASH_1");
+    dbTester.getDbClient().fileSourceDao().insert(dto);
+
+    assertThat(underTest.getLinesAsRawText(dbTester.getSession(), "HOT_FILE_UUID", 1, 2).get()).containsExactly("SOURCE_1", "SOURCE_2");
+    assertThat(underTest.getLinesAsRawText(dbTester.getSession(), "HOT_FILE_UUID", 3, 4).get()).containsExactly("SOURCE_3", "SOURCE_4");
+    assertThat(underTest.getLinesAsRawText(dbTester.getSession(), "HOT_FILE_UUID", 9, 12).get()).containsExactly("SOURCE_9", "SOURCE_10");
+
+    // file is analyzed again
+    DbFileSources.Data.Builder newData = DbFileSources.Data.newBuilder();
+    newData.addLinesBuilder().setLine(1).setSource("NEW_SOURCE_1");
+    dto = dbTester.getDbClient().fileSourceDao().selectSourceByFileUuid(dbTester.getSession(), "HOT_FILE_UUID");
+    dbTester.getDbClient().fileSourceDao().update(dbTester.getSession(), dto.setSourceData(newData.build()).setDataHash("HASH_2"));
+    dbTester.getSession().commit();
+
+    assertThat(underTest.getLinesAsRawText(dbTester.getSession(), "HOT_FILE_UUID", 1, 2).get()).containsExactly("NEW_SOURCE_1");
+  }
+
 }
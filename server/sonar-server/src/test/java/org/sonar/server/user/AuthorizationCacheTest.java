@@ -0,0 +1,153 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.user;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.api.utils.System2;
+import org.sonar.api.web.UserRole;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.DbTester;
+import org.sonar.db.component.ComponentDbTester;
+import org.sonar.db.component.ComponentDto;
+import org.sonar.db.component.ComponentTesting;
+import org.sonar.db.user.GroupRoleDto;
+import org.sonar.db.user.UserDto;
+import org.sonar.db.user.UserPermissionDto;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.sonar.db.user.UserTesting.newUserDto;
+
+public class AuthorizationCacheTest {
+
+  @Rule
+  public DbTester dbTester = DbTester.create(System2.INSTANCE);
+
+  ComponentDbTester componentDbTester = new ComponentDbTester(dbTester);
+  DbClient dbClient = dbTester.getDbClient();
+  DbSession dbSession = dbTester.getSession();
+
+  UserDto user = newUserDto();
+  ComponentDto project;
+  ComponentDto file;
+
+  AuthorizationCache underTest = new AuthorizationCache(dbClient);
+
+  @Before
+  public void setUp() {
+    project = componentDbTester.insertComponent(ComponentTesting.newProjectDto());
+    file = componentDbTester.insertComponent(ComponentTesting.newFileDto(project, null));
+    dbClient.userDao().insert(dbSession, user);
+    dbSession.commit();
+  }
+
+  @Test
+  public void has_project_permission() {
+    addUserPermission(UserRole.USER);
+
+    assertThat(underTest.hasProjectPermission(user.getId().intValue(), UserRole.USER, project.getId())).isTrue();
+    assertThat(underTest.hasProjectPermission(user.getId().intValue(), UserRole.ADMIN, project.getId())).isFalse();
+    assertThat(underTest.hasProjectPermission(null, UserRole.USER, project.getId())).isFalse();
+  }
+
+  @Test
+  public void has_project_permission_for_anonymous() {
+    dbClient.roleDao().insertGroupRole(dbSession, new GroupRoleDto().setRole(UserRole.USER).setResourceId(project.getId()));
+    dbSession.commit();
+
+    assertThat(underTest.hasProjectPermission(null, UserRole.USER, project.getId())).isTrue();
+    assertThat(underTest.hasProjectPermission(null, UserRole.ADMIN, project.getId())).isFalse();
+  }
+
+  @Test
+  public void has_project_permission_on_large_and_sparse_project_ids() {
+    DbClient mockedDbClient = mock(DbClient.class, RETURNS_DEEP_STUBS);
+    when(mockedDbClient.authorizationDao().selectAuthorizedRootProjectsIds(any(DbSession.class), eq(10), eq(UserRole.USER)))
+      .thenReturn(asList(50_000_000L, 3L, 5_000_000_000L, Long.MAX_VALUE));
+    AuthorizationCache cache = new AuthorizationCache(mockedDbClient);
+
+    assertThat(cache.hasProjectPermission(10, UserRole.USER, 3L)).isTrue();
+    assertThat(cache.hasProjectPermission(10, UserRole.USER, 50_000_000L)).isTrue();
+    assertThat(cache.hasProjectPermission(10, UserRole.USER, 5_000_000_000L)).isTrue();
+    assertThat(cache.hasProjectPermission(10, UserRole.USER, Long.MAX_VALUE)).isTrue();
+    assertThat(cache.hasProjectPermission(10, UserRole.USER, 4L)).isFalse();
+    assertThat(cache.hasProjectPermission(10, UserRole.USER, 50_000_001L)).isFalse();
+    assertThat(cache.hasProjectPermission(10, UserRole.USER, -1L)).isFalse();
+    assertThat(cache.getPermissionSize()).isEqualTo(1L);
+  }
+
+  @Test
+  public void permissions_are_cached_until_invalidation() {
+    assertThat(underTest.hasProjectPermission(user.getId().intValue(), UserRole.USER, project.getId())).isFalse();
+
+    addUserPermission(UserRole.USER);
+    assertThat(underTest.hasProjectPermission(user.getId().intValue(), UserRole.USER, project.getId())).isFalse();
+    assertThat(underTest.getPermissionStats().hitCount()).isEqualTo(1L);
+    assertThat(underTest.getPermissionStats().missCount()).isEqualTo(1L);
+
+    underTest.invalidate();
+    assertThat(underTest.hasProjectPermission(user.getId().intValue(), UserRole.USER, project.getId())).isTrue();
+    assertThat(underTest.getPermissionSize()).isEqualTo(1L);
+  }
+
+  @Test
+  public void get_root_project_id_by_component_key() {
+    assertThat(underTest.getRootProjectIdByComponentKey(file.getKey())).isEqualTo(project.getId());
+    assertThat(underTest.getRootProjectIdByComponentKey(project.getKey())).isEqualTo(project.getId());
+    assertThat(underTest.getRootProjectIdByComponentKey("unknown")).isNull();
+    assertThat(underTest.getComponentSize()).isEqualTo(2L);
+  }
+
+  @Test
+  public void get_root_project_id_by_component_uuid() {
+    assertThat(underTest.getRootProjectIdByComponentUuid(file.uuid())).isEqualTo(project.getId());
+    assertThat(underTest.getRootProjectIdByComponentUuid(project.uuid())).isEqualTo(project.getId());
+    assertThat(underTest.getRootProjectIdByComponentUuid("unknown")).isNull();
+
+    assertThat(underTest.getRootProjectIdByComponentUuid(file.uuid())).isEqualTo(project.getId());
+    assertThat(underTest.getComponentStats().hitCount()).isEqualTo(1L);
+  }
+
+  @Test
+  public void invalidate_drops_resolved_components() {
+    underTest.getRootProjectIdByComponentKey(file.getKey());
+    underTest.getRootProjectIdByComponentUuid(file.uuid());
+
+    underTest.invalidate();
+
+    assertThat(underTest.getComponentSize()).isEqualTo(0L);
+  }
+
+  private void addUserPermission(String permission) {
+    dbClient.roleDao().insertUserRole(dbSession, new UserPermissionDto()
+      .setPermission(permission)
+      .setComponentId(project.getId())
+      .setUserId(user.getId()));
+    dbSession.commit();
+  }
+}
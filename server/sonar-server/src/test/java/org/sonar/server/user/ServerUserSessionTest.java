@@ -65,6 +65,8 @@ public class ServerUserSessionTest {
 
   DbSession dbSession = dbTester.getSession();
 
+  AuthorizationCache authorizationCache = new AuthorizationCache(dbClient);
+
   UserDto userDto = newUserDto().setLogin(LOGIN);
   ComponentDto project, file;
 
@@ -265,11 +267,11 @@ public class ServerUserSessionTest {
   }
 
   private ServerUserSession newUserSession(UserDto userDto) {
-    return createForUser(dbClient, userDto);
+    return createForUser(dbClient, authorizationCache, userDto);
   }
 
   private ServerUserSession newAnonymousSession() {
-    return createForAnonymous(dbClient);
+    return createForAnonymous(dbClient, authorizationCache);
   }
 
   private void addGlobalPermissions(String... permissions) {
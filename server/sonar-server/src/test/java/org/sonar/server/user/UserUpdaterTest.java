@@ -46,6 +46,7 @@ import org.sonar.server.exceptions.ServerException;
 import org.sonar.server.user.index.UserIndexDefinition;
 import org.sonar.server.user.index.UserIndexer;
 import org.sonar.server.util.Validation;
+import org.sonar.server.util.cache.ReferenceDataCache;
 
 import static com.google.common.collect.Lists.newArrayList;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -92,7 +93,7 @@ public class UserUpdaterTest {
   public void setUp() {
     userIndexer = (UserIndexer) new UserIndexer(dbClient, es.client()).setEnabled(true);
     userUpdater = new UserUpdater(newUserNotifier, settings, dbClient,
-      userIndexer, system2);
+      userIndexer, system2, new AuthorizationCache(dbClient), new ReferenceDataCache(dbClient));
 
     when(system2.now()).thenReturn(NOW);
   }
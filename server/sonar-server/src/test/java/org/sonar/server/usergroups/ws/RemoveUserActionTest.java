@@ -38,6 +38,7 @@ import org.sonar.db.user.UserGroupDao;
 import org.sonar.db.user.UserGroupDto;
 import org.sonar.server.exceptions.NotFoundException;
 import org.sonar.server.tester.UserSessionRule;
+import org.sonar.server.user.AuthorizationCache;
 import org.sonar.server.ws.WsTester;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -71,7 +72,7 @@ public class RemoveUserActionTest {
     groupMembershipDao = dbClient.groupMembershipDao();
     userGroupDao = dbClient.userGroupDao();
 
-    ws = new WsTester(new UserGroupsWs(new RemoveUserAction(dbClient, userSession)));
+    ws = new WsTester(new UserGroupsWs(new RemoveUserAction(dbClient, userSession, new AuthorizationCache(dbClient))));
   }
 
   @Test
@@ -0,0 +1,119 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.util.cache;
+
+import com.google.protobuf.Parser;
+import java.io.File;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.core.util.CloseableIterator;
+import org.sonar.server.protobuf.ProtobufIssueCache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+public class ProtobufDiskCacheTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  @Test
+  public void write_and_read() throws Exception {
+    StringCache cache = new StringCache(temp.newFile());
+    try (CloseableIterator<String> traverse = cache.traverse()) {
+      assertThat(traverse).isEmpty();
+    }
+
+    cache.newAppender()
+      .append("foo")
+      .append("bar")
+      .close();
+    try (CloseableIterator<String> traverse = cache.traverse()) {
+      assertThat(traverse).containsExactly("foo", "bar");
+    }
+  }
+
+  @Test
+  public void appenders_add_to_end_of_file() throws Exception {
+    StringCache cache = new StringCache(temp.newFile());
+    cache.newAppender().append("foo").close();
+    cache.newAppender().append("bar").append("").close();
+
+    try (CloseableIterator<String> traverse = cache.traverse()) {
+      assertThat(traverse).containsExactly("foo", "bar", "");
+    }
+  }
+
+  @Test
+  public void file_can_be_deleted_once_traversal_is_closed() throws Exception {
+    File file = temp.newFile();
+    StringCache cache = new StringCache(file);
+    cache.newAppender().append("foo").close();
+
+    try (CloseableIterator<String> traverse = cache.traverse()) {
+      assertThat(traverse.next()).isEqualTo("foo");
+    }
+
+    assertThat(file.delete()).isTrue();
+  }
+
+  @Test
+  public void file_is_truncated_when_cache_is_created() throws Exception {
+    File file = temp.newFile();
+    new StringCache(file).newAppender().append("foo").close();
+
+    StringCache cache = new StringCache(file);
+    try (CloseableIterator<String> traverse = cache.traverse()) {
+      assertThat(traverse).isEmpty();
+    }
+  }
+
+  @Test
+  public void fail_if_file_is_not_writable() throws Exception {
+    try {
+      new StringCache(temp.newFolder());
+      fail();
+    } catch (IllegalStateException e) {
+      assertThat(e).hasMessageContaining("Fail to write into file");
+    }
+  }
+
+  private static class StringCache extends ProtobufDiskCache<String, ProtobufIssueCache.Attribute> {
+    StringCache(File file) {
+      super(file);
+    }
+
+    @Override
+    protected ProtobufIssueCache.Attribute toProtobuf(String object) {
+      return ProtobufIssueCache.Attribute.newBuilder().setKey(object).build();
+    }
+
+    @Override
+    protected String fromProtobuf(ProtobufIssueCache.Attribute message) {
+      return message.getKey();
+    }
+
+    @Override
+    protected Parser<ProtobufIssueCache.Attribute> parser() {
+      return ProtobufIssueCache.Attribute.parser();
+    }
+  }
+}
@@ -0,0 +1,140 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.util.cache;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.api.utils.System2;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.DbTester;
+import org.sonar.db.component.ComponentDbTester;
+import org.sonar.db.component.ComponentDto;
+import org.sonar.db.component.ComponentTesting;
+import org.sonar.db.metric.MetricDto;
+import org.sonar.db.metric.MetricTesting;
+import org.sonar.db.rule.RuleDto;
+import org.sonar.db.rule.RuleTesting;
+import org.sonar.db.user.UserDto;
+import org.sonar.db.user.UserTesting;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ReferenceDataCacheTest {
+
+  @Rule
+  public DbTester dbTester = DbTester.create(System2.INSTANCE);
+
+  ComponentDbTester componentDbTester = new ComponentDbTester(dbTester);
+  DbClient dbClient = dbTester.getDbClient();
+  DbSession dbSession = dbTester.getSession();
+
+  ReferenceDataCache underTest = new ReferenceDataCache(dbClient);
+
+  @Test
+  public void select_rules_by_keys() {
+    RuleDto rule = RuleTesting.newXooX1();
+    dbClient.ruleDao().insert(dbSession, rule);
+    dbSession.commit();
+
+    assertThat(underTest.selectRulesByKeys(dbSession, asList(RuleTesting.XOO_X1, RuleTesting.XOO_X2))).extracting("key").containsOnly(RuleTesting.XOO_X1);
+
+    // served from cache
+    rule.setName("new name");
+    dbClient.ruleDao().update(dbSession, rule);
+    dbSession.commit();
+    assertThat(underTest.selectRulesByKeys(dbSession, singletonList(RuleTesting.XOO_X1))).extracting("name").doesNotContain("new name");
+
+    underTest.invalidateRules();
+    assertThat(underTest.selectRulesByKeys(dbSession, singletonList(RuleTesting.XOO_X1))).extracting("name").containsOnly("new name");
+  }
+
+  @Test
+  public void missing_rules_are_loaded_when_they_are_created() {
+    assertThat(underTest.selectRulesByKeys(dbSession, singletonList(RuleTesting.XOO_X1))).isEmpty();
+
+    dbClient.ruleDao().insert(dbSession, RuleTesting.newXooX1());
+    dbSession.commit();
+
+    assertThat(underTest.selectRulesByKeys(dbSession, singletonList(RuleTesting.XOO_X1))).hasSize(1);
+  }
+
+  @Test
+  public void select_users_by_logins() {
+    UserDto user = UserTesting.newUserDto();
+    dbClient.userDao().insert(dbSession, user);
+    dbSession.commit();
+
+    assertThat(underTest.selectUsersByLogins(dbSession, asList(user.getLogin(), user.getLogin(), "unknown"))).extracting("login").containsExactly(user.getLogin());
+
+    dbClient.userDao().deactivateUserByLogin(dbSession, user.getLogin());
+    dbSession.commit();
+    assertThat(underTest.selectUsersByLogins(dbSession, singletonList(user.getLogin())).get(0).isActive()).isTrue();
+
+    underTest.invalidateUsers();
+    assertThat(underTest.selectUsersByLogins(dbSession, singletonList(user.getLogin())).get(0).isActive()).isFalse();
+  }
+
+  @Test
+  public void select_components_by_uuids() {
+    ComponentDto project = componentDbTester.insertComponent(ComponentTesting.newProjectDto());
+    ComponentDto file = componentDbTester.insertComponent(ComponentTesting.newFileDto(project, null));
+
+    assertThat(underTest.selectComponentsByUuids(dbSession, asList(project.uuid(), file.uuid(), "unknown"))).extracting("uuid").containsOnly(project.uuid(), file.uuid());
+    assertThat(underTest.selectComponentsByUuids(dbSession, singletonList(file.uuid()))).extracting("key").containsOnly(file.key());
+  }
+
+  @Test
+  public void select_metrics_by_keys_and_ids() {
+    MetricDto metric = dbClient.metricDao().insert(dbSession, MetricTesting.newMetricDto().setKey("ncloc"));
+    dbClient.metricDao().insert(dbSession, MetricTesting.newMetricDto().setKey("coverage"));
+    dbSession.commit();
+
+    assertThat(underTest.selectMetricsByKeys(dbSession, asList("ncloc", "ncloc", "unknown"))).extracting("key").containsExactly("ncloc");
+    assertThat(underTest.selectMetricsByIds(dbSession, singletonList(metric.getId()))).extracting("key").containsExactly("ncloc");
+
+    dbClient.metricDao().insert(dbSession, MetricTesting.newMetricDto().setKey("lines"));
+    dbSession.commit();
+    assertThat(underTest.selectMetricsByKeys(dbSession, singletonList("lines"))).isEmpty();
+
+    underTest.invalidateMetrics();
+    assertThat(underTest.selectMetricsByKeys(dbSession, singletonList("lines"))).extracting("key").containsExactly("lines");
+  }
+
+  @Test
+  public void invalidate_all() {
+    RuleDto rule = RuleTesting.newXooX1();
+    dbClient.ruleDao().insert(dbSession, rule);
+    dbSession.commit();
+    underTest.selectRulesByKeys(dbSession, singletonList(RuleTesting.XOO_X1));
+    underTest.selectMetricsByKeys(dbSession, singletonList("ncloc"));
+
+    dbClient.ruleDao().update(dbSession, rule.setName("new name"));
+    dbClient.metricDao().insert(dbSession, MetricTesting.newMetricDto().setKey("ncloc"));
+    dbSession.commit();
+    underTest.invalidateAll();
+
+    assertThat(underTest.selectRulesByKeys(dbSession, singletonList(RuleTesting.XOO_X1))).extracting("name").containsOnly("new name");
+    assertThat(underTest.selectMetricsByKeys(dbSession, singletonList("ncloc"))).hasSize(1);
+  }
+}
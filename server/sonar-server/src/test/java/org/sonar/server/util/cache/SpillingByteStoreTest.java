@@ -0,0 +1,105 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.util.cache;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SpillingByteStoreTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  @Test
+  public void keep_values_in_memory_until_limit_is_reached() throws Exception {
+    SpillingByteStore underTest = new SpillingByteStore(temp.newFile(), 6);
+
+    underTest.put("a", bytes("foo"));
+    underTest.put("b", bytes("bar"));
+    underTest.put("c", bytes("baz"));
+    underTest.put("d", bytes("qux"));
+
+    assertThat(underTest.size()).isEqualTo(4);
+    assertThat(underTest.spilledSize()).isEqualTo(2);
+    assertThat(string(underTest.get("a"))).isEqualTo("foo");
+    assertThat(string(underTest.get("b"))).isEqualTo("bar");
+    assertThat(string(underTest.get("c"))).isEqualTo("baz");
+    assertThat(string(underTest.get("d"))).isEqualTo("qux");
+    underTest.close();
+  }
+
+  @Test
+  public void get_returns_null_if_key_does_not_exist() throws Exception {
+    SpillingByteStore underTest = new SpillingByteStore(temp.newFile(), 0);
+    underTest.put("a", bytes("foo"));
+
+    assertThat(underTest.get("b")).isNull();
+    assertThat(underTest.contains("a")).isTrue();
+    assertThat(underTest.contains("b")).isFalse();
+    underTest.close();
+  }
+
+  @Test
+  public void replace_value() throws Exception {
+    SpillingByteStore underTest = new SpillingByteStore(temp.newFile(), 4);
+    underTest.put("a", bytes("foo"));
+    underTest.put("a", bytes("foobar"));
+    underTest.put("b", bytes("bar"));
+
+    assertThat(underTest.size()).isEqualTo(2);
+    assertThat(string(underTest.get("a"))).isEqualTo("foobar");
+    assertThat(string(underTest.get("b"))).isEqualTo("bar");
+    // "a" is on disk, so memory is available for "b"
+    assertThat(underTest.spilledSize()).isEqualTo(1);
+    underTest.close();
+  }
+
+  @Test
+  public void store_empty_values() throws Exception {
+    SpillingByteStore underTest = new SpillingByteStore(temp.newFile(), 0);
+    underTest.put("a", new byte[0]);
+
+    assertThat(underTest.get("a")).isEmpty();
+    underTest.close();
+  }
+
+  @Test
+  public void fail_if_max_memory_is_negative() throws Exception {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Max memory must be positive (got -1)");
+
+    new SpillingByteStore(temp.newFile(), -1);
+  }
+
+  private static byte[] bytes(String s) {
+    return s.getBytes(UTF_8);
+  }
+
+  private static String string(byte[] bytes) {
+    return new String(bytes, UTF_8);
+  }
+}
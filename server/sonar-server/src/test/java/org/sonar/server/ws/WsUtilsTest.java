@@ -20,6 +20,7 @@
 package org.sonar.server.ws;
 
 import java.io.IOException;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
@@ -66,6 +67,14 @@ public class WsUtilsTest {
     assertThat(Issues.Issue.parseFrom(response.getFlushedOutput()).getKey()).isEqualTo("I1");
   }
 
+  @Test
+  public void fingerprint_is_md5_of_protobuf_message() {
+    Issues.Issue msg = Issues.Issue.newBuilder().setKey("I1").build();
+
+    assertThat(WsUtils.fingerprint(msg)).isEqualTo(DigestUtils.md5Hex(msg.toByteArray()));
+    assertThat(WsUtils.fingerprint(msg)).isNotEqualTo(WsUtils.fingerprint(Issues.Issue.newBuilder().setKey("I2").build()));
+  }
+
   @Test
   public void log_message_when_error_writing_message() throws IOException {
     TestRequest request = new TestRequest();
@@ -21,6 +21,8 @@ package org.sonar.core.util;
 
 import java.io.File;
 import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.MappedByteBuffer;
 import java.nio.file.FileVisitOption;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
@@ -105,6 +107,30 @@ public final class FileUtils {
     }
   }
 
+  /**
+   * Releases the memory mapping of a file, never throwing an exception. Until a mapping is released, the file can not
+   * be deleted on Windows. The JDK releases it only when the buffer is garbage collected.
+   * <p>
+   * The buffer, and any of its duplicates or slices, must not be read after this call.
+   *
+   * @param buffer  mapped buffer, can be {@code null}
+   */
+  public static void unmapQuietly(@Nullable MappedByteBuffer buffer) {
+    if (buffer == null) {
+      return;
+    }
+    try {
+      Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+      cleanerMethod.setAccessible(true);
+      Object cleaner = cleanerMethod.invoke(buffer);
+      if (cleaner != null) {
+        cleaner.getClass().getMethod("clean").invoke(cleaner);
+      }
+    } catch (ReflectiveOperationException | RuntimeException ignored) {
+      // not supported by this JVM. Mapping is released on garbage collection.
+    }
+  }
+
   private static void checkIO(boolean condition, String pattern, Object... arguments) throws IOException {
     if (!condition) {
       throw new IOException(format(pattern, arguments));
@@ -19,13 +19,22 @@
  */
 package org.sonar.core.util;
 
+import com.google.protobuf.ByteString;
 import com.google.protobuf.Descriptors;
+import com.google.protobuf.GeneratedMessage;
 import com.google.protobuf.MapEntry;
 import com.google.protobuf.Message;
 import java.io.StringWriter;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 import org.sonar.api.utils.text.JsonWriter;
 
 /**
@@ -131,22 +140,225 @@ public class ProtobufJsonFormat {
     // only statics
   }
 
+  /**
+   * Plan for writing messages of a given type. It is computed once per type then shared
+   * by all threads, so that descriptors are not walked again for each message.
+   */
   static class MessageType {
-    private static final Map<Class<? extends Message>, MessageType> TYPES_BY_CLASS = new HashMap<>();
+    private static final Map<Class<? extends Message>, MessageType> TYPES_BY_CLASS = new ConcurrentHashMap<>();
+    private static final Map<Descriptors.Descriptor, MessageType> TYPES_BY_DESCRIPTOR = new ConcurrentHashMap<>();
 
-    private final Descriptors.FieldDescriptor[] fieldDescriptors;
+    private final Descriptors.Descriptor descriptor;
+    // null if fields are read through descriptors, for example for DynamicMessage
+    @CheckForNull
+    private final Class<? extends Message> messageClass;
+    private final FieldType[] fields;
     private final boolean doesWrapRepeated;
 
-    private MessageType(Descriptors.Descriptor descriptor) {
-      this.fieldDescriptors = descriptor.getFields().toArray(new Descriptors.FieldDescriptor[descriptor.getFields().size()]);
-      this.doesWrapRepeated = fieldDescriptors.length == 1 && fieldDescriptors[0].isRepeated() && descriptor.getName().equalsIgnoreCase(fieldDescriptors[0].getName());
+    private MessageType(Descriptors.Descriptor descriptor, @Nullable Class<? extends Message> messageClass) {
+      this.descriptor = descriptor;
+      this.messageClass = messageClass;
+      List<Descriptors.FieldDescriptor> fieldDescriptors = descriptor.getFields();
+      this.fields = new FieldType[fieldDescriptors.size()];
+      for (int i = 0; i < fields.length; i++) {
+        fields[i] = new FieldType(fieldDescriptors.get(i), messageClass);
+      }
+      this.doesWrapRepeated = fields.length == 1 && fields[0].repeated && descriptor.getName().equalsIgnoreCase(fields[0].name);
     }
 
     static MessageType of(Message message) {
-      MessageType type = TYPES_BY_CLASS.get(message.getClass());
+      if (!(message instanceof GeneratedMessage)) {
+        return of(message.getDescriptorForType());
+      }
+      Class<? extends Message> messageClass = message.getClass();
+      MessageType type = TYPES_BY_CLASS.get(messageClass);
       if (type == null) {
-        type = new MessageType(message.getDescriptorForType());
-        TYPES_BY_CLASS.put(message.getClass(), type);
+        // types are immutable, so concurrent initializations are harmless
+        type = new MessageType(message.getDescriptorForType(), messageClass);
+        TYPES_BY_CLASS.putIfAbsent(messageClass, type);
+      }
+      return type;
+    }
+
+    static MessageType of(Descriptors.Descriptor descriptor) {
+      MessageType type = TYPES_BY_DESCRIPTOR.get(descriptor);
+      if (type == null) {
+        type = new MessageType(descriptor, null);
+        TYPES_BY_DESCRIPTOR.putIfAbsent(descriptor, type);
+      }
+      return type;
+    }
+
+    boolean isTypeOf(Message message) {
+      return messageClass == null ? (descriptor == message.getDescriptorForType()) : (messageClass == message.getClass());
+    }
+  }
+
+  /**
+   * Field of a {@link MessageType}. Values are read with the getters generated by protoc when they exist,
+   * instead of {@link Message#getField(Descriptors.FieldDescriptor)} which goes through reflection
+   * and copies map fields into lists of {@link MapEntry} on each call.
+   */
+  static class FieldType {
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Message.class);
+    private static final MethodType CHECKER_TYPE = MethodType.methodType(boolean.class, Message.class);
+    private static final MethodHandle GET_FIELD;
+    private static final MethodHandle HAS_FIELD;
+
+    static {
+      try {
+        MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        GET_FIELD = lookup.findVirtual(Message.class, "getField", MethodType.methodType(Object.class, Descriptors.FieldDescriptor.class));
+        HAS_FIELD = lookup.findVirtual(Message.class, "hasField", MethodType.methodType(boolean.class, Descriptors.FieldDescriptor.class));
+      } catch (ReflectiveOperationException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+
+    private final Descriptors.FieldDescriptor descriptor;
+    private final String name;
+    private final Descriptors.FieldDescriptor.JavaType javaType;
+    private final boolean repeated;
+    @CheckForNull
+    private final FieldType mapValue;
+    private final MethodHandle getter;
+    // null for repeated fields
+    @CheckForNull
+    private final MethodHandle checker;
+    // resolved on first use, as message types can be recursive
+    @CheckForNull
+    private MessageType messageType;
+
+    private FieldType(Descriptors.FieldDescriptor descriptor, @Nullable Class<? extends Message> messageClass) {
+      this.descriptor = descriptor;
+      this.name = descriptor.getName();
+      this.javaType = descriptor.getJavaType();
+      this.repeated = descriptor.isRepeated();
+      this.mapValue = descriptor.isMapField() ? new FieldType(descriptor.getMessageType().findFieldByName("value"), null) : null;
+      String camelName = toCamelCase(name);
+      if (descriptor.isMapField()) {
+        // older versions of protoc do not generate the suffix "Map"
+        MethodHandle mapGetter = findMethod(messageClass, "get" + camelName + "Map", Map.class);
+        this.getter = createGetter(mapGetter != null ? mapGetter : findMethod(messageClass, "get" + camelName, Map.class));
+        this.checker = null;
+      } else if (repeated) {
+        this.getter = createGetter(findMethod(messageClass, "get" + camelName + "List", List.class));
+        this.checker = null;
+      } else {
+        this.getter = createGetter(findMethod(messageClass, "get" + camelName, expectedClass(descriptor)));
+        this.checker = createChecker(findMethod(messageClass, "has" + camelName, boolean.class));
+      }
+    }
+
+    private MethodHandle createGetter(@Nullable MethodHandle generatedGetter) {
+      MethodHandle handle = generatedGetter;
+      if (handle == null) {
+        handle = MethodHandles.insertArguments(GET_FIELD, 1, descriptor);
+      }
+      return handle.asType(GETTER_TYPE);
+    }
+
+    private MethodHandle createChecker(@Nullable MethodHandle generatedChecker) {
+      MethodHandle handle = generatedChecker;
+      if (handle == null) {
+        handle = MethodHandles.insertArguments(HAS_FIELD, 1, descriptor);
+      }
+      return handle.asType(CHECKER_TYPE);
+    }
+
+    /**
+     * Getters are ignored when their return type is unexpected, for example when protoc renamed
+     * them to avoid a conflict with another field.
+     */
+    @CheckForNull
+    private static MethodHandle findMethod(@Nullable Class<? extends Message> messageClass, String methodName, Class<?> expectedClass) {
+      if (messageClass == null) {
+        return null;
+      }
+      try {
+        Method method = messageClass.getMethod(methodName);
+        if (!expectedClass.isAssignableFrom(method.getReturnType())) {
+          return null;
+        }
+        return MethodHandles.publicLookup().unreflect(method);
+      } catch (NoSuchMethodException | IllegalAccessException e) {
+        return null;
+      }
+    }
+
+    private static Class<?> expectedClass(Descriptors.FieldDescriptor descriptor) {
+      switch (descriptor.getJavaType()) {
+        case INT:
+          return int.class;
+        case LONG:
+          return long.class;
+        case FLOAT:
+          return float.class;
+        case DOUBLE:
+          return double.class;
+        case BOOLEAN:
+          return boolean.class;
+        case STRING:
+          return String.class;
+        case BYTE_STRING:
+          return ByteString.class;
+        case ENUM:
+          return Enum.class;
+        default:
+          return Message.class;
+      }
+    }
+
+    /**
+     * Same conversion as the one applied by protoc to name the generated accessors,
+     * for example "foo_bar2baz" is converted to "FooBar2Baz".
+     */
+    static String toCamelCase(String fieldName) {
+      StringBuilder sb = new StringBuilder(fieldName.length());
+      boolean capitalizeNext = true;
+      for (int i = 0; i < fieldName.length(); i++) {
+        char c = fieldName.charAt(i);
+        if (c >= 'a' && c <= 'z') {
+          sb.append(capitalizeNext ? Character.toUpperCase(c) : c);
+          capitalizeNext = false;
+        } else if (c >= 'A' && c <= 'Z') {
+          sb.append(c);
+          capitalizeNext = false;
+        } else if (c >= '0' && c <= '9') {
+          sb.append(c);
+          capitalizeNext = true;
+        } else {
+          capitalizeNext = true;
+        }
+      }
+      return sb.toString();
+    }
+
+    Object get(Message message) {
+      try {
+        return getter.invokeExact(message);
+      } catch (RuntimeException | Error e) {
+        throw e;
+      } catch (Throwable e) {
+        throw new IllegalStateException(e);
+      }
+    }
+
+    boolean has(Message message) {
+      try {
+        return (boolean) checker.invokeExact(message);
+      } catch (RuntimeException | Error e) {
+        throw e;
+      } catch (Throwable e) {
+        throw new IllegalStateException(e);
+      }
+    }
+
+    MessageType messageType(Message value) {
+      MessageType type = messageType;
+      if (type == null || !type.isTypeOf(value)) {
+        type = MessageType.of(value);
+        messageType = type;
       }
       return type;
     }
@@ -167,44 +379,61 @@ public class ProtobufJsonFormat {
   }
 
   private static void writeMessage(Message message, JsonWriter writer) {
-    MessageType type = MessageType.of(message);
-    for (Descriptors.FieldDescriptor fieldDescriptor : type.fieldDescriptors) {
-      if (fieldDescriptor.isRepeated()) {
-        writer.name(fieldDescriptor.getName());
-        if (fieldDescriptor.isMapField()) {
-          writeMap((Collection<MapEntry>) message.getField(fieldDescriptor), writer);
-        } else {
-          writeArray(writer, fieldDescriptor, (Collection) message.getField(fieldDescriptor));
-        }
-      } else if (message.hasField(fieldDescriptor)) {
-        writer.name(fieldDescriptor.getName());
-        Object fieldValue = message.getField(fieldDescriptor);
-        writeFieldValue(fieldDescriptor, fieldValue, writer);
+    writeFields(MessageType.of(message), message, writer);
+  }
+
+  private static void writeFields(MessageType type, Message message, JsonWriter writer) {
+    for (FieldType field : type.fields) {
+      if (field.repeated) {
+        writer.name(field.name);
+        writeRepeatedFieldValue(field, message, writer);
+      } else if (field.has(message)) {
+        writer.name(field.name);
+        writeFieldValue(field, field.get(message), writer);
       }
     }
   }
 
-  private static void writeArray(JsonWriter writer, Descriptors.FieldDescriptor fieldDescriptor, Collection array) {
+  private static void writeRepeatedFieldValue(FieldType field, Message message, JsonWriter writer) {
+    Object value = field.get(message);
+    if (field.mapValue != null) {
+      writeMap(field.mapValue, value, writer);
+    } else {
+      writeArray(field, (Collection) value, writer);
+    }
+  }
+
+  private static void writeArray(FieldType field, Collection array, JsonWriter writer) {
     writer.beginArray();
     for (Object o : array) {
-      writeFieldValue(fieldDescriptor, o, writer);
+      writeFieldValue(field, o, writer);
     }
     writer.endArray();
   }
 
-  private static void writeMap(Collection<MapEntry> mapEntries, JsonWriter writer) {
+  /**
+   * @param map either the {@link Map} returned by generated getters or the collection
+   *            of {@link MapEntry} returned by {@link Message#getField(Descriptors.FieldDescriptor)}
+   */
+  private static void writeMap(FieldType valueField, Object map, JsonWriter writer) {
     writer.beginObject();
-    for (MapEntry mapEntry : mapEntries) {
-      // Key fields are always double-quoted in json
-      writer.name(mapEntry.getKey().toString());
-      Descriptors.FieldDescriptor valueDescriptor = mapEntry.getDescriptorForType().findFieldByName("value");
-      writeFieldValue(valueDescriptor, mapEntry.getValue(), writer);
+    if (map instanceof Map) {
+      for (Map.Entry<?, ?> entry : ((Map<?, ?>) map).entrySet()) {
+        // Key fields are always double-quoted in json
+        writer.name(entry.getKey().toString());
+        writeFieldValue(valueField, entry.getValue(), writer);
+      }
+    } else {
+      for (MapEntry mapEntry : (Collection<MapEntry>) map) {
+        writer.name(mapEntry.getKey().toString());
+        writeFieldValue(valueField, mapEntry.getValue(), writer);
+      }
     }
     writer.endObject();
   }
 
-  private static void writeFieldValue(Descriptors.FieldDescriptor fieldDescriptor, Object value, JsonWriter writer) {
-    switch (fieldDescriptor.getJavaType()) {
+  private static void writeFieldValue(FieldType field, Object value, JsonWriter writer) {
+    switch (field.javaType) {
       case INT:
         writer.value((Integer) value);
         break;
@@ -221,28 +450,31 @@ public class ProtobufJsonFormat {
         writer.value((String) value);
         break;
       case ENUM:
-        writer.value(((Descriptors.EnumValueDescriptor) value).getName());
+        writeEnumValue(value, writer);
         break;
       case MESSAGE:
-        writeMessageValue((Message) value, writer);
+        writeMessageValue(field.messageType((Message) value), (Message) value, writer);
         break;
       default:
-        throw new IllegalStateException(String.format("JSON format does not support type '%s' of field '%s'", fieldDescriptor.getJavaType(), fieldDescriptor.getName()));
+        throw new IllegalStateException(String.format("JSON format does not support type '%s' of field '%s'", field.javaType, field.name));
+    }
+  }
+
+  private static void writeEnumValue(Object value, JsonWriter writer) {
+    if (value instanceof Descriptors.EnumValueDescriptor) {
+      writer.value(((Descriptors.EnumValueDescriptor) value).getName());
+    } else {
+      // generated enums are named as the values of the .proto file
+      writer.value(((Enum) value).name());
     }
   }
 
-  private static void writeMessageValue(Message message, JsonWriter writer) {
-    MessageType messageType = MessageType.of(message);
+  private static void writeMessageValue(MessageType messageType, Message message, JsonWriter writer) {
     if (messageType.doesWrapRepeated) {
-      Descriptors.FieldDescriptor repeatedDescriptor = messageType.fieldDescriptors[0];
-      if (repeatedDescriptor.isMapField()) {
-        writeMap((Collection<MapEntry>) message.getField(repeatedDescriptor), writer);
-      } else {
-        writeArray(writer, repeatedDescriptor, (Collection) message.getField(repeatedDescriptor));
-      }
+      writeRepeatedFieldValue(messageType.fields[0], message, writer);
     } else {
       writer.beginObject();
-      writeMessage(message, writer);
+      writeFields(messageType, message, writer);
       writer.endObject();
     }
   }
@@ -0,0 +1,55 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ByteBufferInputStreamTest {
+
+  @Test
+  public void read_remaining_bytes_of_buffer() throws IOException {
+    ByteBuffer buffer = ByteBuffer.wrap(new byte[] {1, 2, 3, 4, (byte) 0xFF});
+    buffer.position(1);
+    InputStream underTest = new ByteBufferInputStream(buffer);
+
+    assertThat(underTest.available()).isEqualTo(4);
+    assertThat(underTest.read()).isEqualTo(2);
+    assertThat(IOUtils.toByteArray(underTest)).containsExactly((byte) 3, (byte) 4, (byte) 0xFF);
+    assertThat(underTest.read()).isEqualTo(-1);
+    assertThat(underTest.read(new byte[2], 0, 2)).isEqualTo(-1);
+    assertThat(underTest.read(new byte[2], 0, 0)).isEqualTo(0);
+  }
+
+  @Test
+  public void skip_does_not_go_past_end_of_buffer() throws IOException {
+    InputStream underTest = new ByteBufferInputStream(ByteBuffer.wrap(new byte[] {1, 2, 3}));
+
+    assertThat(underTest.skip(-1L)).isEqualTo(0L);
+    assertThat(underTest.skip(2L)).isEqualTo(2L);
+    assertThat(underTest.skip(10L)).isEqualTo(1L);
+    assertThat(underTest.available()).isEqualTo(0);
+  }
+}
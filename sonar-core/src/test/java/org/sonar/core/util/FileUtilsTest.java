@@ -21,8 +21,11 @@ package org.sonar.core.util;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.BasicFileAttributes;
 import javax.annotation.CheckForNull;
 import org.apache.commons.lang.SystemUtils;
@@ -237,6 +240,26 @@ public class FileUtilsTest {
     assertThat(childDir2).doesNotExist();
   }
 
+  @Test
+  public void unmapQuietly_releases_mapping_so_that_file_can_be_deleted() throws IOException {
+    File file = temporaryFolder.newFile();
+    Files.write(file.toPath(), new byte[] {1, 2, 3});
+    MappedByteBuffer buffer;
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0L, 3L);
+    }
+    assertThat(buffer.get(2)).isEqualTo((byte) 3);
+
+    FileUtils.unmapQuietly(buffer);
+
+    assertThat(FileUtils.deleteQuietly(file)).isTrue();
+  }
+
+  @Test
+  public void unmapQuietly_does_nothing_if_buffer_is_null() {
+    FileUtils.unmapQuietly(null);
+  }
+
   private void expectDirectoryCanNotBeNullNPE() {
     expectedException.expect(NullPointerException.class);
     expectedException.expectMessage("Directory can not be null");
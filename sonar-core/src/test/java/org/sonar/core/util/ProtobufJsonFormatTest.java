@@ -20,6 +20,7 @@
 package org.sonar.core.util;
 
 import com.google.protobuf.ByteString;
+import com.google.protobuf.DynamicMessage;
 import java.io.StringWriter;
 import org.junit.Rule;
 import org.junit.Test;
@@ -210,6 +211,31 @@ public class ProtobufJsonFormatTest {
     assertThat(toJson(msg.build())).isEqualTo("{\"catalogs\":{\"numbers\":{\"one\":\"un\",\"two\":\"deux\"}}}");
   }
 
+  @Test
+  public void message_types_are_computed_once() {
+    ProtobufJsonFormat.MessageType type = ProtobufJsonFormat.MessageType.of(Country.getDefaultInstance());
+
+    assertThat(ProtobufJsonFormat.MessageType.of(Country.newBuilder().setName("France").build())).isSameAs(type);
+    assertThat(ProtobufJsonFormat.MessageType.of(Country.getDescriptor())).isSameAs(ProtobufJsonFormat.MessageType.of(Country.getDescriptor()));
+  }
+
+  @Test
+  public void write_dynamic_message() throws Exception {
+    TestMapOfArray.Builder builder = TestMapOfArray.newBuilder();
+    builder.getMutableMoneys().put("eur", Countries.newBuilder().addCountries(Country.newBuilder().setName("France")).build());
+    TestMapOfArray generated = builder.build();
+    DynamicMessage dynamic = DynamicMessage.parseFrom(TestMapOfArray.getDescriptor(), generated.toByteArray());
+
+    assertThat(toJson(dynamic)).isEqualTo(toJson(generated)).isEqualTo("{\"moneys\":{\"eur\":[{\"name\":\"France\"}]}}");
+  }
+
+  @Test
+  public void convert_field_names_as_protoc() {
+    assertThat(ProtobufJsonFormat.FieldType.toCamelCase("stringField")).isEqualTo("StringField");
+    assertThat(ProtobufJsonFormat.FieldType.toCamelCase("foo_bar")).isEqualTo("FooBar");
+    assertThat(ProtobufJsonFormat.FieldType.toCamelCase("foo2bar")).isEqualTo("Foo2Bar");
+  }
+
   @Test
   public void constructor_is_private() throws Exception {
     assertThat(TestUtils.hasOnlyPrivateConstructors(ProtobufJsonFormat.class)).isTrue();
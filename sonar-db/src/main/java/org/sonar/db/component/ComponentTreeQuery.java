@@ -37,6 +37,9 @@ import static org.sonar.db.DatabaseUtils.buildLikeValue;
 import static org.sonar.db.WildcardPosition.AFTER;
 
 public class ComponentTreeQuery {
+  // measures are aliased "pm" in the queries of the tree. Components without measure are last in both directions.
+  private static final String METRIC_SQL_SORT_PATTERN = "case when pm.value is null then 1 else 0 end, pm.value %s";
+
   @CheckForNull
   private final String nameOrKeyQuery;
   // SONAR-7681 a public implementation of List must be used in MyBatis - potential concurrency exceptions otherwise
@@ -47,6 +50,9 @@ public class ComponentTreeQuery {
   @CheckForNull
   private final Integer pageSize;
   private final String baseUuid;
+  @CheckForNull
+  private final Integer metricSortId;
+  private final boolean withMeasuresOnly;
   private final String sqlSort;
   private final String direction;
 
@@ -56,8 +62,10 @@ public class ComponentTreeQuery {
     this.page = builder.page;
     this.pageSize = builder.pageSize;
     this.baseUuid = builder.baseUuid;
+    this.metricSortId = builder.metricSortId;
+    this.withMeasuresOnly = builder.withMeasuresOnly;
     this.direction = builder.asc ? "ASC" : "DESC";
-    this.sqlSort = sortFieldsToSqlSort(builder.sortFields, direction);
+    this.sqlSort = toSqlSort(builder.metricSortId, builder.sortFields, direction);
   }
 
   public Collection<String> getQualifiers() {
@@ -86,6 +94,22 @@ public class ComponentTreeQuery {
     return baseUuid;
   }
 
+  /**
+   * Id of the numeric metric whose value of last analysis sorts the components, before the sort fields.
+   * Components without value are returned last.
+   */
+  @CheckForNull
+  public Integer getMetricSortId() {
+    return metricSortId;
+  }
+
+  /**
+   * Whether the components without value for the metric {@link #getMetricSortId()} are excluded
+   */
+  public boolean isWithMeasuresOnly() {
+    return withMeasuresOnly;
+  }
+
   public String getSqlSort() {
     return sqlSort;
   }
@@ -98,6 +122,14 @@ public class ComponentTreeQuery {
     return new Builder();
   }
 
+  private static String toSqlSort(@Nullable Integer metricSortId, List<String> sortFields, String direction) {
+    String sqlSort = sortFieldsToSqlSort(sortFields, direction);
+    if (metricSortId == null) {
+      return sqlSort;
+    }
+    return format(METRIC_SQL_SORT_PATTERN, direction) + ", " + sqlSort;
+  }
+
   private static String sortFieldsToSqlSort(List<String> sortFields, String direction) {
     return sortFields
       .stream()
@@ -115,6 +147,9 @@ public class ComponentTreeQuery {
     @CheckForNull
     private Integer pageSize;
     private String baseUuid;
+    @CheckForNull
+    private Integer metricSortId;
+    private boolean withMeasuresOnly = false;
     private List<String> sortFields;
     private boolean asc = true;
 
@@ -153,6 +188,16 @@ public class ComponentTreeQuery {
       return this;
     }
 
+    public Builder setMetricSortId(@Nullable Integer metricSortId) {
+      this.metricSortId = metricSortId;
+      return this;
+    }
+
+    public Builder setWithMeasuresOnly(boolean withMeasuresOnly) {
+      this.withMeasuresOnly = withMeasuresOnly;
+      return this;
+    }
+
     public Builder setSortFields(List<String> sorts) {
       checkArgument(sorts != null && !sorts.isEmpty());
       this.sortFields = sorts;
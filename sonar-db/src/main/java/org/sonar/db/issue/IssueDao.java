@@ -29,6 +29,7 @@ import java.util.Map;
 import java.util.Set;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import org.apache.ibatis.session.ResultHandler;
 import org.sonar.db.Dao;
 import org.sonar.db.DbSession;
 import org.sonar.db.RowNotFoundException;
@@ -87,6 +88,14 @@ public class IssueDao implements Dao {
     }
   }
 
+  /**
+   * Streams the issues of the project which are not closed, ordered by component uuid. Results are
+   * {@link IssueDto}.
+   */
+  public void scrollNonClosedByProjectUuid(DbSession session, String projectUuid, ResultHandler handler) {
+    mapper(session).selectNonClosedByProjectUuid(projectUuid, handler);
+  }
+
   public Set<String> selectComponentUuidsOfOpenIssuesForProjectUuid(DbSession session, String projectUuid) {
     return mapper(session).selectComponentUuidsOfOpenIssuesForProjectUuid(projectUuid);
   }
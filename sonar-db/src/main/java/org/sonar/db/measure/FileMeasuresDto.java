@@ -0,0 +1,179 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.measure;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import net.jpountz.lz4.LZ4BlockInputStream;
+import net.jpountz.lz4.LZ4BlockOutputStream;
+import org.apache.commons.io.IOUtils;
+import org.sonar.db.protobuf.DbMeasures;
+
+import static java.lang.String.format;
+
+/**
+ * Row of table FILE_MEASURES: all the measures of a file for a given analysis, stored in a single
+ * compressed column instead of one row of PROJECT_MEASURES per metric.
+ */
+public class FileMeasuresDto {
+
+  private String componentUuid;
+  private String analysisUuid;
+  private byte[] binaryData;
+
+  public String getComponentUuid() {
+    return componentUuid;
+  }
+
+  public FileMeasuresDto setComponentUuid(String s) {
+    this.componentUuid = s;
+    return this;
+  }
+
+  public String getAnalysisUuid() {
+    return analysisUuid;
+  }
+
+  public FileMeasuresDto setAnalysisUuid(String s) {
+    this.analysisUuid = s;
+    return this;
+  }
+
+  public byte[] getBinaryData() {
+    return binaryData;
+  }
+
+  public FileMeasuresDto setBinaryData(byte[] binaryData) {
+    this.binaryData = binaryData;
+    return this;
+  }
+
+  /**
+   * Decompress and deserialize the column BINARY_DATA. Component and analysis of the returned
+   * measures are the ones of this row.
+   */
+  public List<MeasureDto> getMeasures() {
+    try (LZ4BlockInputStream lz4Input = new LZ4BlockInputStream(new ByteArrayInputStream(binaryData))) {
+      DbMeasures.Measures measures = DbMeasures.Measures.parseFrom(lz4Input);
+      List<MeasureDto> result = new ArrayList<>(measures.getMeasureCount());
+      for (DbMeasures.Measure measure : measures.getMeasureList()) {
+        result.add(toMeasureDto(measure));
+      }
+      return result;
+    } catch (IOException e) {
+      throw new IllegalStateException(format("Fail to decompress and deserialize measures [componentUuid=%s,analysisUuid=%s]", componentUuid, analysisUuid), e);
+    }
+  }
+
+  /**
+   * Serialize and compress the measures in the column BINARY_DATA. The developer, component and
+   * analysis of the measures are ignored.
+   */
+  public FileMeasuresDto setMeasures(Collection<MeasureDto> measures) {
+    DbMeasures.Measures.Builder builder = DbMeasures.Measures.newBuilder();
+    for (MeasureDto measure : measures) {
+      builder.addMeasure(toProtobuf(measure));
+    }
+    ByteArrayOutputStream byteOutput = new ByteArrayOutputStream();
+    LZ4BlockOutputStream compressedOutput = new LZ4BlockOutputStream(byteOutput);
+    try {
+      builder.build().writeTo(compressedOutput);
+      compressedOutput.close();
+      this.binaryData = byteOutput.toByteArray();
+      return this;
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to serialize and compress measures", e);
+    } finally {
+      IOUtils.closeQuietly(compressedOutput);
+    }
+  }
+
+  private MeasureDto toMeasureDto(DbMeasures.Measure measure) {
+    MeasureDto dto = new MeasureDto()
+      .setComponentUuid(componentUuid)
+      .setAnalysisUuid(analysisUuid)
+      .setMetricId(measure.getMetricId());
+    if (measure.hasValue()) {
+      dto.setValue(measure.getValue());
+    }
+    if (measure.hasData()) {
+      dto.setData(measure.getData());
+    }
+    if (measure.hasAlertStatus()) {
+      dto.setAlertStatus(measure.getAlertStatus());
+    }
+    if (measure.hasAlertText()) {
+      dto.setAlertText(measure.getAlertText());
+    }
+    if (measure.hasVariationValue1()) {
+      dto.setVariation(1, measure.getVariationValue1());
+    }
+    if (measure.hasVariationValue2()) {
+      dto.setVariation(2, measure.getVariationValue2());
+    }
+    if (measure.hasVariationValue3()) {
+      dto.setVariation(3, measure.getVariationValue3());
+    }
+    if (measure.hasVariationValue4()) {
+      dto.setVariation(4, measure.getVariationValue4());
+    }
+    if (measure.hasVariationValue5()) {
+      dto.setVariation(5, measure.getVariationValue5());
+    }
+    return dto;
+  }
+
+  private static DbMeasures.Measure toProtobuf(MeasureDto dto) {
+    DbMeasures.Measure.Builder builder = DbMeasures.Measure.newBuilder()
+      .setMetricId(dto.getMetricId());
+    if (dto.getValue() != null) {
+      builder.setValue(dto.getValue());
+    }
+    if (dto.getData() != null) {
+      builder.setData(dto.getData());
+    }
+    if (dto.getAlertStatus() != null) {
+      builder.setAlertStatus(dto.getAlertStatus());
+    }
+    if (dto.getAlertText() != null) {
+      builder.setAlertText(dto.getAlertText());
+    }
+    if (dto.getVariation(1) != null) {
+      builder.setVariationValue1(dto.getVariation(1));
+    }
+    if (dto.getVariation(2) != null) {
+      builder.setVariationValue2(dto.getVariation(2));
+    }
+    if (dto.getVariation(3) != null) {
+      builder.setVariationValue3(dto.getVariation(3));
+    }
+    if (dto.getVariation(4) != null) {
+      builder.setVariationValue4(dto.getVariation(4));
+    }
+    if (dto.getVariation(5) != null) {
+      builder.setVariationValue5(dto.getVariation(5));
+    }
+    return builder.build();
+  }
+}
@@ -21,14 +21,24 @@ package org.sonar.db.measure;
 
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.apache.ibatis.executor.result.DefaultResultContext;
 import org.apache.ibatis.session.ResultHandler;
 import org.sonar.db.Dao;
 import org.sonar.db.DbSession;
+import org.sonar.db.metric.MetricDto;
+import org.sonar.db.metric.MetricMapper;
 
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
 import static org.sonar.db.DatabaseUtils.executeLargeInputs;
 import static org.sonar.db.DatabaseUtils.executeLargeInputsWithoutOutput;
 
@@ -51,6 +61,9 @@ public class MeasureDao implements Dao {
    * Returned measure can optionally be filtered metric (either by specifying {@link MeasureQuery#metricIds}
    * or {@link MeasureQuery#metricKeys}).
    * </p>
+   * <p>
+   * Measures of files stored in table FILE_MEASURES (see {@link #insert(DbSession, FileMeasuresDto)}) are returned as well.
+   * </p>
    */
   public List<MeasureDto> selectByQuery(DbSession dbSession, MeasureQuery query) {
     if (query.returnsEmpty()) {
@@ -59,9 +72,12 @@ public class MeasureDao implements Dao {
     if (query.getComponentUuids() == null) {
       return mapper(dbSession).selectByQuery(query);
     }
+    Set<Integer> metricIds = selectMetricIds(dbSession, query);
     return executeLargeInputs(query.getComponentUuids(), componentUuids -> {
       MeasureQuery pageQuery = MeasureQuery.copyWithSubsetOfComponentUuids(query, componentUuids);
-      return mapper(dbSession).selectByQuery(pageQuery);
+      List<MeasureDto> measures = new ArrayList<>(mapper(dbSession).selectByQuery(pageQuery));
+      measures.addAll(selectFileMeasures(dbSession, pageQuery, metricIds));
+      return measures;
     });
   }
 
@@ -72,23 +88,67 @@ public class MeasureDao implements Dao {
     if (query.getComponentUuids() == null) {
       mapper(dbSession).selectByQuery(query, resultHandler);
     } else {
+      Set<Integer> metricIds = selectMetricIds(dbSession, query);
+      DefaultResultContext fileMeasuresContext = new DefaultResultContext();
       executeLargeInputsWithoutOutput(
         query.getComponentUuids(),
         componentUuids -> {
           MeasureQuery pageQuery = MeasureQuery.copyWithSubsetOfComponentUuids(query, componentUuids);
           mapper(dbSession).selectByQuery(pageQuery, resultHandler);
+          for (MeasureDto fileMeasure : selectFileMeasures(dbSession, pageQuery, metricIds)) {
+            fileMeasuresContext.nextResultObject(fileMeasure);
+            resultHandler.handleResult(fileMeasuresContext);
+          }
           return null;
         });
     }
   }
 
-  public List<PastMeasureDto> selectPastMeasures(DbSession dbSession,
-    String componentUuid,
-    String analysisUuid,
-    Collection<Integer> metricIds) {
-    return executeLargeInputs(
+  private static List<MeasureDto> selectFileMeasures(DbSession dbSession, MeasureQuery query, @Nullable Set<Integer> metricIds) {
+    if (query.getPersonId() != null) {
+      // measures of developers are never stored in FILE_MEASURES
+      return Collections.emptyList();
+    }
+    return mapper(dbSession).selectFileMeasuresByQuery(query).stream()
+      .flatMap(fileMeasures -> fileMeasures.getMeasures().stream())
+      .filter(measure -> metricIds == null || metricIds.contains(measure.getMetricId()))
+      .collect(toList());
+  }
+
+  /**
+   * Ids of the metrics requested by the query, or {@code null} if all metrics are requested.
+   */
+  @CheckForNull
+  private static Set<Integer> selectMetricIds(DbSession dbSession, MeasureQuery query) {
+    if (query.getMetricIds() != null) {
+      return new HashSet<>(query.getMetricIds());
+    }
+    if (query.getMetricKeys() != null) {
+      return dbSession.getMapper(MetricMapper.class).selectByKeys(new ArrayList<>(query.getMetricKeys())).stream()
+        .map(MetricDto::getId)
+        .collect(toSet());
+    }
+    return null;
+  }
+
+  /**
+   * Streams the measures of the given analysis on the specified metrics, for all the components except files.
+   * Measures associated to developers are ignored.
+   */
+  public void selectPastMeasuresOfAnalysis(DbSession dbSession, String analysisUuid, Collection<Integer> metricIds, ResultHandler resultHandler) {
+    executeLargeInputsWithoutOutput(
       metricIds,
-      ids -> mapper(dbSession).selectPastMeasures(componentUuid, analysisUuid, ids));
+      ids -> {
+        mapper(dbSession).selectPastMeasuresOfAnalysis(analysisUuid, ids, resultHandler);
+        return null;
+      });
+  }
+
+  /**
+   * Whether some file measures of the analysis are stored in table FILE_MEASURES rather than in PROJECT_MEASURES.
+   */
+  public boolean hasFileMeasures(DbSession dbSession, String analysisUuid) {
+    return mapper(dbSession).countFileMeasuresOfAnalysis(analysisUuid) > 0;
   }
 
   /**
@@ -114,6 +174,14 @@ public class MeasureDao implements Dao {
     insert(session, Lists.asList(item, others));
   }
 
+  /**
+   * Stores all the measures of a file for an analysis in a single row of table FILE_MEASURES, instead of
+   * one row of PROJECT_MEASURES per measure. Measures of developers are not supported.
+   */
+  public void insert(DbSession session, FileMeasuresDto fileMeasures) {
+    mapper(session).insertFileMeasures(fileMeasures);
+  }
+
   private static MeasureMapper mapper(DbSession session) {
     return session.getMapper(MeasureMapper.class);
   }
@@ -30,9 +30,15 @@ public interface MeasureMapper {
 
   void selectByQuery(@Param("query") MeasureQuery query, ResultHandler resultHandler);
 
-  List<PastMeasureDto> selectPastMeasures(@Param("componentUuid") String componentUuid, @Param("analysisUuid") String analysisUuid, @Param("metricIds") List<Integer> metricIds);
+  List<FileMeasuresDto> selectFileMeasuresByQuery(@Param("query") MeasureQuery query);
+
+  int countFileMeasuresOfAnalysis(@Param("analysisUuid") String analysisUuid);
+
+  void selectPastMeasuresOfAnalysis(@Param("analysisUuid") String analysisUuid, @Param("metricIds") List<Integer> metricIds, ResultHandler resultHandler);
 
   List<MeasureDto> selectProjectMeasuresOfDeveloper(@Param("developerId") long developerId, @Param("metricIds") Collection<Integer> metricIds);
 
   void insert(MeasureDto measureDto);
+
+  void insertFileMeasures(FileMeasuresDto fileMeasuresDto);
 }
@@ -28,6 +28,8 @@ public class PastMeasureDto {
 
   private int metricId;
 
+  private String componentUuid;
+
   @CheckForNull
   private Double value;
 
@@ -57,6 +59,15 @@ public class PastMeasureDto {
     return this;
   }
 
+  public String getComponentUuid() {
+    return componentUuid;
+  }
+
+  PastMeasureDto setComponentUuid(String s) {
+    this.componentUuid = s;
+    return this;
+  }
+
   @CheckForNull
   public Long getPersonId() {
     return personId;
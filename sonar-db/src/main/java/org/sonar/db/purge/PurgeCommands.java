@@ -143,6 +143,17 @@ class PurgeCommands {
     profiler.stop();
   }
 
+  /**
+   * Deletes the rows of FILE_MEASURES of the given analyses. As these rows are never associated to
+   * developers, they are deleted by analysis only, whatever the files.
+   */
+  public void deleteFileMeasures(List<String> analysisUuids) {
+    profiler.start("deleteFileMeasures (file_measures)");
+    Lists.partition(analysisUuids, MAX_SNAPSHOTS_PER_QUERY).forEach(purgeMapper::deleteAnalysisFileMeasures);
+    session.commit();
+    profiler.stop();
+  }
+
   void deleteAnalyses(PurgeSnapshotQuery... queries) {
     List<IdUuidPair> snapshotIds = from(asList(queries))
       .transformAndConcat(purgeMapper::selectAnalysisIdsAndUuids)
@@ -166,6 +177,11 @@ class PurgeCommands {
     session.commit();
     profiler.stop();
 
+    profiler.start("deleteAnalyses (file_measures)");
+    analysisUuidsPartitions.forEach(purgeMapper::deleteAnalysisFileMeasures);
+    session.commit();
+    profiler.stop();
+
     profiler.start("deleteAnalyses (snapshots)");
     analysisUuidsPartitions.forEach(purgeMapper::deleteAnalyses);
     session.commit();
@@ -25,6 +25,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import org.sonar.api.resources.Scopes;
 import org.sonar.api.utils.System2;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
@@ -120,6 +121,10 @@ public class PurgeDao implements Dao {
       .collect(Collectors.toList());
 
     purgeCommands.deleteComponentMeasures(analysisUuids, componentWithoutHistoricalDataUuids);
+    if (Arrays.asList(scopesWithoutHistoricalData).contains(Scopes.FILE)) {
+      // FILE_MEASURES contains only files, not unit tests
+      purgeCommands.deleteFileMeasures(analysisUuids);
+    }
   }
 
   /**
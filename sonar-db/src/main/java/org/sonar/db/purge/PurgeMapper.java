@@ -44,6 +44,8 @@ public interface PurgeMapper {
 
   void deleteComponentMeasures(@Param("analysisUuids") List<String> analysisUuids, @Param("componentUuids") List<String> componentUuids);
 
+  void deleteAnalysisFileMeasures(@Param("analysisUuids") List<String> analysisUuids);
+
   List<Long> selectMetricIdsWithoutHistoricalData();
 
   void deleteAnalysisWastedMeasures(@Param("analysisUuids") List<String> analysisUuids, @Param("metricIds") List<Long> metricIds);
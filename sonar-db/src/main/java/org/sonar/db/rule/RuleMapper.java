@@ -51,6 +51,8 @@ public interface RuleMapper {
 
   void insert(RuleDto rule);
 
+  List<RuleParamDto> selectAllParams();
+
   List<RuleParamDto> selectParamsByRuleIds(@Param("ruleIds") List<Integer> ruleIds);
 
   List<RuleParamDto> selectParamsByRuleKey(RuleKey ruleKey);
@@ -30,6 +30,7 @@ import java.util.List;
 import javax.annotation.CheckForNull;
 import org.apache.commons.dbutils.DbUtils;
 import org.apache.commons.io.IOUtils;
+import org.apache.ibatis.session.ResultHandler;
 import org.sonar.db.Dao;
 import org.sonar.db.DbSession;
 import org.sonar.db.MyBatis;
@@ -49,6 +50,30 @@ public class FileSourceDao implements Dao {
     return mapper(session).select(fileUuid, Type.SOURCE);
   }
 
+  /**
+   * MD5 of the column BINARY_DATA of the source of the file, or {@code null} if the file has no source.
+   */
+  @CheckForNull
+  public String selectSourceDataHashByFileUuid(DbSession session, String fileUuid) {
+    return mapper(session).selectDataHash(fileUuid, Type.SOURCE);
+  }
+
+  /**
+   * Streams the line hashes of all the files of the project, in a single request. Only the columns file_uuid
+   * and line_hashes are loaded. Results are {@link FileSourceDto}.
+   */
+  public void scrollLineHashesForProject(DbSession session, String projectUuid, ResultHandler handler) {
+    mapper(session).scrollLineHashesForProject(projectUuid, Type.SOURCE, handler);
+  }
+
+  /**
+   * Streams the line hashes of the enabled files of a module, excluding the files of its sub-modules, in a single
+   * request. Only the columns file_uuid and line_hashes are loaded. Results are {@link FileSourceDto}.
+   */
+  public void scrollLineHashesForModule(DbSession session, String projectUuid, String moduleUuid, ResultHandler handler) {
+    mapper(session).scrollLineHashesForModule(projectUuid, moduleUuid, Type.SOURCE, handler);
+  }
+
   @CheckForNull
   public FileSourceDto selectTest(String fileUuid) {
     DbSession session = mybatis.openSession(false);
@@ -20,7 +20,9 @@
 package org.sonar.db.source;
 
 import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.ExtensionRegistryLite;
 import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.WireFormat;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
@@ -122,6 +124,47 @@ public class FileSourceDto {
     }
   }
 
+  /**
+   * Decompresses and parses the lines of BINARY_DATA until the requested range is complete. The lines
+   * after the range are not decompressed nor parsed.
+   *
+   * @param from starts from 1
+   * @param toInclusive starts from 1, must be greater than or equal param {@code from}
+   */
+  public List<DbFileSources.Line> decodeSourceLines(byte[] binaryData, int from, int toInclusive) {
+    try {
+      return decodeRegularSourceLines(binaryData, from, toInclusive);
+    } catch (IOException e) {
+      throw new IllegalStateException(
+        format("Fail to decompress and deserialize source data [id=%s,fileUuid=%s,projectUuid=%s]", id, fileUuid, projectUuid),
+        e);
+    }
+  }
+
+  private static List<DbFileSources.Line> decodeRegularSourceLines(byte[] binaryData, int from, int toInclusive) throws IOException {
+    int maxLines = toInclusive - from + 1;
+    List<DbFileSources.Line> lines = new ArrayList<>();
+    try (LZ4BlockInputStream lz4Input = new LZ4BlockInputStream(new ByteArrayInputStream(binaryData))) {
+      CodedInputStream input = CodedInputStream.newInstance(lz4Input);
+      input.setSizeLimit(Integer.MAX_VALUE);
+      while (lines.size() < maxLines) {
+        int tag = input.readTag();
+        if (tag == 0) {
+          break;
+        }
+        if (WireFormat.getTagFieldNumber(tag) == DbFileSources.Data.LINES_FIELD_NUMBER) {
+          DbFileSources.Line line = input.readMessage(DbFileSources.Line.parser(), ExtensionRegistryLite.getEmptyRegistry());
+          if (line.hasLine() && line.getLine() >= from) {
+            lines.add(line);
+          }
+        } else {
+          input.skipField(tag);
+        }
+      }
+    }
+    return lines;
+  }
+
   /**
    * Serialize and compress protobuf message {@link org.sonar.db.protobuf.DbFileSources.Data}
    * in the column BINARY_DATA.
@@ -212,6 +255,14 @@ public class FileSourceDto {
     return decodeSourceData(binaryData);
   }
 
+  /**
+   * Lines of the range [{@code from}, {@code toInclusive}], decoded without parsing the whole source data
+   * @see #decodeSourceLines(byte[], int, int)
+   */
+  public List<DbFileSources.Line> getSourceLines(int from, int toInclusive) {
+    return decodeSourceLines(binaryData, from, toInclusive);
+  }
+
   public FileSourceDto setSourceData(DbFileSources.Data data) {
     this.dataType = Type.SOURCE;
     this.binaryData = encodeSourceData(data);
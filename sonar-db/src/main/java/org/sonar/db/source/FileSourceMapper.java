@@ -22,14 +22,23 @@ package org.sonar.db.source;
 import java.util.List;
 import javax.annotation.CheckForNull;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.session.ResultHandler;
 
 public interface FileSourceMapper {
 
   List<FileSourceDto> selectHashesForProject(@Param("projectUuid") String projectUuid, @Param("dataType") String dataType);
 
+  void scrollLineHashesForProject(@Param("projectUuid") String projectUuid, @Param("dataType") String dataType, ResultHandler resultHandler);
+
+  void scrollLineHashesForModule(@Param("projectUuid") String projectUuid, @Param("moduleUuid") String moduleUuid, @Param("dataType") String dataType,
+    ResultHandler resultHandler);
+
   @CheckForNull
   FileSourceDto select(@Param("fileUuid") String fileUuid, @Param("dataType") String dataType);
 
+  @CheckForNull
+  String selectDataHash(@Param("fileUuid") String fileUuid, @Param("dataType") String dataType);
+
   void insert(FileSourceDto dto);
 
   void update(FileSourceDto dto);
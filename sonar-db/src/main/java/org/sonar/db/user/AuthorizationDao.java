@@ -124,6 +124,17 @@ public class AuthorizationDao implements Dao {
     return session.selectList(sql, params);
   }
 
+  /**
+   * Ids of the root projects on which the user, or anonymous users if {@code userId} is {@code null}, have the
+   * given permission.
+   */
+  public List<Long> selectAuthorizedRootProjectsIds(DbSession session, @Nullable Integer userId, String role) {
+    Map<String, Object> params = newHashMap();
+    params.put(USER_ID_PARAM, userId);
+    params.put("role", role);
+    return session.selectList("selectAuthorizedRootProjectsIds", params);
+  }
+
   public List<String> selectGlobalPermissions(@Nullable String userLogin) {
     SqlSession session = mybatis.openSession(false);
     try {
@@ -30,7 +30,7 @@ import org.sonar.db.MyBatis;
 
 public class DatabaseVersion {
 
-  public static final int LAST_VERSION = 1_315;
+  public static final int LAST_VERSION = 1_316;
 
   /**
    * The minimum supported version which can be upgraded. Lower
@@ -57,6 +57,7 @@ public class DatabaseVersion {
     "dashboards",
     "duplications_index",
     "events",
+    "file_measures",
     "file_sources",
     "groups",
     "groups_users",
@@ -32,6 +32,8 @@ import org.sonar.api.utils.System2;
 import org.sonar.db.DbSession;
 import org.sonar.db.DbTester;
 import org.sonar.db.RowNotFoundException;
+import org.sonar.db.metric.MetricDto;
+import org.sonar.db.metric.MetricTesting;
 
 import static com.google.common.collect.Lists.newArrayList;
 import static com.google.common.collect.Sets.newHashSet;
@@ -47,6 +49,7 @@ import static org.sonar.db.component.ComponentTesting.newProjectCopy;
 import static org.sonar.db.component.ComponentTesting.newProjectDto;
 import static org.sonar.db.component.ComponentTesting.newSubView;
 import static org.sonar.db.component.ComponentTesting.newView;
+import static org.sonar.db.measure.MeasureTesting.newMeasureDto;
 
 public class ComponentDaoTest {
 
@@ -1095,6 +1098,37 @@ public class ComponentDaoTest {
     assertThat(result).extracting("uuid").containsExactly("file-uuid-6", "file-uuid-5", "file-uuid-4");
   }
 
+  @Test
+  public void selectDescendants_sorted_by_metric_and_paginated() {
+    ComponentDto project = newProjectDto(PROJECT_UUID);
+    SnapshotDto analysis = componentDb.insertProjectAndSnapshot(project);
+    ComponentDto file1 = componentDb.insertComponent(newFileDto(project, null, "file-uuid-1").setName("file-1"));
+    ComponentDto file2 = componentDb.insertComponent(newFileDto(project, null, "file-uuid-2").setName("file-2"));
+    ComponentDto file3 = componentDb.insertComponent(newFileDto(project, null, "file-uuid-3").setName("file-3"));
+    componentDb.insertComponent(newFileDto(project, null, "file-uuid-4").setName("file-4"));
+    MetricDto metric = MetricTesting.newMetricDto();
+    db.getDbClient().metricDao().insert(dbSession, metric);
+    db.getDbClient().measureDao().insert(dbSession,
+      newMeasureDto(metric, file1, analysis).setValue(20.0d),
+      newMeasureDto(metric, file2, analysis).setValue(10.0d),
+      newMeasureDto(metric, file3, analysis).setValue(20.0d));
+    db.commit();
+
+    ComponentTreeQuery.Builder query = newTreeQuery(PROJECT_UUID).setMetricSortId(metric.getId());
+    assertThat(underTest.selectDescendants(dbSession, query.build())).extracting("uuid")
+      .containsExactly("file-uuid-2", "file-uuid-1", "file-uuid-3", "file-uuid-4");
+    assertThat(underTest.selectDescendants(dbSession, query.setAsc(false).build())).extracting("uuid")
+      .containsExactly("file-uuid-3", "file-uuid-1", "file-uuid-2", "file-uuid-4");
+    assertThat(underTest.selectDescendants(dbSession, query.setPage(2).setPageSize(2).build())).extracting("uuid")
+      .containsExactly("file-uuid-2", "file-uuid-4");
+    assertThat(underTest.countDescendants(dbSession, query.build())).isEqualTo(4);
+
+    query = newTreeQuery(PROJECT_UUID).setMetricSortId(metric.getId()).setWithMeasuresOnly(true);
+    assertThat(underTest.selectDescendants(dbSession, query.build())).extracting("uuid")
+      .containsExactly("file-uuid-2", "file-uuid-1", "file-uuid-3");
+    assertThat(underTest.countDescendants(dbSession, query.build())).isEqualTo(3);
+  }
+
   private static ComponentTreeQuery.Builder newTreeQuery(String baseUuid) {
     return ComponentTreeQuery.builder()
       .setPage(1)
@@ -19,7 +19,10 @@
  */
 package org.sonar.db.issue;
 
+import java.util.ArrayList;
 import java.util.List;
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
@@ -119,6 +122,42 @@ public class IssueDaoTest {
     assertThat(issues).extracting("key").containsExactly("I2", "I1");
   }
 
+  @Test
+  public void scrollNonClosedByProjectUuid() {
+    // contains I1 and I2
+    prepareTables();
+    underTest.insert(dbTester.getSession(), newIssueDto("I3")
+      .setStatus("CLOSED")
+      .setRuleId(RULE.getId())
+      .setComponentUuid(FILE.uuid())
+      .setProjectUuid(PROJECT.uuid()));
+    dbTester.getSession().commit();
+
+    final List<IssueDto> issues = new ArrayList<>();
+    underTest.scrollNonClosedByProjectUuid(dbTester.getSession(), PROJECT.uuid(), new ResultHandler() {
+      @Override
+      public void handleResult(ResultContext resultContext) {
+        issues.add((IssueDto) resultContext.getResultObject());
+      }
+    });
+    assertThat(issues).extracting("key").containsOnly("I1", "I2");
+    assertThat(issues).extracting("componentUuid").containsOnly(FILE.uuid());
+  }
+
+  @Test
+  public void scrollNonClosedByProjectUuid_returns_nothing_on_unknown_project() {
+    prepareTables();
+
+    final List<IssueDto> issues = new ArrayList<>();
+    underTest.scrollNonClosedByProjectUuid(dbTester.getSession(), "unknown", new ResultHandler() {
+      @Override
+      public void handleResult(ResultContext resultContext) {
+        issues.add((IssueDto) resultContext.getResultObject());
+      }
+    });
+    assertThat(issues).isEmpty();
+  }
+
   private static IssueDto newIssueDto(String key) {
     IssueDto dto = new IssueDto();
     dto.setComponent(new ComponentDto().setKey("struts:Action").setId(123L).setUuid("component-uuid"));
@@ -0,0 +1,76 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.measure;
+
+import org.apache.commons.lang.StringUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FileMeasuresDtoTest {
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  @Test
+  public void encode_and_decode_measures() {
+    String longData = StringUtils.repeat("a", 5_000);
+    FileMeasuresDto underTest = new FileMeasuresDto()
+      .setComponentUuid("FILE1")
+      .setAnalysisUuid("A1")
+      .setMeasures(asList(
+        new MeasureDto().setMetricId(1).setValue(12.5).setAlertStatus("WARN").setAlertText("too high")
+          .setVariation(1, 1.5).setVariation(5, -3d).setDeveloperId(10L),
+        new MeasureDto().setMetricId(2).setData(longData)));
+
+    assertThat(underTest.getMeasures()).hasSize(2);
+    MeasureDto first = underTest.getMeasures().get(0);
+    assertThat(first.getComponentUuid()).isEqualTo("FILE1");
+    assertThat(first.getAnalysisUuid()).isEqualTo("A1");
+    assertThat(first.getMetricId()).isEqualTo(1);
+    assertThat(first.getValue()).isEqualTo(12.5);
+    assertThat(first.getData()).isNull();
+    assertThat(first.getAlertStatus()).isEqualTo("WARN");
+    assertThat(first.getAlertText()).isEqualTo("too high");
+    assertThat(first.getVariation(1)).isEqualTo(1.5);
+    assertThat(first.getVariation(2)).isNull();
+    assertThat(first.getVariation(5)).isEqualTo(-3d);
+    assertThat(first.getDeveloperId()).isNull();
+    MeasureDto second = underTest.getMeasures().get(1);
+    assertThat(second.getValue()).isNull();
+    assertThat(second.getData()).isEqualTo(longData);
+  }
+
+  @Test
+  public void fail_to_decode_corrupted_data() {
+    FileMeasuresDto underTest = new FileMeasuresDto()
+      .setComponentUuid("FILE1")
+      .setAnalysisUuid("A1")
+      .setBinaryData(new byte[] {1, 2, 3, 4, 5});
+
+    expectedException.expect(IllegalStateException.class);
+    expectedException.expectMessage("Fail to decompress and deserialize measures [componentUuid=FILE1,analysisUuid=A1]");
+
+    underTest.getMeasures();
+  }
+}
@@ -34,11 +34,14 @@ import org.sonar.core.util.UuidFactoryImpl;
 import org.sonar.db.DbTester;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.component.SnapshotTesting;
+import org.sonar.db.metric.MetricDto;
+import org.sonar.db.metric.MetricTesting;
 
 import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 
 public class MeasureDaoTest {
 
@@ -290,6 +293,78 @@ public class MeasureDaoTest {
       .containsOnly("M11", "M54");
   }
 
+  @Test
+  public void selectPastMeasuresOfAnalysis_streams_measures_of_all_components_but_files() {
+    String project = insertComponent(Scopes.PROJECT, Qualifiers.PROJECT, true);
+    String dir = insertComponent(Scopes.DIRECTORY, Qualifiers.DIRECTORY, true);
+    String file = insertComponent(Scopes.FILE, Qualifiers.FILE, true);
+    insertAnalysis(LAST_ANALYSIS_UUID, true);
+    insertAnalysis(OTHER_ANALYSIS_UUID, false);
+    insertMeasure("M1", OTHER_ANALYSIS_UUID, project, NCLOC_METRIC_ID);
+    insertMeasure("M2", OTHER_ANALYSIS_UUID, project, COVERAGE_METRIC_ID);
+    insertMeasure("M3", OTHER_ANALYSIS_UUID, dir, NCLOC_METRIC_ID);
+    // file measure
+    insertMeasure("M4", OTHER_ANALYSIS_UUID, file, NCLOC_METRIC_ID);
+    // not requested metric
+    insertMeasure("M5", OTHER_ANALYSIS_UUID, project, COMPLEXITY_METRIC_ID);
+    // other analysis
+    insertMeasure("M6", LAST_ANALYSIS_UUID, project, NCLOC_METRIC_ID);
+    // measure of developer
+    insertMeasureOnPerson("M7", OTHER_ANALYSIS_UUID, project, NCLOC_METRIC_ID, A_PERSON_ID);
+    db.commit();
+
+    List<PastMeasureDto> measures = new ArrayList<>();
+    underTest.selectPastMeasuresOfAnalysis(db.getSession(), OTHER_ANALYSIS_UUID, asList(NCLOC_METRIC_ID, COVERAGE_METRIC_ID),
+      context -> measures.add((PastMeasureDto) context.getResultObject()));
+
+    assertThat(measures)
+      .extracting(PastMeasureDto::getComponentUuid, PastMeasureDto::getMetricId)
+      .containsOnly(
+        tuple(project, NCLOC_METRIC_ID),
+        tuple(project, COVERAGE_METRIC_ID),
+        tuple(dir, NCLOC_METRIC_ID));
+    assertThat(measures).extracting(PastMeasureDto::getPersonId).containsOnly((Long) null);
+  }
+
+  @Test
+  public void selectByQuery_returns_measures_stored_in_file_measures() {
+    MetricDto metric = MetricTesting.newMetricDto();
+    db.getDbClient().metricDao().insert(db.getSession(), metric);
+    insertAnalysis(LAST_ANALYSIS_UUID, true);
+    insertAnalysis(OTHER_ANALYSIS_UUID, false);
+    String fileUuid = insertComponent(Scopes.FILE, Qualifiers.FILE, true);
+    // not compacted
+    insertMeasure("M1", LAST_ANALYSIS_UUID, fileUuid, COVERAGE_METRIC_ID);
+    insertFileMeasures(LAST_ANALYSIS_UUID, fileUuid,
+      MeasureTesting.newMeasure().setMetricId(NCLOC_METRIC_ID).setData("M2"),
+      MeasureTesting.newMeasure().setMetricId(metric.getId()).setData("M3"));
+    insertFileMeasures(OTHER_ANALYSIS_UUID, fileUuid, MeasureTesting.newMeasure().setMetricId(NCLOC_METRIC_ID).setData("M4"));
+    db.commit();
+
+    verifyMeasures(MeasureQuery.builder().setComponentUuid(fileUuid), "M1", "M2", "M3");
+    verifyMeasuresWithHandler(MeasureQuery.builder().setComponentUuid(fileUuid), "M1", "M2", "M3");
+    verifyMeasures(MeasureQuery.builder().setComponentUuid(fileUuid).setAnalysisUuid(OTHER_ANALYSIS_UUID), "M4");
+    verifyMeasures(MeasureQuery.builder().setComponentUuid(fileUuid).setMetricId(NCLOC_METRIC_ID), "M2");
+    verifyMeasures(MeasureQuery.builder().setComponentUuid(fileUuid).setMetricKey(metric.getKey()), "M3");
+    verifyZeroMeasures(MeasureQuery.builder().setComponentUuid(fileUuid).setPersonId(A_PERSON_ID));
+
+    MeasureDto selected = underTest.selectSingle(db.getSession(), MeasureQuery.builder().setComponentUuid(fileUuid).setMetricId(NCLOC_METRIC_ID).build()).get();
+    assertThat(selected.getComponentUuid()).isEqualTo(fileUuid);
+    assertThat(selected.getAnalysisUuid()).isEqualTo(LAST_ANALYSIS_UUID);
+  }
+
+  @Test
+  public void hasFileMeasures() {
+    insertAnalysis(LAST_ANALYSIS_UUID, true);
+    insertAnalysis(OTHER_ANALYSIS_UUID, false);
+    String fileUuid = insertComponent(Scopes.FILE, Qualifiers.FILE, true);
+    insertFileMeasures(LAST_ANALYSIS_UUID, fileUuid, MeasureTesting.newMeasure().setMetricId(NCLOC_METRIC_ID).setData("M1"));
+    db.commit();
+
+    assertThat(underTest.hasFileMeasures(db.getSession(), LAST_ANALYSIS_UUID)).isTrue();
+    assertThat(underTest.hasFileMeasures(db.getSession(), OTHER_ANALYSIS_UUID)).isFalse();
+  }
+
   private Optional<MeasureDto> selectSingle(MeasureQuery.Builder query) {
     return underTest.selectSingle(db.getSession(), query.build());
   }
@@ -335,6 +410,13 @@ public class MeasureDaoTest {
     db.getDbClient().measureDao().insert(db.getSession(), measure);
   }
 
+  private void insertFileMeasures(String analysisUuid, String componentUuid, MeasureDto... measures) {
+    underTest.insert(db.getSession(), new FileMeasuresDto()
+      .setAnalysisUuid(analysisUuid)
+      .setComponentUuid(componentUuid)
+      .setMeasures(asList(measures)));
+  }
+
   private String insertComponent(String scope, String qualifier, boolean enabled) {
     String uuid = UuidFactoryImpl.INSTANCE.create();
     ComponentDto componentDto = new ComponentDto()
@@ -368,6 +450,4 @@ public class MeasureDaoTest {
       .setLast(isLast));
   }
 
-  // TODO test selectPastMeasures
-
 }
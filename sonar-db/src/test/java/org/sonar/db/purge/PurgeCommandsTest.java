@@ -24,8 +24,10 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.sonar.api.utils.System2;
 import org.sonar.db.DbTester;
+import org.sonar.db.measure.FileMeasuresDto;
 
 import static com.google.common.collect.Lists.newArrayList;
+import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -67,6 +69,19 @@ public class PurgeCommandsTest {
     dbTester.assertDbUnit(getClass(), "shouldDeleteWastedMeasuresWhenPurgingAnalysis-result.xml", "project_measures");
   }
 
+  @Test
+  public void deleteFileMeasures_deletes_file_measures_of_given_analyses() {
+    insertFileMeasures("file_1", "u1");
+    insertFileMeasures("file_2", "u1");
+    insertFileMeasures("file_1", "u2");
+
+    new PurgeCommands(dbTester.getSession(), profiler).deleteFileMeasures(singletonList("u1"));
+
+    assertThat(dbTester.select("select analysis_uuid as \"analysisUuid\" from file_measures"))
+      .extracting(row -> row.get("analysisUuid"))
+      .containsOnly("u2");
+  }
+
   /**
    * Test that SQL queries execution do not fail with a huge number of parameter
    */
@@ -107,6 +122,14 @@ public class PurgeCommandsTest {
     assertThat(dbTester.countRowsOfTable("authors")).isEqualTo(2);
   }
 
+  private void insertFileMeasures(String componentUuid, String analysisUuid) {
+    dbTester.getDbClient().measureDao().insert(dbTester.getSession(), new FileMeasuresDto()
+      .setComponentUuid(componentUuid)
+      .setAnalysisUuid(analysisUuid)
+      .setMeasures(emptyList()));
+    dbTester.commit();
+  }
+
   /**
    * Test that SQL queries execution do not fail with a huge number of parameter
    */
@@ -326,6 +326,13 @@ public class RuleDaoTest {
     assertThat(ruleDto.getRuleId()).isEqualTo(1);
   }
 
+  @Test
+  public void select_all_parameters() {
+    dbTester.prepareDbUnit(getClass(), "select_parameters_by_rule_key.xml");
+
+    assertThat(underTest.selectAllRuleParams(dbTester.getSession())).extracting("id").containsOnly(1, 2);
+  }
+
   @Test
   public void select_parameters_by_rule_keys() {
     dbTester.prepareDbUnit(getClass(), "select_parameters_by_rule_key.xml");
@@ -22,12 +22,16 @@ package org.sonar.db.source;
 import com.google.common.base.Function;
 import java.io.IOException;
 import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
 import org.apache.commons.io.IOUtils;
 import org.junit.Rule;
 import org.junit.Test;
 import org.sonar.api.utils.System2;
 import org.sonar.db.DbSession;
 import org.sonar.db.DbTester;
+import org.sonar.db.component.ComponentDto;
+import org.sonar.db.component.ComponentTesting;
 import org.sonar.db.source.FileSourceDto.Type;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -58,6 +62,61 @@ public class FileSourceDaoTest {
     assertThat(fileSourceDto.getRevision()).isEqualTo("123456789");
   }
 
+  @Test
+  public void select_source_data_hash() {
+    dbTester.prepareDbUnit(getClass(), "shared.xml");
+
+    assertThat(underTest.selectSourceDataHashByFileUuid(session, "FILE1_UUID")).isEqualTo("hash");
+    assertThat(underTest.selectSourceDataHashByFileUuid(session, "UNKNOWN")).isNull();
+  }
+
+  @Test
+  public void scroll_line_hashes_for_project() {
+    dbTester.prepareDbUnit(getClass(), "shared.xml");
+
+    final List<FileSourceDto> dtos = new ArrayList<>();
+    underTest.scrollLineHashesForProject(session, "PRJ_UUID", resultContext -> dtos.add((FileSourceDto) resultContext.getResultObject()));
+
+    assertThat(dtos).hasSize(1);
+    FileSourceDto dto = dtos.get(0);
+    assertThat(dto.getFileUuid()).isEqualTo("FILE1_UUID");
+    assertThat(dto.getLineHashes()).isEqualTo("ABC\\nDEF\\nGHI");
+    assertThat(dto.getBinaryData()).isNull();
+  }
+
+  @Test
+  public void scroll_line_hashes_for_unknown_project() {
+    dbTester.prepareDbUnit(getClass(), "shared.xml");
+
+    final List<FileSourceDto> dtos = new ArrayList<>();
+    underTest.scrollLineHashesForProject(session, "unknown", resultContext -> dtos.add((FileSourceDto) resultContext.getResultObject()));
+
+    assertThat(dtos).isEmpty();
+  }
+
+  @Test
+  public void scroll_line_hashes_for_module() {
+    ComponentDto project = ComponentTesting.newProjectDto("PRJ_UUID");
+    ComponentDto module = ComponentTesting.newModuleDto("MODULE_UUID", project);
+    ComponentDto projectFile = ComponentTesting.newFileDto(project, null, "FILE1_UUID");
+    ComponentDto moduleFile = ComponentTesting.newFileDto(module, null, "FILE2_UUID");
+    ComponentDto disabledModuleFile = ComponentTesting.newFileDto(module, null, "FILE3_UUID").setEnabled(false);
+    dbTester.getDbClient().componentDao().insert(session, project, module, projectFile, moduleFile, disabledModuleFile);
+    insertLineHashes(project, projectFile, "A");
+    insertLineHashes(project, moduleFile, "B\nC");
+    insertLineHashes(project, disabledModuleFile, "D");
+    session.commit();
+
+    final List<FileSourceDto> dtos = new ArrayList<>();
+    underTest.scrollLineHashesForModule(session, "PRJ_UUID", "MODULE_UUID", resultContext -> dtos.add((FileSourceDto) resultContext.getResultObject()));
+    assertThat(dtos).extracting("fileUuid").containsExactly("FILE2_UUID");
+    assertThat(dtos.get(0).getLineHashes()).isEqualTo("B\nC");
+
+    dtos.clear();
+    underTest.scrollLineHashesForModule(session, "PRJ_UUID", "PRJ_UUID", resultContext -> dtos.add((FileSourceDto) resultContext.getResultObject()));
+    assertThat(dtos).extracting("fileUuid").containsExactly("FILE1_UUID");
+  }
+
   @Test
   public void select_line_hashes() {
     dbTester.prepareDbUnit(getClass(), "shared.xml");
@@ -139,6 +198,19 @@ public class FileSourceDaoTest {
       "project_uuid", "file_uuid", "data_hash", "line_hashes", "src_hash", "created_at", "updated_at", "data_type", "revision");
   }
 
+  private void insertLineHashes(ComponentDto project, ComponentDto file, String lineHashes) {
+    underTest.insert(session, new FileSourceDto()
+      .setProjectUuid(project.uuid())
+      .setFileUuid(file.uuid())
+      .setLineHashes(lineHashes)
+      .setBinaryData(new byte[0])
+      .setDataHash("DATA_HASH")
+      .setSrcHash("SRC_HASH")
+      .setDataType(Type.SOURCE)
+      .setCreatedAt(1_500_000_000_000L)
+      .setUpdatedAt(1_500_000_000_000L));
+  }
+
   private static class ReaderToStringFunction implements Function<Reader, String> {
 
     String result = null;
@@ -80,6 +80,33 @@ public class FileSourceDtoTest {
     assertThat(data.getLinesCount()).isEqualTo(build.getLinesCount());
   }
 
+  @Test
+  public void getSourceLines_decodes_range_of_lines() {
+    DbFileSources.Data.Builder dataBuilder = DbFileSources.Data.newBuilder();
+    for (int i = 1; i <= 10; i++) {
+      dataBuilder.addLinesBuilder().setLine(i).setSource("line " + i);
+    }
+    FileSourceDto underTest = new FileSourceDto().setSourceData(dataBuilder.build());
+
+    assertThat(underTest.getSourceLines(4, 6)).extracting("source").containsExactly("line 4", "line 5", "line 6");
+    assertThat(underTest.getSourceLines(9, 20)).extracting("source").containsExactly("line 9", "line 10");
+    assertThat(underTest.getSourceLines(11, 20)).isEmpty();
+  }
+
+  @Test
+  public void getSourceLines_throws_ISE_when_data_cant_be_read() {
+    FileSourceDto underTest = new FileSourceDto()
+      .setBinaryData(new byte[] {1, 2, 3, 4, 5})
+      .setId(12L)
+      .setFileUuid("file uuid")
+      .setProjectUuid("project uuid");
+
+    expectedException.expect(IllegalStateException.class);
+    expectedException.expectMessage("Fail to decompress and deserialize source data [id=12,fileUuid=file uuid,projectUuid=project uuid]");
+
+    underTest.getSourceLines(1, 10);
+  }
+
   private static DbFileSources.Data createOver64MBDataStructure() {
     DbFileSources.Data.Builder dataBuilder = DbFileSources.Data.newBuilder();
     DbFileSources.Line.Builder lineBuilder = DbFileSources.Line.newBuilder();
@@ -183,6 +183,16 @@ public class AuthorizationDaoTest {
     assertThat(rootProjectIds).isEmpty();
   }
 
+  @Test
+  public void should_return_root_project_ids_for_user() {
+    dbTester.prepareDbUnit(getClass(), "should_return_root_project_keys_for_user.xml");
+
+    assertThat(authorization.selectAuthorizedRootProjectsIds(dbTester.getSession(), USER, "user")).containsOnly(PROJECT_ID);
+
+    // user does not have the role "admin"
+    assertThat(authorization.selectAuthorizedRootProjectsIds(dbTester.getSession(), USER, "admin")).isEmpty();
+  }
+
   @Test
   public void should_return_root_project_keys_for_group() {
     // but user is not in an authorized group
@@ -19,9 +19,7 @@
  */
 package org.sonar.api.batch.fs.internal;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
@@ -32,7 +30,9 @@ import java.nio.charset.Charset;
 import java.nio.charset.CharsetEncoder;
 import java.nio.charset.CodingErrorAction;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.security.MessageDigest;
+import java.util.Arrays;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.apache.commons.codec.binary.Hex;
@@ -55,6 +55,7 @@ public class FileMetadata {
 
   private static final char LINE_FEED = '\n';
   private static final char CARRIAGE_RETURN = '\r';
+  private static final int READ_BUFFER_SIZE = 16 * 1024;
 
   public abstract static class CharHandler {
 
@@ -270,10 +271,22 @@ public class FileMetadata {
    * Maximum performance is needed.
    */
   public Metadata readMetadata(File file, Charset encoding) {
+    return readMetadata(file, encoding, new CharHandler[0]);
+  }
+
+  /**
+   * Same as {@link #readMetadata(File, Charset)} but also feeds the specified handlers during the single read of the file,
+   * so that they don't have to read it again.
+   */
+  public Metadata readMetadata(File file, Charset encoding, CharHandler... otherHandlers) {
     LineCounter lineCounter = new LineCounter(file, encoding);
     FileHashComputer fileHashComputer = new FileHashComputer(file);
     LineOffsetCounter lineOffsetCounter = new LineOffsetCounter();
-    readFile(file, encoding, lineCounter, fileHashComputer, lineOffsetCounter);
+    CharHandler[] handlers = Arrays.copyOf(otherHandlers, otherHandlers.length + 3);
+    handlers[otherHandlers.length] = lineCounter;
+    handlers[otherHandlers.length + 1] = fileHashComputer;
+    handlers[otherHandlers.length + 2] = lineOffsetCounter;
+    readFile(file, encoding, handlers);
     return new Metadata(lineCounter.lines(), lineCounter.nonBlankLines(), fileHashComputer.getHash(), lineOffsetCounter.getOriginalLineOffsets(),
       lineOffsetCounter.getLastValidOffset());
   }
@@ -295,9 +308,10 @@ public class FileMetadata {
   }
 
   public static void readFile(File file, Charset encoding, CharHandler... handlers) {
-    try (BOMInputStream bomIn = new BOMInputStream(new FileInputStream(file),
+    // characters are read by chunks, so the reader does not need to be buffered
+    try (BOMInputStream bomIn = new BOMInputStream(Files.newInputStream(file.toPath()),
       ByteOrderMark.UTF_8, ByteOrderMark.UTF_16LE, ByteOrderMark.UTF_16BE, ByteOrderMark.UTF_32LE, ByteOrderMark.UTF_32BE);
-      Reader reader = new BufferedReader(new InputStreamReader(bomIn, encoding))) {
+      Reader reader = new InputStreamReader(bomIn, encoding)) {
       read(reader, handlers);
     } catch (IOException e) {
       throw new IllegalStateException(String.format("Fail to read file '%s' with encoding '%s'", file.getAbsolutePath(), encoding), e);
@@ -305,50 +319,61 @@ public class FileMetadata {
   }
 
   private static void read(Reader reader, CharHandler... handlers) throws IOException {
-    char c;
-    int i = reader.read();
+    char[] buffer = new char[READ_BUFFER_SIZE];
     boolean afterCR = false;
-    while (i != -1) {
-      c = (char) i;
+    int read = reader.read(buffer);
+    while (read != -1) {
+      for (int i = 0; i < read; i++) {
+        afterCR = handleChar(buffer[i], afterCR, handlers);
+      }
+      read = reader.read(buffer);
+    }
+    for (CharHandler handler : handlers) {
       if (afterCR) {
-        for (CharHandler handler : handlers) {
-          if (c == CARRIAGE_RETURN) {
-            handler.newLine();
-            handler.handleAll(c);
-          } else if (c == LINE_FEED) {
-            handler.handleAll(c);
-            handler.newLine();
-          } else {
-            handler.newLine();
-            handler.handleIgnoreEoL(c);
-            handler.handleAll(c);
-          }
-        }
-        afterCR = c == CARRIAGE_RETURN;
-      } else if (c == LINE_FEED) {
-        for (CharHandler handler : handlers) {
-          handler.handleAll(c);
+        handler.newLine();
+      }
+      handler.eof();
+    }
+  }
+
+  /**
+   * @return whether the specified char is a carriage return which may be followed by a line feed
+   */
+  private static boolean handleChar(char c, boolean afterCR, CharHandler... handlers) {
+    if (afterCR) {
+      for (CharHandler handler : handlers) {
+        if (c == CARRIAGE_RETURN) {
           handler.newLine();
-        }
-      } else if (c == CARRIAGE_RETURN) {
-        afterCR = true;
-        for (CharHandler handler : handlers) {
           handler.handleAll(c);
-        }
-      } else {
-        for (CharHandler handler : handlers) {
+        } else if (c == LINE_FEED) {
+          handler.handleAll(c);
+          handler.newLine();
+        } else {
+          handler.newLine();
           handler.handleIgnoreEoL(c);
           handler.handleAll(c);
         }
       }
-      i = reader.read();
+      return c == CARRIAGE_RETURN;
     }
-    for (CharHandler handler : handlers) {
-      if (afterCR) {
+    if (c == LINE_FEED) {
+      for (CharHandler handler : handlers) {
+        handler.handleAll(c);
         handler.newLine();
       }
-      handler.eof();
+      return false;
+    }
+    if (c == CARRIAGE_RETURN) {
+      for (CharHandler handler : handlers) {
+        handler.handleAll(c);
+      }
+      return true;
     }
+    for (CharHandler handler : handlers) {
+      handler.handleIgnoreEoL(c);
+      handler.handleAll(c);
+    }
+    return false;
   }
 
   public static class Metadata {
@@ -379,4 +404,16 @@ public class FileMetadata {
   public static void computeLineHashesForIssueTracking(DefaultInputFile f, LineHashConsumer consumer) {
     readFile(f.file(), f.charset(), new LineHashComputer(consumer, f.file()));
   }
+
+  /**
+   * Same as {@link #computeLineHashesForIssueTracking(DefaultInputFile, LineHashConsumer)} but reads the content of the
+   * file from the specified reader, for example when it has already been loaded in memory.
+   */
+  public static void computeLineHashesForIssueTracking(DefaultInputFile f, Reader reader, LineHashConsumer consumer) {
+    try {
+      read(reader, new LineHashComputer(consumer, f.file()));
+    } catch (IOException e) {
+      throw new IllegalStateException(String.format("Fail to read file '%s' with encoding '%s'", f.file().getAbsolutePath(), f.charset()), e);
+    }
+  }
 }
@@ -316,4 +316,40 @@ public class FileMetadataTest {
       "glyphicons-halflings-regular.woff at line 1 for encoding UTF-8. Please fix file content or configure the encoding to be used using property 'sonar.sourceEncoding'.");
   }
 
+  @Test
+  public void read_file_bigger_than_read_buffer() throws Exception {
+    StringBuilder sb = new StringBuilder();
+    // 16384 chars: a CR at the end of first chunk is followed by a LF at the beginning of the second one
+    for (int i = 0; i < 4095; i++) {
+      sb.append("foo\n");
+    }
+    sb.append("bar\r\nbaz");
+    File tempFile = temp.newFile();
+    FileUtils.write(tempFile, sb, StandardCharsets.UTF_8, true);
+
+    FileMetadata.Metadata metadata = new FileMetadata().readMetadata(tempFile, StandardCharsets.UTF_8);
+    assertThat(metadata.lines).isEqualTo(4097);
+    assertThat(metadata.nonBlankLines).isEqualTo(4097);
+    assertThat(metadata.hash).isEqualTo(md5Hex(sb.toString().replace("\r\n", "\n")));
+    assertThat(metadata.originalLineOffsets[4096]).isEqualTo(16385);
+    assertThat(metadata.lastValidOffset).isEqualTo(16388);
+  }
+
+  @Test
+  public void readMetadata_feeds_other_handlers() throws Exception {
+    File tempFile = temp.newFile();
+    FileUtils.write(tempFile, "foo\r\nbar", StandardCharsets.UTF_8, true);
+    final StringBuilder content = new StringBuilder();
+
+    FileMetadata.Metadata metadata = new FileMetadata().readMetadata(tempFile, StandardCharsets.UTF_8, new FileMetadata.CharHandler() {
+      @Override
+      protected void handleAll(char c) {
+        content.append(c);
+      }
+    });
+
+    assertThat(metadata.lines).isEqualTo(2);
+    assertThat(content.toString()).isEqualTo("foo\r\nbar");
+  }
+
 }
@@ -41,6 +41,7 @@ import org.sonarqube.ws.client.WsResponse;
 import static java.lang.String.format;
 import static java.net.HttpURLConnection.HTTP_BAD_REQUEST;
 import static java.net.HttpURLConnection.HTTP_FORBIDDEN;
+import static java.net.HttpURLConnection.HTTP_NOT_MODIFIED;
 import static java.net.HttpURLConnection.HTTP_UNAUTHORIZED;
 
 public class BatchWsClient {
@@ -62,13 +63,14 @@ public class BatchWsClient {
    *     a connectivity problem or timeout. Because networks can
    *     fail during an exchange, it is possible that the remote server
    *     accepted the request before the failure
-   * @throws HttpException if the response code is not in range [200..300)
+   * @throws HttpException if the response code is not in range [200..300), except 304 (not modified) for requests
+   *     revalidating a cached response (see {@link WsResponseCache})
    */
   public WsResponse call(WsRequest request) {
     Profiler profiler = Profiler.createIfDebug(LOG).start();
     WsResponse response = target.wsConnector().call(request);
     profiler.stopDebug(format("%s %d %s", request.getMethod(), response.code(), response.requestUrl()));
-    failIfUnauthorized(response);
+    failIfUnauthorized(request, response);
     return response;
   }
 
@@ -81,7 +83,7 @@ public class BatchWsClient {
     return target.wsConnector();
   }
 
-  private void failIfUnauthorized(WsResponse response) {
+  private void failIfUnauthorized(WsRequest request, WsResponse response) {
     int code = response.code();
     if (code == HTTP_UNAUTHORIZED) {
       response.close();
@@ -99,7 +101,9 @@ public class BatchWsClient {
       // SONAR-4397 Details are in response content
       throw MessageException.of(tryParseAsJsonError(response.content()));
     }
-    response.failIfNotSuccessful();
+    if (code != HTTP_NOT_MODIFIED || !request.getParams().containsKey(WsResponseCache.PARAM_FINGERPRINT)) {
+      response.failIfNotSuccessful();
+    }
   }
 
   private static String tryParseAsJsonError(String responseContent) {
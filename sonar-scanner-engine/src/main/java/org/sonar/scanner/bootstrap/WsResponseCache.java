@@ -0,0 +1,145 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.bootstrap;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.TreeMap;
+import javax.annotation.CheckForNull;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.sonar.api.CoreProperties;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.home.cache.FileCache;
+import org.sonarqube.ws.client.GetRequest;
+import org.sonarqube.ws.client.WsResponse;
+
+import static java.net.HttpURLConnection.HTTP_NOT_MODIFIED;
+import static org.apache.commons.lang.StringUtils.defaultString;
+
+/**
+ * Keeps the responses of the web services called at each analysis in the user cache (see {@link FileCacheProvider}).
+ * The response stored by a previous analysis is revalidated by sending its MD5 in the parameter {@value #PARAM_FINGERPRINT}.
+ * When the content did not change, the server answers 304 without body and the cached copy is read instead.
+ * <p/>
+ * Responses are cached per server, user, path and parameters. They must not contain secrets, as the user cache
+ * is not encrypted.
+ */
+public class WsResponseCache {
+
+  static final String PARAM_FINGERPRINT = "fingerprint";
+  private static final String DIR = "_ws";
+
+  private static final Logger LOG = Loggers.get(WsResponseCache.class);
+
+  private final BatchWsClient wsClient;
+  private final FileCache fileCache;
+  private final GlobalProperties globalProperties;
+
+  public WsResponseCache(BatchWsClient wsClient, FileCache fileCache, GlobalProperties globalProperties) {
+    this.wsClient = wsClient;
+    this.fileCache = fileCache;
+    this.globalProperties = globalProperties;
+  }
+
+  /**
+   * Same as {@link BatchWsClient#call(org.sonarqube.ws.client.WsRequest)}, but the content is fully read so the response
+   * is already closed. The returned stream must be closed by caller.
+   */
+  public InputStream call(GetRequest request) {
+    File cachedFile = cachedFile(request);
+    // the cached response is loaded before the request, so that it can't be replaced by a concurrent
+    // analysis in-between. If it can't be read, then the request is sent without fingerprint.
+    byte[] cachedContent = read(cachedFile);
+    if (cachedContent != null) {
+      request.setParam(PARAM_FINGERPRINT, DigestUtils.md5Hex(cachedContent));
+    }
+
+    try (WsResponse response = wsClient.call(request)) {
+      if (cachedContent != null && response.code() == HTTP_NOT_MODIFIED) {
+        LOG.debug("Response of {} is up-to-date in user cache", request.getPath());
+        return new ByteArrayInputStream(cachedContent);
+      }
+      byte[] content = IOUtils.toByteArray(response.contentStream());
+      store(cachedFile, content);
+      return new ByteArrayInputStream(content);
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to read response of " + request.getPath(), e);
+    }
+  }
+
+  /**
+   * The response is written to a temporary file which then atomically replaces the previous one. Files are never deleted,
+   * as other analyses may be reading them.
+   */
+  private static void store(File cachedFile, byte[] content) {
+    Path temp = null;
+    try {
+      Path dir = cachedFile.getParentFile().toPath();
+      Files.createDirectories(dir);
+      // temporary files are readable only by owner
+      temp = Files.createTempFile(dir, cachedFile.getName(), ".tmp");
+      Files.write(temp, content);
+      Files.move(temp, cachedFile.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } catch (RuntimeException | IOException e) {
+      // the cache is an optimization, the analysis must not fail because of it
+      LOG.debug("Fail to store response in user cache", e);
+    } finally {
+      if (temp != null) {
+        FileUtils.deleteQuietly(temp.toFile());
+      }
+    }
+  }
+
+  /**
+   * File containing the last response received for the same server, user, path and parameters.
+   */
+  private File cachedFile(GetRequest request) {
+    StringBuilder key = new StringBuilder();
+    key.append(wsClient.baseUrl())
+      .append('|').append(defaultString(globalProperties.property(CoreProperties.LOGIN)))
+      .append('|').append(request.getPath());
+    for (Map.Entry<String, String> param : new TreeMap<>(request.getParams()).entrySet()) {
+      key.append('|').append(param.getKey()).append('=').append(param.getValue());
+    }
+    return new File(new File(fileCache.getDir(), DIR), DigestUtils.sha256Hex(key.toString()));
+  }
+
+  @CheckForNull
+  private static byte[] read(File cachedFile) {
+    if (!cachedFile.isFile()) {
+      return null;
+    }
+    try {
+      return FileUtils.readFileToByteArray(cachedFile);
+    } catch (IOException e) {
+      LOG.debug("Fail to read " + cachedFile, e);
+      return null;
+    }
+  }
+}
@@ -22,14 +22,20 @@ package org.sonar.scanner.cpd;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Function;
 import com.google.common.base.Predicate;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayDeque;
 import java.util.Collection;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import javax.annotation.CheckForNull;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.config.Settings;
 import org.sonar.api.utils.log.Logger;
@@ -54,9 +60,14 @@ import static com.google.common.collect.FluentIterable.from;
  * Runs on the root module, at the end of the project analysis.
  * It executes copy paste detection involving all files of all modules, which were indexed during sensors execution for each module
  * by {@link CpdSensor). The sensor is responsible for handling exclusions and block sizes.
+ * <p>
+ * Detection of each file is executed on a pool of {@link #THREADS_PROPERTY} workers (by default the number of available processors).
+ * Results are consumed in the order of the index, so that duplications are always written to the report in the same order
+ * and from a single thread.
  */
 public class CpdExecutor {
   private static final Logger LOG = Loggers.get(CpdExecutor.class);
+  static final String THREADS_PROPERTY = "sonar.cpd.threads";
   // timeout for the computation of duplicates in a file (seconds)
   private static final int TIMEOUT = 5 * 60;
   static final int MAX_CLONE_GROUP_PER_FILE = 100;
@@ -66,74 +77,151 @@ public class CpdExecutor {
   private final ReportPublisher publisher;
   private final BatchComponentCache batchComponentCache;
   private final Settings settings;
-  private final ExecutorService executorService;
   private final ProgressReport progressReport;
+  private final long timeoutMs;
   private int count;
   private int total;
 
   public CpdExecutor(Settings settings, SonarCpdBlockIndex index, ReportPublisher publisher, BatchComponentCache batchComponentCache) {
+    this(settings, index, publisher, batchComponentCache, TimeUnit.SECONDS.toMillis(TIMEOUT));
+  }
+
+  @VisibleForTesting
+  CpdExecutor(Settings settings, SonarCpdBlockIndex index, ReportPublisher publisher, BatchComponentCache batchComponentCache, long timeoutMs) {
     this.settings = settings;
     this.index = index;
     this.publisher = publisher;
     this.batchComponentCache = batchComponentCache;
-    this.executorService = Executors.newSingleThreadExecutor();
+    this.timeoutMs = timeoutMs;
     this.progressReport = new ProgressReport("CPD computation", TimeUnit.SECONDS.toMillis(10));
   }
 
   public void execute() {
     total = index.noResources();
+    int threads = getThreads();
     progressReport.start(String.format("Calculating CPD for %d files", total));
+    // creating the iterator sorts the underlying index, so that it can then be safely read by several threads
+    Iterator<ResourceBlocks> it = index.iterator();
+    ExecutorService executorService = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder().setNameFormat("CPD-%d").setDaemon(true).build());
     try {
-      Iterator<ResourceBlocks> it = index.iterator();
-
-      while (it.hasNext()) {
-        ResourceBlocks resourceBlocks = it.next();
-        runCpdAnalysis(resourceBlocks.resourceId(), resourceBlocks.blocks());
-        count++;
+      // bound the number of files being processed, as results are kept in memory until they are saved
+      int maxPending = threads * 2;
+      Deque<CpdTask> pending = new ArrayDeque<>(maxPending);
+      while (it.hasNext() || !pending.isEmpty()) {
+        while (it.hasNext() && pending.size() < maxPending) {
+          CpdTask task = submit(executorService, it.next());
+          if (task != null) {
+            pending.add(task);
+          } else {
+            count++;
+          }
+        }
+        if (!pending.isEmpty()) {
+          complete(pending.poll());
+          count++;
+        }
       }
       progressReport.stop("CPD calculation finished");
     } catch (Exception e) {
       progressReport.stop("");
       throw e;
+    } finally {
+      executorService.shutdownNow();
     }
   }
 
-  private void runCpdAnalysis(String resource, final Collection<Block> fileBlocks) {
-    LOG.debug("Detection of duplications for {}", resource);
+  @VisibleForTesting
+  int getThreads() {
+    int threads = settings.getInt(THREADS_PROPERTY);
+    if (threads <= 0) {
+      threads = Runtime.getRuntime().availableProcessors();
+    }
+    return threads;
+  }
 
+  @CheckForNull
+  private CpdTask submit(ExecutorService executorService, ResourceBlocks resourceBlocks) {
+    String resource = resourceBlocks.resourceId();
     BatchComponent component = batchComponentCache.get(resource);
     if (component == null) {
       LOG.error("Resource not found in component cache: {}. Skipping CPD computation for it", resource);
-      return;
+      return null;
     }
+    CpdTask task = new CpdTask(component, resourceBlocks.blocks());
+    task.future = executorService.submit(task);
+    return task;
+  }
 
-    InputFile inputFile = (InputFile) component.inputComponent();
+  private void complete(CpdTask task) {
+    InputFile inputFile = task.inputFile();
     progressReport.message(String.format("%d/%d - current file: %s", count, total, inputFile.absolutePath()));
 
     List<CloneGroup> duplications;
-    Future<List<CloneGroup>> futureResult = null;
     try {
-      futureResult = executorService.submit(() -> SuffixTreeCloneDetectionAlgorithm.detect(index, fileBlocks));
-      duplications = futureResult.get(TIMEOUT, TimeUnit.SECONDS);
+      duplications = awaitResult(task);
     } catch (TimeoutException e) {
       LOG.warn("Timeout during detection of duplications for " + inputFile.absolutePath());
-      if (futureResult != null) {
-        futureResult.cancel(true);
-      }
+      task.future.cancel(true);
       return;
-    } catch (Exception e) {
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Fail during detection of duplication for " + inputFile.absolutePath(), e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
       throw new IllegalStateException("Fail during detection of duplication for " + inputFile.absolutePath(), e);
     }
 
-    List<CloneGroup> filtered;
-    if (!"java".equalsIgnoreCase(inputFile.language())) {
-      Predicate<CloneGroup> minimumTokensPredicate = DuplicationPredicates.numberOfUnitsNotLessThan(getMinimumTokens(inputFile.language()));
-      filtered = from(duplications).filter(minimumTokensPredicate).toList();
-    } else {
-      filtered = duplications;
+    saveDuplications(task.component, duplications);
+  }
+
+  /**
+   * The timeout applies to the detection of a single file, so it starts when a worker picks up the task and
+   * not when the task is submitted.
+   */
+  private List<CloneGroup> awaitResult(CpdTask task) throws InterruptedException, ExecutionException, TimeoutException {
+    while (true) {
+      long startedAt = task.startedAt;
+      long waitMs = startedAt == 0L ? timeoutMs : (timeoutMs - (System.currentTimeMillis() - startedAt));
+      if (waitMs <= 0L) {
+        throw new TimeoutException();
+      }
+      try {
+        return task.future.get(waitMs, TimeUnit.MILLISECONDS);
+      } catch (TimeoutException e) {
+        if (startedAt != 0L) {
+          throw e;
+        }
+        // task was still waiting for a worker, wait again with the time left since it started
+      }
+    }
+  }
+
+  private class CpdTask implements Callable<List<CloneGroup>> {
+    private final BatchComponent component;
+    private final Collection<Block> fileBlocks;
+    private volatile long startedAt = 0L;
+    private Future<List<CloneGroup>> future;
+
+    CpdTask(BatchComponent component, Collection<Block> fileBlocks) {
+      this.component = component;
+      this.fileBlocks = fileBlocks;
     }
 
-    saveDuplications(component, filtered);
+    InputFile inputFile() {
+      return (InputFile) component.inputComponent();
+    }
+
+    @Override
+    public List<CloneGroup> call() {
+      startedAt = System.currentTimeMillis();
+      InputFile inputFile = inputFile();
+      LOG.debug("Detection of duplications for {}", inputFile.absolutePath());
+      List<CloneGroup> duplications = SuffixTreeCloneDetectionAlgorithm.detect(index, fileBlocks);
+      if (!"java".equalsIgnoreCase(inputFile.language())) {
+        Predicate<CloneGroup> minimumTokensPredicate = DuplicationPredicates.numberOfUnitsNotLessThan(getMinimumTokens(inputFile.language()));
+        return from(duplications).filter(minimumTokensPredicate).toList();
+      }
+      return duplications;
+    }
   }
 
   @VisibleForTesting
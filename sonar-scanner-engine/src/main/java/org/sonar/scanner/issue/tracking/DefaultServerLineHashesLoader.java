@@ -19,18 +19,17 @@
  */
 package org.sonar.scanner.issue.tracking;
 
-import org.sonarqube.ws.client.GetRequest;
-
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Reader;
-
-import com.google.common.base.Splitter;
-import com.google.common.collect.Iterators;
+import java.util.function.BiConsumer;
 import org.apache.commons.io.IOUtils;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.api.utils.log.Profiler;
 import org.sonar.scanner.bootstrap.BatchWsClient;
+import org.sonar.scanner.protocol.input.ScannerInput.LineHashes;
 import org.sonar.scanner.util.BatchUtils;
+import org.sonarqube.ws.client.GetRequest;
 
 public class DefaultServerLineHashesLoader implements ServerLineHashesLoader {
   private BatchWsClient wsClient;
@@ -42,7 +41,29 @@ public class DefaultServerLineHashesLoader implements ServerLineHashesLoader {
   @Override
   public String[] getLineHashes(String fileKey) {
     String hashesFromWs = loadHashesFromWs(fileKey);
-    return Iterators.toArray(Splitter.on('\n').split(hashesFromWs).iterator(), String.class);
+    return hashesFromWs.split("\n", -1);
+  }
+
+  @Override
+  public void loadModule(String moduleKey, BiConsumer<String, String[]> consumer) {
+    Profiler profiler = Profiler.createIfDebug(Loggers.get(getClass()))
+      .addContext("module", moduleKey)
+      .startDebug("Load line hashes of module");
+
+    GetRequest getRequest = new GetRequest("/batch/line_hashes.protobuf?key=" + BatchUtils.encodeForUrl(moduleKey));
+    InputStream is = wsClient.call(getRequest).contentStream();
+    try {
+      LineHashes lineHashes = LineHashes.parseDelimitedFrom(is);
+      while (lineHashes != null) {
+        consumer.accept(lineHashes.getPath(), lineHashes.getLineHashList().toArray(new String[lineHashes.getLineHashCount()]));
+        lineHashes = LineHashes.parseDelimitedFrom(is);
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to get line hashes of module " + moduleKey, e);
+    } finally {
+      IOUtils.closeQuietly(is);
+      profiler.stopDebug();
+    }
   }
 
   private String loadHashesFromWs(String fileKey) {
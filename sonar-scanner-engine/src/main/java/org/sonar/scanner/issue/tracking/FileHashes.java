@@ -30,6 +30,7 @@ import org.sonar.api.batch.fs.internal.DefaultInputFile;
 
 import javax.annotation.Nullable;
 
+import java.io.Reader;
 import java.util.Collection;
 
 /**
@@ -55,16 +56,22 @@ public final class FileHashes {
     return new FileHashes(hashes, linesByHash);
   }
 
-  public static FileHashes create(DefaultInputFile f) {
+  /**
+   * Hashes of the lines of the file, which content is read from the specified reader.
+   */
+  public static FileHashes create(DefaultInputFile f, Reader reader) {
     final byte[][] hashes = new byte[f.lines()][];
-    FileMetadata.computeLineHashesForIssueTracking(f, new LineHashConsumer() {
+    FileMetadata.computeLineHashesForIssueTracking(f, reader, new LineHashConsumer() {
 
       @Override
       public void consume(int lineIdx, @Nullable byte[] hash) {
         hashes[lineIdx - 1] = hash;
       }
     });
+    return create(hashes);
+  }
 
+  private static FileHashes create(byte[][] hashes) {
     int size = hashes.length;
     Multimap<String, Integer> linesByHash = LinkedHashMultimap.create();
     String[] hexHashes = new String[size];
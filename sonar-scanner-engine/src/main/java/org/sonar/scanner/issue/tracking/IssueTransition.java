@@ -29,6 +29,7 @@ import org.sonar.scanner.issue.IssueTransformer;
 import org.sonar.scanner.protocol.output.ScannerReport;
 import org.sonar.scanner.protocol.output.ScannerReportReader;
 import org.sonar.scanner.report.ReportPublisher;
+import org.sonar.scanner.scan.filesystem.DefaultModuleFileSystem;
 import org.sonar.scanner.util.ProgressReport;
 import javax.annotation.Nullable;
 
@@ -60,12 +61,17 @@ public class IssueTransition {
     this(componentCache, issueCache, reportPublisher, null);
   }
 
+  public void prefetchLineHashes(DefaultModuleFileSystem moduleFs) {
+    if (localIssueTracking != null) {
+      localIssueTracking.prefetchLineHashes(moduleFs);
+    }
+  }
+
   public void execute() {
     if (localIssueTracking != null) {
       localIssueTracking.init();
     }
 
-    ScannerReportReader reader = new ScannerReportReader(reportPublisher.getReportDir());
     int nbComponents = componentCache.all().size();
 
     if (nbComponents == 0) {
@@ -76,7 +82,7 @@ public class IssueTransition {
     progressReport.start("Performing issue tracking");
     int count = 0;
 
-    try {
+    try (ScannerReportReader reader = new ScannerReportReader(reportPublisher.getReportDir())) {
       for (BatchComponent component : componentCache.all()) {
         trackIssues(reader, component);
         count++;
@@ -43,24 +43,29 @@ import org.sonar.scanner.index.BatchComponent;
 import org.sonar.scanner.issue.IssueTransformer;
 import org.sonar.scanner.protocol.output.ScannerReport;
 import org.sonar.scanner.repository.ProjectRepositories;
+import org.sonar.scanner.scan.filesystem.DefaultModuleFileSystem;
+import org.sonar.scanner.scan.filesystem.InputFileContentCache;
 
 @ScannerSide
 public class LocalIssueTracking {
   private final Tracker<TrackedIssue, ServerIssueFromWs> tracker;
-  private final ServerLineHashesLoader lastLineHashes;
+  private final ServerLineHashesPrefetcher lastLineHashes;
   private final ActiveRules activeRules;
   private final ServerIssueRepository serverIssueRepository;
   private final DefaultAnalysisMode mode;
+  private final InputFileContentCache contentCache;
 
   private boolean hasServerAnalysis;
 
-  public LocalIssueTracking(Tracker<TrackedIssue, ServerIssueFromWs> tracker, ServerLineHashesLoader lastLineHashes,
-    ActiveRules activeRules, ServerIssueRepository serverIssueRepository, ProjectRepositories projectRepositories, DefaultAnalysisMode mode) {
+  public LocalIssueTracking(Tracker<TrackedIssue, ServerIssueFromWs> tracker, ServerLineHashesPrefetcher lastLineHashes,
+    ActiveRules activeRules, ServerIssueRepository serverIssueRepository, ProjectRepositories projectRepositories, DefaultAnalysisMode mode,
+    InputFileContentCache contentCache) {
     this.tracker = tracker;
     this.lastLineHashes = lastLineHashes;
     this.serverIssueRepository = serverIssueRepository;
     this.mode = mode;
     this.activeRules = activeRules;
+    this.contentCache = contentCache;
     this.hasServerAnalysis = projectRepositories.lastAnalysisDate() != null;
   }
 
@@ -70,6 +75,15 @@ public class LocalIssueTracking {
     }
   }
 
+  /**
+   * Line hashes on server are required to track the issues of changed files
+   */
+  public void prefetchLineHashes(DefaultModuleFileSystem moduleFs) {
+    if (hasServerAnalysis) {
+      lastLineHashes.prefetch(moduleFs.moduleKey(), moduleFs.inputFiles(moduleFs.predicates().hasStatus(Status.CHANGED)));
+    }
+  }
+
   public List<TrackedIssue> trackIssues(BatchComponent component, Collection<ScannerReport.Issue> reportIssues, Date analysisDate) {
     List<TrackedIssue> trackedIssues = new LinkedList<>();
     if (hasServerAnalysis) {
@@ -161,7 +175,7 @@ public class LocalIssueTracking {
       if (file == null) {
         throw new IllegalStateException("Resource " + component.resource() + " was not found in InputPath cache");
       }
-      sourceHashHolder = new SourceHashHolder(file, lastLineHashes);
+      sourceHashHolder = new SourceHashHolder(file, lastLineHashes, contentCache);
     }
     return sourceHashHolder;
   }
@@ -19,10 +19,17 @@
  */
 package org.sonar.scanner.issue.tracking;
 
+import java.util.function.BiConsumer;
 import org.sonar.api.batch.ScannerSide;
 
 @ScannerSide
 public interface ServerLineHashesLoader {
 
   String[] getLineHashes(String fileKey);
+
+  /**
+   * Loads in a single request the line hashes of the files of a module, excluding the files of its sub-modules.
+   * The consumer receives the path of each file, relative to the module, and its line hashes.
+   */
+  void loadModule(String moduleKey, BiConsumer<String, String[]> consumer);
 }
@@ -0,0 +1,128 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.issue.tracking;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.Uninterruptibles;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.annotation.CheckForNull;
+import org.picocontainer.Startable;
+import org.sonar.api.batch.ScannerSide;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+/**
+ * Loads in background the line hashes of the files of a module, while its sensors are executed, so that issue
+ * tracking does not request them file by file. Files which have not been prefetched, or whose prefetch failed,
+ * are still loaded by {@link ServerLineHashesLoader#getLineHashes(String)}.
+ * <p>
+ * The line hashes of a whole module are downloaded only when enough of its files changed. Otherwise requesting
+ * the few changed files one by one is cheaper.
+ */
+@ScannerSide
+public class ServerLineHashesPrefetcher implements Startable {
+
+  private static final Logger LOG = Loggers.get(ServerLineHashesPrefetcher.class);
+  private static final int THREADS = 2;
+  private static final int DEFAULT_MIN_FILES_TO_PREFETCH = 10;
+
+  private final ServerLineHashesLoader loader;
+  private final int minFilesToPrefetch;
+  private final Map<String, Future<?>> pendingByFileKey = new ConcurrentHashMap<>();
+  private final Map<String, String[]> prefetchedByFileKey = new ConcurrentHashMap<>();
+  private ExecutorService executor;
+
+  public ServerLineHashesPrefetcher(ServerLineHashesLoader loader) {
+    this(loader, DEFAULT_MIN_FILES_TO_PREFETCH);
+  }
+
+  @VisibleForTesting
+  ServerLineHashesPrefetcher(ServerLineHashesLoader loader, int minFilesToPrefetch) {
+    this.loader = loader;
+    this.minFilesToPrefetch = minFilesToPrefetch;
+  }
+
+  @Override
+  public void start() {
+    executor = Executors.newFixedThreadPool(THREADS, new ThreadFactoryBuilder()
+      .setNameFormat("ServerLineHashesPrefetcher-%d")
+      .setDaemon(true)
+      .build());
+  }
+
+  @Override
+  public void stop() {
+    if (executor != null) {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Starts loading the line hashes of the given files, which must belong to the module. Nothing is loaded if there
+   * are fewer files than the minimum to prefetch.
+   */
+  public void prefetch(String moduleKey, Iterable<InputFile> files) {
+    Map<String, String> fileKeysByPath = new HashMap<>();
+    for (InputFile file : files) {
+      fileKeysByPath.put(file.relativePath(), file.key());
+    }
+    if (fileKeysByPath.isEmpty() || fileKeysByPath.size() < minFilesToPrefetch) {
+      return;
+    }
+    Future<?> future = executor.submit(() -> loader.loadModule(moduleKey, (path, lineHashes) -> {
+      String fileKey = fileKeysByPath.get(path);
+      if (fileKey != null) {
+        prefetchedByFileKey.put(fileKey, lineHashes);
+      }
+    }));
+    for (String fileKey : fileKeysByPath.values()) {
+      pendingByFileKey.put(fileKey, future);
+    }
+  }
+
+  /**
+   * Line hashes of the file on server. Waits for the end of prefetch if the file is being prefetched. As they are
+   * requested only once by issue tracking, the prefetched line hashes are then released.
+   */
+  @CheckForNull
+  public String[] getLineHashes(String fileKey) {
+    Future<?> future = pendingByFileKey.remove(fileKey);
+    if (future != null) {
+      try {
+        Uninterruptibles.getUninterruptibly(future);
+      } catch (ExecutionException e) {
+        LOG.debug("Fail to prefetch line hashes, load them file by file", e);
+      }
+      String[] lineHashes = prefetchedByFileKey.remove(fileKey);
+      if (lineHashes != null) {
+        return lineHashes;
+      }
+    }
+    return loader.getLineHashes(fileKey);
+  }
+}
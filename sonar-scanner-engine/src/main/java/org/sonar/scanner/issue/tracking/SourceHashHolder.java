@@ -22,27 +22,32 @@ package org.sonar.scanner.issue.tracking;
 import com.google.common.collect.ImmutableSet;
 import org.sonar.api.batch.fs.InputFile.Status;
 import org.sonar.api.batch.fs.internal.DefaultInputFile;
+import org.sonar.scanner.scan.filesystem.InputFileContentCache;
 
 import javax.annotation.CheckForNull;
 
+import java.io.IOException;
+import java.io.Reader;
 import java.util.Collection;
 
 public class SourceHashHolder {
 
-  private final ServerLineHashesLoader lastSnapshots;
+  private final ServerLineHashesPrefetcher lastSnapshots;
+  private final InputFileContentCache contentCache;
 
   private FileHashes hashedReference;
   private FileHashes hashedSource;
   private DefaultInputFile inputFile;
 
-  public SourceHashHolder(DefaultInputFile inputFile, ServerLineHashesLoader lastSnapshots) {
+  public SourceHashHolder(DefaultInputFile inputFile, ServerLineHashesPrefetcher lastSnapshots, InputFileContentCache contentCache) {
     this.inputFile = inputFile;
     this.lastSnapshots = lastSnapshots;
+    this.contentCache = contentCache;
   }
 
   private void initHashes() {
     if (hashedSource == null) {
-      hashedSource = FileHashes.create(inputFile);
+      hashedSource = hashSource();
       Status status = inputFile.status();
       if (status == Status.ADDED) {
         hashedReference = null;
@@ -55,6 +60,14 @@ public class SourceHashHolder {
     }
   }
 
+  private FileHashes hashSource() {
+    try (Reader reader = contentCache.newReader(inputFile.file(), inputFile.charset())) {
+      return FileHashes.create(inputFile, reader);
+    } catch (IOException e) {
+      throw new IllegalStateException(String.format("Fail to read file '%s' with encoding '%s'", inputFile.file().getAbsolutePath(), inputFile.charset()), e);
+    }
+  }
+
   @CheckForNull
   public FileHashes getHashedReference() {
     initHashes();
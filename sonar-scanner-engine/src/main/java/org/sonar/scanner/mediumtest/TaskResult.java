@@ -21,7 +21,6 @@ package org.sonar.scanner.mediumtest;
 
 import com.google.common.collect.Iterators;
 import com.google.common.collect.Lists;
-import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -29,7 +28,6 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import javax.annotation.CheckForNull;
-import org.apache.commons.io.FileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.sonar.api.batch.AnalysisMode;
@@ -261,13 +259,12 @@ public class TaskResult implements org.sonar.scanner.mediumtest.ScanTaskObserver
 
   public ScannerReport.Test testExecutionFor(InputFile testFile, String testName) {
     int ref = reportComponents.get(((DefaultInputFile) testFile).key()).getRef();
-    try (InputStream inputStream = FileUtils.openInputStream(getReportReader().readTests(ref))) {
-      ScannerReport.Test test = ScannerReport.Test.parser().parseDelimitedFrom(inputStream);
-      while (test != null) {
+    try (CloseableIterator<ScannerReport.Test> it = getReportReader().readComponentTests(ref)) {
+      while (it.hasNext()) {
+        ScannerReport.Test test = it.next();
         if (test.getName().equals(testName)) {
           return test;
         }
-        test = ScannerReport.Test.parser().parseDelimitedFrom(inputStream);
       }
     } catch (Exception e) {
       throw new IllegalStateException(e);
@@ -277,13 +274,12 @@ public class TaskResult implements org.sonar.scanner.mediumtest.ScanTaskObserver
 
   public ScannerReport.CoverageDetail coveragePerTestFor(InputFile testFile, String testName) {
     int ref = reportComponents.get(((DefaultInputFile) testFile).key()).getRef();
-    try (InputStream inputStream = FileUtils.openInputStream(getReportReader().readCoverageDetails(ref))) {
-      ScannerReport.CoverageDetail details = ScannerReport.CoverageDetail.parser().parseDelimitedFrom(inputStream);
-      while (details != null) {
+    try (CloseableIterator<ScannerReport.CoverageDetail> it = getReportReader().readComponentCoverageDetails(ref)) {
+      while (it.hasNext()) {
+        ScannerReport.CoverageDetail details = it.next();
         if (details.getTestName().equals(testName)) {
           return details;
         }
-        details = ScannerReport.CoverageDetail.parser().parseDelimitedFrom(inputStream);
       }
     } catch (Exception e) {
       throw new IllegalStateException(e);
@@ -68,6 +68,7 @@ public abstract class AbstractPhaseExecutor {
 
     // Index and lock the filesystem
     indexFs();
+    onFileSystemIndexed(fs);
 
     // Log detected languages and their profiles after FS is indexed and languages detected
     profileVerifier.execute();
@@ -87,6 +88,13 @@ public abstract class AbstractPhaseExecutor {
 
   protected abstract void executeOnRoot();
 
+  /**
+   * Executed on each module, before sensors, as soon as files are indexed. Does nothing by default.
+   */
+  protected void onFileSystemIndexed(DefaultModuleFileSystem moduleFs) {
+    // nothing to do by default
+  }
+
   private void initIssueExclusions() {
     if (issueExclusionsLoader.shouldExecute()) {
       String stepName = "Init issue exclusions";
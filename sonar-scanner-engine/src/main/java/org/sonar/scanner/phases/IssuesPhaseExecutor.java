@@ -52,6 +52,12 @@ public final class IssuesPhaseExecutor extends AbstractPhaseExecutor {
     this.issueCallback = issueCallback;
   }
 
+  @Override
+  protected void onFileSystemIndexed(DefaultModuleFileSystem moduleFs) {
+    // line hashes of changed files are loaded while sensors are executed
+    localIssueTracking.prefetchLineHashes(moduleFs);
+  }
+
   @Override
   protected void executeOnRoot() {
     localIssueTracking();
@@ -62,6 +62,11 @@ public class ReportPublisher implements Startable {
   public static final String KEEP_REPORT_PROP_KEY = "sonar.batch.keepReport";
   public static final String VERBOSE_KEY = "sonar.verbose";
   public static final String METADATA_DUMP_FILENAME = "report-task.txt";
+  /**
+   * Stores the data of components in a single segments file instead of one file per component and domain.
+   * Requires a server able to read this layout.
+   */
+  public static final String SEGMENTED_REPORT_PROP_KEY = "sonar.scanner.segmentedReport";
 
   private final Settings settings;
   private final BatchWsClient wsClient;
@@ -90,7 +95,7 @@ public class ReportPublisher implements Startable {
   @Override
   public void start() {
     reportDir = new File(projectReactor.getRoot().getWorkDir(), "batch-report");
-    writer = new ScannerReportWriter(reportDir);
+    writer = new ScannerReportWriter(reportDir, settings.getBoolean(SEGMENTED_REPORT_PROP_KEY));
     contextPublisher.init(writer);
 
     if (!analysisMode.isIssues() && !analysisMode.isMediumTest()) {
@@ -103,6 +108,9 @@ public class ReportPublisher implements Startable {
 
   @Override
   public void stop() {
+    if (writer != null) {
+      writer.close();
+    }
     if (!shouldKeepReport()) {
       deleteQuietly(reportDir);
     }
@@ -141,6 +149,7 @@ public class ReportPublisher implements Startable {
       for (ReportPublisherStep publisher : publishers) {
         publisher.publish(writer);
       }
+      writer.close();
       long stopTime = System.currentTimeMillis();
       LOG.info("Analysis report generated in {}ms, dir size={}", stopTime - startTime, FileUtils.byteCountToDisplaySize(FileUtils.sizeOfDirectory(reportDir)));
 
@@ -27,11 +27,10 @@ import org.sonar.scanner.index.BatchComponent;
 import org.sonar.scanner.index.BatchComponentCache;
 import org.sonar.scanner.protocol.output.ScannerReportWriter;
 import java.io.BufferedReader;
-import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 
 public class SourcePublisher implements ReportPublisherStep {
@@ -50,9 +49,8 @@ public class SourcePublisher implements ReportPublisherStep {
       }
 
       DefaultInputFile inputFile = (DefaultInputFile) resource.inputComponent();
-      File iofile = writer.getSourceFile(resource.batchId());
       int line = 0;
-      try (FileOutputStream output = new FileOutputStream(iofile); BOMInputStream bomIn = new BOMInputStream(new FileInputStream(inputFile.file()),
+      try (OutputStream output = writer.openComponentSource(resource.batchId()); BOMInputStream bomIn = new BOMInputStream(new FileInputStream(inputFile.file()),
         ByteOrderMark.UTF_8, ByteOrderMark.UTF_16LE, ByteOrderMark.UTF_16BE, ByteOrderMark.UTF_32LE, ByteOrderMark.UTF_32BE);
         BufferedReader reader = new BufferedReader(new InputStreamReader(bomIn, inputFile.charset()))) {
         String lineStr = reader.readLine();
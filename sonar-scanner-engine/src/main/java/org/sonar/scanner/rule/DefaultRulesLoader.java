@@ -20,7 +20,7 @@
 package org.sonar.scanner.rule;
 
 import org.apache.commons.io.IOUtils;
-import org.sonar.scanner.bootstrap.BatchWsClient;
+import org.sonar.scanner.bootstrap.WsResponseCache;
 import org.sonarqube.ws.Rules.ListResponse.Rule;
 import org.sonarqube.ws.client.GetRequest;
 import org.sonarqube.ws.Rules.ListResponse;
@@ -32,16 +32,16 @@ import java.util.List;
 public class DefaultRulesLoader implements RulesLoader {
   private static final String RULES_SEARCH_URL = "/api/rules/list.protobuf";
 
-  private final BatchWsClient wsClient;
+  private final WsResponseCache wsResponseCache;
 
-  public DefaultRulesLoader(BatchWsClient wsClient) {
-    this.wsClient = wsClient;
+  public DefaultRulesLoader(WsResponseCache wsResponseCache) {
+    this.wsResponseCache = wsResponseCache;
   }
 
   @Override
   public List<Rule> load() {
     GetRequest getRequest = new GetRequest(RULES_SEARCH_URL);
-    ListResponse list = loadFromStream(wsClient.call(getRequest).contentStream());
+    ListResponse list = loadFromStream(wsResponseCache.call(getRequest));
     return list.getRulesList();
   }
 
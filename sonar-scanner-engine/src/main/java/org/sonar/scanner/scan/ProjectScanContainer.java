@@ -54,6 +54,7 @@ import org.sonar.scanner.issue.tracking.IssueTransition;
 import org.sonar.scanner.issue.tracking.LocalIssueTracking;
 import org.sonar.scanner.issue.tracking.ServerIssueRepository;
 import org.sonar.scanner.issue.tracking.ServerLineHashesLoader;
+import org.sonar.scanner.issue.tracking.ServerLineHashesPrefetcher;
 import org.sonar.scanner.mediumtest.ScanTaskObservers;
 import org.sonar.scanner.phases.PhasesTimeProfiler;
 import org.sonar.scanner.profiling.PhasesSumUpTimeProfiler;
@@ -85,6 +86,7 @@ import org.sonar.scanner.rule.DefaultActiveRulesLoader;
 import org.sonar.scanner.rule.DefaultRulesLoader;
 import org.sonar.scanner.rule.RulesLoader;
 import org.sonar.scanner.rule.RulesProvider;
+import org.sonar.scanner.scan.filesystem.InputFileContentCache;
 import org.sonar.scanner.scan.filesystem.InputPathCache;
 import org.sonar.scanner.scan.measure.DefaultMetricFinder;
 import org.sonar.scanner.scan.measure.DeprecatedMetricFinder;
@@ -150,6 +152,7 @@ public class ProjectScanContainer extends ComponentContainer {
 
       // file system
       InputPathCache.class,
+      InputFileContentCache.class,
       PathResolver.class,
 
       // rules
@@ -210,6 +213,7 @@ public class ProjectScanContainer extends ComponentContainer {
   private void addIssueTrackingComponents() {
     add(
       LocalIssueTracking.class,
+      ServerLineHashesPrefetcher.class,
       ServerIssueRepository.class);
     addIfMissing(DefaultServerIssuesLoader.class, ServerIssuesLoader.class);
     addIfMissing(DefaultServerLineHashesLoader.class, ServerLineHashesLoader.class);
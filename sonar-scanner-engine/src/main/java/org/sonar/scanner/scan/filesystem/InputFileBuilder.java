@@ -44,9 +44,10 @@ class InputFileBuilder {
   private final DefaultModuleFileSystem fs;
   private final Settings settings;
   private final FileMetadata fileMetadata;
+  private final InputFileContentCache contentCache;
 
   InputFileBuilder(String moduleKey, PathResolver pathResolver, LanguageDetection langDetection,
-    StatusDetection statusDetection, DefaultModuleFileSystem fs, Settings settings, FileMetadata fileMetadata) {
+    StatusDetection statusDetection, DefaultModuleFileSystem fs, Settings settings, FileMetadata fileMetadata, InputFileContentCache contentCache) {
     this.moduleKey = moduleKey;
     this.pathResolver = pathResolver;
     this.langDetection = langDetection;
@@ -54,6 +55,7 @@ class InputFileBuilder {
     this.fs = fs;
     this.settings = settings;
     this.fileMetadata = fileMetadata;
+    this.contentCache = contentCache;
   }
 
   String moduleKey() {
@@ -101,7 +103,8 @@ class InputFileBuilder {
     }
     inputFile.setLanguage(lang);
 
-    inputFile.initMetadata(fileMetadata.readMetadata(inputFile.file(), fs.encoding()));
+    // content is kept while computing metadata so that the file doesn't have to be read again by later steps of the analysis
+    inputFile.initMetadata(fileMetadata.readMetadata(inputFile.file(), fs.encoding(), contentCache.newContentHandler(inputFile.file())));
 
     inputFile.setStatus(statusDetection.status(inputFile.moduleKey(), inputFile.relativePath(), inputFile.hash()));
 
@@ -0,0 +1,113 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.scan.filesystem;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.commons.io.ByteOrderMark;
+import org.apache.commons.io.input.BOMInputStream;
+import org.sonar.api.batch.ScannerSide;
+import org.sonar.api.batch.fs.internal.FileMetadata.CharHandler;
+import org.sonar.api.config.Settings;
+
+/**
+ * Keeps the content of files, as decoded when computing their metadata, so that the line hashes of issue tracking
+ * (issues mode only) and the code colorizer don't have to read and decode them again from disk. Other readers, like
+ * sensors, CPD and {@link org.sonar.scanner.report.SourcePublisher}, still read files from disk.
+ * <p>
+ * The cache is disabled by default. It is enabled by setting the property {@link #SIZE_PROPERTY}, which bounds the
+ * total size of cached chars. Files which don't fit in the remaining budget are not cached and are read from disk.
+ * Entries are kept until the end of the analysis. This cache is shared amongst all project modules.
+ * </p>
+ */
+@ScannerSide
+public class InputFileContentCache {
+
+  public static final String SIZE_PROPERTY = "sonar.scanner.fileContentCacheSizeInMB";
+  static final int DEFAULT_SIZE_IN_MB = 0;
+
+  private final Map<File, String> contentByFile = new HashMap<>();
+  private long remainingChars;
+
+  public InputFileContentCache(Settings settings) {
+    int sizeInMB = settings.hasKey(SIZE_PROPERTY) ? settings.getInt(SIZE_PROPERTY) : DEFAULT_SIZE_IN_MB;
+    // a char is 2 bytes
+    this.remainingChars = Math.max(0, sizeInMB) * 1024L * 1024L / 2;
+  }
+
+  /**
+   * Handler to be fed with the chars of the file, for example by
+   * {@link org.sonar.api.batch.fs.internal.FileMetadata#readMetadata(File, Charset, CharHandler...)}. Content is cached
+   * once the end of file is reached, if it fits in the budget.
+   */
+  public CharHandler newContentHandler(File file) {
+    return new ContentHandler(file);
+  }
+
+  /**
+   * Reader of the content of the file, either from the cache or from the disk, in which case BOM is skipped.
+   */
+  public Reader newReader(File file, Charset charset) throws IOException {
+    String content = contentByFile.get(file);
+    if (content != null) {
+      return new StringReader(content);
+    }
+    return new InputStreamReader(new BOMInputStream(Files.newInputStream(file.toPath()),
+      ByteOrderMark.UTF_8, ByteOrderMark.UTF_16LE, ByteOrderMark.UTF_16BE, ByteOrderMark.UTF_32LE, ByteOrderMark.UTF_32BE), charset);
+  }
+
+  private class ContentHandler extends CharHandler {
+    private final File file;
+    private StringBuilder content = new StringBuilder();
+
+    private ContentHandler(File file) {
+      this.file = file;
+    }
+
+    @Override
+    protected void handleAll(char c) {
+      if (content == null) {
+        return;
+      }
+      if (content.length() >= remainingChars) {
+        // file does not fit in the cache, stop buffering it
+        content = null;
+        return;
+      }
+      content.append(c);
+    }
+
+    @Override
+    protected void eof() {
+      if (content != null) {
+        contentByFile.put(file, content.toString());
+        remainingChars -= content.length();
+        content = null;
+      }
+    }
+  }
+}
@@ -28,6 +28,7 @@ import org.sonar.api.batch.sensor.SensorDescriptor;
 import org.sonar.scanner.index.BatchComponentCache;
 import org.sonar.scanner.protocol.output.ScannerReportReader;
 import org.sonar.scanner.report.ReportPublisher;
+import org.sonar.scanner.scan.filesystem.InputFileContentCache;
 
 @Phase(name = Phase.Name.POST)
 public final class CodeColorizerSensor implements Sensor {
@@ -35,11 +36,14 @@ public final class CodeColorizerSensor implements Sensor {
   private final ReportPublisher reportPublisher;
   private final BatchComponentCache resourceCache;
   private final CodeColorizers codeColorizers;
+  private final InputFileContentCache contentCache;
 
-  public CodeColorizerSensor(ReportPublisher reportPublisher, BatchComponentCache resourceCache, CodeColorizers codeColorizers) {
+  public CodeColorizerSensor(ReportPublisher reportPublisher, BatchComponentCache resourceCache, CodeColorizers codeColorizers,
+    InputFileContentCache contentCache) {
     this.reportPublisher = reportPublisher;
     this.resourceCache = resourceCache;
     this.codeColorizers = codeColorizers;
+    this.contentCache = contentCache;
   }
 
   @Override
@@ -50,14 +54,15 @@ public final class CodeColorizerSensor implements Sensor {
   @Override
   public void execute(final SensorContext context) {
     FileSystem fs = context.fileSystem();
-    for (InputFile f : fs.inputFiles(fs.predicates().all())) {
-      ScannerReportReader reader = new ScannerReportReader(reportPublisher.getReportDir());
-      int batchId = resourceCache.get(f).batchId();
-      String language = f.language();
-      if (reader.hasSyntaxHighlighting(batchId) || language == null) {
-        continue;
+    try (ScannerReportReader reader = new ScannerReportReader(reportPublisher.getReportDir())) {
+      for (InputFile f : fs.inputFiles(fs.predicates().all())) {
+        int batchId = resourceCache.get(f).batchId();
+        String language = f.language();
+        if (reader.hasSyntaxHighlighting(batchId) || language == null) {
+          continue;
+        }
+        codeColorizers.toSyntaxHighlighting(f.file(), fs.encoding(), contentCache, language, context.newHighlighting().onFile(f));
       }
-      codeColorizers.toSyntaxHighlighting(f.file(), fs.encoding(), language, context.newHighlighting().onFile(f));
     }
   }
 
@@ -22,15 +22,12 @@ package org.sonar.scanner.source;
 import com.google.common.collect.Lists;
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.InputStreamReader;
 import java.io.Reader;
 import java.nio.charset.Charset;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import javax.annotation.CheckForNull;
-import org.apache.commons.io.input.BOMInputStream;
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -39,6 +36,7 @@ import org.sonar.api.batch.sensor.highlighting.NewHighlighting;
 import org.sonar.api.web.CodeColorizerFormat;
 import org.sonar.colorizer.JavaTokenizers;
 import org.sonar.colorizer.Tokenizer;
+import org.sonar.scanner.scan.filesystem.InputFileContentCache;
 
 /**
  * Central point for sonar-colorizer extensions
@@ -67,7 +65,7 @@ public class CodeColorizers {
   }
 
   @CheckForNull
-  public void toSyntaxHighlighting(File file, Charset charset, String language, NewHighlighting highlighting) {
+  public void toSyntaxHighlighting(File file, Charset charset, InputFileContentCache contentCache, String language, NewHighlighting highlighting) {
     CodeColorizerFormat format = byLang.get(language);
     List<Tokenizer> tokenizers;
     if (format == null) {
@@ -82,7 +80,7 @@ public class CodeColorizers {
     } else {
       tokenizers = format.getTokenizers();
     }
-    try (Reader reader = new BufferedReader(new InputStreamReader(new BOMInputStream(new FileInputStream(file)), charset))) {
+    try (Reader reader = new BufferedReader(contentCache.newReader(file, charset))) {
       new HighlightingRenderer().render(reader, tokenizers, highlighting);
     } catch (Exception e) {
       LOG.warn("Unable to perform colorization of file " + file, e);
@@ -29,6 +29,7 @@ import org.sonar.api.utils.log.LogTester;
 import org.sonar.api.utils.log.LoggerLevel;
 import org.sonar.scanner.bootstrap.BatchWsClient;
 import org.sonarqube.ws.client.GetRequest;
+import org.sonarqube.ws.client.HttpException;
 import org.sonarqube.ws.client.MockWsResponse;
 import org.sonarqube.ws.client.WsClient;
 import org.sonarqube.ws.client.WsRequest;
@@ -121,11 +122,30 @@ public class BatchWsClientTest {
     new BatchWsClient(wsClient, true).call(request);
   }
 
+  @Test
+  public void do_not_fail_if_not_modified_and_fingerprint_is_sent() throws Exception {
+    WsRequest request = newRequest().setParam(WsResponseCache.PARAM_FINGERPRINT, "abc");
+    WsResponse response = newResponse().setCode(304);
+    when(wsClient.wsConnector().call(request)).thenReturn(response);
+
+    assertThat(new BatchWsClient(wsClient, true).call(request)).isSameAs(response);
+  }
+
+  @Test
+  public void fail_if_not_modified_and_fingerprint_is_not_sent() throws Exception {
+    WsRequest request = newRequest();
+    WsResponse response = newResponse().setCode(304);
+    when(wsClient.wsConnector().call(request)).thenReturn(response);
+
+    expectedException.expect(HttpException.class);
+    new BatchWsClient(wsClient, true).call(request);
+  }
+
   private MockWsResponse newResponse() {
     return new MockWsResponse().setRequestUrl("https://local/api/issues/search");
   }
 
-  private WsRequest newRequest() {
+  private GetRequest newRequest() {
     return new GetRequest("api/issues/search");
   }
 }
@@ -0,0 +1,188 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.bootstrap;
+
+import com.google.common.collect.ImmutableMap;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermission;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.SystemUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
+import org.sonar.api.CoreProperties;
+import org.sonar.home.cache.FileCache;
+import org.sonarqube.ws.client.GetRequest;
+import org.sonarqube.ws.client.MockWsResponse;
+import org.sonarqube.ws.client.WsRequest;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.apache.commons.codec.digest.DigestUtils.md5Hex;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class WsResponseCacheTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private BatchWsClient wsClient = mock(BatchWsClient.class);
+  private FileCache fileCache;
+  private WsResponseCache underTest;
+
+  @Before
+  public void setUp() throws IOException {
+    when(wsClient.baseUrl()).thenReturn("http://localhost:9000/");
+    fileCache = FileCache.create(temp.newFolder(), new Slf4jLogger());
+    underTest = newCache("julien");
+  }
+
+  @Test
+  public void do_not_send_fingerprint_when_response_is_not_cached() throws IOException {
+    when(wsClient.call(any(WsRequest.class))).thenReturn(new MockWsResponse().setContent("foo"));
+
+    GetRequest request = new GetRequest("/api/rules/list.protobuf");
+    assertThat(read(underTest.call(request))).isEqualTo("foo");
+    assertThat(request.getParams()).doesNotContainKey(WsResponseCache.PARAM_FINGERPRINT);
+  }
+
+  @Test
+  public void read_cached_response_when_not_modified() throws IOException {
+    when(wsClient.call(any(WsRequest.class)))
+      .thenReturn(new MockWsResponse().setContent("foo"))
+      .thenReturn(new MockWsResponse().setCode(304));
+
+    read(underTest.call(new GetRequest("/api/rules/list.protobuf")));
+    GetRequest request = new GetRequest("/api/rules/list.protobuf");
+    assertThat(read(underTest.call(request))).isEqualTo("foo");
+
+    assertThat(request.getParams()).containsEntry(WsResponseCache.PARAM_FINGERPRINT, md5Hex("foo"));
+  }
+
+  @Test
+  public void replace_cached_response_when_modified() throws IOException {
+    when(wsClient.call(any(WsRequest.class)))
+      .thenReturn(new MockWsResponse().setContent("foo"))
+      .thenReturn(new MockWsResponse().setContent("bar"))
+      .thenReturn(new MockWsResponse().setCode(304));
+
+    read(underTest.call(new GetRequest("/api/rules/list.protobuf")));
+    assertThat(read(underTest.call(new GetRequest("/api/rules/list.protobuf")))).isEqualTo("bar");
+    GetRequest request = new GetRequest("/api/rules/list.protobuf");
+    assertThat(read(underTest.call(request))).isEqualTo("bar");
+
+    assertThat(request.getParams()).containsEntry(WsResponseCache.PARAM_FINGERPRINT, md5Hex("bar"));
+  }
+
+  @Test
+  public void store_single_file_per_request_readable_only_by_owner() throws IOException {
+    when(wsClient.call(any(WsRequest.class)))
+      .thenReturn(new MockWsResponse().setContent("foo"))
+      .thenReturn(new MockWsResponse().setContent("bar"));
+
+    read(underTest.call(new GetRequest("/api/rules/list.protobuf")));
+    read(underTest.call(new GetRequest("/api/rules/list.protobuf")));
+
+    File[] files = new File(fileCache.getDir(), "_ws").listFiles();
+    assertThat(files).hasSize(1);
+    assertThat(FileUtils.readFileToString(files[0], UTF_8)).isEqualTo("bar");
+    if (!SystemUtils.IS_OS_WINDOWS) {
+      assertThat(Files.getPosixFilePermissions(files[0].toPath())).containsOnly(PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE);
+    }
+  }
+
+  @Test
+  public void keep_cached_response_in_memory_once_revalidated() throws IOException {
+    when(wsClient.call(any(WsRequest.class)))
+      .thenReturn(new MockWsResponse().setContent("foo"))
+      .thenAnswer(invocation -> {
+        // another analysis replaces the cached response while the server answers
+        FileUtils.write(new File(fileCache.getDir(), "_ws").listFiles()[0], "bar", UTF_8);
+        return new MockWsResponse().setCode(304);
+      });
+
+    read(underTest.call(new GetRequest("/api/rules/list.protobuf")));
+
+    assertThat(read(underTest.call(new GetRequest("/api/rules/list.protobuf")))).isEqualTo("foo");
+  }
+
+  @Test
+  public void do_not_send_fingerprint_when_cached_response_can_not_be_read() throws IOException {
+    when(wsClient.call(any(WsRequest.class)))
+      .thenReturn(new MockWsResponse().setContent("foo"))
+      .thenReturn(new MockWsResponse().setContent("foo"));
+
+    read(underTest.call(new GetRequest("/api/rules/list.protobuf")));
+    File cachedFile = new File(fileCache.getDir(), "_ws").listFiles()[0];
+    FileUtils.forceDelete(cachedFile);
+    cachedFile.mkdir();
+
+    GetRequest request = new GetRequest("/api/rules/list.protobuf");
+    assertThat(read(underTest.call(request))).isEqualTo("foo");
+    assertThat(request.getParams()).doesNotContainKey(WsResponseCache.PARAM_FINGERPRINT);
+  }
+
+  @Test
+  public void responses_are_cached_by_user() throws IOException {
+    when(wsClient.call(any(WsRequest.class)))
+      .thenReturn(new MockWsResponse().setContent("foo"))
+      .thenReturn(new MockWsResponse().setContent("bar"));
+
+    read(underTest.call(new GetRequest("/api/rules/list.protobuf")));
+    GetRequest request = new GetRequest("/api/rules/list.protobuf");
+    assertThat(read(newCache("simon").call(request))).isEqualTo("bar");
+
+    assertThat(request.getParams()).doesNotContainKey(WsResponseCache.PARAM_FINGERPRINT);
+  }
+
+  @Test
+  public void responses_are_cached_by_parameters() throws IOException {
+    when(wsClient.call(any(WsRequest.class)))
+      .thenReturn(new MockWsResponse().setContent("foo"))
+      .thenReturn(new MockWsResponse().setContent("bar"));
+
+    read(underTest.call(new GetRequest("/batch/project.protobuf").setParam("key", "foo")));
+    read(underTest.call(new GetRequest("/batch/project.protobuf").setParam("key", "bar")));
+
+    ArgumentCaptor<WsRequest> requests = ArgumentCaptor.forClass(WsRequest.class);
+    verify(wsClient, times(2)).call(requests.capture());
+    assertThat(requests.getAllValues()).extracting(r -> r.getParams().containsKey(WsResponseCache.PARAM_FINGERPRINT)).containsOnly(false);
+  }
+
+  private WsResponseCache newCache(String login) {
+    return new WsResponseCache(wsClient, fileCache, new GlobalProperties(ImmutableMap.of(CoreProperties.LOGIN, login)));
+  }
+
+  private static String read(InputStream input) throws IOException {
+    try (InputStream is = input) {
+      return IOUtils.toString(is, UTF_8);
+    }
+  }
+}
@@ -29,6 +29,7 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
+import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.internal.DefaultInputFile;
 import org.sonar.api.batch.fs.internal.DefaultInputModule;
 import org.sonar.api.config.Settings;
@@ -37,6 +38,8 @@ import org.sonar.api.resources.Project;
 import org.sonar.api.utils.log.LogTester;
 import org.sonar.api.utils.log.LoggerLevel;
 import org.sonar.core.util.CloseableIterator;
+import org.sonar.duplications.block.Block;
+import org.sonar.duplications.block.ByteArray;
 import org.sonar.duplications.index.CloneGroup;
 import org.sonar.duplications.index.ClonePart;
 import org.sonar.scanner.cpd.index.SonarCpdBlockIndex;
@@ -68,6 +71,7 @@ public class CpdExecutorTest {
   // private AbstractCpdEngine engine;
 
   private ScannerReportReader reader;
+  private File baseDir;
   private BatchComponent batchComponent1;
   private BatchComponent batchComponent2;
   private BatchComponent batchComponent3;
@@ -75,6 +79,7 @@ public class CpdExecutorTest {
   @Before
   public void setUp() throws IOException {
     File outputDir = temp.newFolder();
+    baseDir = temp.newFolder();
 
     settings = new MapSettings();
     index = mock(SonarCpdBlockIndex.class);
@@ -94,7 +99,7 @@ public class CpdExecutorTest {
 
   private BatchComponent createComponent(String relativePath, int lines) {
     org.sonar.api.resources.Resource sampleFile = org.sonar.api.resources.File.create("relativePath").setEffectiveKey("foo:" + relativePath);
-    return componentCache.add(sampleFile, null).setInputComponent(new DefaultInputFile("foo", relativePath).setLines(lines));
+    return componentCache.add(sampleFile, null).setInputComponent(new DefaultInputFile("foo", relativePath).setModuleBaseDir(baseDir.toPath()).setLines(lines));
   }
 
   @Test
@@ -113,6 +118,50 @@ public class CpdExecutorTest {
     assertThat(executor.getMinimumTokens("php")).isEqualTo(33);
   }
 
+  @Test
+  public void defaultThreadsIsNumberOfProcessors() {
+    assertThat(executor.getThreads()).isEqualTo(Runtime.getRuntime().availableProcessors());
+  }
+
+  @Test
+  public void threadsByProperty() {
+    settings.setProperty(CpdExecutor.THREADS_PROPERTY, "3");
+    assertThat(executor.getThreads()).isEqualTo(3);
+  }
+
+  @Test
+  public void executeDetectsDuplicationsOfAllFilesInParallel() {
+    settings.setProperty(CpdExecutor.THREADS_PROPERTY, "4");
+    SonarCpdBlockIndex realIndex = new SonarCpdBlockIndex(publisher, componentCache, settings);
+    List<BatchComponent> components = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      BatchComponent component = createComponent("src/Dup" + i + ".java", 10);
+      ((DefaultInputFile) component.inputComponent()).setLanguage("java");
+      realIndex.insert((InputFile) component.inputComponent(), newBlocks(component.key(), "1", "2", "3"));
+      components.add(component);
+    }
+    executor = new CpdExecutor(settings, realIndex, publisher, componentCache);
+
+    executor.execute();
+
+    for (BatchComponent component : components) {
+      assertThat(reader.readComponentDuplications(component.batchId())).hasSize(1);
+    }
+  }
+
+  @Test
+  public void executeSkipsFileWhenDetectionTimesOut() {
+    SonarCpdBlockIndex realIndex = new SonarCpdBlockIndex(publisher, componentCache, settings);
+    ((DefaultInputFile) batchComponent1.inputComponent()).setLanguage("java");
+    realIndex.insert((InputFile) batchComponent1.inputComponent(), newBlocks(batchComponent1.key(), "1", "1", "1"));
+    executor = new CpdExecutor(settings, realIndex, publisher, componentCache, 0L);
+
+    executor.execute();
+
+    assertThat(reader.readComponentDuplications(batchComponent1.batchId())).hasSize(0);
+    assertThat(logTester.logs(LoggerLevel.WARN)).contains("Timeout during detection of duplications for " + batchComponent1.inputComponent().absolutePath());
+  }
+
   @Test
   public void testNothingToSave() {
     executor.saveDuplications(batchComponent1, Collections.<CloneGroup>emptyList());
@@ -234,6 +283,20 @@ public class CpdExecutorTest {
     assertThat(d.getDuplicate(0).getRange().getEndLine()).isEqualTo(rangeEndLine);
   }
 
+  private static List<Block> newBlocks(String resourceId, String... hashes) {
+    List<Block> blocks = new ArrayList<>();
+    for (int i = 0; i < hashes.length; i++) {
+      blocks.add(Block.builder()
+        .setResourceId(resourceId)
+        .setBlockHash(new ByteArray(hashes[i]))
+        .setIndexInFile(i)
+        .setLines(i + 1, i + 2)
+        .setUnit(i, i + 1)
+        .build());
+    }
+    return blocks;
+  }
+
   private CloneGroup newCloneGroup(ClonePart... parts) {
     return CloneGroup.builder().setLength(0).setOrigin(parts[0]).setParts(Arrays.asList(parts)).build();
   }
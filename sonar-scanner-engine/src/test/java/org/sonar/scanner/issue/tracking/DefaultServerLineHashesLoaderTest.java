@@ -19,9 +19,13 @@
  */
 package org.sonar.scanner.issue.tracking;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.StringReader;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.HashMap;
+import java.util.Map;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -29,6 +33,7 @@ import org.junit.rules.ExpectedException;
 import org.sonar.api.utils.HttpDownloader;
 import org.sonar.scanner.WsTestUtil;
 import org.sonar.scanner.bootstrap.BatchWsClient;
+import org.sonar.scanner.protocol.input.ScannerInput.LineHashes;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
@@ -64,6 +69,23 @@ public class DefaultServerLineHashesLoaderTest {
     WsTestUtil.verifyCall(wsClient, "/api/sources/hash?key=myproject%3Aorg%2Ffoo%2FFoo+Bar.c");
   }
 
+  @Test
+  public void should_download_line_hashes_of_module() throws Exception {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    LineHashes.newBuilder().setPath("src/Foo.c").addLineHash("ae12").addLineHash("").build().writeDelimitedTo(output);
+    LineHashes.newBuilder().setPath("src/Bar.c").addLineHash("43fb").build().writeDelimitedTo(output);
+    WsTestUtil.mockStream(wsClient, new ByteArrayInputStream(output.toByteArray()));
+    ServerLineHashesLoader lastSnapshots = new DefaultServerLineHashesLoader(wsClient);
+
+    Map<String, String[]> hashesByPath = new HashMap<>();
+    lastSnapshots.loadModule("my project", hashesByPath::put);
+
+    assertThat(hashesByPath).containsOnlyKeys("src/Foo.c", "src/Bar.c");
+    assertThat(hashesByPath.get("src/Foo.c")).containsExactly("ae12", "");
+    assertThat(hashesByPath.get("src/Bar.c")).containsExactly("43fb");
+    WsTestUtil.verifyCall(wsClient, "/batch/line_hashes.protobuf?key=my+project");
+  }
+
   @Test
   public void should_fail_to_download_source_from_ws() throws URISyntaxException {
     WsTestUtil.mockException(wsClient, new HttpDownloader.HttpException(new URI(""), 500));
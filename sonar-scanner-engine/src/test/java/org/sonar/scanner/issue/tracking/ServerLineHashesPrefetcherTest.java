@@ -0,0 +1,122 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.issue.tracking;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.function.BiConsumer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.DefaultInputFile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ServerLineHashesPrefetcherTest {
+
+  ServerLineHashesLoader loader = mock(ServerLineHashesLoader.class);
+  ServerLineHashesPrefetcher underTest = new ServerLineHashesPrefetcher(loader, 1);
+
+  InputFile foo = new DefaultInputFile("module", "src/Foo.c");
+  InputFile bar = new DefaultInputFile("module", "src/Bar.c");
+
+  @Before
+  public void setUp() {
+    underTest.start();
+  }
+
+  @After
+  public void tearDown() {
+    underTest.stop();
+  }
+
+  @Test
+  public void return_prefetched_line_hashes() {
+    doAnswer(invocation -> {
+      BiConsumer<String, String[]> consumer = (BiConsumer<String, String[]>) invocation.getArguments()[1];
+      consumer.accept("src/Foo.c", new String[] {"a", "b"});
+      consumer.accept("src/Other.c", new String[] {"c"});
+      return null;
+    }).when(loader).loadModule(eq("module"), any(BiConsumer.class));
+
+    underTest.prefetch("module", Collections.singletonList(foo));
+
+    assertThat(underTest.getLineHashes("module:src/Foo.c")).containsExactly("a", "b");
+    verify(loader, never()).getLineHashes(anyString());
+  }
+
+  @Test
+  public void load_file_by_file_if_not_prefetched() {
+    when(loader.getLineHashes("module:src/Bar.c")).thenReturn(new String[] {"d"});
+
+    underTest.prefetch("module", Collections.singletonList(foo));
+
+    assertThat(underTest.getLineHashes("module:src/Bar.c")).containsExactly("d");
+  }
+
+  @Test
+  public void load_file_by_file_if_missing_in_prefetched_module() {
+    when(loader.getLineHashes("module:src/Bar.c")).thenReturn(new String[] {"d"});
+
+    underTest.prefetch("module", Arrays.asList(foo, bar));
+
+    assertThat(underTest.getLineHashes("module:src/Bar.c")).containsExactly("d");
+  }
+
+  @Test
+  public void load_file_by_file_if_prefetch_fails() {
+    doThrow(new IllegalStateException("boom")).when(loader).loadModule(eq("module"), any(BiConsumer.class));
+    when(loader.getLineHashes("module:src/Foo.c")).thenReturn(new String[] {"a"});
+
+    underTest.prefetch("module", Collections.singletonList(foo));
+
+    assertThat(underTest.getLineHashes("module:src/Foo.c")).containsExactly("a");
+  }
+
+  @Test
+  public void load_file_by_file_if_too_few_files() {
+    ServerLineHashesPrefetcher underTest = new ServerLineHashesPrefetcher(loader, 3);
+    underTest.start();
+    when(loader.getLineHashes("module:src/Foo.c")).thenReturn(new String[] {"a"});
+
+    underTest.prefetch("module", Arrays.asList(foo, bar));
+
+    assertThat(underTest.getLineHashes("module:src/Foo.c")).containsExactly("a");
+    verify(loader, never()).loadModule(anyString(), any(BiConsumer.class));
+    underTest.stop();
+  }
+
+  @Test
+  public void do_not_request_server_if_no_files() {
+    underTest.prefetch("module", Collections.<InputFile>emptyList());
+
+    verify(loader, never()).loadModule(anyString(), any(BiConsumer.class));
+  }
+}
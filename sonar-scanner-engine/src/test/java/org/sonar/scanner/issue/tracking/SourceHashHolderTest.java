@@ -27,8 +27,10 @@ import org.junit.rules.TemporaryFolder;
 import org.mockito.Mockito;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.internal.DefaultInputFile;
-import org.sonar.scanner.issue.tracking.ServerLineHashesLoader;
+import org.sonar.api.config.MapSettings;
+import org.sonar.scanner.issue.tracking.ServerLineHashesPrefetcher;
 import org.sonar.scanner.issue.tracking.SourceHashHolder;
+import org.sonar.scanner.scan.filesystem.InputFileContentCache;
 import java.io.File;
 import java.nio.charset.StandardCharsets;
 
@@ -45,14 +47,14 @@ public class SourceHashHolderTest {
 
   SourceHashHolder sourceHashHolder;
 
-  ServerLineHashesLoader lastSnapshots;
+  ServerLineHashesPrefetcher lastSnapshots;
   DefaultInputFile file;
 
   private File ioFile;
 
   @Before
   public void setUp() throws Exception {
-    lastSnapshots = mock(ServerLineHashesLoader.class);
+    lastSnapshots = mock(ServerLineHashesPrefetcher.class);
     file = mock(DefaultInputFile.class);
     ioFile = temp.newFile();
     when(file.file()).thenReturn(ioFile);
@@ -60,7 +62,7 @@ public class SourceHashHolderTest {
     when(file.lines()).thenReturn(1);
     when(file.charset()).thenReturn(StandardCharsets.UTF_8);
 
-    sourceHashHolder = new SourceHashHolder(file, lastSnapshots);
+    sourceHashHolder = new SourceHashHolder(file, lastSnapshots, new InputFileContentCache(new MapSettings()));
   }
 
   @Test
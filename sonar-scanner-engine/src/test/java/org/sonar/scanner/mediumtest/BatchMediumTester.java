@@ -65,6 +65,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.function.BiConsumer;
 import org.sonar.api.CoreProperties;
 import org.sonar.api.Plugin;
 import org.sonar.api.batch.debt.internal.DefaultDebtModel;
@@ -489,6 +490,16 @@ public class BatchMediumTester {
         throw new IllegalStateException("You forgot to mock line hashes for " + fileKey);
       }
     }
+
+    @Override
+    public void loadModule(String moduleKey, BiConsumer<String, String[]> consumer) {
+      String prefix = moduleKey + ":";
+      for (Map.Entry<String, String[]> entry : byKey.entrySet()) {
+        if (entry.getKey().startsWith(prefix)) {
+          consumer.accept(entry.getKey().substring(prefix.length()), entry.getValue());
+        }
+      }
+    }
   }
 
 }
@@ -23,11 +23,17 @@ import com.google.common.io.ByteSource;
 import com.google.common.io.Resources;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Collections;
 import java.util.List;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.home.cache.FileCache;
 import org.sonar.scanner.WsTestUtil;
 import org.sonar.scanner.bootstrap.BatchWsClient;
+import org.sonar.scanner.bootstrap.GlobalProperties;
+import org.sonar.scanner.bootstrap.Slf4jLogger;
+import org.sonar.scanner.bootstrap.WsResponseCache;
 import org.sonarqube.ws.Rules.ListResponse.Rule;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -36,13 +42,15 @@ import static org.mockito.Mockito.mock;
 public class DefaultRulesLoaderTest {
   @org.junit.Rule
   public ExpectedException exception = ExpectedException.none();
+  @org.junit.Rule
+  public TemporaryFolder temp = new TemporaryFolder();
 
   @Test
   public void testParseServerResponse() throws IOException {
     BatchWsClient wsClient = mock(BatchWsClient.class);
     InputStream is = Resources.asByteSource(this.getClass().getResource("DefaultRulesLoaderTest/response.protobuf")).openBufferedStream();
     WsTestUtil.mockStream(wsClient, is);
-    DefaultRulesLoader loader = new DefaultRulesLoader(wsClient);
+    DefaultRulesLoader loader = new DefaultRulesLoader(new WsResponseCache(wsClient, FileCache.create(temp.newFolder(), new Slf4jLogger()), new GlobalProperties(Collections.emptyMap())));
     List<Rule> ruleList = loader.load();
     assertThat(ruleList).hasSize(318);
   }
@@ -52,7 +60,7 @@ public class DefaultRulesLoaderTest {
     BatchWsClient wsClient = mock(BatchWsClient.class);
     InputStream is = ByteSource.wrap(new String("trash").getBytes()).openBufferedStream();
     WsTestUtil.mockStream(wsClient, is);
-    DefaultRulesLoader loader = new DefaultRulesLoader(wsClient);
+    DefaultRulesLoader loader = new DefaultRulesLoader(new WsResponseCache(wsClient, FileCache.create(temp.newFolder(), new Slf4jLogger()), new GlobalProperties(Collections.emptyMap())));
 
     exception.expect(IllegalStateException.class);
     exception.expectMessage("Unable to get rules");
@@ -20,8 +20,10 @@
 package org.sonar.scanner.scan.filesystem;
 
 import java.io.File;
+import java.io.Reader;
 import java.nio.charset.StandardCharsets;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
@@ -45,6 +47,7 @@ public class InputFileBuilderTest {
   LanguageDetection langDetection = mock(LanguageDetection.class);
   StatusDetection statusDetection = mock(StatusDetection.class);
   DefaultModuleFileSystem fs = mock(DefaultModuleFileSystem.class);
+  InputFileContentCache contentCache = new InputFileContentCache(new MapSettings().setProperty(InputFileContentCache.SIZE_PROPERTY, 1));
 
   @Test
   public void complete_input_file() throws Exception {
@@ -64,7 +67,7 @@ public class InputFileBuilderTest {
       .thenReturn(InputFile.Status.ADDED);
 
     InputFileBuilder builder = new InputFileBuilder("struts", new PathResolver(),
-      langDetection, statusDetection, fs, new MapSettings(), new FileMetadata());
+      langDetection, statusDetection, fs, new MapSettings(), new FileMetadata(), contentCache);
     DefaultInputFile inputFile = builder.create(srcFile);
     builder.completeAndComputeMetadata(inputFile, InputFile.Type.MAIN);
 
@@ -75,6 +78,12 @@ public class InputFileBuilderTest {
     assertThat(inputFile.key()).isEqualTo("struts:src/main/java/foo/Bar.java");
     assertThat(inputFile.relativePath()).isEqualTo("src/main/java/foo/Bar.java");
     assertThat(inputFile.lines()).isEqualTo(1);
+
+    // content is available even if the file is not there anymore
+    FileUtils.forceDelete(srcFile);
+    try (Reader reader = contentCache.newReader(srcFile.getAbsoluteFile(), StandardCharsets.UTF_8)) {
+      assertThat(IOUtils.toString(reader)).isEqualTo("single line");
+    }
   }
 
   @Test
@@ -87,7 +96,7 @@ public class InputFileBuilderTest {
     when(fs.baseDir()).thenReturn(basedir);
 
     InputFileBuilder builder = new InputFileBuilder("struts", new PathResolver(),
-      langDetection, statusDetection, fs, new MapSettings(), new FileMetadata());
+      langDetection, statusDetection, fs, new MapSettings(), new FileMetadata(), contentCache);
     DefaultInputFile inputFile = builder.create(srcFile);
 
     assertThat(inputFile).isNull();
@@ -107,7 +116,7 @@ public class InputFileBuilderTest {
     when(langDetection.language(any(InputFile.class))).thenReturn(null);
 
     InputFileBuilder builder = new InputFileBuilder("struts", new PathResolver(),
-      langDetection, statusDetection, fs, new MapSettings(), new FileMetadata());
+      langDetection, statusDetection, fs, new MapSettings(), new FileMetadata(), contentCache);
     DefaultInputFile inputFile = builder.create(srcFile);
     inputFile = builder.completeAndComputeMetadata(inputFile, InputFile.Type.MAIN);
 
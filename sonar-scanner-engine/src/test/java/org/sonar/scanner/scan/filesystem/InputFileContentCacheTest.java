@@ -0,0 +1,122 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.scan.filesystem;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.batch.fs.internal.FileMetadata;
+import org.sonar.api.config.MapSettings;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class InputFileContentCacheTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private MapSettings settings = new MapSettings();
+
+  @Test
+  public void content_read_while_computing_metadata_is_cached() throws Exception {
+    settings.setProperty(InputFileContentCache.SIZE_PROPERTY, 1);
+    File file = temp.newFile();
+    FileUtils.write(file, "foo\r\nbar", StandardCharsets.UTF_8);
+    InputFileContentCache underTest = new InputFileContentCache(settings);
+
+    new FileMetadata().readMetadata(file, StandardCharsets.UTF_8, underTest.newContentHandler(file));
+    FileUtils.write(file, "changed on disk", StandardCharsets.UTF_8);
+
+    assertThat(read(underTest, file)).isEqualTo("foo\r\nbar");
+  }
+
+  @Test
+  public void content_is_read_from_disk_if_not_cached() throws Exception {
+    File file = temp.newFile();
+    FileUtils.write(file, "\uFEFFfoo", StandardCharsets.UTF_8);
+    InputFileContentCache underTest = new InputFileContentCache(settings);
+
+    assertThat(read(underTest, file)).isEqualTo("foo");
+  }
+
+  @Test
+  public void cache_is_disabled_by_default() throws Exception {
+    File file = temp.newFile();
+    FileUtils.write(file, "foo", StandardCharsets.UTF_8);
+    InputFileContentCache underTest = new InputFileContentCache(settings);
+
+    new FileMetadata().readMetadata(file, StandardCharsets.UTF_8, underTest.newContentHandler(file));
+    FileUtils.write(file, "bar", StandardCharsets.UTF_8);
+
+    assertThat(read(underTest, file)).isEqualTo("bar");
+  }
+
+  @Test
+  public void content_is_not_cached_if_cache_is_disabled() throws Exception {
+    settings.setProperty(InputFileContentCache.SIZE_PROPERTY, 0);
+    File file = temp.newFile();
+    FileUtils.write(file, "foo", StandardCharsets.UTF_8);
+    InputFileContentCache underTest = new InputFileContentCache(settings);
+
+    new FileMetadata().readMetadata(file, StandardCharsets.UTF_8, underTest.newContentHandler(file));
+    FileUtils.write(file, "bar", StandardCharsets.UTF_8);
+
+    assertThat(read(underTest, file)).isEqualTo("bar");
+  }
+
+  @Test
+  public void files_are_not_cached_once_budget_is_exhausted() throws Exception {
+    settings.setProperty(InputFileContentCache.SIZE_PROPERTY, 1);
+    InputFileContentCache underTest = new InputFileContentCache(settings);
+    // 1MB is 524288 chars
+    File file1 = temp.newFile();
+    FileUtils.write(file1, repeat('a', 300_000), StandardCharsets.UTF_8);
+    File file2 = temp.newFile();
+    FileUtils.write(file2, repeat('b', 300_000), StandardCharsets.UTF_8);
+
+    new FileMetadata().readMetadata(file1, StandardCharsets.UTF_8, underTest.newContentHandler(file1));
+    new FileMetadata().readMetadata(file2, StandardCharsets.UTF_8, underTest.newContentHandler(file2));
+    FileUtils.write(file1, "changed", StandardCharsets.UTF_8);
+    FileUtils.write(file2, "changed", StandardCharsets.UTF_8);
+
+    assertThat(read(underTest, file1)).hasSize(300_000);
+    assertThat(read(underTest, file2)).isEqualTo("changed");
+  }
+
+  private static String read(InputFileContentCache cache, File file) throws IOException {
+    try (Reader reader = cache.newReader(file, StandardCharsets.UTF_8)) {
+      return IOUtils.toString(reader);
+    }
+  }
+
+  private static String repeat(char c, int times) {
+    StringBuilder sb = new StringBuilder(times);
+    for (int i = 0; i < times; i++) {
+      sb.append(c);
+    }
+    return sb.toString();
+  }
+}
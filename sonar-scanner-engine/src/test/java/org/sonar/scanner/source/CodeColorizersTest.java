@@ -35,6 +35,7 @@ import org.sonar.api.batch.sensor.highlighting.NewHighlighting;
 import org.sonar.api.batch.sensor.highlighting.TypeOfText;
 import org.sonar.api.batch.sensor.highlighting.internal.DefaultHighlighting;
 import org.sonar.api.batch.sensor.internal.SensorStorage;
+import org.sonar.api.config.MapSettings;
 import org.sonar.api.web.CodeColorizerFormat;
 import org.sonar.colorizer.CDocTokenizer;
 import org.sonar.colorizer.CppDocTokenizer;
@@ -44,6 +45,7 @@ import org.sonar.colorizer.MultilinesDocTokenizer;
 import org.sonar.colorizer.RegexpTokenizer;
 import org.sonar.colorizer.StringTokenizer;
 import org.sonar.colorizer.Tokenizer;
+import org.sonar.scanner.scan.filesystem.InputFileContentCache;
 import org.sonar.scanner.source.CodeColorizers;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -56,13 +58,15 @@ public class CodeColorizersTest {
   @Rule
   public TemporaryFolder temp = new TemporaryFolder();
 
+  private InputFileContentCache contentCache = new InputFileContentCache(new MapSettings());
+
   @Test
   public void testConvertToHighlighting() throws Exception {
     CodeColorizers codeColorizers = new CodeColorizers(Arrays.<CodeColorizerFormat>asList(new JavaScriptColorizerFormat(), new WebCodeColorizerFormat()));
     File jsFile = new File(this.getClass().getResource("CodeColorizersTest/Person.js").toURI());
     NewHighlighting highlighting = mock(NewHighlighting.class);
 
-    codeColorizers.toSyntaxHighlighting(jsFile, StandardCharsets.UTF_8, "js", highlighting);
+    codeColorizers.toSyntaxHighlighting(jsFile, StandardCharsets.UTF_8, contentCache, "js", highlighting);
 
     verifyForJs(highlighting);
   }
@@ -90,7 +94,7 @@ public class CodeColorizersTest {
     FileUtils.write(fileWithBom, FileUtils.readFileToString(jsFile), "UTF-8", true);
 
     NewHighlighting highlighting = mock(NewHighlighting.class);
-    codeColorizers.toSyntaxHighlighting(fileWithBom, StandardCharsets.UTF_8, "js", highlighting);
+    codeColorizers.toSyntaxHighlighting(fileWithBom, StandardCharsets.UTF_8, contentCache, "js", highlighting);
 
     verifyForJs(highlighting);
   }
@@ -102,7 +106,7 @@ public class CodeColorizersTest {
     File javaFile = new File(this.getClass().getResource("CodeColorizersTest/Person.java").toURI());
 
     NewHighlighting highlighting = mock(NewHighlighting.class);
-    codeColorizers.toSyntaxHighlighting(javaFile, StandardCharsets.UTF_8, "java", highlighting);
+    codeColorizers.toSyntaxHighlighting(javaFile, StandardCharsets.UTF_8, contentCache, "java", highlighting);
 
     verify(highlighting).highlight(0, 4, TypeOfText.STRUCTURED_COMMENT);
     verify(highlighting).highlight(5, 11, TypeOfText.STRUCTURED_COMMENT);
@@ -128,7 +132,7 @@ public class CodeColorizersTest {
     highlighting.onFile(new DefaultInputFile("FOO", "package.html")
       .initMetadata(new FileMetadata().readMetadata(htmlFile, StandardCharsets.UTF_8)));
 
-    codeColorizers.toSyntaxHighlighting(htmlFile, StandardCharsets.UTF_8, "web", highlighting);
+    codeColorizers.toSyntaxHighlighting(htmlFile, StandardCharsets.UTF_8, contentCache, "web", highlighting);
 
     assertThat(highlighting.getSyntaxHighlightingRuleSet()).extracting("range.start.line", "range.start.lineOffset", "range.end.line", "range.end.lineOffset", "textType")
       .containsExactly(
@@ -22,10 +22,17 @@ package org.sonar.scanner.protocol.output;
 import java.io.File;
 
 /**
- * Structure of files in the zipped report
+ * Structure of files in the zipped report.
+ * <p>
+ * Data of components are stored either in one file per component and per {@link Domain} (default layout),
+ * or, when the report has been written with {@link ScannerReportWriter#ScannerReportWriter(File, boolean)},
+ * in a single append-only segments file with an index of the offsets of each component/domain entry.
  */
 public class FileStructure {
 
+  /**
+   * Ordinals of this enum are stored in the index of segmented reports. New domains must be added at the end.
+   */
   public enum Domain {
     ISSUES("issues-", Domain.PB),
     COMPONENT("component-", Domain.PB),
@@ -50,6 +57,13 @@ public class FileStructure {
     }
   }
 
+  static final String METADATA = "metadata.pb";
+  static final String ANALYSIS_LOG = "analysis.log";
+  static final String ACTIVE_RULES = "activerules.pb";
+  static final String CONTEXT_PROPERTIES = "context-props.pb";
+  static final String SEGMENTS = "segments.dat";
+  static final String SEGMENTS_INDEX = "segments.idx";
+
   private final File dir;
 
   public FileStructure(File dir) {
@@ -60,22 +74,44 @@ public class FileStructure {
   }
 
   public File metadataFile() {
-    return new File(dir, "metadata.pb");
+    return new File(dir, METADATA);
   }
 
   public File analysisLog() {
-    return new File(dir, "analysis.log");
+    return new File(dir, ANALYSIS_LOG);
   }
 
   public File activeRules() {
-    return new File(dir, "activerules.pb");
+    return new File(dir, ACTIVE_RULES);
   }
 
   public File fileFor(Domain domain, int componentRef) {
-    return new File(dir, domain.filePrefix + componentRef + domain.fileSuffix);
+    return new File(dir, fileNameFor(domain, componentRef));
+  }
+
+  /**
+   * Name of the file of the given component and domain in the default layout, relative to the root of the report.
+   */
+  public static String fileNameFor(Domain domain, int componentRef) {
+    return domain.filePrefix + componentRef + domain.fileSuffix;
   }
 
   public File contextProperties() {
-    return new File(dir, "context-props.pb");
+    return new File(dir, CONTEXT_PROPERTIES);
+  }
+
+  public File segmentsFile() {
+    return new File(dir, SEGMENTS);
+  }
+
+  public File segmentsIndexFile() {
+    return new File(dir, SEGMENTS_INDEX);
+  }
+
+  /**
+   * Whether data of components are stored in {@link #segmentsFile()} rather than in one file per component and domain.
+   */
+  public boolean isSegmented() {
+    return segmentsIndexFile().isFile();
   }
 }
@@ -0,0 +1,192 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.protocol.output;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashSet;
+import java.util.Set;
+import org.sonar.core.util.ContextException;
+
+/**
+ * Appends the data of components to {@link FileStructure#segmentsFile()} and records the offset and length of each
+ * entry in {@link FileStructure#segmentsIndexFile()}. An entry either replaces the previous entries of the same component
+ * and domain, or is appended to them. Appended entries are read back as a single stream in the order they have been written.
+ * <p>
+ * Only one entry can be written at a time.
+ */
+class ReportSegmentWriter implements Closeable {
+
+  static final int MAGIC = 0x53514253;
+  static final int VERSION = 1;
+
+  private final FileStructure fileStructure;
+  private final Set<Long> keys = new HashSet<>();
+  private final CountingOutputStream data;
+  private final DataOutputStream index;
+  private EntryOutputStream currentEntry;
+  private boolean closed = false;
+
+  ReportSegmentWriter(FileStructure fileStructure) {
+    this.fileStructure = fileStructure;
+    try {
+      this.data = new CountingOutputStream(new BufferedOutputStream(new FileOutputStream(fileStructure.segmentsFile(), false)));
+      this.index = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(fileStructure.segmentsIndexFile(), false)));
+      index.writeInt(MAGIC);
+      index.writeInt(VERSION);
+    } catch (IOException e) {
+      throw ContextException.of("Unable to create segments of report", e).addContext("file", fileStructure.segmentsFile());
+    }
+  }
+
+  static long key(FileStructure.Domain domain, int componentRef) {
+    return ((long) domain.ordinal() << 32) | (componentRef & 0xFFFFFFFFL);
+  }
+
+  synchronized boolean has(FileStructure.Domain domain, int componentRef) {
+    return keys.contains(key(domain, componentRef));
+  }
+
+  /**
+   * Opens a new entry. Data written to the returned stream are indexed when it is closed.
+   *
+   * @param append if {@code false}, the entry replaces the data previously written for the same component and domain
+   */
+  synchronized OutputStream openEntry(FileStructure.Domain domain, int componentRef, boolean append) {
+    if (closed) {
+      throw new IllegalStateException("Segments of report are closed: " + fileStructure.segmentsFile());
+    }
+    if (currentEntry != null) {
+      throw new IllegalStateException("An entry is already being written: " + currentEntry.domain + " of component #" + currentEntry.componentRef);
+    }
+    currentEntry = new EntryOutputStream(domain, componentRef, append, data.count);
+    return currentEntry;
+  }
+
+  private synchronized void closeEntry(EntryOutputStream entry) throws IOException {
+    if (currentEntry != entry) {
+      return;
+    }
+    currentEntry = null;
+    long length = data.count - entry.offset;
+    index.writeByte(entry.domain.ordinal());
+    index.writeBoolean(entry.append);
+    index.writeInt(entry.componentRef);
+    index.writeLong(entry.offset);
+    index.writeLong(length);
+    keys.add(key(entry.domain, entry.componentRef));
+  }
+
+  /**
+   * Flushes and closes the segments file and its index. Does nothing if already closed.
+   */
+  @Override
+  public synchronized void close() {
+    if (closed) {
+      return;
+    }
+    if (currentEntry != null) {
+      throw new IllegalStateException("Entry is not closed: " + currentEntry.domain + " of component #" + currentEntry.componentRef);
+    }
+    closed = true;
+    try {
+      data.close();
+      index.close();
+    } catch (IOException e) {
+      throw ContextException.of("Unable to close segments of report", e).addContext("file", fileStructure.segmentsFile());
+    }
+  }
+
+  private class EntryOutputStream extends OutputStream {
+    private final FileStructure.Domain domain;
+    private final int componentRef;
+    private final boolean append;
+    private final long offset;
+    private boolean closed = false;
+
+    EntryOutputStream(FileStructure.Domain domain, int componentRef, boolean append, long offset) {
+      this.domain = domain;
+      this.componentRef = componentRef;
+      this.append = append;
+      this.offset = offset;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      checkOpen();
+      data.write(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      checkOpen();
+      data.write(b, off, len);
+    }
+
+    private void checkOpen() throws IOException {
+      if (closed) {
+        throw new IOException("Entry is closed");
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (!closed) {
+        closed = true;
+        closeEntry(this);
+      }
+    }
+  }
+
+  private static class CountingOutputStream extends OutputStream {
+    private final OutputStream delegate;
+    private long count = 0L;
+
+    CountingOutputStream(OutputStream delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      delegate.write(b);
+      count++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      delegate.write(b, off, len);
+      count += len;
+    }
+
+    @Override
+    public void flush() throws IOException {
+      delegate.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+      delegate.close();
+    }
+  }
+}
@@ -0,0 +1,175 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.protocol.output;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.CheckForNull;
+import org.sonar.core.util.ByteBufferInputStream;
+import org.sonar.core.util.ContextException;
+import org.sonar.core.util.FileUtils;
+
+import static org.sonar.scanner.protocol.output.ReportSegmentWriter.MAGIC;
+import static org.sonar.scanner.protocol.output.ReportSegmentWriter.VERSION;
+import static org.sonar.scanner.protocol.output.ReportSegmentWriter.key;
+
+/**
+ * Read-only access to the entries written by {@link ReportSegmentWriter}. The segments file is memory-mapped, so that
+ * reading an entry does not require any system call nor copy into the heap. Segments files bigger than 2Gb can not be
+ * mapped at once, their entries are then read into the heap.
+ * <p>
+ * The mapping locks the file on Windows, so it is released by {@link #close()}.
+ */
+class ReportSegments implements Closeable {
+
+  private final File dataFile;
+  private final Map<Long, List<long[]>> entries;
+  // null when the segments file is too big to be mapped at once. Entries are then mapped one by one.
+  private final MappedByteBuffer mapped;
+  private boolean closed = false;
+
+  ReportSegments(FileStructure fileStructure) {
+    this.dataFile = fileStructure.segmentsFile();
+    this.entries = loadIndex(fileStructure.segmentsIndexFile());
+    this.mapped = mapAll(dataFile);
+  }
+
+  private static Map<Long, List<long[]>> loadIndex(File indexFile) {
+    Map<Long, List<long[]>> result = new HashMap<>();
+    try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+      if (input.readInt() != MAGIC) {
+        throw new IllegalStateException("File is not an index of report segments: " + indexFile);
+      }
+      int version = input.readInt();
+      if (version != VERSION) {
+        throw new IllegalStateException("Unsupported version of report segments: " + version);
+      }
+      while (true) {
+        int domain;
+        try {
+          domain = input.readUnsignedByte();
+        } catch (EOFException e) {
+          return result;
+        }
+        boolean append = input.readBoolean();
+        int componentRef = input.readInt();
+        long offset = input.readLong();
+        long length = input.readLong();
+        List<long[]> chunks = result.computeIfAbsent(key(FileStructure.Domain.values()[domain], componentRef), k -> new ArrayList<>(1));
+        if (!append) {
+          chunks.clear();
+        }
+        chunks.add(new long[] {offset, length});
+      }
+    } catch (IOException e) {
+      throw ContextException.of("Unable to read index of report segments", e).addContext("file", indexFile);
+    }
+  }
+
+  @CheckForNull
+  private static MappedByteBuffer mapAll(File dataFile) {
+    try (FileChannel channel = FileChannel.open(dataFile.toPath(), StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size > Integer.MAX_VALUE) {
+        return null;
+      }
+      return channel.map(FileChannel.MapMode.READ_ONLY, 0L, size);
+    } catch (IOException e) {
+      throw ContextException.of("Unable to map report segments", e).addContext("file", dataFile);
+    }
+  }
+
+  boolean has(FileStructure.Domain domain, int componentRef) {
+    return entries.containsKey(key(domain, componentRef));
+  }
+
+  /**
+   * Stream over the data of the given component and domain, or {@code null} if there are no such data.
+   */
+  @CheckForNull
+  InputStream open(FileStructure.Domain domain, int componentRef) {
+    if (closed) {
+      throw new IllegalStateException("Report segments are closed: " + dataFile);
+    }
+    List<long[]> chunks = entries.get(key(domain, componentRef));
+    if (chunks == null) {
+      return null;
+    }
+    if (chunks.size() == 1) {
+      return new ByteBufferInputStream(slice(chunks.get(0)));
+    }
+    List<InputStream> streams = new ArrayList<>(chunks.size());
+    for (long[] chunk : chunks) {
+      streams.add(new ByteBufferInputStream(slice(chunk)));
+    }
+    return new SequenceInputStream(Collections.enumeration(streams));
+  }
+
+  private ByteBuffer slice(long[] chunk) {
+    long offset = chunk[0];
+    int length = (int) chunk[1];
+    if (mapped != null) {
+      ByteBuffer buffer = mapped.duplicate();
+      buffer.position((int) offset);
+      buffer.limit((int) offset + length);
+      return buffer.slice();
+    }
+    try (FileChannel channel = FileChannel.open(dataFile.toPath(), StandardOpenOption.READ)) {
+      ByteBuffer buffer = ByteBuffer.allocate(length);
+      while (buffer.hasRemaining()) {
+        if (channel.read(buffer, offset + buffer.position()) < 0) {
+          throw new EOFException("Unexpected end of report segments");
+        }
+      }
+      buffer.flip();
+      return buffer;
+    } catch (IOException e) {
+      throw ContextException.of("Unable to read report segment", e).addContext("file", dataFile);
+    }
+  }
+
+  /**
+   * Releases the mapping of the segments file. Streams returned by {@link #open(FileStructure.Domain, int)} must not
+   * be read anymore.
+   */
+  @Override
+  public void close() {
+    if (!closed) {
+      closed = true;
+      FileUtils.unmapQuietly(mapped);
+    }
+  }
+}
@@ -19,22 +19,68 @@
  */
 package org.sonar.scanner.protocol.output;
 
+import com.google.protobuf.Message;
+import com.google.protobuf.Parser;
+import java.io.BufferedInputStream;
+import java.io.Closeable;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 import javax.annotation.CheckForNull;
+import org.apache.commons.io.FileUtils;
 import org.sonar.core.util.CloseableIterator;
+import org.sonar.core.util.ContextException;
 import org.sonar.core.util.Protobuf;
 
 import static org.sonar.core.util.CloseableIterator.emptyCloseableIterator;
 
-public class ScannerReportReader {
+/**
+ * Reads reports written by {@link ScannerReportWriter}, whatever the layout of the data of components
+ * (see {@link FileStructure}). The report is either extracted in a directory, or read directly from its zip file.
+ */
+public class ScannerReportReader implements Closeable {
 
+  @CheckForNull
   private final FileStructure fileStructure;
+  @CheckForNull
+  private final ReportSegments segments;
+  @CheckForNull
+  private final ZipFile zip;
 
   public ScannerReportReader(File dir) {
     this.fileStructure = new FileStructure(dir);
+    this.segments = fileStructure.isSegmented() ? new ReportSegments(fileStructure) : null;
+    this.zip = null;
+  }
+
+  /**
+   * Reads the entries of the zipped report on demand, through the central directory of the zip file, so that the
+   * report does not need to be extracted. Only the default layout is supported (see {@link #isSegmented(ZipFile)}).
+   * The zip file is not closed by this reader.
+   */
+  public ScannerReportReader(ZipFile zip) {
+    if (isSegmented(zip)) {
+      throw new IllegalArgumentException("Segmented reports must be extracted to be read: " + zip.getName());
+    }
+    this.fileStructure = null;
+    this.segments = null;
+    this.zip = zip;
+  }
+
+  public static boolean isSegmented(ZipFile zip) {
+    return zip.getEntry(FileStructure.SEGMENTS_INDEX) != null;
   }
 
   public ScannerReport.Metadata readMetadata() {
+    if (zip != null) {
+      InputStream input = openZipEntry(FileStructure.METADATA);
+      if (input == null) {
+        throw new IllegalStateException("Metadata file is missing in analysis report: " + zip.getName());
+      }
+      return Protobuf.read(input, ScannerReport.Metadata.parser());
+    }
     File file = fileStructure.metadataFile();
     if (!fileExists(file)) {
       throw new IllegalStateException("Metadata file is missing in analysis report: " + file);
@@ -43,6 +89,9 @@ public class ScannerReportReader {
   }
 
   public CloseableIterator<ScannerReport.ActiveRule> readActiveRules() {
+    if (zip != null) {
+      return readZipStream(FileStructure.ACTIVE_RULES, ScannerReport.ActiveRule.parser());
+    }
     File file = fileStructure.activeRules();
     if (!fileExists(file)) {
       return emptyCloseableIterator();
@@ -51,91 +100,146 @@ public class ScannerReportReader {
   }
 
   public CloseableIterator<ScannerReport.Measure> readComponentMeasures(int componentRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.MEASURES, componentRef);
-    if (fileExists(file)) {
-      return Protobuf.readStream(file, ScannerReport.Measure.parser());
-    }
-    return emptyCloseableIterator();
+    return readStream(FileStructure.Domain.MEASURES, componentRef, ScannerReport.Measure.parser());
   }
 
   @CheckForNull
   public ScannerReport.Changesets readChangesets(int componentRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.CHANGESETS, componentRef);
-    if (fileExists(file)) {
-      return Protobuf.read(file, ScannerReport.Changesets.parser());
-    }
-    return null;
+    return read(FileStructure.Domain.CHANGESETS, componentRef, ScannerReport.Changesets.parser());
   }
 
   public ScannerReport.Component readComponent(int componentRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.COMPONENT, componentRef);
-    if (!fileExists(file)) {
-      throw new IllegalStateException("Unable to find report for component #" + componentRef + ". File does not exist: " + file);
+    ScannerReport.Component component = read(FileStructure.Domain.COMPONENT, componentRef, ScannerReport.Component.parser());
+    if (component == null) {
+      Object location = zip == null ? fileStructure.fileFor(FileStructure.Domain.COMPONENT, componentRef)
+        : FileStructure.fileNameFor(FileStructure.Domain.COMPONENT, componentRef);
+      throw new IllegalStateException("Unable to find report for component #" + componentRef + ". File does not exist: " + location);
     }
-    return Protobuf.read(file, ScannerReport.Component.parser());
+    return component;
   }
 
   public CloseableIterator<ScannerReport.Issue> readComponentIssues(int componentRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.ISSUES, componentRef);
-    if (fileExists(file)) {
-      return Protobuf.readStream(file, ScannerReport.Issue.parser());
-    }
-    return emptyCloseableIterator();
+    return readStream(FileStructure.Domain.ISSUES, componentRef, ScannerReport.Issue.parser());
   }
 
   public CloseableIterator<ScannerReport.Duplication> readComponentDuplications(int componentRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.DUPLICATIONS, componentRef);
-    if (fileExists(file)) {
-      return Protobuf.readStream(file, ScannerReport.Duplication.parser());
-    }
-    return emptyCloseableIterator();
+    return readStream(FileStructure.Domain.DUPLICATIONS, componentRef, ScannerReport.Duplication.parser());
   }
 
   public CloseableIterator<ScannerReport.CpdTextBlock> readCpdTextBlocks(int componentRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.CPD_TEXT_BLOCKS, componentRef);
-    if (fileExists(file)) {
-      return Protobuf.readStream(file, ScannerReport.CpdTextBlock.parser());
-    }
-    return emptyCloseableIterator();
+    return readStream(FileStructure.Domain.CPD_TEXT_BLOCKS, componentRef, ScannerReport.CpdTextBlock.parser());
   }
 
   public CloseableIterator<ScannerReport.Symbol> readComponentSymbols(int componentRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.SYMBOLS, componentRef);
-    if (fileExists(file)) {
-      return Protobuf.readStream(file, ScannerReport.Symbol.parser());
-    }
-    return emptyCloseableIterator();
+    return readStream(FileStructure.Domain.SYMBOLS, componentRef, ScannerReport.Symbol.parser());
   }
 
   public boolean hasSyntaxHighlighting(int componentRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.SYNTAX_HIGHLIGHTINGS, componentRef);
-    return file.exists();
+    return hasComponentData(FileStructure.Domain.SYNTAX_HIGHLIGHTINGS, componentRef);
   }
 
   public CloseableIterator<ScannerReport.SyntaxHighlightingRule> readComponentSyntaxHighlighting(int fileRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.SYNTAX_HIGHLIGHTINGS, fileRef);
-    if (fileExists(file)) {
-      return Protobuf.readStream(file, ScannerReport.SyntaxHighlightingRule.parser());
-    }
-    return emptyCloseableIterator();
+    return readStream(FileStructure.Domain.SYNTAX_HIGHLIGHTINGS, fileRef, ScannerReport.SyntaxHighlightingRule.parser());
   }
 
   public boolean hasCoverage(int componentRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.COVERAGES, componentRef);
-    return file.exists();
+    return hasComponentData(FileStructure.Domain.COVERAGES, componentRef);
   }
 
   public CloseableIterator<ScannerReport.LineCoverage> readComponentCoverage(int fileRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.COVERAGES, fileRef);
-    if (fileExists(file)) {
-      return Protobuf.readStream(file, ScannerReport.LineCoverage.parser());
-    }
-    return emptyCloseableIterator();
+    return readStream(FileStructure.Domain.COVERAGES, fileRef, ScannerReport.LineCoverage.parser());
   }
 
+  /**
+   * Only supported by the default layout of extracted reports. Use {@link #openFileSource(int)} to support all layouts.
+   */
   @CheckForNull
   public File readFileSource(int fileRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.SOURCE, fileRef);
+    return readFile(FileStructure.Domain.SOURCE, fileRef);
+  }
+
+  /**
+   * UTF-8 source of the file, or {@code null} if the report does not contain it. Stream must be closed by caller.
+   */
+  @CheckForNull
+  public InputStream openFileSource(int fileRef) {
+    return open(FileStructure.Domain.SOURCE, fileRef);
+  }
+
+  /**
+   * Only supported by the default layout of extracted reports. Use {@link #readComponentTests(int)} to support all layouts.
+   */
+  @CheckForNull
+  public File readTests(int testFileRef) {
+    return readFile(FileStructure.Domain.TESTS, testFileRef);
+  }
+
+  public CloseableIterator<ScannerReport.Test> readComponentTests(int testFileRef) {
+    return readStream(FileStructure.Domain.TESTS, testFileRef, ScannerReport.Test.parser());
+  }
+
+  /**
+   * Only supported by the default layout of extracted reports. Use {@link #readComponentCoverageDetails(int)} to support
+   * all layouts.
+   */
+  @CheckForNull
+  public File readCoverageDetails(int testFileRef) {
+    return readFile(FileStructure.Domain.COVERAGE_DETAILS, testFileRef);
+  }
+
+  public CloseableIterator<ScannerReport.CoverageDetail> readComponentCoverageDetails(int testFileRef) {
+    return readStream(FileStructure.Domain.COVERAGE_DETAILS, testFileRef, ScannerReport.CoverageDetail.parser());
+  }
+
+  public CloseableIterator<ScannerReport.ContextProperty> readContextProperties() {
+    if (zip != null) {
+      return readZipStream(FileStructure.CONTEXT_PROPERTIES, ScannerReport.ContextProperty.parser());
+    }
+    File file = fileStructure.contextProperties();
+    if (!fileExists(file)) {
+      return emptyCloseableIterator();
+    }
+    return Protobuf.readStream(file, ScannerReport.ContextProperty.parser());
+  }
+
+  /**
+   * UTF-8 logs of the analysis, or {@code null} if the report does not contain them. Stream must be closed by caller.
+   */
+  @CheckForNull
+  public InputStream openAnalysisLog() {
+    if (zip != null) {
+      return openZipEntry(FileStructure.ANALYSIS_LOG);
+    }
+    File file = fileStructure.analysisLog();
+    if (!fileExists(file)) {
+      return null;
+    }
+    try {
+      return FileUtils.openInputStream(file);
+    } catch (IOException e) {
+      throw ContextException.of("Unable to open file", e).addContext("file", file);
+    }
+  }
+
+  private boolean hasComponentData(FileStructure.Domain domain, int componentRef) {
+    if (segments != null) {
+      return segments.has(domain, componentRef);
+    }
+    if (zip != null) {
+      return zip.getEntry(FileStructure.fileNameFor(domain, componentRef)) != null;
+    }
+    return fileStructure.fileFor(domain, componentRef).exists();
+  }
+
+  @CheckForNull
+  private File readFile(FileStructure.Domain domain, int componentRef) {
+    if (segments != null) {
+      throw new IllegalStateException("Data of components are not stored in dedicated files in segmented reports");
+    }
+    if (zip != null) {
+      throw new IllegalStateException("Data of components are not stored in dedicated files when report is read from zip");
+    }
+    File file = fileStructure.fileFor(domain, componentRef);
     if (fileExists(file)) {
       return file;
     }
@@ -143,38 +247,106 @@ public class ScannerReportReader {
   }
 
   @CheckForNull
-  public File readTests(int testFileRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.TESTS, testFileRef);
-    if (fileExists(file)) {
-      return file;
+  private InputStream open(FileStructure.Domain domain, int componentRef) {
+    if (segments != null || zip != null) {
+      return openEntry(domain, componentRef);
+    }
+    File file = fileStructure.fileFor(domain, componentRef);
+    if (!fileExists(file)) {
+      return null;
+    }
+    try {
+      return FileUtils.openInputStream(file);
+    } catch (IOException e) {
+      throw ContextException.of("Unable to open file", e).addContext("file", file);
     }
+  }
 
+  @CheckForNull
+  private <MSG extends Message> MSG read(FileStructure.Domain domain, int componentRef, Parser<MSG> parser) {
+    if (segments != null || zip != null) {
+      InputStream input = openEntry(domain, componentRef);
+      if (input == null) {
+        return null;
+      }
+      return Protobuf.read(input, parser);
+    }
+    File file = fileStructure.fileFor(domain, componentRef);
+    if (fileExists(file)) {
+      return Protobuf.read(file, parser);
+    }
     return null;
   }
 
-  @CheckForNull
-  public File readCoverageDetails(int testFileRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.COVERAGE_DETAILS, testFileRef);
+  private <MSG extends Message> CloseableIterator<MSG> readStream(FileStructure.Domain domain, int componentRef, Parser<MSG> parser) {
+    if (segments != null || zip != null) {
+      InputStream input = openEntry(domain, componentRef);
+      if (input == null) {
+        return emptyCloseableIterator();
+      }
+      return Protobuf.readStream(input, parser);
+    }
+    File file = fileStructure.fileFor(domain, componentRef);
     if (fileExists(file)) {
-      return file;
+      return Protobuf.readStream(file, parser);
     }
+    return emptyCloseableIterator();
+  }
 
-    return null;
+  /**
+   * Data of the given component and domain, either from the segments or from the zip file.
+   */
+  @CheckForNull
+  private InputStream openEntry(FileStructure.Domain domain, int componentRef) {
+    if (segments != null) {
+      return segments.open(domain, componentRef);
+    }
+    return openZipEntry(FileStructure.fileNameFor(domain, componentRef));
   }
 
-  public CloseableIterator<ScannerReport.ContextProperty> readContextProperties() {
-    File file = fileStructure.contextProperties();
-    if (!fileExists(file)) {
+  private <MSG extends Message> CloseableIterator<MSG> readZipStream(String entryName, Parser<MSG> parser) {
+    InputStream input = openZipEntry(entryName);
+    if (input == null) {
       return emptyCloseableIterator();
     }
-    return Protobuf.readStream(file, ScannerReport.ContextProperty.parser());
+    return Protobuf.readStream(input, parser);
+  }
+
+  @CheckForNull
+  private InputStream openZipEntry(String entryName) {
+    ZipEntry entry = zip.getEntry(entryName);
+    if (entry == null || entry.isDirectory()) {
+      return null;
+    }
+    try {
+      return new BufferedInputStream(zip.getInputStream(entry));
+    } catch (IOException e) {
+      throw ContextException.of("Unable to open zip entry", e).addContext("file", zip.getName()).addContext("entry", entryName);
+    }
   }
 
   private static boolean fileExists(File file) {
     return file.exists() && file.isFile();
   }
 
+  /**
+   * Releases the memory mapping of the segmented layout, so that the report directory can be deleted. Streams and
+   * iterators opened by this reader must not be read anymore. The zip file is not closed.
+   */
+  @Override
+  public void close() {
+    if (segments != null) {
+      segments.close();
+    }
+  }
+
+  /**
+   * @throws IllegalStateException if the report is read from its zip file
+   */
   public FileStructure getFileStructure() {
+    if (fileStructure == null) {
+      throw new IllegalStateException("Report is read from zip file " + zip.getName());
+    }
     return fileStructure;
   }
 }
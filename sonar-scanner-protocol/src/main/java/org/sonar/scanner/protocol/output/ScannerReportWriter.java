@@ -19,22 +19,39 @@
  */
 package org.sonar.scanner.protocol.output;
 
+import com.google.protobuf.Message;
 import java.io.BufferedOutputStream;
+import java.io.Closeable;
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.OutputStream;
+import javax.annotation.CheckForNull;
 import org.sonar.core.util.ContextException;
 import org.sonar.core.util.Protobuf;
 
-public class ScannerReportWriter {
+import static java.util.Collections.singletonList;
+
+public class ScannerReportWriter implements Closeable {
 
   private final FileStructure fileStructure;
+  @CheckForNull
+  private final ReportSegmentWriter segments;
 
   public ScannerReportWriter(File dir) {
+    this(dir, false);
+  }
+
+  /**
+   * @param segmented if {@code true}, data of components are appended to a single segments file instead of being
+   *                  written to one file per component and domain. See {@link FileStructure}.
+   */
+  public ScannerReportWriter(File dir, boolean segmented) {
     if (!dir.exists() && !dir.mkdirs()) {
       throw new IllegalStateException("Unable to create directory: " + dir);
     }
     this.fileStructure = new FileStructure(dir);
+    this.segments = segmented ? new ReportSegmentWriter(fileStructure) : null;
   }
 
   public FileStructure getFileStructure() {
@@ -42,6 +59,9 @@ public class ScannerReportWriter {
   }
 
   public boolean hasComponentData(FileStructure.Domain domain, int componentRef) {
+    if (segments != null) {
+      return segments.has(domain, componentRef);
+    }
     File file = fileStructure.fileFor(domain, componentRef);
     return file.exists() && file.isFile();
   }
@@ -60,18 +80,23 @@ public class ScannerReportWriter {
   }
 
   public File writeComponent(ScannerReport.Component component) {
+    if (segments != null) {
+      return writeSegment(FileStructure.Domain.COMPONENT, component.getRef(), component);
+    }
     File file = fileStructure.fileFor(FileStructure.Domain.COMPONENT, component.getRef());
     Protobuf.write(component, file);
     return file;
   }
 
   public File writeComponentIssues(int componentRef, Iterable<ScannerReport.Issue> issues) {
-    File file = fileStructure.fileFor(FileStructure.Domain.ISSUES, componentRef);
-    Protobuf.writeStream(issues, file, false);
-    return file;
+    return writeStream(FileStructure.Domain.ISSUES, componentRef, issues);
   }
 
   public void appendComponentIssue(int componentRef, ScannerReport.Issue issue) {
+    if (segments != null) {
+      writeSegmentStream(FileStructure.Domain.ISSUES, componentRef, singletonList(issue), true);
+      return;
+    }
     File file = fileStructure.fileFor(FileStructure.Domain.ISSUES, componentRef);
     try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file, true))) {
       issue.writeDelimitedTo(out);
@@ -81,57 +106,44 @@ public class ScannerReportWriter {
   }
 
   public File writeComponentMeasures(int componentRef, Iterable<ScannerReport.Measure> measures) {
-    File file = fileStructure.fileFor(FileStructure.Domain.MEASURES, componentRef);
-    Protobuf.writeStream(measures, file, false);
-    return file;
+    return writeStream(FileStructure.Domain.MEASURES, componentRef, measures);
   }
 
   public File writeComponentChangesets(ScannerReport.Changesets changesets) {
+    if (segments != null) {
+      return writeSegment(FileStructure.Domain.CHANGESETS, changesets.getComponentRef(), changesets);
+    }
     File file = fileStructure.fileFor(FileStructure.Domain.CHANGESETS, changesets.getComponentRef());
     Protobuf.write(changesets, file);
     return file;
   }
 
   public File writeComponentDuplications(int componentRef, Iterable<ScannerReport.Duplication> duplications) {
-    File file = fileStructure.fileFor(FileStructure.Domain.DUPLICATIONS, componentRef);
-    Protobuf.writeStream(duplications, file, false);
-    return file;
+    return writeStream(FileStructure.Domain.DUPLICATIONS, componentRef, duplications);
   }
 
   public File writeCpdTextBlocks(int componentRef, Iterable<ScannerReport.CpdTextBlock> blocks) {
-    File file = fileStructure.fileFor(FileStructure.Domain.CPD_TEXT_BLOCKS, componentRef);
-    Protobuf.writeStream(blocks, file, false);
-    return file;
+    return writeStream(FileStructure.Domain.CPD_TEXT_BLOCKS, componentRef, blocks);
   }
 
   public File writeComponentSymbols(int componentRef, Iterable<ScannerReport.Symbol> symbols) {
-    File file = fileStructure.fileFor(FileStructure.Domain.SYMBOLS, componentRef);
-    Protobuf.writeStream(symbols, file, false);
-    return file;
+    return writeStream(FileStructure.Domain.SYMBOLS, componentRef, symbols);
   }
 
   public File writeComponentSyntaxHighlighting(int componentRef, Iterable<ScannerReport.SyntaxHighlightingRule> syntaxHighlightingRules) {
-    File file = fileStructure.fileFor(FileStructure.Domain.SYNTAX_HIGHLIGHTINGS, componentRef);
-    Protobuf.writeStream(syntaxHighlightingRules, file, false);
-    return file;
+    return writeStream(FileStructure.Domain.SYNTAX_HIGHLIGHTINGS, componentRef, syntaxHighlightingRules);
   }
 
   public File writeComponentCoverage(int componentRef, Iterable<ScannerReport.LineCoverage> coverageList) {
-    File file = fileStructure.fileFor(FileStructure.Domain.COVERAGES, componentRef);
-    Protobuf.writeStream(coverageList, file, false);
-    return file;
+    return writeStream(FileStructure.Domain.COVERAGES, componentRef, coverageList);
   }
 
   public File writeTests(int componentRef, Iterable<ScannerReport.Test> tests) {
-    File file = fileStructure.fileFor(FileStructure.Domain.TESTS, componentRef);
-    Protobuf.writeStream(tests, file, false);
-    return file;
+    return writeStream(FileStructure.Domain.TESTS, componentRef, tests);
   }
 
   public File writeCoverageDetails(int componentRef, Iterable<ScannerReport.CoverageDetail> tests) {
-    File file = fileStructure.fileFor(FileStructure.Domain.COVERAGE_DETAILS, componentRef);
-    Protobuf.writeStream(tests, file, false);
-    return file;
+    return writeStream(FileStructure.Domain.COVERAGE_DETAILS, componentRef, tests);
   }
 
   public File writeContextProperties(Iterable<ScannerReport.ContextProperty> properties) {
@@ -140,8 +152,66 @@ public class ScannerReportWriter {
     return file;
   }
 
+  /**
+   * Only supported by the default layout. Use {@link #openComponentSource(int)} to support both layouts.
+   */
   public File getSourceFile(int componentRef) {
+    if (segments != null) {
+      throw new IllegalStateException("Sources are not stored in dedicated files in segmented reports");
+    }
     return fileStructure.fileFor(FileStructure.Domain.SOURCE, componentRef);
   }
 
+  /**
+   * Stream to write the UTF-8 source of a file. It must be closed by caller.
+   */
+  public OutputStream openComponentSource(int componentRef) {
+    if (segments != null) {
+      return segments.openEntry(FileStructure.Domain.SOURCE, componentRef, false);
+    }
+    File file = fileStructure.fileFor(FileStructure.Domain.SOURCE, componentRef);
+    try {
+      return new BufferedOutputStream(new FileOutputStream(file));
+    } catch (IOException e) {
+      throw ContextException.of("Unable to open source", e).addContext("file", file);
+    }
+  }
+
+  /**
+   * Flushes the segments file and its index. Does nothing on default layout or if already closed.
+   */
+  @Override
+  public void close() {
+    if (segments != null) {
+      segments.close();
+    }
+  }
+
+  private <MSG extends Message> File writeStream(FileStructure.Domain domain, int componentRef, Iterable<MSG> messages) {
+    if (segments != null) {
+      return writeSegmentStream(domain, componentRef, messages, false);
+    }
+    File file = fileStructure.fileFor(domain, componentRef);
+    Protobuf.writeStream(messages, file, false);
+    return file;
+  }
+
+  private File writeSegment(FileStructure.Domain domain, int componentRef, Message message) {
+    try (OutputStream out = segments.openEntry(domain, componentRef, false)) {
+      message.writeTo(out);
+    } catch (IOException e) {
+      throw ContextException.of("Unable to write message", e).addContext("file", fileStructure.segmentsFile());
+    }
+    return fileStructure.segmentsFile();
+  }
+
+  private <MSG extends Message> File writeSegmentStream(FileStructure.Domain domain, int componentRef, Iterable<MSG> messages, boolean append) {
+    try (OutputStream out = segments.openEntry(domain, componentRef, append)) {
+      Protobuf.writeStream(messages, out);
+    } catch (IOException e) {
+      throw ContextException.of("Unable to write messages", e).addContext("file", fileStructure.segmentsFile());
+    }
+    return fileStructure.segmentsFile();
+  }
+
 }
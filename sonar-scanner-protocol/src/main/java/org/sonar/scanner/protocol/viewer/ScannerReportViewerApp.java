@@ -54,7 +54,6 @@ import javax.swing.tree.TreeSelectionModel;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang.StringUtils;
 import org.sonar.core.util.CloseableIterator;
-import org.sonar.scanner.protocol.output.FileStructure.Domain;
 import org.sonar.scanner.protocol.output.ScannerReport;
 import org.sonar.scanner.protocol.output.ScannerReport.Component;
 import org.sonar.scanner.protocol.output.ScannerReport.Issue;
@@ -279,15 +278,10 @@ public class ScannerReportViewerApp {
   
   private void updateTests(Component component) {
     testsEditor.setText("");
-    File tests = reader.readTests(component.getRef());
-    if(tests == null) {
-      return;
-    }
-    try (InputStream inputStream = FileUtils.openInputStream(tests)) {
-      ScannerReport.Test test = ScannerReport.Test.parser().parseDelimitedFrom(inputStream);
-      while (test != null) {
+    try (CloseableIterator<ScannerReport.Test> it = reader.readComponentTests(component.getRef())) {
+      while (it.hasNext()) {
+        ScannerReport.Test test = it.next();
         testsEditor.getDocument().insertString(testsEditor.getDocument().getEndPosition().getOffset(), test.toString() + "\n", null);
-        test = ScannerReport.Test.parser().parseDelimitedFrom(inputStream);
       }
     } catch (Exception e) {
       throw new IllegalStateException(e);
@@ -295,18 +289,20 @@ public class ScannerReportViewerApp {
   }
 
   private void updateSource(Component component) {
-    File sourceFile = reader.getFileStructure().fileFor(Domain.SOURCE, component.getRef());
+    InputStream source = reader.openFileSource(component.getRef());
     sourceEditor.setText("");
 
-    if (sourceFile.exists()) {
-      try (Scanner s = new Scanner(sourceFile, StandardCharsets.UTF_8.name()).useDelimiter("\\Z")) {
+    if (source != null) {
+      try (Scanner s = new Scanner(source, StandardCharsets.UTF_8.name()).useDelimiter("\\Z")) {
         if (s.hasNext()) {
           sourceEditor.setText(s.next());
         }
-      } catch (IOException ex) {
-        StringWriter errors = new StringWriter();
-        ex.printStackTrace(new PrintWriter(errors));
-        sourceEditor.setText(errors.toString());
+        IOException ex = s.ioException();
+        if (ex != null) {
+          StringWriter errors = new StringWriter();
+          ex.printStackTrace(new PrintWriter(errors));
+          sourceEditor.setText(errors.toString());
+        }
       }
     }
   }
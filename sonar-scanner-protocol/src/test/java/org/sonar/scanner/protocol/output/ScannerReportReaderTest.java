@@ -23,12 +23,15 @@ import com.google.common.collect.Lists;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.ZipFile;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
+import org.sonar.api.utils.ZipUtils;
 import org.sonar.core.util.CloseableIterator;
 import org.sonar.scanner.protocol.output.ScannerReport.Measure.StringValue;
 import org.sonar.scanner.protocol.output.ScannerReport.SyntaxHighlightingRule.HighlightingType;
@@ -386,4 +389,162 @@ public class ScannerReportReaderTest {
   public void return_null_when_no_file_source() throws Exception {
     assertThat(underTest.readFileSource(UNKNOWN_COMPONENT_REF)).isNull();
   }
+
+  @Test
+  public void read_streams_from_segmented_report() throws Exception {
+    ScannerReportWriter writer = new ScannerReportWriter(dir, true);
+    writer.writeComponentIssues(1, asList(ScannerReport.Issue.newBuilder().setMsg("first").build()));
+    writer.writeComponentMeasures(1, asList(ScannerReport.Measure.newBuilder().setStringValue(StringValue.newBuilder().setValue("value_a")).build()));
+    writer.appendComponentIssue(1, ScannerReport.Issue.newBuilder().setMsg("second").build());
+    writer.writeTests(2, asList(ScannerReport.Test.newBuilder().setName("test-name").build()));
+    writer.close();
+
+    underTest = new ScannerReportReader(dir);
+    assertThat(underTest.readComponentIssues(1)).extracting("msg").containsExactly("first", "second");
+    assertThat(underTest.readComponentMeasures(1)).hasSize(1);
+    assertThat(underTest.readComponentTests(2)).extracting("name").containsExactly("test-name");
+    assertThat(underTest.readComponentIssues(2)).isEmpty();
+    assertThat(underTest.readComponentCoverageDetails(2)).isEmpty();
+    assertThat(dir.list()).containsOnly("segments.dat", "segments.idx");
+  }
+
+  @Test
+  public void read_component_and_file_source_from_segmented_report() throws Exception {
+    ScannerReportWriter writer = new ScannerReportWriter(dir, true);
+    writer.writeComponent(ScannerReport.Component.newBuilder().setRef(1).setPath("src/main/java/Foo.java").build());
+    try (OutputStream outputStream = writer.openComponentSource(1)) {
+      IOUtils.write("line1\nline2", outputStream);
+    }
+    writer.close();
+
+    underTest = new ScannerReportReader(dir);
+    assertThat(underTest.readComponent(1).getPath()).isEqualTo("src/main/java/Foo.java");
+    try (InputStream inputStream = underTest.openFileSource(1)) {
+      assertThat(IOUtils.readLines(inputStream)).containsExactly("line1", "line2");
+    }
+    assertThat(underTest.openFileSource(UNKNOWN_COMPONENT_REF)).isNull();
+    assertThat(underTest.readChangesets(1)).isNull();
+  }
+
+  @Test
+  public void segmented_entry_replaces_previous_entries_of_same_component_and_domain() {
+    ScannerReportWriter writer = new ScannerReportWriter(dir, true);
+    writer.writeComponentIssues(1, asList(ScannerReport.Issue.newBuilder().setMsg("first").build()));
+    writer.writeComponentIssues(1, asList(ScannerReport.Issue.newBuilder().setMsg("second").build()));
+    writer.close();
+
+    underTest = new ScannerReportReader(dir);
+    assertThat(underTest.readComponentIssues(1)).extracting("msg").containsExactly("second");
+  }
+
+  @Test
+  public void close_releases_segmented_report() throws Exception {
+    ScannerReportWriter writer = new ScannerReportWriter(dir, true);
+    writer.writeComponentIssues(1, asList(ScannerReport.Issue.newBuilder().setMsg("first").build()));
+    writer.close();
+
+    underTest = new ScannerReportReader(dir);
+    assertThat(underTest.readComponentIssues(1)).hasSize(1);
+    underTest.close();
+    underTest.close();
+
+    FileUtils.deleteDirectory(dir);
+    assertThat(dir).doesNotExist();
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void fail_to_read_closed_segmented_report() {
+    ScannerReportWriter writer = new ScannerReportWriter(dir, true);
+    writer.writeComponentIssues(1, asList(ScannerReport.Issue.newBuilder().setMsg("first").build()));
+    writer.close();
+    underTest = new ScannerReportReader(dir);
+    underTest.close();
+
+    underTest.readComponentIssues(1);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void files_of_component_data_are_not_available_in_segmented_report() {
+    new ScannerReportWriter(dir, true).close();
+
+    new ScannerReportReader(dir).readTests(1);
+  }
+
+  @Test
+  public void open_file_source_of_default_layout() throws Exception {
+    ScannerReportWriter writer = new ScannerReportWriter(dir);
+    try (OutputStream outputStream = writer.openComponentSource(1)) {
+      IOUtils.write("line1\nline2", outputStream);
+    }
+
+    try (InputStream inputStream = underTest.openFileSource(1)) {
+      assertThat(IOUtils.readLines(inputStream)).containsExactly("line1", "line2");
+    }
+  }
+
+  @Test
+  public void read_entries_from_zip_file() throws Exception {
+    ScannerReportWriter writer = new ScannerReportWriter(dir);
+    writer.writeMetadata(ScannerReport.Metadata.newBuilder().setProjectKey("PROJECT_A").build());
+    writer.writeComponent(ScannerReport.Component.newBuilder().setRef(1).setPath("src/main/java/Foo.java").build());
+    writer.writeComponentIssues(1, asList(ScannerReport.Issue.newBuilder().setMsg("the message").build()));
+    try (OutputStream outputStream = writer.openComponentSource(1)) {
+      IOUtils.write("line1\nline2", outputStream);
+    }
+    FileUtils.write(writer.getFileStructure().analysisLog(), "the log");
+
+    try (ZipFile zip = zip(dir)) {
+      assertThat(ScannerReportReader.isSegmented(zip)).isFalse();
+      underTest = new ScannerReportReader(zip);
+
+      assertThat(underTest.readMetadata().getProjectKey()).isEqualTo("PROJECT_A");
+      assertThat(underTest.readComponent(1).getPath()).isEqualTo("src/main/java/Foo.java");
+      assertThat(underTest.readComponentIssues(1)).extracting("msg").containsExactly("the message");
+      assertThat(underTest.readComponentIssues(UNKNOWN_COMPONENT_REF)).isEmpty();
+      assertThat(underTest.readActiveRules()).isEmpty();
+      assertThat(underTest.readChangesets(1)).isNull();
+      try (InputStream inputStream = underTest.openFileSource(1)) {
+        assertThat(IOUtils.readLines(inputStream)).containsExactly("line1", "line2");
+      }
+      assertThat(underTest.openFileSource(UNKNOWN_COMPONENT_REF)).isNull();
+      try (InputStream inputStream = underTest.openAnalysisLog()) {
+        assertThat(IOUtils.toString(inputStream)).isEqualTo("the log");
+      }
+    }
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void fail_if_missing_metadata_entry_in_zip_file() throws Exception {
+    FileUtils.write(new File(dir, "analysis.log"), "the log");
+
+    try (ZipFile zip = zip(dir)) {
+      new ScannerReportReader(zip).readMetadata();
+    }
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void files_of_component_data_are_not_available_in_zip_file() throws Exception {
+    FileUtils.write(new File(dir, "analysis.log"), "the log");
+
+    try (ZipFile zip = zip(dir)) {
+      new ScannerReportReader(zip).readTests(1);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void segmented_report_can_not_be_read_from_zip_file() throws Exception {
+    new ScannerReportWriter(dir, true).close();
+
+    try (ZipFile zip = zip(dir)) {
+      assertThat(ScannerReportReader.isSegmented(zip)).isTrue();
+      new ScannerReportReader(zip);
+    }
+  }
+
+  private ZipFile zip(File reportDir) throws Exception {
+    // zip file must not be created in the zipped directory
+    File zipFile = new File(temp.newFolder(), "report.zip");
+    ZipUtils.zipDir(reportDir, zipFile);
+    return new ZipFile(zipFile);
+  }
 }
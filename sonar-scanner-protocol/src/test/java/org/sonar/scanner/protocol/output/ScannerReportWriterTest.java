@@ -302,4 +302,46 @@ public class ScannerReportWriterTest {
 
     assertThat(underTest.hasComponentData(FileStructure.Domain.COVERAGE_DETAILS, 1)).isTrue();
   }
+
+  @Test
+  public void write_component_data_in_segments() {
+    underTest = new ScannerReportWriter(dir, true);
+    assertThat(underTest.getFileStructure().isSegmented()).isTrue();
+    assertThat(underTest.hasComponentData(FileStructure.Domain.ISSUES, 1)).isFalse();
+
+    underTest.writeComponentIssues(1, asList(ScannerReport.Issue.newBuilder().setMsg("the message").build()));
+    underTest.close();
+
+    assertThat(underTest.hasComponentData(FileStructure.Domain.ISSUES, 1)).isTrue();
+    assertThat(underTest.hasComponentData(FileStructure.Domain.ISSUES, 2)).isFalse();
+    assertThat(underTest.hasComponentData(FileStructure.Domain.MEASURES, 1)).isFalse();
+    assertThat(underTest.getFileStructure().fileFor(FileStructure.Domain.ISSUES, 1)).doesNotExist();
+    assertThat(underTest.getFileStructure().segmentsFile()).isFile();
+  }
+
+  @Test
+  public void close_segments_only_once() {
+    underTest = new ScannerReportWriter(dir, true);
+    underTest.writeComponentIssues(1, asList(ScannerReport.Issue.newBuilder().setMsg("the message").build()));
+
+    underTest.close();
+    underTest.close();
+
+    assertThat(underTest.hasComponentData(FileStructure.Domain.ISSUES, 1)).isTrue();
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void fail_to_write_closed_segments() {
+    underTest = new ScannerReportWriter(dir, true);
+    underTest.close();
+
+    underTest.writeComponentIssues(1, asList(ScannerReport.Issue.newBuilder().setMsg("the message").build()));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void source_file_is_not_available_in_segments() {
+    underTest = new ScannerReportWriter(dir, true);
+
+    underTest.getSourceFile(1);
+  }
 }
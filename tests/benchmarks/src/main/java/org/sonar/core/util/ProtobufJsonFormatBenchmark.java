@@ -0,0 +1,238 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.util;
+
+import com.google.protobuf.Descriptors;
+import com.google.protobuf.MapEntry;
+import com.google.protobuf.Message;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.output.NullOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.api.utils.text.JsonWriter;
+import org.sonarqube.ws.Common;
+import org.sonarqube.ws.Issues;
+
+/**
+ * Compares {@link ProtobufJsonFormat} to its former implementation, which read all fields
+ * through {@link Message#getField(Descriptors.FieldDescriptor)}, on a response of api/issues/search.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ProtobufJsonFormatBenchmark {
+
+  @Param({"500"})
+  public int issues;
+
+  private Issues.SearchWsResponse response;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    Issues.SearchWsResponse.Builder builder = Issues.SearchWsResponse.newBuilder()
+      .setTotal(issues)
+      .setP(1)
+      .setPs(issues)
+      .setPaging(Common.Paging.newBuilder().setPageIndex(1).setPageSize(issues).setTotal(issues));
+    for (int i = 0; i < issues; i++) {
+      builder.addIssues(Issues.Issue.newBuilder()
+        .setKey("AVbY7XbG3hA7DzoVu0g" + i)
+        .setRule("squid:S" + (1000 + i % 50))
+        .setSeverity(Common.Severity.valueOf(i % 5))
+        .setComponent("org.sonarsource:project:src/main/java/org/sonarsource/Foo" + (i % 20) + ".java")
+        .setComponentId(i % 20)
+        .setProject("org.sonarsource:project")
+        .setLine(i)
+        .setTextRange(Common.TextRange.newBuilder().setStartLine(i).setEndLine(i).setStartOffset(2).setEndOffset(30))
+        .setStatus("OPEN")
+        .setMessage("Remove this \"unused\" private field <" + i + ">.")
+        .setEffort("5min")
+        .setDebt("5min")
+        .setAuthor("john@sonarsource.com")
+        .addTags("unused")
+        .addTags("pitfall")
+        .setTransitions(Issues.Transitions.newBuilder().addTransitions("confirm").addTransitions("resolve"))
+        .setActions(Issues.Actions.newBuilder().addActions("comment").addActions("assign"))
+        .setCreationDate("2016-09-01T10:00:00+0200")
+        .setUpdateDate("2016-09-02T10:00:00+0200")
+        .setType(Common.RuleType.CODE_SMELL));
+    }
+    for (int i = 0; i < 20; i++) {
+      builder.addComponents(Issues.Component.newBuilder()
+        .setId(i)
+        .setKey("org.sonarsource:project:src/main/java/org/sonarsource/Foo" + i + ".java")
+        .setUuid("AVbY7Wo-3hA7DzoVu0f" + i)
+        .setEnabled(true)
+        .setQualifier("FIL")
+        .setName("Foo" + i + ".java")
+        .setLongName("src/main/java/org/sonarsource/Foo" + i + ".java")
+        .setPath("src/main/java/org/sonarsource/Foo" + i + ".java"));
+    }
+    response = builder.build();
+  }
+
+  @Benchmark
+  public void current() throws Exception {
+    try (Writer writer = new OutputStreamWriter(new NullOutputStream(), StandardCharsets.UTF_8)) {
+      ProtobufJsonFormat.write(response, JsonWriter.of(writer));
+    }
+  }
+
+  @Benchmark
+  public void baseline() throws Exception {
+    try (Writer writer = new OutputStreamWriter(new NullOutputStream(), StandardCharsets.UTF_8)) {
+      BaselineFormat.write(response, JsonWriter.of(writer));
+    }
+  }
+
+  /**
+   * Verbatim copy of the original implementation of {@link ProtobufJsonFormat}, kept as baseline
+   */
+  private static class BaselineFormat {
+
+    static class MessageType {
+      private static final Map<Class<? extends Message>, MessageType> TYPES_BY_CLASS = new HashMap<>();
+
+      private final Descriptors.FieldDescriptor[] fieldDescriptors;
+      private final boolean doesWrapRepeated;
+
+      private MessageType(Descriptors.Descriptor descriptor) {
+        this.fieldDescriptors = descriptor.getFields().toArray(new Descriptors.FieldDescriptor[descriptor.getFields().size()]);
+        this.doesWrapRepeated = fieldDescriptors.length == 1 && fieldDescriptors[0].isRepeated() && descriptor.getName().equalsIgnoreCase(fieldDescriptors[0].getName());
+      }
+
+      static MessageType of(Message message) {
+        MessageType type = TYPES_BY_CLASS.get(message.getClass());
+        if (type == null) {
+          type = new MessageType(message.getDescriptorForType());
+          TYPES_BY_CLASS.put(message.getClass(), type);
+        }
+        return type;
+      }
+    }
+
+    static void write(Message message, JsonWriter writer) {
+      writer.setSerializeNulls(false).setSerializeEmptys(true);
+      writer.beginObject();
+      writeMessage(message, writer);
+      writer.endObject();
+    }
+
+    private static void writeMessage(Message message, JsonWriter writer) {
+      MessageType type = MessageType.of(message);
+      for (Descriptors.FieldDescriptor fieldDescriptor : type.fieldDescriptors) {
+        if (fieldDescriptor.isRepeated()) {
+          writer.name(fieldDescriptor.getName());
+          if (fieldDescriptor.isMapField()) {
+            writeMap((Collection<MapEntry>) message.getField(fieldDescriptor), writer);
+          } else {
+            writeArray(writer, fieldDescriptor, (Collection) message.getField(fieldDescriptor));
+          }
+        } else if (message.hasField(fieldDescriptor)) {
+          writer.name(fieldDescriptor.getName());
+          Object fieldValue = message.getField(fieldDescriptor);
+          writeFieldValue(fieldDescriptor, fieldValue, writer);
+        }
+      }
+    }
+
+    private static void writeArray(JsonWriter writer, Descriptors.FieldDescriptor fieldDescriptor, Collection array) {
+      writer.beginArray();
+      for (Object o : array) {
+        writeFieldValue(fieldDescriptor, o, writer);
+      }
+      writer.endArray();
+    }
+
+    private static void writeMap(Collection<MapEntry> mapEntries, JsonWriter writer) {
+      writer.beginObject();
+      for (MapEntry mapEntry : mapEntries) {
+        // Key fields are always double-quoted in json
+        writer.name(mapEntry.getKey().toString());
+        Descriptors.FieldDescriptor valueDescriptor = mapEntry.getDescriptorForType().findFieldByName("value");
+        writeFieldValue(valueDescriptor, mapEntry.getValue(), writer);
+      }
+      writer.endObject();
+    }
+
+    private static void writeFieldValue(Descriptors.FieldDescriptor fieldDescriptor, Object value, JsonWriter writer) {
+      switch (fieldDescriptor.getJavaType()) {
+        case INT:
+          writer.value((Integer) value);
+          break;
+        case LONG:
+          writer.value((Long) value);
+          break;
+        case DOUBLE:
+          writer.value((Double) value);
+          break;
+        case BOOLEAN:
+          writer.value((Boolean) value);
+          break;
+        case STRING:
+          writer.value((String) value);
+          break;
+        case ENUM:
+          writer.value(((Descriptors.EnumValueDescriptor) value).getName());
+          break;
+        case MESSAGE:
+          writeMessageValue((Message) value, writer);
+          break;
+        default:
+          throw new IllegalStateException(String.format("JSON format does not support type '%s' of field '%s'", fieldDescriptor.getJavaType(), fieldDescriptor.getName()));
+      }
+    }
+
+    private static void writeMessageValue(Message message, JsonWriter writer) {
+      MessageType messageType = MessageType.of(message);
+      if (messageType.doesWrapRepeated) {
+        Descriptors.FieldDescriptor repeatedDescriptor = messageType.fieldDescriptors[0];
+        if (repeatedDescriptor.isMapField()) {
+          writeMap((Collection<MapEntry>) message.getField(repeatedDescriptor), writer);
+        } else {
+          writeArray(writer, repeatedDescriptor, (Collection) message.getField(repeatedDescriptor));
+        }
+      } else {
+        writer.beginObject();
+        writeMessage(message, writer);
+        writer.endObject();
+      }
+    }
+  }
+}
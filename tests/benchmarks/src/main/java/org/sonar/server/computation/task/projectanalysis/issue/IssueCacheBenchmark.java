@@ -0,0 +1,174 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.issue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.sonar.api.issue.Issue;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.api.rule.Severity;
+import org.sonar.api.rules.RuleType;
+import org.sonar.api.utils.Duration;
+import org.sonar.api.utils.System2;
+import org.sonar.core.issue.DefaultIssue;
+import org.sonar.core.issue.DefaultIssueComment;
+import org.sonar.core.issue.FieldDiffs;
+import org.sonar.core.util.CloseableIterator;
+import org.sonar.db.protobuf.DbCommons;
+import org.sonar.db.protobuf.DbIssues;
+import org.sonar.server.util.cache.DiskCache;
+
+/**
+ * Compares {@link IssueCache} (protobuf) to the Java serialization of {@link DiskCache}, which was
+ * used by {@link IssueCache} before. The size of files, in bytes per issue, is printed at tear down.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class IssueCacheBenchmark {
+
+  @Param({"10000"})
+  public int issues;
+
+  private List<DefaultIssue> input;
+  private File dir;
+  private DiskCache<DefaultIssue> javaCache;
+  private IssueCache protobufCache;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    input = new ArrayList<>(issues);
+    for (int i = 0; i < issues; i++) {
+      input.add(newIssue(i));
+    }
+    dir = Files.createTempDirectory("issue-cache-benchmark").toFile();
+    javaCache = new DiskCache<>(new File(dir, "java.dat"), System2.INSTANCE);
+    protobufCache = new IssueCache(new File(dir, "protobuf.dat"));
+    write(javaCache.newAppender());
+    write(protobufCache.newAppender());
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    System.out.printf("%nBytes per issue: java=%d protobuf=%d%n",
+      new File(dir, "java.dat").length() / issues, new File(dir, "protobuf.dat").length() / issues);
+    FileUtils.deleteQuietly(dir);
+  }
+
+  @Benchmark
+  public void append_java() {
+    write(new DiskCache<DefaultIssue>(new File(dir, "java-append.dat"), System2.INSTANCE).newAppender());
+  }
+
+  @Benchmark
+  public void append_protobuf() {
+    write(new IssueCache(new File(dir, "protobuf-append.dat")).newAppender());
+  }
+
+  @Benchmark
+  public void traverse_java(Blackhole blackhole) {
+    try (CloseableIterator<DefaultIssue> it = javaCache.traverse()) {
+      while (it.hasNext()) {
+        blackhole.consume(it.next());
+      }
+    }
+  }
+
+  @Benchmark
+  public void traverse_protobuf(Blackhole blackhole) {
+    try (CloseableIterator<DefaultIssue> it = protobufCache.traverse()) {
+      while (it.hasNext()) {
+        blackhole.consume(it.next());
+      }
+    }
+  }
+
+  private void write(DiskCache<DefaultIssue>.DiskAppender appender) {
+    for (DefaultIssue issue : input) {
+      appender.append(issue);
+    }
+    appender.close();
+  }
+
+  private void write(IssueCache.DiskAppender appender) {
+    for (DefaultIssue issue : input) {
+      appender.append(issue);
+    }
+    appender.close();
+  }
+
+  private static DefaultIssue newIssue(int index) {
+    Date now = new Date();
+    String key = "AVZ8kXUyE0TjtHFRnVbB" + index;
+    DefaultIssue issue = new DefaultIssue()
+      .setKey(key)
+      .setType(RuleType.CODE_SMELL)
+      .setComponentUuid("AVZ8kW4hE0TjtHFRnVZt" + (index % 100))
+      .setComponentKey("org.sonarsource:project:src/main/java/org/sonarsource/File" + (index % 100) + ".java")
+      .setModuleUuid("AVZ8kW4hE0TjtHFRnVZs")
+      .setModuleUuidPath(".AVZ8kW4hE0TjtHFRnVZs.")
+      .setProjectUuid("AVZ8kW4hE0TjtHFRnVZs")
+      .setProjectKey("org.sonarsource:project")
+      .setRuleKey(RuleKey.of("squid", "S" + (index % 500)))
+      .setLanguage("java")
+      .setSeverity(Severity.MAJOR)
+      .setMessage("Replace this usage of System.out or System.err by a logger.")
+      .setLine(1 + index % 1_000)
+      .setEffort(Duration.create(10L))
+      .setStatus(Issue.STATUS_OPEN)
+      .setChecksum("d41d8cd98f00b204e9800998ecf8427e")
+      .setAuthorLogin("john")
+      .setLocations(DbIssues.Locations.newBuilder()
+        .setTextRange(DbCommons.TextRange.newBuilder().setStartLine(1 + index % 1_000).setEndLine(1 + index % 1_000).setStartOffset(4).setEndOffset(22))
+        .build())
+      .setCreationDate(now)
+      .setUpdateDate(now)
+      .setNew(index % 10 == 0)
+      .setChanged(true);
+    if (index % 5 == 0) {
+      issue.addComment(DefaultIssueComment.create(key, "john", "False positive"));
+      issue.setCurrentChange(new FieldDiffs().setIssueKey(key).setCreationDate(now).setDiff("severity", Severity.MINOR, Severity.MAJOR));
+    }
+    return issue;
+  }
+}
@@ -0,0 +1,166 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.measure;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.sonar.server.computation.task.projectanalysis.component.Component;
+import org.sonar.server.computation.task.projectanalysis.component.ComponentImpl;
+import org.sonar.server.computation.task.projectanalysis.component.ReportAttributes;
+import org.sonar.server.computation.task.projectanalysis.metric.Metric;
+import org.sonar.server.computation.task.projectanalysis.metric.MetricImpl;
+
+import static org.sonar.server.computation.task.projectanalysis.component.ComponentFunctions.toReportRef;
+
+/**
+ * Compares {@link MapBasedRawMeasureRepository} to {@link CompactRawMeasureRepository} on a synthetic tree of files,
+ * each of them having a measure of each metric. The heap retained by a filled repository is printed at set up.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class RawMeasureRepositoryBenchmark {
+
+  @Param({"map", "compact"})
+  public String implementation;
+
+  @Param({"200000"})
+  public int files;
+
+  @Param({"20"})
+  public int metrics;
+
+  private List<Component> components;
+  private List<Metric> metricList;
+  private RawMeasureRepository filled;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    components = new ArrayList<>(files);
+    for (int ref = 1; ref <= files; ref++) {
+      components.add(ComponentImpl.builder(Component.Type.FILE)
+        .setReportAttributes(ReportAttributes.newBuilder(ref).build())
+        .setUuid("uuid_" + ref)
+        .setKey("key_" + ref)
+        .setName("name_" + ref)
+        .build());
+    }
+    metricList = new ArrayList<>(metrics);
+    for (int id = 1; id <= metrics; id++) {
+      metricList.add(new MetricImpl(id, "metric_" + id, "metric_" + id, metricType(id)));
+    }
+
+    long before = usedHeap();
+    filled = fill(newRepository());
+    long after = usedHeap();
+    System.out.printf("%n%s: %d bytes per measure%n", implementation, (after - before) / ((long) files * metrics));
+  }
+
+  @Benchmark
+  public RawMeasureRepository add_measures() {
+    return fill(newRepository());
+  }
+
+  @Benchmark
+  public void get_measures_of_components(Blackhole blackhole) {
+    for (Component component : components) {
+      blackhole.consume(filled.getRawMeasures(component));
+    }
+  }
+
+  @Benchmark
+  public void get_measure_by_metric(Blackhole blackhole) {
+    for (Component component : components) {
+      for (Metric metric : metricList) {
+        blackhole.consume(filled.getRawMeasure(component, metric));
+      }
+    }
+  }
+
+  private RawMeasureRepository newRepository() {
+    if ("compact".equals(implementation)) {
+      return new CompactRawMeasureRepository();
+    }
+    return new MapBasedRawMeasureRepository<>(toReportRef());
+  }
+
+  private RawMeasureRepository fill(RawMeasureRepository repository) {
+    for (Component component : components) {
+      int ref = component.getReportAttributes().getRef();
+      for (Metric metric : metricList) {
+        repository.add(component, metric, newMeasure(metric, ref));
+      }
+    }
+    return repository;
+  }
+
+  private static Metric.MetricType metricType(int id) {
+    switch (id % 10) {
+      case 0:
+        // for example ncloc_data
+        return Metric.MetricType.DATA;
+      case 1:
+      case 2:
+        return Metric.MetricType.PERCENT;
+      case 3:
+        return Metric.MetricType.WORK_DUR;
+      default:
+        return Metric.MetricType.INT;
+    }
+  }
+
+  private static Measure newMeasure(Metric metric, int ref) {
+    switch (metric.getType().getValueType()) {
+      case STRING:
+        return Measure.newMeasureBuilder().create("1=12;2=0;3=4;4=1");
+      case DOUBLE:
+        return Measure.newMeasureBuilder().create((ref % 1000) / 10d, 1);
+      case LONG:
+        return Measure.newMeasureBuilder().create(ref * 30L);
+      default:
+        return Measure.newMeasureBuilder().create(ref % 500);
+    }
+  }
+
+  private static long usedHeap() {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
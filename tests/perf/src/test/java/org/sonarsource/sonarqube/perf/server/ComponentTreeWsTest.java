@@ -0,0 +1,140 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarqube.perf.server;
+
+import com.github.kevinsawicki.http.HttpRequest;
+import com.sonar.orchestrator.Orchestrator;
+import com.sonar.orchestrator.build.SonarScanner;
+import com.sonar.orchestrator.locator.FileLocation;
+import java.io.File;
+import java.io.IOException;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang.StringUtils;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonarsource.sonarqube.perf.PerfTestCase;
+
+import static org.junit.Assert.fail;
+
+/**
+ * Response time of api/measures/component_tree on a synthetic project with a large number of files
+ */
+public class ComponentTreeWsTest extends PerfTestCase {
+
+  private static final String PROJECT_KEY = "component-tree";
+  private static final int NB_DIRECTORIES = 100;
+  private static final int NB_FILES_PER_DIRECTORY = 100;
+
+  @ClassRule
+  public static TemporaryFolder temp = new TemporaryFolder();
+
+  @ClassRule
+  public static Orchestrator orchestrator = Orchestrator.builderEnv()
+    .addPlugin(FileLocation.byWildcardMavenFilename(new File("../../plugins/sonar-xoo-plugin/target"), "sonar-xoo-plugin-*.jar"))
+    .setServerProperty("sonar.web.javaOpts", "-Xmx1G -XX:+HeapDumpOnOutOfMemoryError")
+    .build();
+
+  @BeforeClass
+  public static void scanLargeProject() throws IOException {
+    SonarScanner scanner = SonarScanner.create()
+      .setProperties(
+        "sonar.projectKey", PROJECT_KEY,
+        "sonar.projectName", "Component Tree",
+        "sonar.projectVersion", "1.0",
+        "sonar.sources", "src",
+        "sonar.scm.disabled", "true",
+        "sonar.cpd.exclusions", "**")
+      .setEnvironmentVariable("SONAR_RUNNER_OPTS", "-Xmx512m -server")
+      .setProjectDir(prepareProject());
+    orchestrator.executeBuild(scanner);
+  }
+
+  @Test
+  public void sort_leaves_by_metric() {
+    long duration = request("/api/measures/component_tree?baseComponentKey=" + PROJECT_KEY
+      + "&metricKeys=ncloc,complexity&strategy=leaves&s=metric&metricSort=ncloc&ps=100");
+    assertDurationLessThan(duration, 1_000);
+  }
+
+  @Test
+  public void sort_leaves_by_metric_last_page() {
+    long duration = request("/api/measures/component_tree?baseComponentKey=" + PROJECT_KEY
+      + "&metricKeys=ncloc,complexity&strategy=leaves&s=metric&metricSort=ncloc&ps=100&p=" + (NB_DIRECTORIES * NB_FILES_PER_DIRECTORY / 100));
+    assertDurationLessThan(duration, 1_000);
+  }
+
+  @Test
+  public void sort_leaves_by_name() {
+    long duration = request("/api/measures/component_tree?baseComponentKey=" + PROJECT_KEY
+      + "&metricKeys=ncloc,complexity&strategy=leaves&s=name&ps=100");
+    assertDurationLessThan(duration, 500);
+  }
+
+  /**
+   * @return the best response time in milliseconds, after warm-up
+   */
+  private static long request(String path) {
+    String url = orchestrator.getServer().getUrl() + path;
+
+    // warm-up
+    for (int i = 0; i < 5; i++) {
+      newRequest(url).code();
+    }
+
+    long targetDuration = Long.MAX_VALUE;
+    for (int i = 0; i < 10; i++) {
+      HttpRequest request = newRequest(url);
+      long start = System.currentTimeMillis();
+      if (request.ok()) {
+        int size = request.body().length();
+        long duration = System.currentTimeMillis() - start;
+        targetDuration = Math.min(targetDuration, duration);
+        System.out.printf("##### WS %s %7d ms %7d bytes\n", path, duration, size);
+      }
+    }
+    if (targetDuration == Long.MAX_VALUE) {
+      fail(String.format("Failed to request web service: %s", url));
+    }
+    return targetDuration;
+  }
+
+  private static HttpRequest newRequest(String url) {
+    HttpRequest request = HttpRequest.get(url);
+    request.basic("admin", "admin").followRedirects(false).acceptJson().acceptCharset(HttpRequest.CHARSET_UTF8);
+    return request;
+  }
+
+  private static File prepareProject() throws IOException {
+    File baseDir = temp.newFolder();
+    File srcDir = new File(baseDir, "src");
+    for (int dir = 1; dir <= NB_DIRECTORIES; dir++) {
+      File dirFile = new File(srcDir, "dir" + dir);
+      for (int nb = 1; nb <= NB_FILES_PER_DIRECTORY; nb++) {
+        File xooFile = new File(dirFile, "Sample" + nb + ".xoo");
+        int lines = 1 + (dir * nb) % 50;
+        FileUtils.write(xooFile, StringUtils.repeat("xoo\n", lines));
+        FileUtils.write(new File(dirFile, xooFile.getName() + ".measures"), "ncloc:" + lines + "\ncomplexity:" + (nb % 10) + "\n");
+      }
+    }
+    return baseDir;
+  }
+}